@@ -0,0 +1,71 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Raw AESEngine block throughput, i.e. ECB over a buffer of the given size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AESEngineBenchmark
+{
+    @Param({"128", "192", "256"})
+    public int keySize;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    public int size;
+
+    private MultiBlockCipher encryptor;
+    private MultiBlockCipher decryptor;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        KeyParameter key = new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), keySize / 8));
+
+        encryptor = AESEngine.newInstance();
+        encryptor.init(true, key);
+        decryptor = AESEngine.newInstance();
+        decryptor.init(false, key);
+
+        input = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        output = new byte[size];
+    }
+
+    @Benchmark
+    public byte[] encrypt(ByteCounter counter)
+    {
+        encryptor.processBlocks(input, 0, size / 16, output, 0);
+        counter.bytes += size;
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt(ByteCounter counter)
+    {
+        decryptor.processBlocks(input, 0, size / 16, output, 0);
+        counter.bytes += size;
+        return output;
+    }
+}
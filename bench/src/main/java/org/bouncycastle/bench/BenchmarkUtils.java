@@ -0,0 +1,33 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+
+class BenchmarkUtils
+{
+    static SecureRandom getRandom()
+    {
+        return new SecureRandom();
+    }
+
+    static byte[] randomBytes(SecureRandom random, int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Step a nonce on so that modes which refuse nonce re-use can be re-initialised with the same key.
+     */
+    static void incrementNonce(byte[] nonce)
+    {
+        int pos = nonce.length;
+        while (--pos >= 0)
+        {
+            if (++nonce[pos] != 0)
+            {
+                break;
+            }
+        }
+    }
+}
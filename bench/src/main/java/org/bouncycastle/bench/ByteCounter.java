@@ -0,0 +1,24 @@
+package org.bouncycastle.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Auxiliary JMH counter used by the bulk data benchmarks. Each benchmark invocation adds the number
+ * of bytes it processed, and JMH reports the total as a rate, giving bytes/s alongside ops/s.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ByteCounter
+{
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void clear()
+    {
+        bytes = 0;
+    }
+}
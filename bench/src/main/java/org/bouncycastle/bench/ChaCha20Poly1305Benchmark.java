@@ -0,0 +1,88 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChaCha20-Poly1305 (RFC 8439) encryption and decryption of a complete message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChaCha20Poly1305Benchmark
+{
+    @Param({"64", "1024", "16384", "1048576"})
+    public int size;
+
+    private ChaCha20Poly1305 encryptor;
+    private ChaCha20Poly1305 decryptor;
+    private KeyParameter key;
+    private byte[] nonce;
+    private byte[] decryptNonce;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+        throws InvalidCipherTextException
+    {
+        key = new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 32));
+        nonce = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 12);
+        decryptNonce = (byte[])nonce.clone();
+
+        encryptor = new ChaCha20Poly1305();
+        encryptor.init(true, new AEADParameters(key, 128, nonce));
+        decryptor = new ChaCha20Poly1305();
+
+        plaintext = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        ciphertext = new byte[encryptor.getOutputSize(size)];
+        int len = encryptor.processBytes(plaintext, 0, size, ciphertext, 0);
+        encryptor.doFinal(ciphertext, len);
+
+        output = new byte[ciphertext.length];
+    }
+
+    @Benchmark
+    public byte[] encrypt(ByteCounter counter)
+        throws InvalidCipherTextException
+    {
+        BenchmarkUtils.incrementNonce(nonce);
+        encryptor.init(true, new AEADParameters(key, 128, nonce));
+
+        int len = encryptor.processBytes(plaintext, 0, size, output, 0);
+        encryptor.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt(ByteCounter counter)
+        throws InvalidCipherTextException
+    {
+        decryptor.init(false, new AEADParameters(key, 128, decryptNonce));
+
+        int len = decryptor.processBytes(ciphertext, 0, ciphertext.length, output, 0);
+        decryptor.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+}
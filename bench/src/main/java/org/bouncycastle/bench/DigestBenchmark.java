@@ -0,0 +1,80 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Message digest throughput over a complete message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark
+{
+    @Param({"SHA-256", "SHA-512", "SHA3-256", "BLAKE3-256"})
+    public String algorithm;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    public int size;
+
+    private Digest digest;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        digest = createDigest(algorithm);
+        input = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] digest(ByteCounter counter)
+    {
+        digest.update(input, 0, size);
+        digest.doFinal(output, 0);
+        counter.bytes += size;
+        return output;
+    }
+
+    static Digest createDigest(String name)
+    {
+        if ("SHA-256".equals(name))
+        {
+            return SHA256Digest.newInstance();
+        }
+        if ("SHA-512".equals(name))
+        {
+            return new SHA512Digest();
+        }
+        if ("SHA3-256".equals(name))
+        {
+            return new SHA3Digest(256);
+        }
+        if ("BLAKE3-256".equals(name))
+        {
+            return new Blake3Digest(256);
+        }
+        throw new IllegalArgumentException("unknown digest: " + name);
+    }
+}
@@ -0,0 +1,94 @@
+package org.bouncycastle.bench;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ECDSASigner signature generation and verification over a pre-computed message hash. verifyDecodedKey decodes the
+ * public key for each verification, as when the key comes from a freshly parsed certificate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ECDSASignerBenchmark
+{
+    @Param({"secp256r1", "secp256k1", "secp384r1", "secp521r1"})
+    public String curve;
+
+    private ECDSASigner signer;
+    private ECDSASigner verifier;
+    private ECDomainParameters domainParams;
+    private byte[] publicKeyEncoding;
+    private byte[] hash;
+    private BigInteger[] signature;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        X9ECParameters x9 = CustomNamedCurves.getByName(curve);
+        domainParams = new ECDomainParameters(x9);
+
+        ECKeyPairGenerator kpg = new ECKeyPairGenerator();
+        kpg.init(new ECKeyGenerationParameters(domainParams, random));
+        AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+        signer = new ECDSASigner();
+        signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+        verifier = new ECDSASigner();
+        verifier.init(false, kp.getPublic());
+        publicKeyEncoding = ((ECPublicKeyParameters)kp.getPublic()).getQ().getEncoded(false);
+
+        hash = BenchmarkUtils.randomBytes(random, 32);
+        signature = signer.generateSignature(hash);
+    }
+
+    @Benchmark
+    public BigInteger[] sign()
+    {
+        return signer.generateSignature(hash);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(hash, signature[0], signature[1]);
+    }
+
+    @Benchmark
+    public boolean verifyDecodedKey()
+    {
+        ECPublicKeyParameters publicKey = new ECPublicKeyParameters(
+            domainParams.getCurve().decodePoint(publicKeyEncoding), domainParams);
+
+        ECDSASigner decodedVerifier = new ECDSASigner();
+        decodedVerifier.init(false, publicKey);
+        return decodedVerifier.verifySignature(hash, signature[0], signature[1]);
+    }
+}
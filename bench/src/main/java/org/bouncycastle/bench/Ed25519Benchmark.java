@@ -0,0 +1,143 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.agreement.X25519Agreement;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.params.X25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.X25519PublicKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.math.ec.rfc7748.X25519;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ed25519 signature generation and verification, and X25519 key agreement. The batch verification benchmark
+ * verifies BATCH_SIZE signatures per operation, so compare its score times BATCH_SIZE with ed25519Verify; likewise
+ * x25519AgreementBatch with x25519Agreement. The vector API version of the batch agreement is only used when running
+ * against the provider jar on Java 21 or later, with "--add-modules jdk.incubator.vector".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Ed25519Benchmark
+{
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"64", "1024"})
+    public int size;
+
+    private Ed25519Signer signer;
+    private Ed25519Signer verifier;
+    private byte[] message;
+    private byte[] signature;
+
+    private SecureRandom batchRandom;
+    private Ed25519PublicKeyParameters[] batchKeys;
+    private byte[][] batchMessages;
+    private byte[][] batchSignatures;
+    private boolean[] batchResults;
+
+    private X25519Agreement agreement;
+    private X25519PublicKeyParameters peerKey;
+    private byte[] secret;
+
+    private byte[][] batchPrivateKeys;
+    private byte[][] batchPeerKeys;
+    private byte[][] batchSecrets;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        Ed25519PrivateKeyParameters privateKey = new Ed25519PrivateKeyParameters(random);
+        Ed25519PublicKeyParameters publicKey = privateKey.generatePublicKey();
+
+        signer = new Ed25519Signer();
+        signer.init(true, privateKey);
+        verifier = new Ed25519Signer();
+        verifier.init(false, publicKey);
+
+        message = BenchmarkUtils.randomBytes(random, size);
+        signer.update(message, 0, message.length);
+        signature = signer.generateSignature();
+
+        batchRandom = random;
+        batchKeys = new Ed25519PublicKeyParameters[BATCH_SIZE];
+        batchMessages = new byte[BATCH_SIZE][];
+        batchSignatures = new byte[BATCH_SIZE][];
+        batchResults = new boolean[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; ++i)
+        {
+            Ed25519PrivateKeyParameters batchKey = new Ed25519PrivateKeyParameters(random);
+            batchKeys[i] = batchKey.generatePublicKey();
+            batchMessages[i] = BenchmarkUtils.randomBytes(random, size);
+            batchSignatures[i] = new byte[Ed25519PrivateKeyParameters.SIGNATURE_SIZE];
+            batchKey.sign(Ed25519.Algorithm.Ed25519, null, batchMessages[i], 0, size, batchSignatures[i], 0);
+        }
+
+        agreement = new X25519Agreement();
+        agreement.init(new X25519PrivateKeyParameters(random));
+        peerKey = new X25519PrivateKeyParameters(random).generatePublicKey();
+        secret = new byte[agreement.getAgreementSize()];
+
+        batchPrivateKeys = new byte[BATCH_SIZE][X25519.SCALAR_SIZE];
+        batchPeerKeys = new byte[BATCH_SIZE][];
+        batchSecrets = new byte[BATCH_SIZE][X25519.POINT_SIZE];
+        for (int i = 0; i < BATCH_SIZE; ++i)
+        {
+            X25519.generatePrivateKey(random, batchPrivateKeys[i]);
+            batchPeerKeys[i] = new X25519PrivateKeyParameters(random).generatePublicKey().getEncoded();
+        }
+    }
+
+    @Benchmark
+    public byte[] ed25519Sign()
+    {
+        signer.update(message, 0, message.length);
+        return signer.generateSignature();
+    }
+
+    @Benchmark
+    public boolean ed25519Verify()
+    {
+        verifier.update(message, 0, message.length);
+        return verifier.verifySignature(signature);
+    }
+
+    @Benchmark
+    public boolean ed25519VerifyBatch()
+    {
+        return Ed25519Signer.verifySignatures(batchRandom, batchKeys, batchMessages, batchSignatures, batchResults);
+    }
+
+    @Benchmark
+    public byte[] x25519Agreement()
+    {
+        agreement.calculateAgreement(peerKey, secret, 0);
+        return secret;
+    }
+
+    @Benchmark
+    public byte[][] x25519AgreementBatch()
+    {
+        X25519.scalarMultBatch(batchPrivateKeys, batchPeerKeys, batchSecrets);
+        return batchSecrets;
+    }
+}
@@ -0,0 +1,123 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.gcm.AggregatedGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AES-GCM encryption and decryption of a complete message, for each of the available GCMMultiplier
+ * implementations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GCMBlockCipherBenchmark
+{
+    @Param({"Basic", "Tables4k", "Tables8k", "Tables64k", "Aggregated"})
+    public String multiplier;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    public int size;
+
+    private GCMModeCipher encryptor;
+    private GCMModeCipher decryptor;
+    private byte[] nonce;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+        throws InvalidCipherTextException
+    {
+        KeyParameter key = new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 16));
+        nonce = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 12);
+
+        encryptor = GCMBlockCipher.newInstance(AESEngine.newInstance(), createMultiplier(multiplier));
+        encryptor.init(true, new AEADParameters(key, 128, nonce));
+        decryptor = GCMBlockCipher.newInstance(AESEngine.newInstance(), createMultiplier(multiplier));
+        decryptor.init(false, new AEADParameters(key, 128, nonce));
+
+        plaintext = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        ciphertext = new byte[encryptor.getOutputSize(size)];
+        int len = encryptor.processBytes(plaintext, 0, size, ciphertext, 0);
+        encryptor.doFinal(ciphertext, len);
+
+        output = new byte[ciphertext.length];
+    }
+
+    @Benchmark
+    public byte[] encrypt(ByteCounter counter)
+        throws InvalidCipherTextException
+    {
+        // the key is already set, so only the (fresh) nonce needs to be supplied
+        BenchmarkUtils.incrementNonce(nonce);
+        encryptor.init(true, new AEADParameters(null, 128, nonce));
+
+        int len = encryptor.processBytes(plaintext, 0, size, output, 0);
+        encryptor.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt(ByteCounter counter)
+        throws InvalidCipherTextException
+    {
+        // the decryptor was initialised with the nonce the ciphertext was produced under
+        int len = decryptor.processBytes(ciphertext, 0, ciphertext.length, output, 0);
+        decryptor.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+
+    static GCMMultiplier createMultiplier(String name)
+    {
+        if ("Basic".equals(name))
+        {
+            return new BasicGCMMultiplier();
+        }
+        if ("Tables4k".equals(name))
+        {
+            return new Tables4kGCMMultiplier();
+        }
+        if ("Tables8k".equals(name))
+        {
+            return new Tables8kGCMMultiplier();
+        }
+        if ("Tables64k".equals(name))
+        {
+            return new Tables64kGCMMultiplier();
+        }
+        if ("Aggregated".equals(name))
+        {
+            return new AggregatedGCMMultiplier();
+        }
+        throw new IllegalArgumentException("unknown GCMMultiplier: " + name);
+    }
+}
@@ -0,0 +1,82 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.macs.CMac;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.Poly1305;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MAC throughput over a complete message. The key is set once, so this measures the per-message cost
+ * only.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MacBenchmark
+{
+    @Param({"HMAC-SHA256", "CMAC-AES", "Poly1305"})
+    public String algorithm;
+
+    @Param({"64", "1024", "16384", "1048576"})
+    public int size;
+
+    private Mac mac;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        if ("HMAC-SHA256".equals(algorithm))
+        {
+            mac = new HMac(SHA256Digest.newInstance());
+            mac.init(new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 32)));
+        }
+        else if ("CMAC-AES".equals(algorithm))
+        {
+            mac = new CMac(AESEngine.newInstance());
+            mac.init(new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 16)));
+        }
+        else if ("Poly1305".equals(algorithm))
+        {
+            // Poly1305 without a block cipher is keyed directly with (r, s)
+            mac = new Poly1305();
+            mac.init(new KeyParameter(BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 32)));
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown MAC: " + algorithm);
+        }
+
+        input = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        output = new byte[mac.getMacSize()];
+    }
+
+    @Benchmark
+    public byte[] mac(ByteCounter counter)
+    {
+        mac.update(input, 0, size);
+        mac.doFinal(output, 0);
+        counter.bytes += size;
+        return output;
+    }
+}
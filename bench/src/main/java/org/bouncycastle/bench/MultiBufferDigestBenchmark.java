@@ -0,0 +1,86 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBuffer;
+import org.bouncycastle.crypto.digests.SHA512MultiBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing BATCH_SIZE independent messages, one at a time with the regular digest and all at once with the
+ * multi-buffer digest. The vector API version of the multi-buffer digests is only used when running against the
+ * provider jar on Java 21 or later, with "--add-modules jdk.incubator.vector".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiBufferDigestBenchmark
+{
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"SHA-256", "SHA-512"})
+    public String algorithm;
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    private Digest digest;
+    private byte[][] messages;
+    private byte[][] digests;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        digest = DigestBenchmark.createDigest(algorithm);
+        messages = new byte[BATCH_SIZE][];
+        digests = new byte[BATCH_SIZE][digest.getDigestSize()];
+        for (int i = 0; i < BATCH_SIZE; ++i)
+        {
+            messages[i] = BenchmarkUtils.randomBytes(random, size);
+        }
+    }
+
+    @Benchmark
+    public byte[][] single(ByteCounter counter)
+    {
+        for (int i = 0; i < BATCH_SIZE; ++i)
+        {
+            digest.update(messages[i], 0, size);
+            digest.doFinal(digests[i], 0);
+        }
+        counter.bytes += BATCH_SIZE * size;
+        return digests;
+    }
+
+    @Benchmark
+    public byte[][] multiBuffer(ByteCounter counter)
+    {
+        if ("SHA-256".equals(algorithm))
+        {
+            SHA256MultiBuffer.digest(messages, digests);
+        }
+        else
+        {
+            SHA512MultiBuffer.digest(messages, digests);
+        }
+        counter.bytes += BATCH_SIZE * size;
+        return digests;
+    }
+}
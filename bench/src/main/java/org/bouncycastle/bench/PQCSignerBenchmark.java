@@ -0,0 +1,125 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumParameters;
+import org.bouncycastle.pqc.crypto.crystals.dilithium.DilithiumSigner;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.falcon.FalconParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconSigner;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusParameters;
+import org.bouncycastle.pqc.crypto.sphincsplus.SPHINCSPlusSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Post-quantum MessageSigner signature generation and verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PQCSignerBenchmark
+{
+    @Param({"dilithium2", "dilithium3", "dilithium5", "falcon-512", "falcon-1024", "sphincs+-sha2-128f",
+        "sphincs+-shake-128f"})
+    public String algorithm;
+
+    private MessageSigner signer;
+    private MessageSigner verifier;
+    private byte[] message;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        AsymmetricCipherKeyPair kp;
+        if (algorithm.startsWith("dilithium"))
+        {
+            DilithiumParameters params;
+            if ("dilithium2".equals(algorithm))
+            {
+                params = DilithiumParameters.dilithium2;
+            }
+            else if ("dilithium3".equals(algorithm))
+            {
+                params = DilithiumParameters.dilithium3;
+            }
+            else
+            {
+                params = DilithiumParameters.dilithium5;
+            }
+
+            DilithiumKeyPairGenerator kpg = new DilithiumKeyPairGenerator();
+            kpg.init(new DilithiumKeyGenerationParameters(random, params));
+            kp = kpg.generateKeyPair();
+
+            signer = new DilithiumSigner();
+            verifier = new DilithiumSigner();
+        }
+        else if (algorithm.startsWith("falcon"))
+        {
+            FalconParameters params = "falcon-512".equals(algorithm)
+                ? FalconParameters.falcon_512 : FalconParameters.falcon_1024;
+
+            FalconKeyPairGenerator kpg = new FalconKeyPairGenerator();
+            kpg.init(new FalconKeyGenerationParameters(random, params));
+            kp = kpg.generateKeyPair();
+
+            signer = new FalconSigner();
+            verifier = new FalconSigner();
+        }
+        else
+        {
+            SPHINCSPlusParameters params = "sphincs+-sha2-128f".equals(algorithm)
+                ? SPHINCSPlusParameters.sha2_128f : SPHINCSPlusParameters.shake_128f;
+
+            SPHINCSPlusKeyPairGenerator kpg = new SPHINCSPlusKeyPairGenerator();
+            kpg.init(new SPHINCSPlusKeyGenerationParameters(random, params));
+            kp = kpg.generateKeyPair();
+
+            signer = new SPHINCSPlusSigner();
+            verifier = new SPHINCSPlusSigner();
+        }
+
+        signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+        verifier.init(false, kp.getPublic());
+
+        message = BenchmarkUtils.randomBytes(random, 64);
+        signature = signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        return signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(message, signature);
+    }
+}
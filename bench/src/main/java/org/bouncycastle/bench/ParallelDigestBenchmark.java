@@ -0,0 +1,72 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.ParallelHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tree hash throughput over a large message, hashed sequentially and in parallel on the common ForkJoinPool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelDigestBenchmark
+{
+    @Param({"BLAKE3-256", "ParallelHash256"})
+    public String algorithm;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"16777216"})
+    public int size;
+
+    private Digest digest;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        if ("BLAKE3-256".equals(algorithm))
+        {
+            Blake3Digest blake3 = new Blake3Digest(256);
+            blake3.setExecutor(parallel ? ForkJoinPool.commonPool() : null);
+            digest = blake3;
+        }
+        else
+        {
+            ParallelHash parallelHash = new ParallelHash(256, new byte[0], 8192);
+            parallelHash.setExecutor(parallel ? ForkJoinPool.commonPool() : null);
+            digest = parallelHash;
+        }
+        input = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] digest(ByteCounter counter)
+    {
+        digest.update(input, 0, size);
+        digest.doFinal(output, 0);
+        counter.bytes += size;
+        return output;
+    }
+}
@@ -0,0 +1,104 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time per password hash for the memory-hard functions, with the work done on the calling thread and spread
+ * across a thread pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark
+{
+    @Param({"Argon2id", "SCrypt"})
+    public String algorithm;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    /**
+     * Memory cost in KB, for each SMix in the case of SCrypt (N = memory with r = 8, as 128 * r * N bytes).
+     */
+    @Param({"65536"})
+    public int memory;
+
+    @Param({"4"})
+    public int lanes;
+
+    private ExecutorService executor;
+    private Argon2BytesGenerator.MemoryPool memoryPool;
+    private SCrypt.ScratchCache scratchCache;
+    private Argon2Parameters argon2Parameters;
+    private byte[] salt;
+    private byte[] password;
+    private byte[] output = new byte[32];
+
+    @Setup
+    public void setup()
+    {
+        executor = parallel ? Executors.newFixedThreadPool(lanes) : null;
+        memoryPool = pooled ? new Argon2BytesGenerator.MemoryPool(memory) : null;
+        scratchCache = pooled ? new SCrypt.ScratchCache() : null;
+        salt = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 16);
+
+        argon2Parameters = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+            .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+            .withIterations(3)
+            .withMemoryAsKB(memory)
+            .withParallelism(lanes)
+            .withSalt(salt)
+            .build();
+        password = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 16);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (executor != null)
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] hash()
+    {
+        if ("SCrypt".equals(algorithm))
+        {
+            return SCrypt.generate(password, salt, memory, 8, lanes, output.length, executor, scratchCache);
+        }
+
+        // a new generator per hash, as a service verifying passwords would use
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.setExecutor(executor);
+        generator.setMemoryPool(memoryPool);
+        generator.init(argon2Parameters);
+        generator.generateBytes(password, output);
+        return output;
+    }
+}
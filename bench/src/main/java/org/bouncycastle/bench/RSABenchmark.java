@@ -0,0 +1,87 @@
+package org.bouncycastle.bench;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.RSABlindedEngine;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.signers.PSSSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RSA-PSS (SHA-256) signature generation and verification. With constantTime set, signing uses the fixed-window
+ * Montgomery exponentiation (see the "org.bouncycastle.rsa.constant_time" property) instead of BigInteger.modPow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RSABenchmark
+{
+    @Param({"2048", "3072", "4096"})
+    public int keySize;
+
+    @Param({"false", "true"})
+    public boolean constantTime;
+
+    private PSSSigner signer;
+    private PSSSigner verifier;
+    private byte[] message;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+        throws CryptoException
+    {
+        // NOTE: The property is read once, when the engine class loads; each parameter set runs in its own fork
+        System.setProperty("org.bouncycastle.rsa.constant_time", String.valueOf(constantTime));
+
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        RSAKeyPairGenerator kpg = new RSAKeyPairGenerator();
+        kpg.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, keySize, 100));
+        AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+        signer = new PSSSigner(new RSABlindedEngine(), SHA256Digest.newInstance(), 32);
+        signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+        verifier = new PSSSigner(new RSABlindedEngine(), SHA256Digest.newInstance(), 32);
+        verifier.init(false, kp.getPublic());
+
+        message = BenchmarkUtils.randomBytes(random, 64);
+        signer.update(message, 0, message.length);
+        signature = signer.generateSignature();
+    }
+
+    @Benchmark
+    public byte[] sign()
+        throws CryptoException
+    {
+        signer.update(message, 0, message.length);
+        return signer.generateSignature();
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        verifier.update(message, 0, message.length);
+        return verifier.verifySignature(signature);
+    }
+}
@@ -0,0 +1,59 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single Hash DRBG SecureRandom against a pooled one, shared by several threads each asking for nonce-sized
+ * blocks. Run with -t to vary the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SP800SecureRandomBenchmark
+{
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    private SecureRandom random;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom entropy = BenchmarkUtils.getRandom();
+        byte[] nonce = BenchmarkUtils.randomBytes(entropy, 16);
+
+        SP800SecureRandomBuilder builder = new SP800SecureRandomBuilder(entropy, false);
+
+        random = pooled
+            ? builder.buildPooledHash(new SHA512Digest(), nonce, false)
+            : builder.buildHash(new SHA512Digest(), nonce, false);
+    }
+
+    @Benchmark
+    public byte[] nextBytes()
+    {
+        byte[] block = new byte[32];
+        random.nextBytes(block);
+        return block;
+    }
+}
@@ -0,0 +1,66 @@
+package org.bouncycastle.bench;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ECAlgorithms.sumOfMultiplies over the given number of random points. Multiply the score by the count to
+ * compare the cost per point for different counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SumOfMultipliesBenchmark
+{
+    @Param({"secp256r1", "secp256k1"})
+    public String curve;
+
+    @Param({"16", "256", "4096"})
+    public int count;
+
+    private ECPoint[] points;
+    private BigInteger[] scalars;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = BenchmarkUtils.getRandom();
+
+        X9ECParameters x9 = CustomNamedCurves.getByName(curve);
+        BigInteger n = x9.getN();
+
+        points = new ECPoint[count];
+        scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = x9.getG().multiply(new BigInteger(n.bitLength(), random).mod(n)).normalize();
+            scalars[i] = new BigInteger(n.bitLength(), random).mod(n);
+        }
+    }
+
+    @Benchmark
+    public ECPoint sumOfMultiplies()
+    {
+        return ECAlgorithms.sumOfMultiplies(points, scalars);
+    }
+}
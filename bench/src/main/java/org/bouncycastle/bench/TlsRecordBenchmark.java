@@ -0,0 +1,164 @@
+package org.bouncycastle.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.PSKTlsClient;
+import org.bouncycastle.tls.PSKTlsServer;
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsPSKIdentityManager;
+import org.bouncycastle.tls.TlsProtocol;
+import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.tls.crypto.DefaultTlsBufferPool;
+import org.bouncycastle.tls.crypto.TlsBufferPool;
+import org.bouncycastle.tls.crypto.impl.bc.BcTlsCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TLS record layer throughput: one client-to-server record of the given size, written, transported and read
+ * back by a pair of non-blocking protocol instances, with and without a {@link TlsBufferPool}. Each record is
+ * offered to the server as a header and then a body, as it would arrive from a socket, so that it goes through
+ * the buffered (rather than the whole record) input path.
+ * <p>
+ * Run with "-prof gc" and compare gc.alloc.rate.norm to see the per-record allocation.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TlsRecordBenchmark
+{
+    @Param({"GCM", "ChaCha20Poly1305", "CBC"})
+    public String cipher;
+
+    @Param({"1024", "16384"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    private TlsClientProtocol clientProtocol;
+    private TlsServerProtocol serverProtocol;
+    private byte[] data;
+    private byte[] transport;
+    private byte[] received;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        final int cipherSuite = getCipherSuite(cipher);
+        final TlsBufferPool bufferPool = pooled ? new DefaultTlsBufferPool() : null;
+        final byte[] identity = "bench".getBytes(), psk = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), 32);
+
+        PSKTlsClient client = new PSKTlsClient(new BcTlsCrypto(BenchmarkUtils.getRandom()), identity, psk)
+        {
+            protected int[] getSupportedCipherSuites()
+            {
+                return new int[]{ cipherSuite };
+            }
+
+            public TlsBufferPool getBufferPool()
+            {
+                return bufferPool;
+            }
+        };
+        PSKTlsServer server = new PSKTlsServer(new BcTlsCrypto(BenchmarkUtils.getRandom()), new TlsPSKIdentityManager()
+        {
+            public byte[] getHint()
+            {
+                return null;
+            }
+
+            public byte[] getPSK(byte[] pskIdentity)
+            {
+                return psk;
+            }
+        })
+        {
+            public TlsBufferPool getBufferPool()
+            {
+                return bufferPool;
+            }
+        };
+
+        clientProtocol = new TlsClientProtocol();
+        serverProtocol = new TlsServerProtocol();
+
+        clientProtocol.connect(client);
+        serverProtocol.accept(server);
+
+        transport = new byte[1 << 16];
+
+        while (pump(clientProtocol, serverProtocol) | pump(serverProtocol, clientProtocol))
+        {
+        }
+
+        if (!clientProtocol.isConnected() || !serverProtocol.isConnected())
+        {
+            throw new IllegalStateException("handshake failed");
+        }
+
+        data = BenchmarkUtils.randomBytes(BenchmarkUtils.getRandom(), size);
+        received = new byte[size];
+    }
+
+    @Benchmark
+    public byte[] record(ByteCounter counter)
+        throws IOException
+    {
+        clientProtocol.writeApplicationData(data, 0, size);
+
+        int length = clientProtocol.readOutput(transport, 0, transport.length);
+        serverProtocol.offerInput(transport, 0, 5);
+        serverProtocol.offerInput(transport, 5, length - 5);
+
+        serverProtocol.readInput(received, 0, size);
+        counter.bytes += size;
+        return received;
+    }
+
+    private boolean pump(TlsProtocol from, TlsProtocol to)
+        throws IOException
+    {
+        int length = from.readOutput(transport, 0, transport.length);
+        if (length < 1)
+        {
+            return false;
+        }
+
+        to.offerInput(transport, 0, length);
+        return true;
+    }
+
+    private static int getCipherSuite(String cipher)
+    {
+        if ("GCM".equals(cipher))
+        {
+            return CipherSuite.TLS_DHE_PSK_WITH_AES_128_GCM_SHA256;
+        }
+        if ("ChaCha20Poly1305".equals(cipher))
+        {
+            return CipherSuite.TLS_ECDHE_PSK_WITH_CHACHA20_POLY1305_SHA256;
+        }
+        if ("CBC".equals(cipher))
+        {
+            return CipherSuite.TLS_ECDHE_PSK_WITH_AES_128_CBC_SHA256;
+        }
+        throw new IllegalArgumentException("unknown cipher: " + cipher);
+    }
+}
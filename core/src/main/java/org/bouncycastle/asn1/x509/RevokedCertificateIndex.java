@@ -0,0 +1,174 @@
+package org.bouncycastle.asn1.x509;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERSequence;
+
+/**
+ * An index of the revoked certificates in a TBSCertList by serial number, for CRLs that are large enough, or
+ * searched often enough, that scanning the entries on each lookup is too slow.
+ * <p>
+ * The index is an open-addressed hash table of entry positions, so it takes a few ints per entry; the entries
+ * themselves are only wrapped, as CRLEntry objects, when a lookup finds them. For indirect CRLs the positions of
+ * the entries carrying a certificateIssuer extension are also recorded, so that the certificate issuer in effect
+ * for any entry can be found without going through the ones before it.
+ * </p>
+ */
+public class RevokedCertificateIndex
+{
+    private final ASN1Sequence entries;
+    private final int[] table;
+    private final int shift;
+    private final int[] issuerPositions;
+
+    /**
+     * Build an index of the revoked certificates in the passed in TBSCertList.
+     *
+     * @param tbsCertList the TBSCertList to index.
+     * @param isIndirect true if the CRL is an indirect CRL (its entries may carry a certificateIssuer extension).
+     */
+    public RevokedCertificateIndex(TBSCertList tbsCertList, boolean isIndirect)
+    {
+        ASN1Sequence entries = (null == tbsCertList.revokedCertificates)
+            ? new DERSequence()
+            : tbsCertList.revokedCertificates;
+
+        int count = entries.size();
+        int bits = 1;
+        while ((1 << bits) < count + (count >>> 1))
+        {
+            ++bits;
+        }
+
+        int[] table = new int[1 << bits];
+        int shift = 32 - bits, mask = table.length - 1;
+
+        int[] issuerPositions = new int[0];
+        int issuerCount = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(entries.getObjectAt(i));
+
+            // NOTE: Slots hold position + 1, so that zero marks an empty slot
+            int slot = hash(entry.getUserCertificate().getValue().intValue(), shift);
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+
+            if (isIndirect && entry.hasExtensions()
+                && null != entry.getExtensions().getExtension(Extension.certificateIssuer))
+            {
+                if (issuerCount == issuerPositions.length)
+                {
+                    int[] tmp = new int[Math.max(4, issuerCount * 2)];
+                    System.arraycopy(issuerPositions, 0, tmp, 0, issuerCount);
+                    issuerPositions = tmp;
+                }
+                issuerPositions[issuerCount++] = i;
+            }
+        }
+
+        if (issuerCount < issuerPositions.length)
+        {
+            int[] tmp = new int[issuerCount];
+            System.arraycopy(issuerPositions, 0, tmp, 0, issuerCount);
+            issuerPositions = tmp;
+        }
+
+        this.entries = entries;
+        this.table = table;
+        this.shift = shift;
+        this.issuerPositions = issuerPositions;
+    }
+
+    /**
+     * Return the number of entries in the CRL.
+     *
+     * @return the number of revoked certificates.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Return the position of the first entry for the passed in serial number.
+     *
+     * @param serialNumber the serial number of the certificate of interest.
+     * @return the position of the entry in the CRL, or -1 if the serial number is not present.
+     */
+    public int indexOf(BigInteger serialNumber)
+    {
+        int mask = table.length - 1;
+        int slot = hash(serialNumber.intValue(), shift);
+
+        // NOTE: Positions were inserted in order, so the first match found is the earliest entry
+        int position;
+        while ((position = table[slot]) != 0)
+        {
+            if (getEntry(position - 1).getUserCertificate().hasValue(serialNumber))
+            {
+                return position - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Return the entry at the passed in position.
+     *
+     * @param position the position of the entry in the CRL.
+     * @return the CRL entry.
+     */
+    public TBSCertList.CRLEntry getEntry(int position)
+    {
+        return TBSCertList.CRLEntry.getInstance(entries.getObjectAt(position));
+    }
+
+    /**
+     * Return the certificate issuer in effect for the entry at the passed in position, being the certificateIssuer
+     * extension of that entry or, failing that, of the nearest entry before it that has one.
+     *
+     * @param position the position of the entry in the CRL.
+     * @return the certificate issuer, or null if it is the issuer of the CRL (always the case for a direct CRL).
+     */
+    public GeneralNames getCertificateIssuer(int position)
+    {
+        int low = 0, high = issuerPositions.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (issuerPositions[mid] <= position)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        if (high < 0)
+        {
+            return null;
+        }
+
+        Extension certificateIssuer = getEntry(issuerPositions[high]).getExtensions()
+            .getExtension(Extension.certificateIssuer);
+
+        return GeneralNames.getInstance(certificateIssuer.getParsedValue());
+    }
+
+    private static int hash(int lowBits, int shift)
+    {
+        // NOTE: Fibonacci hashing, so that serial numbers whose low bits follow a pattern still spread out
+        return (lowBits * 0x9E3779B9) >>> shift;
+    }
+}
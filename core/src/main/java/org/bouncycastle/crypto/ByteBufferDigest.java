@@ -0,0 +1,19 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A digest which can also be updated directly from a ByteBuffer, heap or direct, without the caller
+ * first copying the data into a byte array.
+ */
+public interface ByteBufferDigest
+    extends Digest
+{
+    /**
+     * Update the message digest with the remaining bytes in the passed in buffer. On return the
+     * position of input will be equal to its limit.
+     *
+     * @param input the buffer containing the data to be added.
+     */
+    void update(ByteBuffer input);
+}
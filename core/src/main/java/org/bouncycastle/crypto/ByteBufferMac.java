@@ -0,0 +1,21 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A MAC which can also be updated directly from a ByteBuffer, heap or direct, without the caller
+ * first copying the data into a byte array.
+ */
+public interface ByteBufferMac
+    extends Mac
+{
+    /**
+     * Add the remaining bytes in the passed in buffer to the MAC. On return the position of input will
+     * be equal to its limit.
+     *
+     * @param input the buffer containing the data to be added.
+     * @throws IllegalStateException if the MAC is not initialised.
+     */
+    void update(ByteBuffer input)
+        throws IllegalStateException;
+}
@@ -0,0 +1,25 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A stream cipher which can also process data held in ByteBuffers, heap or direct, without the
+ * caller first copying the data into byte arrays.
+ */
+public interface ByteBufferStreamCipher
+    extends StreamCipher
+{
+    /**
+     * Process the remaining bytes in input, writing the same number of bytes to output. On return the
+     * position of input will be equal to its limit and the position of output will have advanced by the
+     * number of bytes processed. Processing in place is supported where input and output are views of the
+     * same memory starting at the same point.
+     *
+     * @param input the buffer containing the data to be processed.
+     * @param output the buffer the processed data is written to.
+     * @return the number of bytes written to output.
+     * @throws OutputLengthException if output has fewer bytes remaining than input.
+     */
+    int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException;
+}
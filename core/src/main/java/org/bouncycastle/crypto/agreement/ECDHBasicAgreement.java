@@ -11,6 +11,10 @@
 import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECConstants;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.ECPointCache;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.WNafPreCompInfo;
+import org.bouncycastle.math.ec.WNafUtil;
 
 /**
  * P1363 7.2.1 ECSVDP-DH
@@ -70,7 +74,14 @@ public BigInteger calculateAgreement(
             Q = ECAlgorithms.referenceMultiply(Q, h);
         }
 
-        ECPoint P = Q.multiply(d).normalize();
+        // NOTE: Reuse any precomputation for this public key from earlier agreements
+        Q = ECPointCache.getInstance().get(Q);
+
+        // Once a public key is in regular use, switch to the fixed-point comb for it
+        WNafPreCompInfo info = WNafUtil.getWNafPreCompInfo(Q);
+        ECPoint P = (null != info && info.isPromoted())
+            ? new FixedPointCombMultiplier().multiply(Q, d).normalize()
+            : Q.multiply(d).normalize();
         if (P.isInfinity())
         {
             throw new IllegalStateException("Infinity is not a valid agreement value for ECDH");
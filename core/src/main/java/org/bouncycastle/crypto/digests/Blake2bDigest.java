@@ -25,10 +25,11 @@
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
-import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.SavableDigest;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Longs;
+import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.Pack;
 
 
@@ -45,7 +46,7 @@
  * between 1 and 64 bytes.
  */
 public class Blake2bDigest
-    implements ExtendedDigest
+    implements SavableDigest
 {
     // Blake2b Initialization Vector:
     private final static long[] blake2b_IV =
@@ -139,6 +140,78 @@ public Blake2bDigest(int digestSize)
 
 
     public Blake2bDigest(Blake2bDigest digest)
+    {
+        this.purpose = digest.purpose;
+
+        copyIn(digest);
+    }
+
+    /**
+     * Create a digest initialised with the state of a previous one, as returned by {@link #getEncodedState()}.
+     * <p>
+     * Note: the state of a keyed digest includes the key.
+     * </p>
+     *
+     * @param encodedState the encoded state from the originating digest.
+     * @return a new digest, carrying on from the encoded state.
+     */
+    public static Blake2bDigest newInstance(byte[] encodedState)
+    {
+        CryptoServicePurpose[] values = CryptoServicePurpose.values();
+
+        return new Blake2bDigest(values[encodedState[encodedState.length - 1]], encodedState);
+    }
+
+    private Blake2bDigest(CryptoServicePurpose purpose, byte[] encodedState)
+    {
+        this.purpose = purpose;
+
+        chainValue = new long[8];
+        Pack.littleEndianToLong(encodedState, 0, chainValue);
+        t0 = Pack.bigEndianToLong(encodedState, 64);
+        t1 = Pack.bigEndianToLong(encodedState, 72);
+        nodeOffset = Pack.bigEndianToLong(encodedState, 80);
+        leafLength = Pack.bigEndianToInt(encodedState, 88);
+        bufferPos = Pack.bigEndianToInt(encodedState, 92);
+        digestLength = encodedState[96] & 0xFF;
+        keyLength = encodedState[97] & 0xFF;
+        fanout = encodedState[98] & 0xFF;
+        depth = encodedState[99] & 0xFF;
+        nodeDepth = encodedState[100] & 0xFF;
+        innerHashLength = encodedState[101] & 0xFF;
+
+        int flags = encodedState[102];
+        if (digestLength < 1 || digestLength > 64 || keyLength > 64 || bufferPos < 0 || bufferPos > BLOCK_LENGTH_BYTES)
+        {
+            throw new IllegalArgumentException("invalid encoded state");
+        }
+
+        isLastNode = (flags & 1) != 0;
+
+        int pos = 103;
+        if ((flags & 2) != 0)
+        {
+            salt = Arrays.copyOfRange(encodedState, pos, pos + 16);
+            pos += 16;
+        }
+        if ((flags & 4) != 0)
+        {
+            personalization = Arrays.copyOfRange(encodedState, pos, pos + 16);
+            pos += 16;
+        }
+        if ((flags & 8) != 0)
+        {
+            key = Arrays.copyOfRange(encodedState, pos, pos + keyLength);
+            pos += keyLength;
+        }
+
+        buffer = new byte[BLOCK_LENGTH_BYTES];
+        System.arraycopy(encodedState, pos, buffer, 0, bufferPos);
+
+        CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, digestLength * 8, purpose));
+    }
+
+    private void copyIn(Blake2bDigest digest)
     {
         this.bufferPos = digest.bufferPos;
         this.buffer = Arrays.clone(digest.buffer);
@@ -151,8 +224,13 @@ public Blake2bDigest(Blake2bDigest digest)
         this.t0 = digest.t0;
         this.t1 = digest.t1;
         this.f0 = digest.f0;
-        this.purpose = digest.purpose;
-
+        this.fanout = digest.fanout;
+        this.depth = digest.depth;
+        this.leafLength = digest.leafLength;
+        this.nodeOffset = digest.nodeOffset;
+        this.nodeDepth = digest.nodeDepth;
+        this.innerHashLength = digest.innerHashLength;
+        this.isLastNode = digest.isLastNode;
     }
 
     /**
@@ -624,4 +702,65 @@ public void clearSalt()
             Arrays.fill(salt, (byte)0);
         }
     }
+
+    public Memoable copy()
+    {
+        return new Blake2bDigest(this);
+    }
+
+    public void reset(Memoable other)
+    {
+        copyIn((Blake2bDigest)other);
+    }
+
+    /**
+     * Return an encoding of the digest's internal state. For a keyed digest this includes the key, so the encoding
+     * needs to be protected in the same way as the key.
+     *
+     * @return an encoding of the digest's internal state.
+     */
+    public byte[] getEncodedState()
+    {
+        int flags = (isLastNode ? 1 : 0) | (salt != null ? 2 : 0) | (personalization != null ? 4 : 0)
+            | (key != null ? 8 : 0);
+
+        byte[] state = new byte[103 + (salt != null ? 16 : 0) + (personalization != null ? 16 : 0)
+            + (key != null ? keyLength : 0) + bufferPos + 1];
+
+        Pack.longToLittleEndian(chainValue, state, 0);
+        Pack.longToBigEndian(t0, state, 64);
+        Pack.longToBigEndian(t1, state, 72);
+        Pack.longToBigEndian(nodeOffset, state, 80);
+        Pack.intToBigEndian(leafLength, state, 88);
+        Pack.intToBigEndian(bufferPos, state, 92);
+        state[96] = (byte)digestLength;
+        state[97] = (byte)keyLength;
+        state[98] = (byte)fanout;
+        state[99] = (byte)depth;
+        state[100] = (byte)nodeDepth;
+        state[101] = (byte)innerHashLength;
+        state[102] = (byte)flags;
+
+        int pos = 103;
+        if (salt != null)
+        {
+            System.arraycopy(salt, 0, state, pos, 16);
+            pos += 16;
+        }
+        if (personalization != null)
+        {
+            System.arraycopy(personalization, 0, state, pos, 16);
+            pos += 16;
+        }
+        if (key != null)
+        {
+            System.arraycopy(key, 0, state, pos, keyLength);
+            pos += keyLength;
+        }
+        System.arraycopy(buffer, 0, state, pos, bufferPos);
+
+        state[state.length - 1] = (byte)purpose.ordinal();
+
+        return state;
+    }
 }
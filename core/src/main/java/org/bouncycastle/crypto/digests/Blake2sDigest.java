@@ -25,10 +25,11 @@
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
-import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.SavableDigest;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Integers;
+import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.Pack;
 
 /**
@@ -44,7 +45,7 @@
  * between 1 and 32 bytes.
  */
 public class Blake2sDigest
-    implements ExtendedDigest
+    implements SavableDigest
 {
     /**
      * BLAKE2s Initialization Vector
@@ -157,6 +158,77 @@ public Blake2sDigest(int digestSize)
     }
 
     public Blake2sDigest(Blake2sDigest digest)
+    {
+        this.purpose = digest.purpose;
+
+        copyIn(digest);
+    }
+
+    /**
+     * Create a digest initialised with the state of a previous one, as returned by {@link #getEncodedState()}.
+     * <p/>
+     * Note: the state of a keyed digest includes the key.
+     *
+     * @param encodedState the encoded state from the originating digest.
+     * @return a new digest, carrying on from the encoded state.
+     */
+    public static Blake2sDigest newInstance(byte[] encodedState)
+    {
+        CryptoServicePurpose[] values = CryptoServicePurpose.values();
+
+        return new Blake2sDigest(values[encodedState[encodedState.length - 1]], encodedState);
+    }
+
+    private Blake2sDigest(CryptoServicePurpose purpose, byte[] encodedState)
+    {
+        this.purpose = purpose;
+
+        chainValue = new int[8];
+        Pack.littleEndianToInt(encodedState, 0, chainValue);
+        t0 = Pack.bigEndianToInt(encodedState, 32);
+        t1 = Pack.bigEndianToInt(encodedState, 36);
+        nodeOffset = Pack.bigEndianToLong(encodedState, 40);
+        leafLength = Pack.bigEndianToInt(encodedState, 48);
+        bufferPos = Pack.bigEndianToInt(encodedState, 52);
+        digestLength = encodedState[56] & 0xFF;
+        keyLength = encodedState[57] & 0xFF;
+        fanout = encodedState[58] & 0xFF;
+        depth = encodedState[59] & 0xFF;
+        nodeDepth = encodedState[60] & 0xFF;
+        innerHashLength = encodedState[61] & 0xFF;
+
+        int flags = encodedState[62];
+        if (digestLength < 1 || digestLength > 32 || keyLength > 32 || bufferPos < 0 || bufferPos > BLOCK_LENGTH_BYTES)
+        {
+            throw new IllegalArgumentException("invalid encoded state");
+        }
+
+        isLastNode = (flags & 1) != 0;
+
+        int pos = 63;
+        if ((flags & 2) != 0)
+        {
+            salt = Arrays.copyOfRange(encodedState, pos, pos + 8);
+            pos += 8;
+        }
+        if ((flags & 4) != 0)
+        {
+            personalization = Arrays.copyOfRange(encodedState, pos, pos + 8);
+            pos += 8;
+        }
+        if ((flags & 8) != 0)
+        {
+            key = Arrays.copyOfRange(encodedState, pos, pos + keyLength);
+            pos += keyLength;
+        }
+
+        buffer = new byte[BLOCK_LENGTH_BYTES];
+        System.arraycopy(encodedState, pos, buffer, 0, bufferPos);
+
+        CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, digestLength * 8, purpose));
+    }
+
+    private void copyIn(Blake2sDigest digest)
     {
         this.bufferPos = digest.bufferPos;
         this.buffer = Arrays.clone(digest.buffer);
@@ -176,7 +248,7 @@ public Blake2sDigest(Blake2sDigest digest)
         this.nodeOffset = digest.nodeOffset;
         this.nodeDepth = digest.nodeDepth;
         this.innerHashLength = digest.innerHashLength;
-        this.purpose = digest.purpose;
+        this.isLastNode = digest.isLastNode;
     }
 
     /**
@@ -637,4 +709,65 @@ public void clearSalt()
             Arrays.fill(salt, (byte)0);
         }
     }
+
+    public Memoable copy()
+    {
+        return new Blake2sDigest(this);
+    }
+
+    public void reset(Memoable other)
+    {
+        copyIn((Blake2sDigest)other);
+    }
+
+    /**
+     * Return an encoding of the digest's internal state. For a keyed digest this includes the key, so the encoding
+     * needs to be protected in the same way as the key.
+     *
+     * @return an encoding of the digest's internal state.
+     */
+    public byte[] getEncodedState()
+    {
+        int flags = (isLastNode ? 1 : 0) | (salt != null ? 2 : 0) | (personalization != null ? 4 : 0)
+            | (key != null ? 8 : 0);
+
+        byte[] state = new byte[63 + (salt != null ? 8 : 0) + (personalization != null ? 8 : 0)
+            + (key != null ? keyLength : 0) + bufferPos + 1];
+
+        Pack.intToLittleEndian(chainValue, state, 0);
+        Pack.intToBigEndian(t0, state, 32);
+        Pack.intToBigEndian(t1, state, 36);
+        Pack.longToBigEndian(nodeOffset, state, 40);
+        Pack.intToBigEndian(leafLength, state, 48);
+        Pack.intToBigEndian(bufferPos, state, 52);
+        state[56] = (byte)digestLength;
+        state[57] = (byte)keyLength;
+        state[58] = (byte)fanout;
+        state[59] = (byte)depth;
+        state[60] = (byte)nodeDepth;
+        state[61] = (byte)innerHashLength;
+        state[62] = (byte)flags;
+
+        int pos = 63;
+        if (salt != null)
+        {
+            System.arraycopy(salt, 0, state, pos, 8);
+            pos += 8;
+        }
+        if (personalization != null)
+        {
+            System.arraycopy(personalization, 0, state, pos, 8);
+            pos += 8;
+        }
+        if (key != null)
+        {
+            System.arraycopy(key, 0, state, pos, keyLength);
+            pos += keyLength;
+        }
+        System.arraycopy(buffer, 0, state, pos, bufferPos);
+
+        state[state.length - 1] = (byte)purpose.ordinal();
+
+        return state;
+    }
 }
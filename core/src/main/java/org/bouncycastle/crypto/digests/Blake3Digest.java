@@ -2,11 +2,13 @@
 
 import java.util.Iterator;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
-import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.SavableDigest;
 import org.bouncycastle.crypto.Xof;
 import org.bouncycastle.crypto.params.Blake3Parameters;
 import org.bouncycastle.util.Arrays;
@@ -16,9 +18,14 @@
 
 /**
  * Blake3 implementation.
+ * <p>
+ * Large inputs can be hashed in parallel by setting an executor (see {@link #setExecutor(Executor)}): whole
+ * subtrees of 64 chunks are then hashed as separate tasks, and their chaining values merged into the tree in
+ * order, so the output is the same as for sequential hashing.
+ * </p>
  */
 public class Blake3Digest
-    implements ExtendedDigest, Memoable, Xof
+    implements SavableDigest, Xof
 {
     /**
      * Already outputting error.
@@ -45,6 +52,16 @@
      */
     private static final int CHUNKLEN = 1024;
 
+    /**
+     * Number of chunks in a subtree hashed as a single parallel task.
+     */
+    private static final int SUBTREE_CHUNKS = 64;
+
+    /**
+     * Log2 of SUBTREE_CHUNKS.
+     */
+    private static final int SUBTREE_SHIFT = 6;
+
     /**
      * ChunkStart Flag.
      */
@@ -255,6 +272,11 @@
     // digest purpose
     private final CryptoServicePurpose purpose;
 
+    /**
+     * The executor for parallel hashing, if any.
+     */
+    private Executor executor;
+
     /**
      * Constructor.
      */
@@ -305,6 +327,93 @@ public Blake3Digest(final Blake3Digest pSource)
 
         /* Initialise from source */
         reset(pSource);
+        executor = pSource.executor;
+    }
+
+    /**
+     * State constructor - create a digest initialised with the state of a previous one.
+     * <p>
+     * Note: the state of a keyed digest includes the key.
+     * </p>
+     *
+     * @param pEncodedState the encoded state from the originating digest.
+     */
+    public Blake3Digest(final byte[] pEncodedState)
+    {
+        /* Access purpose and digest length */
+        final CryptoServicePurpose[] myValues = CryptoServicePurpose.values();
+        purpose = myValues[pEncodedState[pEncodedState.length - 1]];
+        theDigestLen = Pack.bigEndianToInt(pEncodedState, 0);
+
+        /* Restore counters and key */
+        theMode = Pack.bigEndianToInt(pEncodedState, 4);
+        theCounter = Pack.bigEndianToLong(pEncodedState, 8);
+        theCurrBytes = Pack.bigEndianToInt(pEncodedState, 16);
+        thePos = Pack.bigEndianToInt(pEncodedState, 20);
+        Pack.littleEndianToInt(pEncodedState, 24, theK);
+        Pack.littleEndianToInt(pEncodedState, 56, theChaining);
+        outputting = pEncodedState[88] != 0;
+        if (thePos < 0 || thePos > BLOCKLEN)
+        {
+            throw new IllegalArgumentException("invalid encoded state");
+        }
+
+        /* Restore stack */
+        final int myDepth = pEncodedState[89] & 0xFF;
+        int myPos = 90;
+        for (int i = 0; i < myDepth; i++)
+        {
+            final int[] myCV = new int[NUMWORDS];
+            Pack.littleEndianToInt(pEncodedState, myPos, myCV);
+            theStack.push(myCV);
+            myPos += NUMWORDS * Integers.BYTES;
+        }
+
+        /* Restore buffer */
+        final int myBufOff = outputting ? thePos : 0;
+        final int myBufLen = outputting ? BLOCKLEN - thePos : thePos;
+        System.arraycopy(pEncodedState, myPos, theBuffer, myBufOff, myBufLen);
+        myPos += myBufLen;
+
+        /* Restore output state */
+        if (outputting)
+        {
+            outputAvailable = Pack.bigEndianToLong(pEncodedState, myPos);
+            theOutputMode = Pack.bigEndianToInt(pEncodedState, myPos + 8);
+            theOutputDataLen = Pack.bigEndianToInt(pEncodedState, myPos + 12);
+            Pack.littleEndianToInt(pEncodedState, myPos + 16, theM);
+        }
+
+        CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, getDigestSize() * 8, purpose));
+    }
+
+    /**
+     * Subtree worker constructor.
+     *
+     * @param pKey  the key
+     * @param pMode the mode
+     */
+    private Blake3Digest(final int[] pKey,
+                         final int pMode)
+    {
+        theDigestLen = 0;
+        purpose = CryptoServicePurpose.ANY;
+
+        System.arraycopy(pKey, 0, theK, 0, NUMWORDS);
+        theMode = pMode;
+    }
+
+    /**
+     * Set an executor to use for hashing large updates in parallel, or null to hash sequentially (the default). The
+     * output is the same either way. The executor is only used for updates with at least two subtrees' worth
+     * (2 * 64KB) of data, and update() waits for the tasks it submits to complete. If a task fails, the exception is
+     * passed on by update() and the digest must be reset before it is used again.
+     *
+     * @param executor the executor to run subtree tasks on, such as a ForkJoinPool.
+     */
+    public void setExecutor(final Executor executor)
+    {
+        this.executor = executor;
     }
 
     public int getByteLength()
@@ -436,12 +545,24 @@ public void update(final byte[] pMessage,
         }
 
         /* process all blocks except the last one */
-        int messagePos;
+        int messagePos = pOffset + remainingLen;
         final int blockWiseLastPos = pOffset + pLen - BLOCKLEN;
-        for (messagePos = pOffset + remainingLen; messagePos < blockWiseLastPos; messagePos += BLOCKLEN)
+        while (messagePos < blockWiseLastPos)
         {
+            /* Hash whole subtrees in parallel if we can */
+            if (executor != null && theCurrBytes == 0)
+            {
+                final int myNextPos = compressSubtrees(pMessage, messagePos, pOffset + pLen);
+                if (myNextPos != messagePos)
+                {
+                    messagePos = myNextPos;
+                    continue;
+                }
+            }
+
             /* Process the buffer */
             compressBlock(pMessage, messagePos);
+            messagePos += BLOCKLEN;
         }
 
         /* Fill the buffer with the remaining bytes of the message */
@@ -532,6 +653,7 @@ public int doOutput(final byte[] pOut,
     public void reset()
     {
         resetBlockCount();
+        theStack.clear();
         thePos = 0;
         outputting = false;
         Arrays.fill(theBuffer, (byte)0);
@@ -575,6 +697,57 @@ public Memoable copy()
         return new Blake3Digest(this);
     }
 
+    /**
+     * Return an encoding of the digest's internal state. For a keyed digest this includes the key, so the encoding
+     * needs to be protected in the same way as the key.
+     *
+     * @return an encoding of the digest's internal state.
+     */
+    public byte[] getEncodedState()
+    {
+        /* Determine the length */
+        final int myCVLen = NUMWORDS * Integers.BYTES;
+        final int myBufOff = outputting ? thePos : 0;
+        final int myBufLen = outputting ? BLOCKLEN - thePos : thePos;
+        final int myLen = 90 + theStack.size() * myCVLen + myBufLen + (outputting ? 16 + (myCVLen << 1) : 0) + 1;
+        final byte[] myState = new byte[myLen];
+
+        /* Store counters and key */
+        Pack.intToBigEndian(theDigestLen, myState, 0);
+        Pack.intToBigEndian(theMode, myState, 4);
+        Pack.longToBigEndian(theCounter, myState, 8);
+        Pack.intToBigEndian(theCurrBytes, myState, 16);
+        Pack.intToBigEndian(thePos, myState, 20);
+        Pack.intToLittleEndian(theK, myState, 24);
+        Pack.intToLittleEndian(theChaining, myState, 56);
+        myState[88] = (byte)(outputting ? 1 : 0);
+
+        /* Store stack, oldest first */
+        myState[89] = (byte)theStack.size();
+        int myPos = 90;
+        for (Iterator it = theStack.iterator(); it.hasNext(); )
+        {
+            Pack.intToLittleEndian((int[])it.next(), myState, myPos);
+            myPos += myCVLen;
+        }
+
+        /* Store buffer - the unread output when outputting */
+        System.arraycopy(theBuffer, myBufOff, myState, myPos, myBufLen);
+        myPos += myBufLen;
+
+        /* Store output state */
+        if (outputting)
+        {
+            Pack.longToBigEndian(outputAvailable, myState, myPos);
+            Pack.intToBigEndian(theOutputMode, myState, myPos + 8);
+            Pack.intToBigEndian(theOutputDataLen, myState, myPos + 12);
+            Pack.intToLittleEndian(theM, myState, myPos + 16);
+        }
+
+        myState[myLen - 1] = (byte)purpose.ordinal();
+        return myState;
+    }
+
     /**
      * Compress next block of the message.
      *
@@ -592,17 +765,86 @@ private void compressBlock(final byte[] pMessage,
         /* Adjust stack if we have completed a block */
         if (theCurrBytes == 0)
         {
-            adjustStack();
+            adjustStack(theCounter);
+        }
+    }
+
+    /**
+     * Compress as many whole subtrees as possible in parallel, leaving at least one byte of the message.
+     *
+     * @param pMessage the message buffer
+     * @param pMsgPos  the position within the message buffer, at the start of a chunk
+     * @param pMsgEnd  the end of the message data
+     * @return the position after the last subtree compressed
+     */
+    private int compressSubtrees(final byte[] pMessage,
+                                 final int pMsgPos,
+                                 final int pMsgEnd)
+    {
+        /* Subtrees must be aligned, and there must be enough of them to be worth it */
+        final int mySubtreeLen = SUBTREE_CHUNKS * CHUNKLEN;
+        final int myCount = (pMsgEnd - pMsgPos - 1) / mySubtreeLen;
+        if ((theCounter & (SUBTREE_CHUNKS - 1)) != 0 || myCount < 2)
+        {
+            return pMsgPos;
+        }
+
+        /* Hash the subtrees, and add their chaining values to the stack in order */
+        final OrderedTaskQueue<int[]> myTasks = new OrderedTaskQueue<int[]>(executor);
+        int mySubmitted = 0;
+        for (int i = 0; i < myCount; i++)
+        {
+            while (mySubmitted < myCount && !myTasks.isFull())
+            {
+                myTasks.submit(new SubtreeTask(theK, theMode, pMessage, pMsgPos + mySubmitted * mySubtreeLen,
+                    theCounter + (long)(mySubmitted - i) * SUBTREE_CHUNKS));
+                mySubmitted++;
+            }
+
+            System.arraycopy(myTasks.take(), 0, theChaining, 0, NUMWORDS);
+            theCounter += SUBTREE_CHUNKS;
+            adjustStack(theCounter >> SUBTREE_SHIFT);
+        }
+
+        return pMsgPos + myCount * mySubtreeLen;
+    }
+
+    /**
+     * Compute the chaining value of a whole subtree (called on a worker digest).
+     *
+     * @param pMessage the message buffer
+     * @param pMsgPos  the position of the subtree within the message buffer
+     * @param pCounter the counter of the first chunk in the subtree
+     * @return the chaining value
+     */
+    private int[] compressSubtree(final byte[] pMessage,
+                                  final int pMsgPos,
+                                  final long pCounter)
+    {
+        theCounter = pCounter;
+        theCurrBytes = 0;
+        for (int i = 0; i < SUBTREE_CHUNKS; i++)
+        {
+            for (int j = 0; j < CHUNKLEN; j += BLOCKLEN)
+            {
+                initChunkBlock(BLOCKLEN, false);
+                initM(pMessage, pMsgPos + i * CHUNKLEN + j);
+                compress();
+            }
+            adjustStack(i + 1);
         }
+        return (int[])theStack.pop();
     }
 
     /**
      * Adjust the stack.
+     *
+     * @param pCount the number of subtrees completed, in units of the subtree just completed
      */
-    private void adjustStack()
+    private void adjustStack(final long pCount)
     {
         /* Loop to combine blocks */
-        long myCount = theCounter;
+        long myCount = pCount;
         while (myCount > 0)
         {
             /* Break loop if we are not combining */
@@ -928,4 +1170,32 @@ private void setRoot()
         System.arraycopy(theV, 0, theChaining, 0, NUMWORDS);
     }
 
+    /**
+     * Task to compute the chaining value of a subtree.
+     */
+    private static class SubtreeTask
+        implements Callable<int[]>
+    {
+        private final Blake3Digest theWorker;
+        private final byte[] theMessage;
+        private final int theMsgPos;
+        private final long theCounter;
+
+        SubtreeTask(final int[] pKey,
+                    final int pMode,
+                    final byte[] pMessage,
+                    final int pMsgPos,
+                    final long pCounter)
+        {
+            theWorker = new Blake3Digest(pKey, pMode);
+            theMessage = pMessage;
+            theMsgPos = pMsgPos;
+            theCounter = pCounter;
+        }
+
+        public int[] call()
+        {
+            return theWorker.compressSubtree(theMessage, theMsgPos, theCounter);
+        }
+    }
 }
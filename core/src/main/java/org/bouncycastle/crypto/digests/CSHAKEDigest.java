@@ -2,6 +2,8 @@
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
+import org.bouncycastle.util.Pack;
 
 /**
  * Customizable SHAKE function.
@@ -10,7 +12,7 @@
     extends SHAKEDigest
 {
     private static final byte[] padding = new byte[100];
-    private final byte[] diff;
+    private byte[] diff;
 
     /**
      * Base constructor.
@@ -54,6 +56,26 @@ public CSHAKEDigest(CSHAKEDigest source)
         this.diff = Arrays.clone(source.diff);
     }
 
+    /**
+     * State constructor - create a digest initialised with the state of a previous one.
+     *
+     * @param encodedState the encoded state from the originating digest.
+     */
+    public CSHAKEDigest(byte[] encodedState)
+    {
+        super(encodedState);
+
+        // the encoded function name and customization string follow the sponge state, then their length
+        int diffLen = Pack.bigEndianToInt(encodedState, encodedState.length - 5);
+        if (diffLen < 0 || diffLen > encodedState.length - 5)
+        {
+            throw new IllegalArgumentException("invalid encoded state");
+        }
+
+        this.diff = diffLen == 0 ? null : Arrays.copyOfRange(encodedState, encodedState.length - 5 - diffLen,
+            encodedState.length - 5);
+    }
+
     // bytepad in SP 800-185
     private void diffPadAndAbsorb()
     {
@@ -120,4 +142,30 @@ public void reset()
             diffPadAndAbsorb();
         }
     }
+
+    public Memoable copy()
+    {
+        return new CSHAKEDigest(this);
+    }
+
+    public void reset(Memoable other)
+    {
+        super.reset(other);
+
+        this.diff = Arrays.clone(((CSHAKEDigest)other).diff);
+    }
+
+    public byte[] getEncodedState()
+    {
+        int diffLen = diff == null ? 0 : diff.length;
+        byte[] extra = new byte[diffLen + 4];
+
+        if (diff != null)
+        {
+            System.arraycopy(diff, 0, extra, 0, diffLen);
+        }
+        Pack.intToBigEndian(diffLen, extra, diffLen);
+
+        return getEncodedState(extra);
+    }
 }
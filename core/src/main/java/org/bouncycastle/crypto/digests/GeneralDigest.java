@@ -1,8 +1,13 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.bouncycastle.crypto.ByteBufferDigest;
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.Pack;
 
@@ -11,7 +16,7 @@
  * "Handbook of Applied Cryptography", pages 344 - 347.
  */
 public abstract class GeneralDigest
-    implements ExtendedDigest, Memoable
+    implements ExtendedDigest, ByteBufferDigest, Memoable
 {
     private static final int BYTE_LENGTH = 64;
 
@@ -126,6 +131,56 @@ public void update(
         byteCount += len;
     }
 
+    public void update(
+        ByteBuffer  in)
+    {
+        int len = in.remaining();
+
+        if (in.hasArray())
+        {
+            update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.limit());
+            return;
+        }
+
+        int pos = in.position(), end = pos + len;
+
+        //
+        // fill the current word
+        //
+        while (xBufOff != 0 && pos < end)
+        {
+            xBuf[xBufOff++] = in.get(pos++);
+            if (xBufOff == 4)
+            {
+                processWord(xBuf, 0);
+                xBufOff = 0;
+            }
+        }
+
+        //
+        // process whole words, read straight from the buffer.
+        //
+        boolean bigEndian = in.order() == ByteOrder.BIG_ENDIAN;
+        int limit = end - 3;
+        for (; pos < limit; pos += 4)
+        {
+            int word = in.getInt(pos);
+            processWord(bigEndian ? word : Integers.reverseBytes(word));
+        }
+
+        //
+        // load in the remainder.
+        //
+        while (pos < end)
+        {
+            xBuf[xBufOff++] = in.get(pos++);
+        }
+
+        in.position(end);
+        byteCount += len;
+    }
+
     public void finish()
     {
         long    bitLength = (byteCount << 3);
@@ -170,6 +225,16 @@ public int getByteLength()
     
     protected abstract void processWord(byte[] in, int inOff);
 
+    /**
+     * Process a whole word given as a big-endian int, only called when no partial word is buffered.
+     * Subclasses can override this to avoid the round trip through a byte array.
+     */
+    protected void processWord(int word)
+    {
+        Pack.intToBigEndian(word, xBuf, 0);
+        processWord(xBuf, 0);
+    }
+
     protected abstract void processLength(long bitLength);
 
     protected abstract void processBlock();
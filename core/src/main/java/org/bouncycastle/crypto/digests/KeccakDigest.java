@@ -3,8 +3,9 @@
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
-import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.SavableDigest;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
 import org.bouncycastle.util.Pack;
 
 /**
@@ -13,7 +14,7 @@
  * Following the naming conventions used in the C source code to enable easy review of the implementation.
  */
 public class KeccakDigest
-    implements ExtendedDigest
+    implements SavableDigest
 {
     private static long[] KeccakRoundConstants = new long[]{ 0x0000000000000001L, 0x0000000000008082L,
         0x800000000000808aL, 0x8000000080008000L, 0x000000000000808bL, 0x0000000080000001L, 0x8000000080008081L,
@@ -66,6 +67,33 @@ public KeccakDigest(KeccakDigest source)
         CryptoServicesRegistrar.checkConstraints(cryptoServiceProperties());
     }
 
+    /**
+     * State constructor - create a digest initialised with the state of a previous one.
+     *
+     * @param encodedState the encoded state from the originating digest.
+     */
+    public KeccakDigest(byte[] encodedState)
+    {
+        CryptoServicePurpose[] values = CryptoServicePurpose.values();
+        this.purpose = values[encodedState[encodedState.length - 1]];
+
+        Pack.littleEndianToLong(encodedState, 0, state);
+        this.rate = Pack.bigEndianToInt(encodedState, 200);
+        this.fixedOutputLength = Pack.bigEndianToInt(encodedState, 204);
+        this.bitsInQueue = Pack.bigEndianToInt(encodedState, 208);
+        this.squeezing = encodedState[212] != 0;
+
+        if (rate <= 0 || rate >= 1600 || (rate % 64) != 0 || bitsInQueue < 0 || bitsInQueue > rate)
+        {
+            throw new IllegalArgumentException("invalid encoded state");
+        }
+
+        int queueOff = getQueueOffset(), queueLen = getQueueLength();
+        System.arraycopy(encodedState, 213, dataQueue, queueOff, queueLen);
+
+        CryptoServicesRegistrar.checkConstraints(cryptoServiceProperties());
+    }
+
     public String getAlgorithmName()
     {
         return "Keccak-" + fixedOutputLength;
@@ -440,4 +468,72 @@ protected CryptoServiceProperties cryptoServiceProperties()
     {
         return Utils.getDefaultProperties(this, getDigestSize() * 8, purpose);
     }
+
+    public Memoable copy()
+    {
+        return new KeccakDigest(this);
+    }
+
+    public void reset(Memoable other)
+    {
+        KeccakDigest d = (KeccakDigest)other;
+
+        System.arraycopy(d.state, 0, this.state, 0, d.state.length);
+        System.arraycopy(d.dataQueue, 0, this.dataQueue, 0, d.dataQueue.length);
+        this.rate = d.rate;
+        this.bitsInQueue = d.bitsInQueue;
+        this.fixedOutputLength = d.fixedOutputLength;
+        this.squeezing = d.squeezing;
+    }
+
+    /**
+     * Return an encoding of the sponge state. Only the part of the queue in use is included, so the encoding is at
+     * most 214 bytes plus a block.
+     *
+     * @return an encoding of the digest's internal state.
+     */
+    public byte[] getEncodedState()
+    {
+        return getEncodedState(null);
+    }
+
+    /**
+     * Return an encoding of the sponge state with extra subclass state appended, ahead of the purpose byte.
+     *
+     * @param extra the extra state, may be null.
+     * @return an encoding of the digest's internal state.
+     */
+    protected byte[] getEncodedState(byte[] extra)
+    {
+        int queueOff = getQueueOffset(), queueLen = getQueueLength();
+        int extraLen = extra == null ? 0 : extra.length;
+
+        byte[] encoded = new byte[213 + queueLen + extraLen + 1];
+
+        Pack.longToLittleEndian(state, encoded, 0);
+        Pack.intToBigEndian(rate, encoded, 200);
+        Pack.intToBigEndian(fixedOutputLength, encoded, 204);
+        Pack.intToBigEndian(bitsInQueue, encoded, 208);
+        encoded[212] = (byte)(squeezing ? 1 : 0);
+        System.arraycopy(dataQueue, queueOff, encoded, 213, queueLen);
+        if (extra != null)
+        {
+            System.arraycopy(extra, 0, encoded, 213 + queueLen, extraLen);
+        }
+
+        encoded[encoded.length - 1] = (byte)purpose.ordinal();
+
+        return encoded;
+    }
+
+    private int getQueueOffset()
+    {
+        // NOTE: While squeezing, the unread output sits at the end of the queue
+        return squeezing ? (rate - bitsInQueue) >>> 3 : 0;
+    }
+
+    private int getQueueLength()
+    {
+        return squeezing ? bitsInQueue >>> 3 : (bitsInQueue + 7) >>> 3;
+    }
 }
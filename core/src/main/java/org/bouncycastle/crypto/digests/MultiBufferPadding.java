@@ -0,0 +1,55 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.Arrays;
+
+import org.bouncycastle.util.Pack;
+
+/**
+ * Message padding, and ordering, for the multi-buffer SHA-2 digests.
+ */
+class MultiBufferPadding
+{
+    /**
+     * Return the number of blocks in a message after MD padding (a 0x80 byte, then zeroes, then the bit length).
+     */
+    static int blockCount(int length, int blockSize, int lengthSize)
+    {
+        return (int)(((long)length + 1 + lengthSize + blockSize - 1) / blockSize);
+    }
+
+    /**
+     * Return the indices of the messages, ordered by the number of blocks in each, so that messages processed side
+     * by side finish at (about) the same time.
+     */
+    static int[] order(byte[][] messages, int blockSize, int lengthSize)
+    {
+        long[] keys = new long[messages.length];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            keys[i] = ((long)blockCount(messages[i].length, blockSize, lengthSize) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[messages.length];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            order[i] = (int)keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Return the padded final block(s) of a message, that is everything after its last whole block.
+     */
+    static byte[] tail(byte[] message, int blockSize, int lengthSize)
+    {
+        int full = message.length / blockSize;
+        int rem = message.length - full * blockSize;
+
+        byte[] tail = new byte[(blockCount(message.length, blockSize, lengthSize) - full) * blockSize];
+        System.arraycopy(message, full * blockSize, tail, 0, rem);
+        tail[rem] = (byte)0x80;
+        Pack.longToBigEndian((long)message.length << 3, tail, tail.length - 8);
+        return tail;
+    }
+}
@@ -0,0 +1,85 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A bounded queue of tasks run on an executor, with results taken in the order the tasks were submitted. Used by
+ * the tree hashes to hash independent parts of a message in parallel.
+ */
+class OrderedTaskQueue<T>
+{
+    private static final int MAX_PENDING = 64;
+
+    private final Executor executor;
+    private final LinkedList<FutureTask<T>> pending = new LinkedList<FutureTask<T>>();
+
+    OrderedTaskQueue(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    boolean isEmpty()
+    {
+        return pending.isEmpty();
+    }
+
+    boolean isFull()
+    {
+        return pending.size() >= MAX_PENDING;
+    }
+
+    void submit(Callable<T> task)
+    {
+        FutureTask<T> future = new FutureTask<T>(task);
+        pending.addLast(future);
+        try
+        {
+            executor.execute(future);
+        }
+        catch (RuntimeException e)
+        {
+            cancelAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for, and return the result of, the oldest task in the queue.
+     */
+    T take()
+    {
+        FutureTask<T> future = pending.removeFirst();
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while hashing in parallel");
+        }
+        catch (ExecutionException e)
+        {
+            cancelAll();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException("parallel hashing failed: " + cause);
+        }
+    }
+
+    private void cancelAll()
+    {
+        while (!pending.isEmpty())
+        {
+            pending.removeFirst().cancel(false);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.bouncycastle.crypto.digests;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.DataLengthException;
@@ -13,6 +16,8 @@
  * of the parallelism available in modern processors with an optional XOF mode.
  * <p>
  * From NIST Special Publication 800-185 - SHA-3 Derived Functions:cSHAKE, KMAC, TupleHash and ParallelHash
+ * </p><p>
+ * Large inputs can be hashed in parallel by setting an executor (see {@link #setExecutor(Executor)}).
  * </p>
  */
 public class ParallelHash
@@ -20,6 +25,9 @@
 {
     private static final byte[] N_PARALLEL_HASH = Strings.toByteArray("ParallelHash");
 
+    // the (approximate) amount of input hashed by a single parallel task
+    private static final int TASK_SIZE = 64 * 1024;
+
     private final CSHAKEDigest cshake;
     private final CSHAKEDigest compressor;
     private final int bitLength;
@@ -34,6 +42,8 @@
 
     private final CryptoServicePurpose purpose;
 
+    private Executor executor;
+
     /**
      * Base constructor.
      *
@@ -80,10 +90,24 @@ public ParallelHash(ParallelHash source)
         this.firstOutput = source.firstOutput;
         this.nCount = source.nCount;
         this.bufOff = source.bufOff;
+        this.executor = source.executor;
 
         CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, bitLength, purpose));
     }
 
+    /**
+     * Set an executor to use for hashing large updates in parallel, or null to hash sequentially (the default). The
+     * output is the same either way. Blocks are handed out in groups of about 64KB, and the executor is only used for
+     * updates with at least two groups' worth of data. update() waits for the tasks it submits to complete; if a
+     * task fails, the exception is passed on by update() and the digest must be reset before it is used again.
+     *
+     * @param executor the executor to run block hashing tasks on, such as a ForkJoinPool.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     public String getAlgorithmName()
     {
         return "ParallelHash" + cshake.getAlgorithmName().substring(6);
@@ -133,6 +157,11 @@ public void update(byte[] in, int inOff, int len)
 
         if (i < len)
         {
+            if (executor != null)
+            {
+                i += compressParallel(in, inOff + i, len - i);
+            }
+
             while (len - i >= B)
             {
                 compress(in, inOff + i, B);
@@ -162,6 +191,35 @@ private void compress(byte[] buf, int offSet, int len)
         nCount++;
     }
 
+    private int compressParallel(byte[] in, int inOff, int len)
+    {
+        int blocksPerTask = Math.max(1, TASK_SIZE / B);
+        int taskLen = blocksPerTask * B;
+        int taskCount = len / taskLen;
+        if (taskCount < 2)
+        {
+            return 0;
+        }
+
+        OrderedTaskQueue<byte[]> tasks = new OrderedTaskQueue<byte[]>(executor);
+        int submitted = 0;
+        for (int i = 0; i < taskCount; i++)
+        {
+            while (submitted < taskCount && !tasks.isFull())
+            {
+                tasks.submit(new CompressTask(new CSHAKEDigest(compressor), in, inOff + submitted * taskLen,
+                    blocksPerTask));
+                submitted++;
+            }
+
+            byte[] compressed = tasks.take();
+            cshake.update(compressed, 0, compressed.length);
+            nCount += blocksPerTask;
+        }
+
+        return taskCount * taskLen;
+    }
+
     private void wrapUp(int outputSize)
     {
         if (bufOff != 0)
@@ -228,4 +286,33 @@ public void reset()
         bufOff = 0;
         firstOutput = true;
     }
+
+    private class CompressTask
+        implements Callable<byte[]>
+    {
+        private final CSHAKEDigest taskCompressor;
+        private final byte[] in;
+        private final int inOff;
+        private final int blockCount;
+
+        CompressTask(CSHAKEDigest taskCompressor, byte[] in, int inOff, int blockCount)
+        {
+            this.taskCompressor = taskCompressor;
+            this.in = in;
+            this.inOff = inOff;
+            this.blockCount = blockCount;
+        }
+
+        public byte[] call()
+        {
+            int outLen = compressorBuffer.length;
+            byte[] compressed = new byte[blockCount * outLen];
+            for (int i = 0; i < blockCount; i++)
+            {
+                taskCompressor.update(in, inOff + i * B, B);
+                taskCompressor.doFinal(compressed, i * outLen, outLen);
+            }
+            return compressed;
+        }
+    }
 }
@@ -0,0 +1,231 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.util.Pack;
+
+/**
+ * Multi-buffer SHA-256 - hash a number of independent messages in one call.
+ * <p>
+ * This is aimed at large numbers of short messages, such as Merkle tree leaves or certificate fingerprints, where
+ * hashing one message at a time is dominated by the latency of each round. Messages are grouped by length and
+ * hashed side by side: two at a time, interleaved, in the portable version, or one per vector lane on Java 21 and
+ * later, in the provider jar, if the jdk.incubator.vector module is available. The results are the same as those
+ * of {@link SHA256Digest}.
+ * </p>
+ */
+public class SHA256MultiBuffer
+{
+    public static final int DIGEST_LENGTH = 32;
+
+    static final int BLOCK_SIZE = 64;
+    static final int LENGTH_SIZE = 8;
+
+    static final int[] IV = { 0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab,
+        0x5be0cd19 };
+
+    private SHA256MultiBuffer()
+    {
+    }
+
+    /**
+     * Calculate the SHA-256 digest of each message, writing digest i to the start of digests[i].
+     *
+     * @param messages the messages to hash.
+     * @param digests the arrays to write the digests to, each at least DIGEST_LENGTH bytes long.
+     */
+    public static void digest(byte[][] messages, byte[][] digests)
+    {
+        if (messages.length != digests.length)
+        {
+            throw new IllegalArgumentException("messages and digests must be the same length");
+        }
+        for (int i = 0; i < digests.length; ++i)
+        {
+            if (digests[i].length < DIGEST_LENGTH)
+            {
+                throw new IllegalArgumentException("digests[" + i + "] too short");
+            }
+        }
+
+        int[] order = MultiBufferPadding.order(messages, BLOCK_SIZE, LENGTH_SIZE);
+
+        SHA2MultiBuffer.sha256(messages, digests, order);
+    }
+
+    /**
+     * Hash the messages order[start] to order[end - 1], two at a time.
+     */
+    static void digestInterleaved(byte[][] messages, byte[][] digests, int[] order, int start, int end)
+    {
+        int[] H = new int[16];
+        int[] W0 = new int[64], W1 = new int[64];
+
+        for (int pos = start; pos < end; pos += 2)
+        {
+            // NOTE: A lone final message is hashed alongside itself
+            byte[] m0 = messages[order[pos]];
+            byte[] m1 = messages[order[Math.min(pos + 1, end - 1)]];
+
+            byte[] tail0 = MultiBufferPadding.tail(m0, BLOCK_SIZE, LENGTH_SIZE);
+            byte[] tail1 = MultiBufferPadding.tail(m1, BLOCK_SIZE, LENGTH_SIZE);
+            int full0 = m0.length / BLOCK_SIZE, blocks0 = full0 + tail0.length / BLOCK_SIZE;
+            int full1 = m1.length / BLOCK_SIZE, blocks1 = full1 + tail1.length / BLOCK_SIZE;
+
+            System.arraycopy(IV, 0, H, 0, 8);
+            System.arraycopy(IV, 0, H, 8, 8);
+
+            for (int j = 0; j < blocks1; ++j)
+            {
+                if (j < blocks0)
+                {
+                    loadBlock(m0, tail0, full0, j, W0);
+                }
+                loadBlock(m1, tail1, full1, j, W1);
+
+                compress2(H, W0, W1, j < blocks0);
+            }
+
+            Pack.intToBigEndian(H, 0, 8, digests[order[pos]], 0);
+            if (pos + 1 < end)
+            {
+                Pack.intToBigEndian(H, 8, 8, digests[order[pos + 1]], 0);
+            }
+        }
+    }
+
+    private static void loadBlock(byte[] message, byte[] tail, int full, int j, int[] W)
+    {
+        if (j < full)
+        {
+            Pack.bigEndianToInt(message, j * BLOCK_SIZE, W, 0, 16);
+        }
+        else
+        {
+            Pack.bigEndianToInt(tail, (j - full) * BLOCK_SIZE, W, 0, 16);
+        }
+    }
+
+    private static void compress2(int[] H, int[] W0, int[] W1, boolean update0)
+    {
+        for (int t = 16; t < 64; ++t)
+        {
+            W0[t] = Theta1(W0[t - 2]) + W0[t - 7] + Theta0(W0[t - 15]) + W0[t - 16];
+            W1[t] = Theta1(W1[t - 2]) + W1[t - 7] + Theta0(W1[t - 15]) + W1[t - 16];
+        }
+
+        int a0 = H[0], b0 = H[1], c0 = H[2], d0 = H[3], e0 = H[4], f0 = H[5], g0 = H[6], h0 = H[7];
+        int a1 = H[8], b1 = H[9], c1 = H[10], d1 = H[11], e1 = H[12], f1 = H[13], g1 = H[14], h1 = H[15];
+
+        // the two messages' rounds are interleaved, so that each fills the other's pipeline stalls
+        int t = 0;
+        for (int i = 0; i < 8; ++i)
+        {
+            // t = 8 * i
+            h0 += Sum1(e0) + Ch(e0, f0, g0) + SHA256Digest.K[t] + W0[t];
+            h1 += Sum1(e1) + Ch(e1, f1, g1) + SHA256Digest.K[t] + W1[t];
+            d0 += h0;
+            d1 += h1;
+            h0 += Sum0(a0) + Maj(a0, b0, c0);
+            h1 += Sum0(a1) + Maj(a1, b1, c1);
+            ++t;
+
+            // t = 8 * i + 1
+            g0 += Sum1(d0) + Ch(d0, e0, f0) + SHA256Digest.K[t] + W0[t];
+            g1 += Sum1(d1) + Ch(d1, e1, f1) + SHA256Digest.K[t] + W1[t];
+            c0 += g0;
+            c1 += g1;
+            g0 += Sum0(h0) + Maj(h0, a0, b0);
+            g1 += Sum0(h1) + Maj(h1, a1, b1);
+            ++t;
+
+            // t = 8 * i + 2
+            f0 += Sum1(c0) + Ch(c0, d0, e0) + SHA256Digest.K[t] + W0[t];
+            f1 += Sum1(c1) + Ch(c1, d1, e1) + SHA256Digest.K[t] + W1[t];
+            b0 += f0;
+            b1 += f1;
+            f0 += Sum0(g0) + Maj(g0, h0, a0);
+            f1 += Sum0(g1) + Maj(g1, h1, a1);
+            ++t;
+
+            // t = 8 * i + 3
+            e0 += Sum1(b0) + Ch(b0, c0, d0) + SHA256Digest.K[t] + W0[t];
+            e1 += Sum1(b1) + Ch(b1, c1, d1) + SHA256Digest.K[t] + W1[t];
+            a0 += e0;
+            a1 += e1;
+            e0 += Sum0(f0) + Maj(f0, g0, h0);
+            e1 += Sum0(f1) + Maj(f1, g1, h1);
+            ++t;
+
+            // t = 8 * i + 4
+            d0 += Sum1(a0) + Ch(a0, b0, c0) + SHA256Digest.K[t] + W0[t];
+            d1 += Sum1(a1) + Ch(a1, b1, c1) + SHA256Digest.K[t] + W1[t];
+            h0 += d0;
+            h1 += d1;
+            d0 += Sum0(e0) + Maj(e0, f0, g0);
+            d1 += Sum0(e1) + Maj(e1, f1, g1);
+            ++t;
+
+            // t = 8 * i + 5
+            c0 += Sum1(h0) + Ch(h0, a0, b0) + SHA256Digest.K[t] + W0[t];
+            c1 += Sum1(h1) + Ch(h1, a1, b1) + SHA256Digest.K[t] + W1[t];
+            g0 += c0;
+            g1 += c1;
+            c0 += Sum0(d0) + Maj(d0, e0, f0);
+            c1 += Sum0(d1) + Maj(d1, e1, f1);
+            ++t;
+
+            // t = 8 * i + 6
+            b0 += Sum1(g0) + Ch(g0, h0, a0) + SHA256Digest.K[t] + W0[t];
+            b1 += Sum1(g1) + Ch(g1, h1, a1) + SHA256Digest.K[t] + W1[t];
+            f0 += b0;
+            f1 += b1;
+            b0 += Sum0(c0) + Maj(c0, d0, e0);
+            b1 += Sum0(c1) + Maj(c1, d1, e1);
+            ++t;
+
+            // t = 8 * i + 7
+            a0 += Sum1(f0) + Ch(f0, g0, h0) + SHA256Digest.K[t] + W0[t];
+            a1 += Sum1(f1) + Ch(f1, g1, h1) + SHA256Digest.K[t] + W1[t];
+            e0 += a0;
+            e1 += a1;
+            a0 += Sum0(b0) + Maj(b0, c0, d0);
+            a1 += Sum0(b1) + Maj(b1, c1, d1);
+            ++t;
+        }
+
+        if (update0)
+        {
+            H[0] += a0; H[1] += b0; H[2] += c0; H[3] += d0; H[4] += e0; H[5] += f0; H[6] += g0; H[7] += h0;
+        }
+        H[8] += a1; H[9] += b1; H[10] += c1; H[11] += d1; H[12] += e1; H[13] += f1; H[14] += g1; H[15] += h1;
+    }
+
+    private static int Ch(int x, int y, int z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static int Maj(int x, int y, int z)
+    {
+        return (x & y) | (z & (x ^ y));
+    }
+
+    private static int Sum0(int x)
+    {
+        return ((x >>> 2) | (x << 30)) ^ ((x >>> 13) | (x << 19)) ^ ((x >>> 22) | (x << 10));
+    }
+
+    private static int Sum1(int x)
+    {
+        return ((x >>> 6) | (x << 26)) ^ ((x >>> 11) | (x << 21)) ^ ((x >>> 25) | (x << 7));
+    }
+
+    private static int Theta0(int x)
+    {
+        return ((x >>> 7) | (x << 25)) ^ ((x >>> 18) | (x << 14)) ^ (x >>> 3);
+    }
+
+    private static int Theta1(int x)
+    {
+        return ((x >>> 17) | (x << 15)) ^ ((x >>> 19) | (x << 13)) ^ (x >>> 10);
+    }
+}
@@ -0,0 +1,18 @@
+package org.bouncycastle.crypto.digests;
+
+/**
+ * Dispatch for the multi-buffer SHA-2 digests. This version always uses the portable, interleaved, code; on Java 21
+ * and later a version using the vector API is used if the jdk.incubator.vector module is available.
+ */
+class SHA2MultiBuffer
+{
+    static void sha256(byte[][] messages, byte[][] digests, int[] order)
+    {
+        SHA256MultiBuffer.digestInterleaved(messages, digests, order, 0, order.length);
+    }
+
+    static void sha512(byte[][] messages, byte[][] digests, int[] order)
+    {
+        SHA512MultiBuffer.digestInterleaved(messages, digests, order, 0, order.length);
+    }
+}
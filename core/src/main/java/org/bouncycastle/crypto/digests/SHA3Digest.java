@@ -2,6 +2,7 @@
 
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.util.Memoable;
 
 /**
  * implementation of SHA-3 based on following KeccakNISTInterface.c from https://keccak.noekeon.org/
@@ -50,6 +51,18 @@ public SHA3Digest(SHA3Digest source)
         super(source);
     }
 
+    /**
+     * State constructor - create a digest initialised with the state of a previous one.
+     *
+     * @param encodedState the encoded state from the originating digest.
+     */
+    public SHA3Digest(byte[] encodedState)
+    {
+        super(encodedState);
+
+        checkBitLength(fixedOutputLength);
+    }
+
     public String getAlgorithmName()
     {
         return "SHA3-" + fixedOutputLength;
@@ -84,4 +97,9 @@ protected int doFinal(byte[] out, int outOff, byte partialByte, int partialBits)
 
         return super.doFinal(out, outOff, (byte)finalInput, finalBits);
     }
+
+    public Memoable copy()
+    {
+        return new SHA3Digest(this);
+    }
 }
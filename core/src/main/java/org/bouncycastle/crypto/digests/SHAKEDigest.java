@@ -3,6 +3,7 @@
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.Xof;
+import org.bouncycastle.util.Memoable;
 
 
 /**
@@ -67,6 +68,18 @@ public SHAKEDigest(SHAKEDigest source)
         super(source);
     }
 
+    /**
+     * State constructor - create a digest initialised with the state of a previous one.
+     *
+     * @param encodedState the encoded state from the originating digest.
+     */
+    public SHAKEDigest(byte[] encodedState)
+    {
+        super(encodedState);
+
+        checkBitLength(fixedOutputLength);
+    }
+
     public String getAlgorithmName()
     {
         return "SHAKE" + fixedOutputLength;
@@ -147,4 +160,9 @@ protected CryptoServiceProperties cryptoServiceProperties()
     {
         return Utils.getDefaultProperties(this, purpose);
     }
+
+    public Memoable copy()
+    {
+        return new SHAKEDigest(this);
+    }
 }
@@ -512,6 +512,49 @@ public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
         return BLOCK_SIZE;
     }
 
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        if (WorkingKey == null)
+        {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+
+        int len = blockCount * BLOCK_SIZE;
+
+        if (inOff > (in.length - len))
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if (outOff > (out.length - len))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (forEncryption)
+        {
+            while (blockCount > 0)
+            {
+                encryptBlock(in, inOff, out, outOff, WorkingKey);
+                inOff += BLOCK_SIZE;
+                outOff += BLOCK_SIZE;
+                --blockCount;
+            }
+        }
+        else
+        {
+            while (blockCount > 0)
+            {
+                decryptBlock(in, inOff, out, outOff, WorkingKey);
+                inOff += BLOCK_SIZE;
+                outOff += BLOCK_SIZE;
+                --blockCount;
+            }
+        }
+
+        return len;
+    }
+
     public void reset()
     {
     }
@@ -11,13 +11,19 @@
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.math.raw.Mont;
+import org.bouncycastle.math.raw.Nat;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Properties;
 
 /**
  * this does your basic RSA algorithm.
  */
 class RSACoreEngine
 {
+    // NOTE: Read once, rather than on every init
+    private static final boolean CONSTANT_TIME = Properties.isOverrideSet("org.bouncycastle.rsa.constant_time");
+
     private RSAKeyParameters key;
     private boolean forEncryption;
 
@@ -184,27 +190,35 @@ public BigInteger processBlock(BigInteger input)
             BigInteger e = crtKey.getPublicExponent();
             if (e != null)   // can't apply fault-attack countermeasure without public exponent
             {
-                BigInteger p = crtKey.getP();
-                BigInteger q = crtKey.getQ();
-                BigInteger dP = crtKey.getDP();
-                BigInteger dQ = crtKey.getDQ();
-                BigInteger qInv = crtKey.getQInv();
+                BigInteger m;
+                if (CONSTANT_TIME && crtKey.getMontgomeryP().getLength() == crtKey.getMontgomeryQ().getLength())
+                {
+                    m = processCrtMontgomery(crtKey, input);
+                }
+                else
+                {
+                    BigInteger p = crtKey.getP();
+                    BigInteger q = crtKey.getQ();
+                    BigInteger dP = crtKey.getDP();
+                    BigInteger dQ = crtKey.getDQ();
+                    BigInteger qInv = crtKey.getQInv();
 
-                BigInteger mP, mQ, h, m;
+                    BigInteger mP, mQ, h;
 
-                // mP = ((input mod p) ^ dP)) mod p
-                mP = (input.remainder(p)).modPow(dP, p);
+                    // mP = ((input mod p) ^ dP)) mod p
+                    mP = (input.remainder(p)).modPow(dP, p);
 
-                // mQ = ((input mod q) ^ dQ)) mod q
-                mQ = (input.remainder(q)).modPow(dQ, q);
+                    // mQ = ((input mod q) ^ dQ)) mod q
+                    mQ = (input.remainder(q)).modPow(dQ, q);
 
-                // h = qInv * (mP - mQ) mod p
-                h = mP.subtract(mQ);
-                h = h.multiply(qInv);
-                h = h.mod(p);               // mod (in Java) returns the positive residual
+                    // h = qInv * (mP - mQ) mod p
+                    h = mP.subtract(mQ);
+                    h = h.multiply(qInv);
+                    h = h.mod(p);               // mod (in Java) returns the positive residual
 
-                // m = h * q + mQ
-                m = h.multiply(q).add(mQ);
+                    // m = h * q + mQ
+                    m = h.multiply(q).add(mQ);
+                }
 
                 // defence against Arjen Lenstra’s CRT attack
                 BigInteger check = m.modPow(e, crtKey.getModulus()); 
@@ -220,6 +234,60 @@ public BigInteger processBlock(BigInteger input)
         return input.modPow(key.getExponent(), key.getModulus());
     }
 
+    /**
+     * The same CRT calculation as in processBlock, but using fixed-window Montgomery exponentiation (with the values
+     * for p and q cached in the key) so that the timing does not depend on the secret values.
+     */
+    private static BigInteger processCrtMontgomery(RSAPrivateCrtKeyParameters crtKey, BigInteger input)
+    {
+        Mont.Modulus mp = crtKey.getMontgomeryP();
+        Mont.Modulus mq = crtKey.getMontgomeryQ();
+
+        int len = mp.getLength();
+        // assert len == mq.getLength();
+
+        int[] xx = Mont.fromBigInteger(len << 1, input);
+        int[] tt = Nat.create(len << 1);
+        int[] mP = Nat.create(len);
+        int[] mQ = Nat.create(len);
+        int[] e = Mont.fromBigInteger(len, crtKey.getDP());
+
+        // mP = ((input mod p) ^ dP)) mod p
+        Nat.copy(len << 1, xx, tt);
+        Mont.reduceExt(mp, tt, mP);
+        Mont.modPow(mp, mP, e, mP);
+
+        // mQ = ((input mod q) ^ dQ)) mod q
+        Arrays.fill(e, 0);
+        e = Mont.fromBigInteger(len, crtKey.getDQ());
+        Mont.reduceExt(mq, xx, mQ);
+        Mont.modPow(mq, mQ, e, mQ);
+
+        // h = qInv * (mP - mQ) mod p
+        int[] h = Nat.create(len);
+        Nat.copy(len, mQ, 0, tt, 0);
+        Nat.zero(len, tt, len);
+        Mont.reduceExt(mp, tt, h);
+        Mont.modSub(mp, mP, h, h);
+        Mont.modMul(mp, h, Mont.fromBigInteger(len, crtKey.getQInv()), h, tt);
+
+        // m = h * q + mQ
+        Nat.copy(len, mQ, 0, xx, 0);
+        Nat.zero(len, xx, len);
+        Nat.mulAddTo(len, h, 0, Mont.fromBigInteger(len, crtKey.getQ()), 0, xx, 0);
+
+        BigInteger m = Nat.toBigInteger(len << 1, xx);
+
+        Arrays.fill(xx, 0);
+        Arrays.fill(tt, 0);
+        Arrays.fill(mP, 0);
+        Arrays.fill(mQ, 0);
+        Arrays.fill(e, 0);
+        Arrays.fill(h, 0);
+
+        return m;
+    }
+
     private CryptoServicePurpose getPurpose(boolean isPrivate, boolean forEncryption)
     {
         boolean isSigning = isPrivate && forEncryption;
@@ -1,5 +1,10 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.bouncycastle.crypto.params.Argon2Parameters;
@@ -9,6 +14,11 @@
 
 /**
  * Argon2 PBKDF - Based on the results of https://password-hashing.net/ and https://www.ietf.org/archive/id/draft-irtf-cfrg-argon2-03.txt
+ * <p>
+ * Where the parameters have more than one lane, the lanes can be filled in parallel by setting an executor (see
+ * {@link #setExecutor(Executor)}). The memory for each hash can also be taken from a {@link MemoryPool} shared by
+ * several generators, rather than being allocated by each one.
+ * </p>
  */
 public class Argon2BytesGenerator
 {
@@ -38,9 +48,13 @@
 
     private Argon2Parameters parameters;
     private Block[] memory;
+    private int memoryBlocks;
     private int segmentLength;
     private int laneLength;
 
+    private Executor executor;
+    private MemoryPool memoryPool;
+
     public Argon2BytesGenerator()
     {
     }
@@ -74,6 +88,34 @@ else if (parameters.getIterations() < Argon2BytesGenerator.MIN_ITERATIONS)
         doInit(parameters);
     }
 
+    /**
+     * Set an executor to fill the lanes of each slice in parallel, or null to fill them sequentially (the default).
+     * The output is the same either way. generateBytes() runs one lane itself and waits for the others to complete
+     * at each of the synchronisation points between slices, so the executor needs at least lanes - 1 threads to
+     * get the full benefit.
+     *
+     * @param executor the executor to run lane segments on.
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Set a pool to take the memory for each hash from, or null for this generator to allocate its own (the
+     * default). With a pool the memory is only held while generateBytes() is running.
+     *
+     * @param memoryPool the pool to use.
+     */
+    public void setMemoryPool(MemoryPool memoryPool)
+    {
+        this.memoryPool = memoryPool;
+        if (memoryPool != null)
+        {
+            this.memory = null;
+        }
+    }
+
     public int generateBytes(char[] password, byte[] out)
     {
         return generateBytes(parameters.getCharToByteConverter().convert(password), out);
@@ -96,13 +138,33 @@ public int generateBytes(byte[] password, byte[] out, int outOff, int outLen)
             throw new IllegalStateException("output length less than " + Argon2BytesGenerator.MIN_OUTLEN);
         }
 
-        byte[] tmpBlockBytes = new byte[ARGON2_BLOCK_SIZE];
+        if (memoryPool != null)
+        {
+            memory = memoryPool.acquire(memoryBlocks);
+        }
+        else if (memory == null)
+        {
+            initMemory(memoryBlocks);
+        }
+
+        try
+        {
+            byte[] tmpBlockBytes = new byte[ARGON2_BLOCK_SIZE];
 
-        initialize(tmpBlockBytes, password, outLen);
-        fillMemoryBlocks();
-        digest(tmpBlockBytes, out, outOff, outLen);
+            initialize(tmpBlockBytes, password, outLen);
+            fillMemoryBlocks();
+            digest(tmpBlockBytes, out, outOff, outLen);
+        }
+        finally
+        {
+            reset();
 
-        reset();
+            if (memoryPool != null)
+            {
+                memoryPool.release(memory);
+                memory = null;
+            }
+        }
 
         return outLen;
     }
@@ -139,23 +201,43 @@ private void doInit(Argon2Parameters parameters)
         this.laneLength = segmentLength * Argon2BytesGenerator.ARGON2_SYNC_POINTS;
 
         /* Ensure that all segments have equal length */
-        memoryBlocks = segmentLength * (parameters.getLanes() * Argon2BytesGenerator.ARGON2_SYNC_POINTS);
+        this.memoryBlocks = segmentLength * (parameters.getLanes() * Argon2BytesGenerator.ARGON2_SYNC_POINTS);
 
-        initMemory(memoryBlocks);
+        if (memoryPool == null)
+        {
+            initMemory(this.memoryBlocks);
+        }
     }
 
     private void initMemory(int memoryBlocks)
     {
-        this.memory = new Block[memoryBlocks];
+        // NOTE: Memory is cleared after each use, so it can be kept if the size hasn't changed
+        if (memory == null || memory.length != memoryBlocks)
+        {
+            this.memory = allocateMemory(memoryBlocks);
+        }
+    }
+
+    private static Block[] allocateMemory(int memoryBlocks)
+    {
+        Block[] memory = new Block[memoryBlocks];
 
         for (int i = 0; i < memory.length; i++)
         {
             memory[i] = new Block();
         }
+
+        return memory;
     }
 
     private void fillMemoryBlocks()
     {
+        if (executor != null && parameters.getLanes() > 1)
+        {
+            fillMemoryBlocksInParallel();
+            return;
+        }
+
         FillBlock filler = new FillBlock();
         Position position = new Position();
         for (int pass = 0; pass < parameters.getIterations(); ++pass)
@@ -176,6 +258,58 @@ private void fillMemoryBlocks()
         }
     }
 
+    private void fillMemoryBlocksInParallel()
+    {
+        int lanes = parameters.getLanes();
+
+        FillBlock[] fillers = new FillBlock[lanes];
+        for (int lane = 0; lane < lanes; ++lane)
+        {
+            fillers[lane] = new FillBlock();
+        }
+
+        for (int pass = 0; pass < parameters.getIterations(); ++pass)
+        {
+            for (int slice = 0; slice < ARGON2_SYNC_POINTS; ++slice)
+            {
+                fillSliceInParallel(fillers, pass, slice);
+            }
+        }
+    }
+
+    /*
+     * The segments of a slice only reference blocks outside the slice in other lanes, so they can be filled
+     * concurrently, as long as every lane finishes the slice before any lane starts the next.
+     */
+    private void fillSliceInParallel(FillBlock[] fillers, int pass, int slice)
+    {
+        int lanes = parameters.getLanes();
+        FutureTask[] tasks = new FutureTask[lanes];
+
+        RuntimeException failure;
+        try
+        {
+            for (int lane = 1; lane < lanes; ++lane)
+            {
+                FutureTask task = new FutureTask(new SegmentTask(fillers[lane], new Position(pass, lane, slice)), null);
+                executor.execute(task);
+                tasks[lane] = task;
+            }
+
+            fillSegment(fillers[0], new Position(pass, 0, slice));
+        }
+        finally
+        {
+            // NOTE: Every submitted segment must be complete before the memory is used again, even on failure
+            failure = ParallelTaskHelper.awaitAll(tasks, "parallel lane processing");
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
     private void fillSegment(FillBlock filler, Position position)
     {
         Block addressBlock = null, inputBlock = null;
@@ -698,5 +832,99 @@ public Block clear()
         Position()
         {
         }
+
+        Position(int pass, int lane, int slice)
+        {
+            this.pass = pass;
+            this.lane = lane;
+            this.slice = slice;
+        }
+    }
+
+    private class SegmentTask
+        implements Runnable
+    {
+        private final FillBlock filler;
+        private final Position position;
+
+        SegmentTask(FillBlock filler, Position position)
+        {
+            this.filler = filler;
+            this.position = position;
+        }
+
+        public void run()
+        {
+            fillSegment(filler, position);
+        }
+    }
+
+    /**
+     * A pool of Argon2 memory that can be shared between generators, so that hashing repeatedly with the same
+     * parameters reuses the same memory rather than allocating (and later collecting) the full memory cost each
+     * time. Memory is cleared by the generator before it is returned to the pool. A pool may be used by several
+     * threads at once.
+     */
+    public static class MemoryPool
+    {
+        private final long maxIdleBlocks;
+        private final LinkedList<Block[]> idle = new LinkedList<Block[]>();
+        private long idleBlocks = 0;
+
+        /**
+         * Create a pool holding at most maxIdleKB of memory while it is not in use.
+         *
+         * @param maxIdleKB the maximum amount of idle memory kept, in KB (1KB is one Argon2 block).
+         */
+        public MemoryPool(long maxIdleKB)
+        {
+            this.maxIdleBlocks = maxIdleKB;
+        }
+
+        /**
+         * Return the amount of memory currently held idle by the pool.
+         *
+         * @return the idle memory, in KB.
+         */
+        public synchronized long getIdleKB()
+        {
+            return idleBlocks;
+        }
+
+        Block[] acquire(int memoryBlocks)
+        {
+            synchronized (this)
+            {
+                for (Iterator<Block[]> it = idle.iterator(); it.hasNext();)
+                {
+                    Block[] memory = it.next();
+                    if (memory.length == memoryBlocks)
+                    {
+                        it.remove();
+                        idleBlocks -= memoryBlocks;
+                        return memory;
+                    }
+                }
+            }
+
+            return allocateMemory(memoryBlocks);
+        }
+
+        synchronized void release(Block[] memory)
+        {
+            if (memory.length > maxIdleBlocks)
+            {
+                return;
+            }
+
+            // drop the least recently used memory to make room
+            while (idleBlocks + memory.length > maxIdleBlocks)
+            {
+                idleBlocks -= idle.removeFirst().length;
+            }
+
+            idle.addLast(memory);
+            idleBlocks += memory.length;
+        }
     }
 }
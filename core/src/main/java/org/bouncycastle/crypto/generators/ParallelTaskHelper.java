@@ -0,0 +1,55 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+class ParallelTaskHelper
+{
+    /*
+     * Wait for every submitted task to complete, even if interrupted (the interrupt is re-asserted afterwards),
+     * since the tasks share working memory with the caller. Returns the first failure, or null if there was none.
+     */
+    static RuntimeException awaitAll(FutureTask[] tasks, String description)
+    {
+        RuntimeException failure = null;
+        boolean interrupted = false;
+
+        for (int i = 0; i < tasks.length; ++i)
+        {
+            if (tasks[i] == null)
+            {
+                continue;
+            }
+
+            for (;;)
+            {
+                try
+                {
+                    tasks[i].get();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    if (failure == null)
+                    {
+                        Throwable cause = e.getCause();
+                        failure = (cause instanceof RuntimeException) ? (RuntimeException)cause
+                            : new IllegalStateException(description + " failed: " + cause);
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return failure;
+    }
+}
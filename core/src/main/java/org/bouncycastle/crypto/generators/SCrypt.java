@@ -1,5 +1,8 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
 import org.bouncycastle.crypto.PBEParametersGenerator;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.Salsa20Engine;
@@ -13,6 +16,10 @@
  * <p>
  * Scrypt was created by Colin Percival and is specified in <a
  * href="https://tools.ietf.org/html/rfc7914">RFC 7914 - The scrypt Password-Based Key Derivation Function</a>
+ * <p>
+ * Where p is greater than 1 the independent SMix computations can be run on an executor, and the working memory
+ * for them can be kept between calls in a {@link ScratchCache} (see
+ * {@link #generate(byte[], byte[], int, int, int, int, Executor, ScratchCache)}).
  */
 public class SCrypt
 {
@@ -35,6 +42,33 @@ private SCrypt()
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        return generate(P, S, N, r, p, dkLen, null, null);
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function, running the p SMix computations on an executor
+     * and/or taking their working memory from a cache. The output is the same as for
+     * {@link #generate(byte[], byte[], int, int, int, int)}.
+     * <p>
+     * With an executor, the calling thread runs the first SMix itself and waits for the others, so the executor
+     * needs at least p - 1 threads to get the full benefit. Note that each SMix running at the same time needs its
+     * own 128 * r * N bytes of memory.
+     *
+     * @param P        the bytes of the pass phrase.
+     * @param S        the salt to use for this invocation.
+     * @param N        CPU/Memory cost parameter. Must be larger than 1, a power of 2 and less than
+     *                 <code>2^(128 * r / 8)</code>.
+     * @param r        the block size, must be &gt;= 1.
+     * @param p        Parallelization parameter. Must be a positive integer less than or equal to
+     *                 <code>Integer.MAX_VALUE / (128 * r * 8)</code>.
+     * @param dkLen    the length of the key to generate.
+     * @param executor the executor to run SMix computations on, or null to run them all on the calling thread.
+     * @param cache    a cache of per-thread working memory, or null to allocate it for this call only.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor,
+        ScratchCache cache)
     {
         if (P == null)
         {
@@ -67,10 +101,11 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
+        return MFcrypt(P, S, N, r, p, dkLen, executor, cache);
     }
 
-    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor,
+        ScratchCache cache)
     {
         int MFLenBytes = r * 128;
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
@@ -96,10 +131,24 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
             }
 
             int MFLenWords = MFLenBytes >>> 2;
-            for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+            if (executor != null && p > 1)
+            {
+                SMixInParallel(B, MFLenWords, N, d, r, p, executor, cache);
+            }
+            else
             {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, d, r);
+                Scratch scratch = acquireScratch(cache, N, d, r);
+                try
+                {
+                    for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+                    {
+                        SMix(B, BOff, N, d, r, scratch);
+                    }
+                }
+                finally
+                {
+                    scratch.release();
+                }
             }
 
             Pack.intToLittleEndian(B, bytes, 0);
@@ -121,29 +170,62 @@ private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
         return key.getKey();
     }
 
-    private static void SMix(int[] B, int BOff, int N, int d, int r)
+    private static void SMixInParallel(int[] B, int MFLenWords, int N, int d, int r, int p, Executor executor,
+        ScratchCache cache)
+    {
+        FutureTask[] tasks = new FutureTask[p];
+
+        RuntimeException failure;
+        try
+        {
+            for (int i = 1; i < p; ++i)
+            {
+                FutureTask task = new FutureTask(new SMixTask(B, i * MFLenWords, N, d, r, cache), null);
+                executor.execute(task);
+                tasks[i] = task;
+            }
+
+            new SMixTask(B, 0, N, d, r, cache).run();
+        }
+        finally
+        {
+            // NOTE: Every submitted SMix must be complete before B is used or cleared, even on failure
+            failure = ParallelTaskHelper.awaitAll(tasks, "parallel SMix");
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    private static Scratch acquireScratch(ScratchCache cache, int N, int d, int r)
+    {
+        return cache == null ? new Scratch(N, d, r) : cache.acquire(N, d, r);
+    }
+
+    private static void SMix(int[] B, int BOff, int N, int d, int r, Scratch scratch)
     {
         int powN = Integers.numberOfTrailingZeros(N);
         int blocksPerChunk = N >>> d;
-        int chunkCount = 1 << d, chunkMask = blocksPerChunk - 1, chunkPow = powN - d;
+        int chunkMask = blocksPerChunk - 1, chunkPow = powN - d;
 
         int BCount = r * 32;
 
-        int[] blockX1 = new int[16];
-        int[] blockX2 = new int[16];
-        int[] blockY = new int[BCount];
+        int[] blockX1 = scratch.blockX1;
+        int[] blockX2 = scratch.blockX2;
+        int[] blockY = scratch.blockY;
 
-        int[] X = new int[BCount];
-        int[][] VV = new int[chunkCount][];
+        int[] X = scratch.X;
+        int[][] VV = scratch.VV;
 
         try
         {
             System.arraycopy(B, BOff, X, 0, BCount);
 
-            for (int c = 0; c < chunkCount; ++c)
+            for (int c = 0; c < VV.length; ++c)
             {
-                int[] V = new int[blocksPerChunk * BCount];
-                VV[c] = V;
+                int[] V = VV[c];
 
                 int off = 0;
                 for (int i = 0; i < blocksPerChunk; i += 2)
@@ -232,4 +314,102 @@ private static boolean isPowerOf2(int x)
     {
         return ((x & (x - 1)) == 0);
     }
+
+    /**
+     * Per-thread SMix working memory, for sharing between calls to
+     * {@link SCrypt#generate(byte[], byte[], int, int, int, int, Executor, ScratchCache)}. Each thread that runs
+     * an SMix keeps the memory for the last N and r it used, so repeated derivations with the same parameters do
+     * not allocate it again. The memory is cleared after every use, and is held until the thread, or the cache,
+     * is no longer reachable.
+     */
+    public static final class ScratchCache
+    {
+        private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>();
+
+        public ScratchCache()
+        {
+        }
+
+        Scratch acquire(int N, int d, int r)
+        {
+            Scratch s = scratch.get();
+            if (s != null && s.inUse)
+            {
+                // the executor has run a task on a thread that is already in an SMix
+                return new Scratch(N, d, r);
+            }
+            if (s == null || s.N != N || s.r != r)
+            {
+                s = new Scratch(N, d, r);
+                scratch.set(s);
+            }
+            s.inUse = true;
+            return s;
+        }
+    }
+
+    private static final class Scratch
+    {
+        final int N, r;
+        final int[] blockX1 = new int[16];
+        final int[] blockX2 = new int[16];
+        final int[] blockY;
+        final int[] X;
+        final int[][] VV;
+
+        boolean inUse;
+
+        Scratch(int N, int d, int r)
+        {
+            int BCount = r * 32;
+            int blocksPerChunk = N >>> d;
+            int chunkCount = 1 << d;
+
+            this.N = N;
+            this.r = r;
+            this.blockY = new int[BCount];
+            this.X = new int[BCount];
+            this.VV = new int[chunkCount][];
+            for (int c = 0; c < chunkCount; ++c)
+            {
+                VV[c] = new int[blocksPerChunk * BCount];
+            }
+        }
+
+        void release()
+        {
+            inUse = false;
+        }
+    }
+
+    private static final class SMixTask
+        implements Runnable
+    {
+        private final int[] B;
+        private final int BOff, N, d, r;
+        private final ScratchCache cache;
+
+        SMixTask(int[] B, int BOff, int N, int d, int r, ScratchCache cache)
+        {
+            this.B = B;
+            this.BOff = BOff;
+            this.N = N;
+            this.d = d;
+            this.r = r;
+            this.cache = cache;
+        }
+
+        public void run()
+        {
+            Scratch scratch = acquireScratch(cache, N, d, r);
+            try
+            {
+                SMix(B, BOff, N, d, r, scratch);
+            }
+            finally
+            {
+                scratch.release();
+            }
+        }
+    }
 }
@@ -1,12 +1,28 @@
 package org.bouncycastle.crypto.macs;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
+import org.bouncycastle.crypto.ByteBufferMac;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.ExtendedDigest;
-import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake2sDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.EncodableDigest;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.bouncycastle.crypto.digests.MD5Digest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA224Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.crypto.digests.SHAKEDigest;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
 import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Memoable;
 
@@ -16,7 +32,7 @@
  * H(K XOR opad, H(K XOR ipad, text))
  */
 public class HMac
-    implements Mac
+    implements ByteBufferMac
 {
     private final static byte IPAD = (byte)0x36;
     private final static byte OPAD = (byte)0x5C;
@@ -170,6 +186,12 @@ public void update(
         digest.update(in, inOff, len);
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        ByteBufferUtil.update(digest, in);
+    }
+
     public int doFinal(
         byte[] out,
         int outOff)
@@ -221,6 +243,103 @@ public void reset()
         }
     }
 
+    /**
+     * Return an encoding of the state of the MAC calculation so far, so that it can be resumed later with
+     * {@link #restoreState(byte[])}. This is the encoded state of the underlying digest, which must be an
+     * EncodableDigest. The key itself is not included, but the state is derived from it, so the encoding should
+     * be protected accordingly.
+     *
+     * @return an encoding of the MAC's state.
+     */
+    public byte[] getEncodedState()
+    {
+        if (!(digest instanceof EncodableDigest))
+        {
+            throw new IllegalStateException("underlying digest is not encodable: " + digest.getAlgorithmName());
+        }
+
+        return ((EncodableDigest)digest).getEncodedState();
+    }
+
+    /**
+     * Resume a MAC calculation from a state returned by {@link #getEncodedState()}. The MAC must have been
+     * initialised with the same key as when the state was saved - this is not checked.
+     *
+     * @param encodedState the saved state.
+     */
+    public void restoreState(byte[] encodedState)
+    {
+        if (ipadState == null)
+        {
+            throw new IllegalStateException("HMac not initialised, or underlying digest is not Memoable");
+        }
+
+        Digest state = createDigest(digest, encodedState);
+        if (!state.getAlgorithmName().equals(digest.getAlgorithmName())
+            || state.getDigestSize() != digest.getDigestSize())
+        {
+            throw new IllegalArgumentException("encoded state is not for " + getAlgorithmName());
+        }
+
+        ((Memoable)digest).reset((Memoable)state);
+    }
+
+    private static Digest createDigest(Digest digest, byte[] encodedState)
+    {
+        if (digest instanceof SHA1Digest)
+        {
+            return new SHA1Digest(encodedState);
+        }
+        if (digest instanceof SHA224Digest)
+        {
+            return new SHA224Digest(encodedState);
+        }
+        if (digest instanceof SHA256Digest)
+        {
+            return new SHA256Digest(encodedState);
+        }
+        if (digest instanceof SHA384Digest)
+        {
+            return new SHA384Digest(encodedState);
+        }
+        if (digest instanceof SHA512Digest)
+        {
+            return new SHA512Digest(encodedState);
+        }
+        if (digest instanceof SHA512tDigest)
+        {
+            return new SHA512tDigest(encodedState);
+        }
+        if (digest instanceof MD5Digest)
+        {
+            return new MD5Digest(encodedState);
+        }
+        // NOTE: SHA3Digest before its parent KeccakDigest
+        if (digest instanceof SHA3Digest)
+        {
+            return new SHA3Digest(encodedState);
+        }
+        // NOTE: SHAKE and cSHAKE are also KeccakDigests, but not usable with HMac
+        if (digest instanceof KeccakDigest && !(digest instanceof SHAKEDigest))
+        {
+            return new KeccakDigest(encodedState);
+        }
+        if (digest instanceof Blake2bDigest)
+        {
+            return Blake2bDigest.newInstance(encodedState);
+        }
+        if (digest instanceof Blake2sDigest)
+        {
+            return Blake2sDigest.newInstance(encodedState);
+        }
+        if (digest instanceof Blake3Digest)
+        {
+            return new Blake3Digest(encodedState);
+        }
+
+        throw new IllegalStateException("underlying digest state cannot be restored: " + digest.getAlgorithmName());
+    }
+
     private static void xorPad(byte[] pad, int len, byte n)
     {
         for (int i = 0; i < len; ++i)
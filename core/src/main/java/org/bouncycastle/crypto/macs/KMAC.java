@@ -176,6 +176,46 @@ public void reset()
         firstOutput = true;
     }
 
+    /**
+     * Return an encoding of the state of the MAC calculation so far, so that it can be resumed later with
+     * {@link #restoreState(byte[])}. The key itself is not included, but the state is derived from it, so the
+     * encoding should be protected accordingly.
+     *
+     * @return an encoding of the MAC's state.
+     */
+    public byte[] getEncodedState()
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("KMAC not initialized");
+        }
+
+        return Arrays.prepend(cshake.getEncodedState(), (byte)(firstOutput ? 1 : 0));
+    }
+
+    /**
+     * Resume a MAC calculation from a state returned by {@link #getEncodedState()}. The MAC must have been
+     * initialised with the same key as when the state was saved - this is not checked.
+     *
+     * @param encodedState the saved state.
+     */
+    public void restoreState(byte[] encodedState)
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("KMAC not initialized");
+        }
+
+        CSHAKEDigest state = new CSHAKEDigest(Arrays.copyOfRange(encodedState, 1, encodedState.length));
+        if (state.getByteLength() != cshake.getByteLength())
+        {
+            throw new IllegalArgumentException("encoded state is not for " + getAlgorithmName());
+        }
+
+        cshake.reset(state);
+        firstOutput = encodedState[0] != 0;
+    }
+
     private void bytePad(byte[] X, int w)
     {
         byte[] bytes = XofUtils.leftEncode(w);
@@ -0,0 +1,49 @@
+package org.bouncycastle.crypto.modes;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+/**
+ * An AEAD cipher which can also process associated data, plain text and cipher text held in
+ * ByteBuffers, heap or direct, without the caller first copying the data into byte arrays.
+ * <p>
+ * The methods follow the byte array versions on {@link AEADCipher}: on return the position of each
+ * input buffer is equal to its limit and the position of each output buffer has advanced by the number of
+ * bytes written.
+ * </p>
+ */
+public interface ByteBufferAEADCipher
+    extends AEADCipher
+{
+    /**
+     * Add the remaining bytes in input to the associated data.
+     *
+     * @param input the buffer containing the associated data.
+     */
+    void processAADBytes(ByteBuffer input);
+
+    /**
+     * Process the remaining bytes in input, writing any output produced to output.
+     *
+     * @param input the buffer containing the data to be processed.
+     * @param output the buffer the output is written to, it must have at least
+     * getUpdateOutputSize(input.remaining()) bytes remaining.
+     * @return the number of bytes written to output.
+     * @throws org.bouncycastle.crypto.OutputLengthException if output does not have enough space remaining.
+     */
+    int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException;
+
+    /**
+     * Finish the operation, writing any remaining output and, when encrypting, the MAC to output.
+     *
+     * @param output the buffer the output is written to, it must have at least getOutputSize(0) bytes remaining.
+     * @return the number of bytes written to output.
+     * @throws IllegalStateException if the cipher is in an inappropriate state.
+     * @throws InvalidCipherTextException if the MAC fails to match.
+     */
+    int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException;
+}
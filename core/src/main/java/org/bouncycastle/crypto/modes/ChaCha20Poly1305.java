@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
@@ -10,11 +12,12 @@
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Pack;
 
 public class ChaCha20Poly1305
-    implements AEADCipher
+    implements ByteBufferAEADCipher
 {
     private static final class State
     {
@@ -47,6 +50,7 @@
     private final byte[] mac = new byte[MAC_SIZE];
 
     private byte[] initialAAD;
+    private byte[] finalBuf;
 
     private long aadCount;
     private long dataCount;
@@ -372,6 +376,111 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
         return resultLen;
     }
 
+    public void processAADBytes(ByteBuffer input)
+    {
+        checkAAD();
+
+        int len = input.remaining();
+        if (len > 0)
+        {
+            this.aadCount = incrementCount(aadCount, len, AAD_LIMIT);
+
+            if (input.hasArray())
+            {
+                poly1305.update(input.array(), input.arrayOffset() + input.position(), len);
+                input.position(input.limit());
+            }
+            else
+            {
+                // no data has been buffered yet, so buf is free to stage the AAD through
+                while (len > 0)
+                {
+                    int count = Math.min(len, buf.length);
+                    input.get(buf, 0, count);
+                    poly1305.update(buf, 0, count);
+                    len -= count;
+                }
+            }
+        }
+    }
+
+    public int processBytes(ByteBuffer input, ByteBuffer output) throws DataLengthException
+    {
+        int len = input.remaining();
+        int outPos = output.position();
+        if (output.remaining() < getUpdateOutputSize(len))
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        if (input.hasArray() && output.hasArray())
+        {
+            int resultLen = processBytes(input.array(), input.arrayOffset() + input.position(), len,
+                output.array(), output.arrayOffset() + outPos);
+            input.position(input.limit());
+            output.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        checkData();
+
+        /*
+         * The data is moved through buf a chunk at a time, with the key stream and MAC applied to it in place.
+         */
+        switch (state)
+        {
+        case State.DEC_DATA:
+        {
+            while (len > 0)
+            {
+                int count = Math.min(len, buf.length - bufPos);
+                input.get(buf, bufPos, count);
+                len -= count;
+                if ((bufPos += count) == buf.length)
+                {
+                    poly1305.update(buf, 0, BUF_SIZE);
+                    processData(buf, 0, BUF_SIZE, buf, 0);
+                    output.put(buf, 0, BUF_SIZE);
+                    System.arraycopy(buf, BUF_SIZE, buf, 0, MAC_SIZE);
+                    this.bufPos = MAC_SIZE;
+                }
+            }
+            break;
+        }
+        case State.ENC_DATA:
+        {
+            while (len > 0)
+            {
+                int count = Math.min(len, BUF_SIZE - bufPos);
+                input.get(buf, bufPos, count);
+                len -= count;
+                if ((bufPos += count) == BUF_SIZE)
+                {
+                    processData(buf, 0, BUF_SIZE, buf, 0);
+                    poly1305.update(buf, 0, BUF_SIZE);
+                    output.put(buf, 0, BUF_SIZE);
+                    this.bufPos = 0;
+                }
+            }
+            break;
+        }
+        default:
+            throw new IllegalStateException();
+        }
+
+        return output.position() - outPos;
+    }
+
+    public int doFinal(ByteBuffer output) throws IllegalStateException, InvalidCipherTextException
+    {
+        if (finalBuf == null && !output.hasArray())
+        {
+            finalBuf = new byte[BUF_SIZE + MAC_SIZE];
+        }
+
+        return ByteBufferUtil.doFinal(this, output, finalBuf);
+    }
+
     public int doFinal(byte[] out, int outOff) throws IllegalStateException, InvalidCipherTextException
     {
         if (null == out)
@@ -1,18 +1,23 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.modes.gcm.AggregatedGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMExponentiator;
 import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiBlockMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMUtil;
-import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Pack;
 
@@ -21,10 +26,17 @@
  * NIST Special Publication 800-38D.
  */
 public class GCMBlockCipher
-    implements GCMModeCipher
+    implements GCMModeCipher, ByteBufferAEADCipher
 {
     private static final int BLOCK_SIZE = 16;
 
+    // number of blocks handled together on the bulk encrypt/decrypt path
+    private static final int MULTI_BLOCKS = 4;
+    private static final int MULTI_BLOCK_SIZE = MULTI_BLOCKS * BLOCK_SIZE;
+
+    // size of the working arrays used to move data in and out of ByteBuffers without a backing array
+    private static final int STAGING_SIZE = 16 * MULTI_BLOCK_SIZE;
+
     // not final due to a compiler bug
     private BlockCipher   cipher;
     private GCMMultiplier multiplier;
@@ -42,6 +54,7 @@
 
     // These fields are modified during processing
     private byte[]      bufBlock;
+    private byte[]      ctrBlocks;
     private byte[]      macBlock;
     private byte[]      S, S_at, S_atPre;
     private byte[]      counter;
@@ -53,6 +66,9 @@
     private long        atLength;
     private long        atLengthPre;
 
+    // allocated on first use by the ByteBuffer methods
+    private byte[]      stagingIn, stagingOut;
+
     /**
      * Return a new GCM mode cipher based on the passed in base cipher
      *
@@ -102,11 +118,12 @@ public GCMBlockCipher(BlockCipher c, GCMMultiplier m)
 
         if (m == null)
         {
-            m = new Tables4kGCMMultiplier();
+            m = new AggregatedGCMMultiplier();
         }
 
         this.cipher = c;
         this.multiplier = m;
+        this.ctrBlocks = new byte[MULTI_BLOCK_SIZE];
     }
 
     public BlockCipher getUnderlyingCipher()
@@ -316,16 +333,15 @@ public void processAADBytes(byte[] in, int inOff, int len)
             //atBlockPos = 0;
         }
 
-        int inLimit = inOff + len - BLOCK_SIZE;
-
-        while (inOff <= inLimit)
+        int blockCount = len / BLOCK_SIZE;
+        if (blockCount > 0)
         {
-            gHASHBlock(S_at, in, inOff);
-            atLength += BLOCK_SIZE;
-            inOff += BLOCK_SIZE;
+            gHASHBlocks(S_at, in, inOff, blockCount);
+            atLength += blockCount * BLOCK_SIZE;
+            inOff += blockCount * BLOCK_SIZE;
         }
 
-        atBlockPos = BLOCK_SIZE + inLimit - inOff;
+        atBlockPos = len - blockCount * BLOCK_SIZE;
         System.arraycopy(in, inOff, atBlock, 0, atBlockPos);
     }
 
@@ -407,6 +423,14 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             }
 
             int inLimit = inOff + len - BLOCK_SIZE;
+            int multiLimit = inLimit - (MULTI_BLOCK_SIZE - BLOCK_SIZE);
+
+            while (inOff <= multiLimit)
+            {
+                encryptBlocks(in, inOff, out, outOff + resultLen);
+                inOff += MULTI_BLOCK_SIZE;
+                resultLen += MULTI_BLOCK_SIZE;
+            }
 
             while (inOff <= inLimit)
             {
@@ -452,6 +476,15 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             resultLen += BLOCK_SIZE;
             //bufOff = 0;
 
+            int multiLimit = inLimit - (MULTI_BLOCK_SIZE - BLOCK_SIZE);
+
+            while (inOff <= multiLimit)
+            {
+                decryptBlocks(in, inOff, out, outOff + resultLen);
+                inOff += MULTI_BLOCK_SIZE;
+                resultLen += MULTI_BLOCK_SIZE;
+            }
+
             while (inOff <= inLimit)
             {
                 decryptBlock(in, inOff, out, outOff + resultLen);
@@ -466,6 +499,28 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         return resultLen;
     }
 
+    public void processAADBytes(ByteBuffer input)
+    {
+        ByteBufferUtil.processAADBytes(this, input, input.hasArray() ? null : getStagingIn());
+    }
+
+    public int processBytes(ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        if (input.hasArray() && output.hasArray())
+        {
+            return ByteBufferUtil.processBytes(this, input, output, null, null);
+        }
+
+        return ByteBufferUtil.processBytes(this, input, output, getStagingIn(), getStagingOut());
+    }
+
+    public int doFinal(ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        return ByteBufferUtil.doFinal(this, output, output.hasArray() ? null : getStagingOut());
+    }
+
     public int doFinal(byte[] out, int outOff)
         throws IllegalStateException, InvalidCipherTextException
     {
@@ -674,6 +729,48 @@ private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private void decryptBlocks(byte[] buf, int bufOff, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < MULTI_BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(ctrBlocks, MULTI_BLOCKS);
+
+        gHASHBlocks(S, buf, bufOff, MULTI_BLOCKS);
+        for (int i = 0; i < MULTI_BLOCK_SIZE; i += BLOCK_SIZE)
+        {
+            GCMUtil.xor(ctrBlocks, i, buf, bufOff + i, out, outOff + i);
+        }
+
+        totalLength += MULTI_BLOCK_SIZE;
+    }
+
+    private void encryptBlocks(byte[] buf, int bufOff, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < MULTI_BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(ctrBlocks, MULTI_BLOCKS);
+
+        GCMUtil.xor(ctrBlocks, 0, buf, bufOff, MULTI_BLOCK_SIZE);
+        gHASHBlocks(S, ctrBlocks, 0, MULTI_BLOCKS);
+        System.arraycopy(ctrBlocks, 0, out, outOff, MULTI_BLOCK_SIZE);
+
+        totalLength += MULTI_BLOCK_SIZE;
+    }
+
     private void processPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
         byte[] ctrBlock = new byte[BLOCK_SIZE];
@@ -703,6 +800,25 @@ private void gHASH(byte[] Y, byte[] b, int len)
         }
     }
 
+    private byte[] getStagingIn()
+    {
+        if (stagingIn == null)
+        {
+            stagingIn = new byte[STAGING_SIZE];
+        }
+        return stagingIn;
+    }
+
+    private byte[] getStagingOut()
+    {
+        if (stagingOut == null)
+        {
+            // room for a full chunk plus whatever was already buffered
+            stagingOut = new byte[STAGING_SIZE + 2 * BLOCK_SIZE];
+        }
+        return stagingOut;
+    }
+
     private void gHASHBlock(byte[] Y, byte[] b)
     {
         GCMUtil.xor(Y, b);
@@ -715,6 +831,21 @@ private void gHASHBlock(byte[] Y, byte[] b, int off)
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int count)
+    {
+        if (multiplier instanceof GCMMultiBlockMultiplier)
+        {
+            ((GCMMultiBlockMultiplier)multiplier).gHASHBlocks(Y, b, off, count);
+            return;
+        }
+
+        for (int i = 0; i < count; ++i)
+        {
+            GCMUtil.xor(Y, b, off + i * BLOCK_SIZE);
+            multiplier.multiplyH(Y);
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
@@ -738,6 +869,42 @@ private void getNextCTRBlock(byte[] block)
         cipher.processBlock(counter, 0, block, 0);
     }
 
+    /**
+     * Fill blocks with the next count counter blocks, encrypted with a single call to the underlying
+     * cipher when it supports multi-block processing.
+     */
+    private void getNextCTRBlocks(byte[] blocks, int count)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            if (blocksRemaining == 0)
+            {
+                throw new IllegalStateException("Attempt to process too many blocks");
+            }
+            blocksRemaining--;
+
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, blocks, i * BLOCK_SIZE, BLOCK_SIZE);
+        }
+
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(blocks, 0, count, blocks, 0);
+        }
+        else
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                cipher.processBlock(blocks, i * BLOCK_SIZE, blocks, i * BLOCK_SIZE);
+            }
+        }
+    }
+
     private void checkStatus()
     {
         if (!initialised)
@@ -1,8 +1,12 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.ByteBufferStreamCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.StreamBlockCipher;
 import org.bouncycastle.crypto.params.ParametersWithIV;
@@ -15,14 +19,18 @@
  */
 public class SICBlockCipher
     extends StreamBlockCipher
-    implements CTRModeCipher
+    implements CTRModeCipher, ByteBufferStreamCipher
 {
+    // number of counter blocks encrypted together on the bulk path
+    private static final int WIDE_BLOCKS = 16;
+
     private final BlockCipher     cipher;
     private final int             blockSize;
 
     private byte[]          IV;
     private byte[]          counter;
     private byte[]          counterOut;
+    private byte[]          wideCounterOut;
     private int             byteCount;
 
     /**
@@ -50,6 +58,7 @@ public SICBlockCipher(BlockCipher c)
         this.IV = new byte[blockSize];
         this.counter = new byte[blockSize];
         this.counterOut = new byte[blockSize];
+        this.wideCounterOut = new byte[WIDE_BLOCKS * blockSize];
         this.byteCount = 0;
     }
 
@@ -138,7 +147,15 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             throw new OutputLengthException("output buffer too short");
         }
 
-        for (int i = 0; i < len; ++i)
+        int i = 0;
+
+        // whole blocks at a block boundary are handled in bulk, the byte-wise loop below deals with the rest
+        if (byteCount == 0 && len >= blockSize)
+        {
+            i = processWideBlocks(in, inOff, len / blockSize, out, outOff);
+        }
+
+        for (; i < len; ++i)
         {
             byte next;
 
@@ -164,6 +181,160 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         return len;
     }
 
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        int len = in.remaining();
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int inPos = in.position(), outPos = out.position();
+
+        if (in.hasArray() && out.hasArray())
+        {
+            processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+        }
+        else
+        {
+            int i = 0;
+
+            if (byteCount == 0 && len >= blockSize)
+            {
+                i = processWideBlocks(in, inPos, len / blockSize, out, outPos);
+            }
+
+            for (; i < len; ++i)
+            {
+                out.put(outPos + i, calculateByte(in.get(inPos + i)));
+            }
+        }
+
+        in.position(inPos + len);
+        out.position(outPos + len);
+        return len;
+    }
+
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return processBytes(in, inOff, blockCount * blockSize, out, outOff);
+    }
+
+    /**
+     * Process whole blocks from input to output, generating the key stream WIDE_BLOCKS blocks at a time.
+     * Processing stops early, before the offending block, if the counter would run into the IV so the
+     * byte-wise path can report it in the usual way.
+     *
+     * @return the number of bytes processed.
+     */
+    private int processWideBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        int processed = 0;
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, WIDE_BLOCKS);
+            int generated = generateWideBlocks(count);
+            if (generated == 0)
+            {
+                break;
+            }
+
+            int len = generated * blockSize;
+            for (int i = 0; i < len; ++i)
+            {
+                out[outOff + processed + i] = (byte)(in[inOff + processed + i] ^ wideCounterOut[i]);
+            }
+
+            processed += len;
+            blockCount -= generated;
+
+            if (generated < count)
+            {
+                break;
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * ByteBuffer version of processWideBlocks(), the key stream is applied using absolute gets and puts
+     * on the buffers so no copy of the data is made.
+     */
+    private int processWideBlocks(ByteBuffer in, int inPos, int blockCount, ByteBuffer out, int outPos)
+    {
+        int processed = 0;
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, WIDE_BLOCKS);
+            int generated = generateWideBlocks(count);
+            if (generated == 0)
+            {
+                break;
+            }
+
+            int len = generated * blockSize;
+            for (int i = 0; i < len; ++i)
+            {
+                out.put(outPos + processed + i, (byte)(in.get(inPos + processed + i) ^ wideCounterOut[i]));
+            }
+
+            processed += len;
+            blockCount -= generated;
+
+            if (generated < count)
+            {
+                break;
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * Fill wideCounterOut with the key stream for up to count blocks, encrypting the counter values with
+     * a single call to the underlying cipher where it supports it.
+     *
+     * @return the number of blocks of key stream generated.
+     */
+    private int generateWideBlocks(int count)
+    {
+        int generated = 0;
+        while (generated < count)
+        {
+            if (IV.length < blockSize && counter[IV.length - 1] != IV[IV.length - 1])
+            {
+                break;
+            }
+
+            System.arraycopy(counter, 0, wideCounterOut, generated * blockSize, blockSize);
+            incrementCounter();
+            ++generated;
+        }
+
+        if (generated > 0)
+        {
+            if (cipher instanceof MultiBlockCipher)
+            {
+                ((MultiBlockCipher)cipher).processBlocks(wideCounterOut, 0, generated, wideCounterOut, 0);
+            }
+            else
+            {
+                int len = generated * blockSize;
+                for (int pos = 0; pos < len; pos += blockSize)
+                {
+                    cipher.processBlock(wideCounterOut, pos, wideCounterOut, pos);
+                }
+            }
+        }
+
+        return generated;
+    }
+
     protected byte calculateByte(byte in)
           throws DataLengthException, IllegalStateException
     {
@@ -0,0 +1,124 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+import org.bouncycastle.util.Pack;
+
+/**
+ * A GCMMultiplier using "aggregated reduction" for runs of blocks. Tables in the style of
+ * {@link Tables4kGCMMultiplier} are built for each of H, H^2, H^3 and H^4 (16Kbytes in total), so four
+ * consecutive blocks can be hashed as (Y + B_1).H^4 + B_2.H^3 + B_3.H^2 + B_4.H, with the per-byte shift and
+ * reduction shared between the four blocks rather than done for each of them.
+ */
+public class AggregatedGCMMultiplier
+    implements GCMMultiBlockMultiplier
+{
+    private static final int MAX_BLOCKS = 4;
+
+    private byte[] H;
+    private long[][][] T;
+
+    public void init(byte[] H)
+    {
+        if (T == null)
+        {
+            T = new long[MAX_BLOCKS][256][2];
+        }
+        else if (0 != GCMUtil.areEqual(this.H, H))
+        {
+            return;
+        }
+
+        this.H = new byte[GCMUtil.SIZE_BYTES];
+        GCMUtil.copy(H, this.H);
+
+        long[] h = GCMUtil.asLongs(this.H);
+        long[] p = GCMUtil.asLongs(this.H);
+
+        for (int i = 0; i < MAX_BLOCKS; ++i)
+        {
+            // T[i] is the table for H^(i+1)
+            long[][] t = T[i];
+
+            if (i > 0)
+            {
+                GCMUtil.multiply(p, h);
+            }
+
+            // t[0] = 0
+
+            // t[1] = H^(i+1).p^7
+            GCMUtil.multiplyP7(p, t[1]);
+
+            for (int n = 2; n < 256; n += 2)
+            {
+                // t[2.n] = t[n].p^-1
+                GCMUtil.divideP(t[n >> 1], t[n]);
+
+                // t[2.n + 1] = t[2.n] + t[1]
+                GCMUtil.xor(t[n], t[1], t[n + 1]);
+            }
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        long[][] T0 = T[0];
+
+        long[] t = T0[x[15] & 0xFF];
+        long z0 = t[0], z1 = t[1];
+
+        for (int i = 14; i >= 0; --i)
+        {
+            t = T0[x[i] & 0xFF];
+
+            long c = z1 << 56;
+            z1 = t[1] ^ ((z1 >>> 8) | (z0 << 56));
+            z0 = t[0] ^ (z0 >>> 8) ^ c ^ (c >>> 1) ^ (c >>> 2) ^ (c >>> 7);
+        }
+
+        Pack.longToBigEndian(z0, x, 0);
+        Pack.longToBigEndian(z1, x, 8);
+    }
+
+    public void gHASHBlocks(byte[] Y, byte[] x, int xOff, int blockCount)
+    {
+        long[][] T0 = T[0], T1 = T[1], T2 = T[2], T3 = T[3];
+
+        while (blockCount >= MAX_BLOCKS)
+        {
+            int x0 = xOff, x1 = xOff + 16, x2 = xOff + 32, x3 = xOff + 48;
+
+            long[] t3 = T3[(Y[15] ^ x[x0 + 15]) & 0xFF], t2 = T2[x[x1 + 15] & 0xFF];
+            long[] t1 = T1[x[x2 + 15] & 0xFF], t0 = T0[x[x3 + 15] & 0xFF];
+
+            long z0 = t3[0] ^ t2[0] ^ t1[0] ^ t0[0];
+            long z1 = t3[1] ^ t2[1] ^ t1[1] ^ t0[1];
+
+            for (int i = 14; i >= 0; --i)
+            {
+                t3 = T3[(Y[i] ^ x[x0 + i]) & 0xFF];
+                t2 = T2[x[x1 + i] & 0xFF];
+                t1 = T1[x[x2 + i] & 0xFF];
+                t0 = T0[x[x3 + i] & 0xFF];
+
+                long c = z1 << 56;
+                z1 = t3[1] ^ t2[1] ^ t1[1] ^ t0[1] ^ ((z1 >>> 8) | (z0 << 56));
+                z0 = t3[0] ^ t2[0] ^ t1[0] ^ t0[0] ^ (z0 >>> 8) ^ c ^ (c >>> 1) ^ (c >>> 2) ^ (c >>> 7);
+            }
+
+            Pack.longToBigEndian(z0, Y, 0);
+            Pack.longToBigEndian(z1, Y, 8);
+
+            xOff += MAX_BLOCKS * GCMUtil.SIZE_BYTES;
+            blockCount -= MAX_BLOCKS;
+        }
+
+        while (blockCount > 0)
+        {
+            GCMUtil.xor(Y, x, xOff);
+            multiplyH(Y);
+
+            xOff += GCMUtil.SIZE_BYTES;
+            --blockCount;
+        }
+    }
+}
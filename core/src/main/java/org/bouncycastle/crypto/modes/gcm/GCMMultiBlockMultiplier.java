@@ -0,0 +1,19 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A GCMMultiplier that can also apply the GHASH step to a run of whole blocks in a single call.
+ */
+public interface GCMMultiBlockMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Hash blockCount consecutive 16 byte blocks from x into the running GHASH value Y, i.e. for each block
+     * B in turn Y = (Y ^ B).H. The result is identical to calling {@link #multiplyH(byte[])} once per block.
+     *
+     * @param Y the running hash value, updated in place.
+     * @param x the array containing the blocks to be hashed.
+     * @param xOff the offset of the first block in x.
+     * @param blockCount the number of blocks to hash.
+     */
+    void gHASHBlocks(byte[] Y, byte[] x, int xOff, int blockCount);
+}
@@ -3,6 +3,7 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.SecureRandom;
 
 import org.bouncycastle.math.ec.rfc8032.Ed25519;
 import org.bouncycastle.util.io.Streams;
@@ -114,6 +115,60 @@ public boolean verify(int algorithm, byte[] ctx, byte[] msg, int msgOff, int msg
         }
     }
 
+    /**
+     * Verify a batch of signatures, each under its own public key, in a single combined check. If the combined
+     * check fails, the signatures are verified individually, so that results[i] always reports the validity of
+     * sigs[i].
+     *
+     * @param random a source of randomness for the batch coefficients.
+     * @param algorithm either {@link Ed25519.Algorithm#Ed25519} or {@link Ed25519.Algorithm#Ed25519ctx}.
+     * @param ctx the context (null for Ed25519).
+     * @param publicKeys the public key for each signature.
+     * @param msgs the message for each signature.
+     * @param sigs the signatures.
+     * @param results receives the per-signature results.
+     * @return true if every signature is valid.
+     */
+    public static boolean verifyBatch(SecureRandom random, int algorithm, byte[] ctx,
+        Ed25519PublicKeyParameters[] publicKeys, byte[][] msgs, byte[][] sigs, boolean[] results)
+    {
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[publicKeys.length];
+        for (int i = 0; i < publicKeys.length; ++i)
+        {
+            publicPoints[i] = publicKeys[i].publicPoint;
+        }
+
+        switch (algorithm)
+        {
+        case Ed25519.Algorithm.Ed25519:
+        {
+            if (null != ctx)
+            {
+                throw new IllegalArgumentException("ctx");
+            }
+
+            return Ed25519.verifyBatch(random, sigs, publicPoints, msgs, results);
+        }
+        case Ed25519.Algorithm.Ed25519ctx:
+        {
+            if (null == ctx)
+            {
+                throw new NullPointerException("'ctx' cannot be null");
+            }
+            if (ctx.length > 255)
+            {
+                throw new IllegalArgumentException("ctx");
+            }
+
+            return Ed25519.verifyBatch(random, sigs, publicPoints, ctx, msgs, results);
+        }
+        default:
+        {
+            throw new IllegalArgumentException("algorithm");
+        }
+        }
+    }
+
     private static Ed25519.PublicPoint parse(byte[] buf, int off)
     {
         Ed25519.PublicPoint publicPoint = Ed25519.validatePublicKeyPartialExport(buf, off);
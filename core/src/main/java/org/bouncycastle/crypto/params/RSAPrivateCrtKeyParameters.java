@@ -2,6 +2,8 @@
 
 import java.math.BigInteger;
 
+import org.bouncycastle.math.raw.Mont;
+
 public class RSAPrivateCrtKeyParameters
     extends RSAKeyParameters
 {
@@ -12,6 +14,9 @@
     private BigInteger  dQ;
     private BigInteger  qInv;
 
+    private volatile Mont.Modulus montP;
+    private volatile Mont.Modulus montQ;
+
     /**
      * 
      */
@@ -78,4 +83,30 @@ public BigInteger getQInv()
     {
         return qInv;
     }
+
+    /**
+     * Return the values for Montgomery arithmetic modulo p, as used by the RSA engines, computing them on first use.
+     */
+    public Mont.Modulus getMontgomeryP()
+    {
+        Mont.Modulus result = montP;
+        if (result == null)
+        {
+            result = montP = new Mont.Modulus(p);
+        }
+        return result;
+    }
+
+    /**
+     * Return the values for Montgomery arithmetic modulo q, as used by the RSA engines, computing them on first use.
+     */
+    public Mont.Modulus getMontgomeryQ()
+    {
+        Mont.Modulus result = montQ;
+        if (result == null)
+        {
+            result = montQ = new Mont.Modulus(q);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,291 @@
+package org.bouncycastle.crypto.prng;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * An EntropySourceProvider backed by a pool of entropy gathered ahead of time, so that seeding and reseeding a DRBG
+ * does not have to wait for a slow (or starved) underlying source.
+ * <p>
+ * A daemon thread, started when the pool is first used, reads the underlying source and conditions what it reads
+ * into a bounded ring buffer: each 64 bytes added to the pool are the SHA-512 hash of 128 bytes read from the
+ * source. Once the pool is at least half full the thread only tops it up, pausing between reads so that it does not
+ * compete with other users of the source; when the pool drops below half full, it is woken and fills it again
+ * without pausing.
+ * </p><p>
+ * Entropy sources from the pool take their entropy from the buffer, without blocking, whenever it holds enough. If
+ * it does not, the pool is said to be starved, and the entropy is read and conditioned on the calling thread
+ * instead. {@link #getDepth()} and {@link #getStarvationCount()} can be used to check the pool is large enough for
+ * the demand on it.
+ * </p>
+ */
+public class EntropyPool
+    implements EntropySourceProvider
+{
+    private static final int BLOCK_SIZE = 64;
+
+    private final EntropySource source;
+    private final Digest conditioner = new SHA512Digest();       // guarded by source
+    private final long pause;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition demand = lock.newCondition();
+    private final byte[] buffer;
+    private int head = 0;                                   // guarded by lock
+    private int depth = 0;                                  // guarded by lock
+    private long starvationCount = 0;                       // guarded by lock
+    private Thread harvester = null;                        // guarded by lock
+
+    /**
+     * Create a pool fed by an entropy source from the passed in provider.
+     *
+     * @param sourceProvider the provider of the underlying entropy source.
+     * @param capacity the size of the pool, in bytes (rounded up to a multiple of 64).
+     * @param pause the time, in milliseconds, to pause between reads of the underlying source while topping up the pool.
+     */
+    public EntropyPool(EntropySourceProvider sourceProvider, int capacity, long pause)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (pause < 0)
+        {
+            throw new IllegalArgumentException("pause cannot be negative");
+        }
+
+        this.source = sourceProvider.get(BLOCK_SIZE * 2 * 8);
+        this.buffer = new byte[(capacity + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE];
+        this.pause = pause;
+    }
+
+    /**
+     * Return an entropy source that takes bitsRequired bits of entropy from the pool on each call to its getEntropy()
+     * method.
+     *
+     * @param bitsRequired size (in bits) of entropy to be returned by the source.
+     * @return an EntropySource drawing on this pool.
+     */
+    public EntropySource get(final int bitsRequired)
+    {
+        return new EntropySource()
+        {
+            private final int numBytes = (bitsRequired + 7) / 8;
+
+            public boolean isPredictionResistant()
+            {
+                return source.isPredictionResistant();
+            }
+
+            public byte[] getEntropy()
+            {
+                return take(numBytes);
+            }
+
+            public int entropySize()
+            {
+                return bitsRequired;
+            }
+        };
+    }
+
+    /**
+     * Return the size of the pool.
+     *
+     * @return the capacity of the pool, in bytes.
+     */
+    public int getCapacity()
+    {
+        return buffer.length;
+    }
+
+    /**
+     * Return the amount of entropy currently in the pool.
+     *
+     * @return the number of bytes available without blocking.
+     */
+    public int getDepth()
+    {
+        lock.lock();
+        try
+        {
+            return depth;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of requests the pool could not satisfy from its buffer.
+     *
+     * @return the number of times the pool has been starved.
+     */
+    public long getStarvationCount()
+    {
+        lock.lock();
+        try
+        {
+            return starvationCount;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private byte[] take(int numBytes)
+    {
+        byte[] entropy = new byte[numBytes];
+
+        lock.lock();
+        try
+        {
+            startHarvester();
+
+            if (depth >= numBytes)
+            {
+                int tail = (head + buffer.length - depth) % buffer.length;
+                for (int i = 0; i < numBytes; ++i)
+                {
+                    entropy[i] = buffer[tail];
+                    buffer[tail] = 0;
+                    tail = (tail + 1) % buffer.length;
+                }
+                depth -= numBytes;
+
+                if (depth < buffer.length / 2)
+                {
+                    demand.signal();
+                }
+                return entropy;
+            }
+
+            ++starvationCount;
+            demand.signal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        // the pool is starved, so gather what we need here
+        for (int off = 0; off < numBytes; off += BLOCK_SIZE)
+        {
+            byte[] block = harvest();
+            System.arraycopy(block, 0, entropy, off, Math.min(BLOCK_SIZE, numBytes - off));
+            Arrays.fill(block, (byte)0);
+        }
+
+        return entropy;
+    }
+
+    private byte[] harvest()
+    {
+        synchronized (source)
+        {
+            byte[] raw = new byte[BLOCK_SIZE * 2];
+            for (int off = 0; off < raw.length;)
+            {
+                byte[] sample = source.getEntropy();
+                int len = Math.min(sample.length, raw.length - off);
+                System.arraycopy(sample, 0, raw, off, len);
+                Arrays.fill(sample, (byte)0);
+                off += len;
+            }
+
+            byte[] block = new byte[BLOCK_SIZE];
+            conditioner.update(raw, 0, raw.length);
+            conditioner.doFinal(block, 0);
+            Arrays.fill(raw, (byte)0);
+
+            return block;
+        }
+    }
+
+    private void startHarvester()
+    {
+        // NOTE: Called with the lock held
+        if (harvester == null)
+        {
+            harvester = new Thread(new Harvester(), "BC Entropy Pool");
+            harvester.setDaemon(true);
+            harvester.start();
+        }
+    }
+
+    private class Harvester
+        implements Runnable
+    {
+        public void run()
+        {
+            try
+            {
+                while (!Thread.currentThread().isInterrupted())
+                {
+                    lock.lock();
+                    try
+                    {
+                        while (buffer.length - depth < BLOCK_SIZE)
+                        {
+                            demand.await();
+                        }
+
+                        // topping up - pause, unless woken because the pool is running low
+                        if (pause > 0 && depth >= buffer.length / 2)
+                        {
+                            demand.await(pause, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                    finally
+                    {
+                        lock.unlock();
+                    }
+
+                    byte[] block = harvest();
+
+                    lock.lock();
+                    try
+                    {
+                        // NOTE: Only this thread adds to the pool, so the space checked for above is still there
+                        System.arraycopy(block, 0, buffer, head, BLOCK_SIZE);
+                        head = (head + BLOCK_SIZE) % buffer.length;
+                        depth += BLOCK_SIZE;
+                    }
+                    finally
+                    {
+                        lock.unlock();
+                    }
+
+                    Arrays.fill(block, (byte)0);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (RuntimeException e)
+            {
+                // the underlying source has failed - requests will go to it directly and report the error
+            }
+            finally
+            {
+                lock.lock();
+                try
+                {
+                    harvester = null;
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
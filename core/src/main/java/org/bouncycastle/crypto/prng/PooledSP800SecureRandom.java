@@ -0,0 +1,225 @@
+package org.bouncycastle.crypto.prng;
+
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
+
+/**
+ * A SecureRandom backed by a pool of SP 800-90A DRBGs, for use by many threads at once. Each thread is mapped to
+ * one of the DRBGs, and moves to another one for a request if its own is busy, so that threads only wait for each
+ * other when every DRBG in the pool is in use.
+ * <p>
+ * The DRBGs are independent: each has its own instance of the underlying digest or cipher and its own nonce, and each
+ * is seeded, and reseeded, separately from a single shared entropy source. Requests to the entropy source are
+ * serialised, and counted (see {@link #getReseedCount()}).
+ * </p>
+ */
+public class PooledSP800SecureRandom
+    extends SecureRandom
+{
+    private final SecureRandom randomSource;
+    private final SharedEntropySource entropySource;
+    private final boolean predictionResistant;
+    private final Stripe[] stripes;
+    private final String algorithm;
+
+    PooledSP800SecureRandom(SecureRandom randomSource, EntropySource entropySource, DRBGProvider[] drbgProviders, boolean predictionResistant)
+    {
+        this.randomSource = randomSource;
+        this.entropySource = new SharedEntropySource(entropySource);
+        this.predictionResistant = predictionResistant;
+        this.stripes = new Stripe[drbgProviders.length];
+        this.algorithm = drbgProviders[0].getAlgorithm();
+
+        for (int i = 0; i < drbgProviders.length; ++i)
+        {
+            stripes[i] = new Stripe(drbgProviders[i]);
+        }
+    }
+
+    public void setSeed(byte[] seed)
+    {
+        synchronized (this)
+        {
+            if (randomSource != null)
+            {
+                this.randomSource.setSeed(seed);
+            }
+        }
+    }
+
+    public void setSeed(long seed)
+    {
+        synchronized (this)
+        {
+            // this will happen when SecureRandom() is created
+            if (randomSource != null)
+            {
+                this.randomSource.setSeed(seed);
+            }
+        }
+    }
+
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    /**
+     * Return the number of DRBGs in the pool.
+     *
+     * @return the pool size.
+     */
+    public int getPoolSize()
+    {
+        return stripes.length;
+    }
+
+    /**
+     * Return the number of times the DRBGs in the pool have requested entropy from the shared entropy source, for
+     * their instantiation or a reseed.
+     *
+     * @return the number of entropy requests made by the DRBGs so far.
+     */
+    public long getReseedCount()
+    {
+        return entropySource.getRequestCount();
+    }
+
+    public void nextBytes(byte[] bytes)
+    {
+        Stripe stripe = lockStripe();
+        try
+        {
+            SP80090DRBG drbg = stripe.getDRBG(entropySource);
+
+            // check if a reseed is required...
+            if (drbg.generate(bytes, null, predictionResistant) < 0)
+            {
+                drbg.reseed(null);
+                drbg.generate(bytes, null, predictionResistant);
+            }
+        }
+        finally
+        {
+            stripe.unlock();
+        }
+    }
+
+    public byte[] generateSeed(int numBytes)
+    {
+        return entropySource.generateSeed(numBytes);
+    }
+
+    /**
+     * Force a reseed of every DRBG in the pool.
+     *
+     * @param additionalInput optional additional input
+     */
+    public void reseed(byte[] additionalInput)
+    {
+        for (int i = 0; i < stripes.length; ++i)
+        {
+            Stripe stripe = stripes[i];
+
+            stripe.lock();
+            try
+            {
+                stripe.getDRBG(entropySource).reseed(additionalInput);
+            }
+            finally
+            {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private Stripe lockStripe()
+    {
+        int mask = stripes.length - 1;
+        int home = hash(Thread.currentThread().getId()) & mask;
+
+        for (int i = 0; i < stripes.length; ++i)
+        {
+            Stripe stripe = stripes[(home + i) & mask];
+            if (stripe.tryLock())
+            {
+                return stripe;
+            }
+        }
+
+        // every DRBG is busy, so wait for this thread's own
+        Stripe stripe = stripes[home];
+        stripe.lock();
+        return stripe;
+    }
+
+    private static int hash(long threadId)
+    {
+        // NOTE: Fibonacci hashing, so that consecutive thread IDs map to different stripes
+        int h = (int)(threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static class Stripe
+        extends ReentrantLock
+    {
+        private final DRBGProvider drbgProvider;
+
+        private SP80090DRBG drbg;       // guarded by this lock
+
+        Stripe(DRBGProvider drbgProvider)
+        {
+            this.drbgProvider = drbgProvider;
+        }
+
+        SP80090DRBG getDRBG(EntropySource entropySource)
+        {
+            if (drbg == null)
+            {
+                drbg = drbgProvider.get(entropySource);
+            }
+            return drbg;
+        }
+    }
+
+    private static class SharedEntropySource
+        implements EntropySource
+    {
+        private final EntropySource entropySource;
+
+        private long requestCount = 0;     // guarded by this
+
+        SharedEntropySource(EntropySource entropySource)
+        {
+            this.entropySource = entropySource;
+        }
+
+        public boolean isPredictionResistant()
+        {
+            return entropySource.isPredictionResistant();
+        }
+
+        public synchronized byte[] getEntropy()
+        {
+            ++requestCount;
+            return entropySource.getEntropy();
+        }
+
+        public int entropySize()
+        {
+            return entropySource.entropySize();
+        }
+
+        synchronized long getRequestCount()
+        {
+            return requestCount;
+        }
+
+        synchronized byte[] generateSeed(int numBytes)
+        {
+            return EntropyUtil.generateSeed(entropySource, numBytes);
+        }
+    }
+}
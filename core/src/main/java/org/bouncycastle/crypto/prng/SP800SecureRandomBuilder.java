@@ -6,6 +6,7 @@
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.engines.DESedeEngine;
 import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.prng.drbg.CTRSP800DRBG;
@@ -13,6 +14,8 @@
 import org.bouncycastle.crypto.prng.drbg.HashSP800DRBG;
 import org.bouncycastle.crypto.prng.drbg.SP80090DRBG;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
+import org.bouncycastle.util.Pack;
 
 /**
  * Builder class for making SecureRandom objects based on SP 800-90A Deterministic Random Bit Generators (DRBG).
@@ -25,6 +28,7 @@
     private byte[] personalizationString;
     private int securityStrength = 256;
     private int entropyBitsRequired = 256;
+    private int poolSize = 0;
 
     /**
      * Basic constructor, creates a builder using an EntropySourceProvider based on the default SecureRandom with
@@ -106,6 +110,25 @@ public SP800SecureRandomBuilder setEntropyBitsRequired(int entropyBitsRequired)
         return this;
     }
 
+    /**
+     * Set the number of DRBGs in the pool for pooled SecureRandom objects. The default is the number of available
+     * processors, rounded up to a power of 2.
+     *
+     * @param poolSize the number of DRBGs in the pool, a power of 2.
+     * @return the current builder.
+     */
+    public SP800SecureRandomBuilder setPoolSize(int poolSize)
+    {
+        if (poolSize < 1 || (poolSize & (poolSize - 1)) != 0)
+        {
+            throw new IllegalArgumentException("pool size must be a power of 2");
+        }
+
+        this.poolSize = poolSize;
+
+        return this;
+    }
+
     /**
      * Build a SecureRandom based on a SP 800-90A Hash DRBG.
      *
@@ -146,6 +169,93 @@ public SP800SecureRandom buildHMAC(Mac hMac, byte[] nonce, boolean predictionRes
         return new SP800SecureRandom(random, entropySourceProvider.get(entropyBitsRequired), new HMacDRBGProvider(hMac, nonce, personalizationString, securityStrength), predictionResistant);
     }
 
+    /**
+     * Build a SecureRandom based on a pool of SP 800-90A Hash DRBGs, for use by many threads at once. Each DRBG uses
+     * its own copy of the digest, and the nonce followed by the DRBG's position in the pool.
+     *
+     * @param digest digest algorithm to use in the DRBGs underneath the SecureRandom, which must implement Memoable.
+     * @param nonce  nonce value to use in DRBG construction.
+     * @param predictionResistant specify whether the underlying DRBGs in the resulting SecureRandom should reseed on each request for bytes.
+     * @return a SecureRandom supported by a pool of Hash DRBGs.
+     */
+    public PooledSP800SecureRandom buildPooledHash(Digest digest, byte[] nonce, boolean predictionResistant)
+    {
+        if (!(digest instanceof Memoable))
+        {
+            throw new IllegalArgumentException("digest must implement Memoable to be used in a pool");
+        }
+
+        DRBGProvider[] drbgProviders = new DRBGProvider[getPoolSize()];
+        for (int i = 0; i < drbgProviders.length; ++i)
+        {
+            Digest stripeDigest = (i == 0) ? digest : (Digest)((Memoable)digest).copy();
+
+            drbgProviders[i] = new HashDRBGProvider(stripeDigest, getStripeNonce(nonce, i), personalizationString, securityStrength);
+        }
+
+        return new PooledSP800SecureRandom(random, entropySourceProvider.get(entropyBitsRequired), drbgProviders, predictionResistant);
+    }
+
+    /**
+     * Build a SecureRandom based on a pool of SP 800-90A CTR DRBGs, for use by many threads at once. Each DRBG uses
+     * its own instance of the cipher, and the nonce followed by the DRBG's position in the pool.
+     *
+     * @param cipher the block cipher to base the DRBGs on, currently AES or DESede.
+     * @param keySizeInBits key size in bits to be used with the block cipher.
+     * @param nonce nonce value to use in DRBG construction.
+     * @param predictionResistant  specify whether the underlying DRBGs in the resulting SecureRandom should reseed on each request for bytes.
+     * @return  a SecureRandom supported by a pool of CTR DRBGs.
+     */
+    public PooledSP800SecureRandom buildPooledCTR(BlockCipher cipher, int keySizeInBits, byte[] nonce, boolean predictionResistant)
+    {
+        DRBGProvider[] drbgProviders = new DRBGProvider[getPoolSize()];
+        for (int i = 0; i < drbgProviders.length; ++i)
+        {
+            BlockCipher stripeCipher = (i == 0) ? cipher : createCipher(cipher);
+
+            drbgProviders[i] = new CTRDRBGProvider(stripeCipher, keySizeInBits, getStripeNonce(nonce, i), personalizationString, securityStrength);
+        }
+
+        return new PooledSP800SecureRandom(random, entropySourceProvider.get(entropyBitsRequired), drbgProviders, predictionResistant);
+    }
+
+    private int getPoolSize()
+    {
+        if (poolSize > 0)
+        {
+            return poolSize;
+        }
+
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        int size = 1;
+        while (size < processors && size < 64)
+        {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static byte[] getStripeNonce(byte[] nonce, int index)
+    {
+        return Arrays.concatenate(nonce, Pack.intToBigEndian(index));
+    }
+
+    private static BlockCipher createCipher(BlockCipher cipher)
+    {
+        // NOTE: BlockCipher has no copy method, so only the ciphers approved for the CTR DRBG are supported
+        if (cipher instanceof DESedeEngine)
+        {
+            return new DESedeEngine();
+        }
+        if ("AES".equals(cipher.getAlgorithmName()))
+        {
+            return AESEngine.newInstance();
+        }
+
+        throw new IllegalArgumentException("cipher not supported in a pool: " + cipher.getAlgorithmName());
+    }
+
     private static class HashDRBGProvider
         implements DRBGProvider
     {
@@ -17,6 +17,7 @@
 import org.bouncycastle.math.ec.ECFieldElement;
 import org.bouncycastle.math.ec.ECMultiplier;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.ECPointCache;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 import org.bouncycastle.util.BigIntegers;
 
@@ -168,7 +169,8 @@ public boolean verifySignature(
         BigInteger u2 = r.multiply(c).mod(n);
 
         ECPoint G = ec.getG();
-        ECPoint Q = ((ECPublicKeyParameters)key).getQ();
+        // NOTE: Reuse any precomputation for this public key from earlier verifications
+        ECPoint Q = ECPointCache.getInstance().get(((ECPublicKeyParameters)key).getQ());
 
         ECPoint point = ECAlgorithms.sumOfTwoMultiplies(G, u1, Q, u2);
 
@@ -0,0 +1,352 @@
+package org.bouncycastle.crypto.util;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.ByteBufferDigest;
+import org.bouncycastle.crypto.ByteBufferMac;
+import org.bouncycastle.crypto.ByteBufferStreamCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.ByteBufferAEADCipher;
+
+/**
+ * Utility methods for feeding ByteBuffers to digests, MACs and ciphers.
+ * <p>
+ * The two argument methods use the ByteBuffer methods of the primitive if it offers them (see
+ * {@link ByteBufferDigest}, {@link ByteBufferMac}, {@link ByteBufferStreamCipher} and
+ * {@link ByteBufferAEADCipher}) and otherwise fall back to the byte array methods. The fallback uses
+ * the backing arrays of heap buffers directly, anything else is copied through a working array. The
+ * variants taking working arrays never dispatch and are intended for implementations of the ByteBuffer
+ * interfaces that want to reuse their own working space.
+ * </p>
+ */
+public class ByteBufferUtil
+{
+    private static final int STAGING_SIZE = 1024;
+
+    /**
+     * Update a digest with the remaining bytes in input.
+     *
+     * @param digest the digest to update.
+     * @param input the buffer containing the data.
+     */
+    public static void update(Digest digest, ByteBuffer input)
+    {
+        if (digest instanceof ByteBufferDigest)
+        {
+            ((ByteBufferDigest)digest).update(input);
+            return;
+        }
+
+        int len = input.remaining();
+        if (input.hasArray())
+        {
+            digest.update(input.array(), input.arrayOffset() + input.position(), len);
+            input.position(input.limit());
+            return;
+        }
+
+        byte[] buf = new byte[Math.min(len, STAGING_SIZE)];
+        while (len > 0)
+        {
+            int count = Math.min(len, buf.length);
+            input.get(buf, 0, count);
+            digest.update(buf, 0, count);
+            len -= count;
+        }
+    }
+
+    /**
+     * Update a MAC with the remaining bytes in input.
+     *
+     * @param mac the MAC to update.
+     * @param input the buffer containing the data.
+     */
+    public static void update(Mac mac, ByteBuffer input)
+    {
+        if (mac instanceof ByteBufferMac)
+        {
+            ((ByteBufferMac)mac).update(input);
+            return;
+        }
+
+        int len = input.remaining();
+        if (input.hasArray())
+        {
+            mac.update(input.array(), input.arrayOffset() + input.position(), len);
+            input.position(input.limit());
+            return;
+        }
+
+        byte[] buf = new byte[Math.min(len, STAGING_SIZE)];
+        while (len > 0)
+        {
+            int count = Math.min(len, buf.length);
+            input.get(buf, 0, count);
+            mac.update(buf, 0, count);
+            len -= count;
+        }
+    }
+
+    /**
+     * Process the remaining bytes in input with a stream cipher, writing the result to output.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the data.
+     * @param output the buffer to write the result to.
+     * @return the number of bytes written to output.
+     */
+    public static int processBytes(StreamCipher cipher, ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        if (cipher instanceof ByteBufferStreamCipher)
+        {
+            return ((ByteBufferStreamCipher)cipher).processBytes(input, output);
+        }
+
+        return processBytes(cipher, input, output, null);
+    }
+
+    /**
+     * Process the remaining bytes in input with the byte array methods of a stream cipher, staging
+     * buffers without a backing array through buf.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the data.
+     * @param output the buffer to write the result to.
+     * @param buf working array for staging data, may be null in which case one is allocated if needed.
+     * @return the number of bytes written to output.
+     */
+    public static int processBytes(StreamCipher cipher, ByteBuffer input, ByteBuffer output, byte[] buf)
+        throws DataLengthException
+    {
+        int len = input.remaining();
+        if (output.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (input.hasArray() && output.hasArray())
+        {
+            int outPos = output.position();
+            cipher.processBytes(input.array(), input.arrayOffset() + input.position(), len, output.array(),
+                output.arrayOffset() + outPos);
+            input.position(input.limit());
+            output.position(outPos + len);
+            return len;
+        }
+
+        if (buf == null)
+        {
+            buf = new byte[Math.min(len, STAGING_SIZE)];
+        }
+
+        int remaining = len;
+        while (remaining > 0)
+        {
+            int count = Math.min(remaining, buf.length);
+            input.get(buf, 0, count);
+            cipher.processBytes(buf, 0, count, buf, 0);
+            output.put(buf, 0, count);
+            remaining -= count;
+        }
+
+        return len;
+    }
+
+    /**
+     * Add the remaining bytes in input to the associated data of an AEAD cipher.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the associated data.
+     */
+    public static void processAADBytes(AEADCipher cipher, ByteBuffer input)
+    {
+        if (cipher instanceof ByteBufferAEADCipher)
+        {
+            ((ByteBufferAEADCipher)cipher).processAADBytes(input);
+            return;
+        }
+
+        processAADBytes(cipher, input, null);
+    }
+
+    /**
+     * Add the remaining bytes in input to the associated data using the byte array methods of an AEAD
+     * cipher, staging buffers without a backing array through buf.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the associated data.
+     * @param buf working array for staging data, may be null in which case one is allocated if needed.
+     */
+    public static void processAADBytes(AEADCipher cipher, ByteBuffer input, byte[] buf)
+    {
+        int len = input.remaining();
+        if (input.hasArray())
+        {
+            cipher.processAADBytes(input.array(), input.arrayOffset() + input.position(), len);
+            input.position(input.limit());
+            return;
+        }
+
+        if (buf == null)
+        {
+            buf = new byte[Math.min(len, STAGING_SIZE)];
+        }
+
+        while (len > 0)
+        {
+            int count = Math.min(len, buf.length);
+            input.get(buf, 0, count);
+            cipher.processAADBytes(buf, 0, count);
+            len -= count;
+        }
+    }
+
+    /**
+     * Process the remaining bytes in input with an AEAD cipher, writing any output produced to output.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the data.
+     * @param output the buffer to write the output to.
+     * @return the number of bytes written to output.
+     */
+    public static int processBytes(AEADCipher cipher, ByteBuffer input, ByteBuffer output)
+        throws DataLengthException
+    {
+        if (cipher instanceof ByteBufferAEADCipher)
+        {
+            return ((ByteBufferAEADCipher)cipher).processBytes(input, output);
+        }
+
+        return processBytes(cipher, input, output, null, null);
+    }
+
+    /**
+     * Process the remaining bytes in input with the byte array methods of an AEAD cipher, staging
+     * buffers without a backing array through inBuf and outBuf.
+     *
+     * @param cipher the cipher to use.
+     * @param input the buffer containing the data.
+     * @param output the buffer to write the output to.
+     * @param inBuf working array for staging input, may be null in which case one is allocated if needed.
+     * @param outBuf working array for staging output, may be null in which case one is allocated if needed. Input is
+     * taken in shorter chunks where necessary to keep the output within this array.
+     * @return the number of bytes written to output.
+     */
+    public static int processBytes(AEADCipher cipher, ByteBuffer input, ByteBuffer output, byte[] inBuf,
+        byte[] outBuf)
+        throws DataLengthException
+    {
+        int len = input.remaining();
+        int outPos = output.position();
+        if (output.remaining() < cipher.getUpdateOutputSize(len))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (input.hasArray() && output.hasArray())
+        {
+            int resultLen = cipher.processBytes(input.array(), input.arrayOffset() + input.position(), len,
+                output.array(), output.arrayOffset() + outPos);
+            input.position(input.limit());
+            output.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        if (inBuf == null)
+        {
+            inBuf = new byte[Math.min(len, STAGING_SIZE)];
+        }
+        if (outBuf == null)
+        {
+            int count = Math.min(len, inBuf.length);
+            outBuf = new byte[Math.max(cipher.getUpdateOutputSize(count), count)];
+        }
+
+        while (len > 0)
+        {
+            int count = Math.min(len, inBuf.length);
+            int outLen = cipher.getUpdateOutputSize(count);
+
+            // NOTE: Rather than grow outBuf, take a shorter chunk when the cipher's buffered data would overflow it
+            while (outLen > outBuf.length && count > 1)
+            {
+                count -= Math.min(count - 1, outLen - outBuf.length);
+                outLen = cipher.getUpdateOutputSize(count);
+            }
+            if (outLen > outBuf.length)
+            {
+                // outBuf is smaller than what the cipher can have buffered
+                outBuf = new byte[outLen];
+            }
+
+            input.get(inBuf, 0, count);
+            output.put(outBuf, 0, cipher.processBytes(inBuf, 0, count, outBuf, 0));
+            len -= count;
+        }
+
+        return output.position() - outPos;
+    }
+
+    /**
+     * Finish an AEAD operation, writing the final output to output.
+     *
+     * @param cipher the cipher to use.
+     * @param output the buffer to write the output to.
+     * @return the number of bytes written to output.
+     */
+    public static int doFinal(AEADCipher cipher, ByteBuffer output)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        if (cipher instanceof ByteBufferAEADCipher)
+        {
+            return ((ByteBufferAEADCipher)cipher).doFinal(output);
+        }
+
+        return doFinal(cipher, output, null);
+    }
+
+    /**
+     * Finish an AEAD operation using the byte array methods of the cipher, staging the output through
+     * buf if output has no backing array.
+     *
+     * @param cipher the cipher to use.
+     * @param output the buffer to write the output to.
+     * @param buf working array for staging output, may be null in which case one is allocated if needed.
+     * @return the number of bytes written to output.
+     */
+    public static int doFinal(AEADCipher cipher, ByteBuffer output, byte[] buf)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        int outLen = cipher.getOutputSize(0);
+        if (output.remaining() < outLen)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int resultLen;
+        if (output.hasArray())
+        {
+            resultLen = cipher.doFinal(output.array(), output.arrayOffset() + output.position());
+            output.position(output.position() + resultLen);
+        }
+        else
+        {
+            if (buf == null || buf.length < outLen)
+            {
+                buf = new byte[outLen];
+            }
+
+            resultLen = cipher.doFinal(buf, 0);
+            output.put(buf, 0, resultLen);
+        }
+
+        return resultLen;
+    }
+}
@@ -11,6 +11,12 @@
 
 public class ECAlgorithms
 {
+    /*
+     * From this many points, sumOfMultiplies uses bucket (Pippenger) rather than interleaved wNAF (Straus)
+     * multi-scalar multiplication.
+     */
+    private static final int PIPPENGER_THRESHOLD = 256;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -60,6 +66,11 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
             imported[i] = importPoint(c, ps[i]);
         }
 
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            return implCheckResult(implSumOfMultipliesPippenger(imported, ks));
+        }
+
         ECEndomorphism endomorphism = c.getEndomorphism();
         if (endomorphism instanceof GLVEndomorphism)
         {
@@ -541,6 +552,185 @@ private static ECPoint implSumOfMultiplies(boolean[] negs, WNafPreCompInfo[] inf
         return R;
     }
 
+    /*
+     * Bucket ("Pippenger") multi-scalar multiplication. The scalars are recoded into signed c-bit digits, and for
+     * each window, from the most significant, every point is added to (or subtracted from) the bucket for its digit
+     * and the buckets are then combined with a running sum, at a cost of about N + 2^c additions per window rather
+     * than the N.c/(w + 1) of interleaved wNAF. Where the curve has a GLV endomorphism (e.g. secp256k1) the scalars
+     * are first split in half, halving the number of windows. The input points are normalized so that all the
+     * bucket additions are mixed additions, which the custom curve implementations (e.g. secp256r1) specialise.
+     */
+    static ECPoint implSumOfMultipliesPippenger(ECPoint[] ps, BigInteger[] ks)
+    {
+        ECCurve c = ps[0].getCurve();
+        BigInteger n = c.getOrder();
+
+        int count = ps.length;
+        ECPoint[] points = new ECPoint[count];
+        System.arraycopy(ps, 0, points, 0, count);
+        c.normalizeAll(points);
+
+        BigInteger[] scalars;
+
+        ECEndomorphism endomorphism = c.getEndomorphism();
+        if (n != null && endomorphism instanceof GLVEndomorphism)
+        {
+            GLVEndomorphism glvEndomorphism = (GLVEndomorphism)endomorphism;
+            ECPointMap pointMap = glvEndomorphism.getPointMap();
+
+            ECPoint[] pqs = new ECPoint[count << 1];
+            BigInteger[] abs = new BigInteger[count << 1];
+            for (int i = 0, j = 0; i < count; ++i)
+            {
+                BigInteger[] ab = glvEndomorphism.decomposeScalar(ks[i].mod(n));
+                pqs[j] = points[i];
+                abs[j++] = ab[0];
+                pqs[j] = pointMap.map(points[i]);
+                abs[j++] = ab[1];
+            }
+
+            // NOTE: The point map may not preserve normalization
+            c.normalizeAll(pqs);
+
+            points = pqs;
+            scalars = abs;
+            count <<= 1;
+        }
+        else
+        {
+            // NOTE: Always a copy, since the scalars are made non-negative in place below
+            scalars = new BigInteger[count];
+            for (int i = 0; i < count; ++i)
+            {
+                scalars[i] = null == n ? ks[i] : ks[i].mod(n);
+            }
+        }
+
+        int bits = 0;
+        ECPoint[] negPoints = new ECPoint[count];
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger k = scalars[i];
+            if (k.signum() < 0)
+            {
+                ECPoint p = points[i];
+                points[i] = p.negate();
+                negPoints[i] = p;
+                scalars[i] = k = k.negate();
+            }
+            else
+            {
+                negPoints[i] = points[i].negate();
+            }
+
+            bits = Math.max(bits, k.bitLength());
+        }
+
+        if (bits == 0)
+        {
+            return c.getInfinity();
+        }
+
+        int width = getPippengerWidth(count, bits);
+        int windows = bits / width + 1;
+
+        int[][] digits = new int[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            digits[i] = getSignedDigits(scalars[i], width, windows);
+        }
+
+        ECPoint[] buckets = new ECPoint[1 << (width - 1)];
+        ECPoint R = c.getInfinity();
+
+        for (int window = windows - 1; window >= 0; --window)
+        {
+            if (!R.isInfinity())
+            {
+                R = R.timesPow2(width);
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                int digit = digits[i][window];
+                if (digit != 0)
+                {
+                    int index = Math.abs(digit) - 1;
+                    ECPoint p = digit < 0 ? negPoints[i] : points[i];
+                    ECPoint bucket = buckets[index];
+                    buckets[index] = (bucket == null) ? p : bucket.add(p);
+                }
+            }
+
+            // Sum of (index + 1) * buckets[index], leaving the buckets empty for the next window
+            ECPoint runningSum = null, windowSum = null;
+            for (int index = buckets.length - 1; index >= 0; --index)
+            {
+                ECPoint bucket = buckets[index];
+                if (bucket != null)
+                {
+                    runningSum = (runningSum == null) ? bucket : runningSum.add(bucket);
+                    buckets[index] = null;
+                }
+                if (runningSum != null)
+                {
+                    windowSum = (windowSum == null) ? runningSum : windowSum.add(runningSum);
+                }
+            }
+
+            if (windowSum != null)
+            {
+                R = R.add(windowSum);
+            }
+        }
+
+        return R;
+    }
+
+    private static int getPippengerWidth(int count, int bits)
+    {
+        // Minimise the estimated number of additions, (bits/width + 1) * (count + 2^width)
+        int width = 2;
+        long minCost = Long.MAX_VALUE;
+        for (int w = 2; w <= 16; ++w)
+        {
+            long cost = (long)(bits / w + 1) * (count + (1L << w));
+            if (cost < minCost)
+            {
+                minCost = cost;
+                width = w;
+            }
+        }
+        return width;
+    }
+
+    /*
+     * Recode k into 'windows' signed digits of 'width' bits, each in the range [-2^(width - 1), 2^(width - 1)].
+     */
+    private static int[] getSignedDigits(BigInteger k, int width, int windows)
+    {
+        int[] n = Nat.fromBigInteger(windows * width, k);
+        int[] digits = new int[windows];
+        int mask = (1 << width) - 1, half = 1 << (width - 1), carry = 0;
+        for (int window = 0, pos = 0; window < windows; ++window, pos += width)
+        {
+            int word = pos >>> 5, shift = pos & 31;
+            int bits = n[word] >>> shift;
+            if (shift + width > 32 && word + 1 < n.length)
+            {
+                bits |= n[word + 1] << (32 - shift);
+            }
+
+            int digit = (bits & mask) + carry;
+            carry = digit > half ? 1 : 0;
+            digits[window] = digit - (carry << width);
+        }
+
+//        assert carry == 0;
+
+        return digits;
+    }
+
     private static ECPoint implShamirsTrickFixedPoint(ECPoint p, BigInteger k, ECPoint q, BigInteger l)
     {
         ECCurve c = p.getCurve();
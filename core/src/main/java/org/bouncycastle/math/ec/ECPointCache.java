@@ -0,0 +1,220 @@
+package org.bouncycastle.math.ec;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Properties;
+
+/**
+ * A bounded cache of points that are used over and over as the variable point in multiplications, such as
+ * long-lived public keys.
+ * <p>
+ * Precomputation for a point (see {@link WNafUtil} and {@link FixedPointUtil}) is kept with the point object,
+ * so it is lost whenever the same key is decoded again, or cleaned, into a new point object. Looking a point up in
+ * this cache returns a single shared object for each value, so its precomputation is done once; and once a point
+ * has been used enough times to be 'promoted', multiplications by it can switch to the fixed-point comb.
+ * </p><p>
+ * A point is only admitted to the cache when it is seen for the second time (recently), so one-off points such as
+ * ephemeral ECDH keys pass straight through without displacing anything. The cache is bounded by an estimate of the
+ * memory taken by each point's precomputation, with the least recently used points evicted first. The size of the
+ * default instance is set by the system property "org.bouncycastle.ec.point_cache_size", in bytes (0 disables it).
+ * </p>
+ */
+public class ECPointCache
+{
+    private static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+    private static final int ADMISSION_SLOTS = 1024;
+
+    private static final ECPointCache instance = new ECPointCache(
+        Properties.asInteger("org.bouncycastle.ec.point_cache_size", DEFAULT_MAX_SIZE));
+
+    /**
+     * Return the default, shared, cache.
+     *
+     * @return the default cache instance.
+     */
+    public static ECPointCache getInstance()
+    {
+        return instance;
+    }
+
+    private final ConcurrentMap<Key, CachedPoint> cache = new ConcurrentHashMap<Key, CachedPoint>();
+    private final int[] seen = new int[ADMISSION_SLOTS];
+    private final long maxSize;
+    private long size = 0;      // guarded by cache
+
+    /**
+     * Create a cache of the given size.
+     *
+     * @param maxSize the maximum size of the cache, as an estimate of the memory used in bytes.
+     */
+    public ECPointCache(long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return the cached point equal to p, caching p itself if there is none and p has been seen recently. The point
+     * returned is on the same curve object as p.
+     *
+     * @param p the point of interest.
+     * @return a point equal to p, carrying any precomputation done for that value.
+     */
+    public ECPoint get(ECPoint p)
+    {
+        if (maxSize <= 0 || p.isInfinity())
+        {
+            return p;
+        }
+
+        Key key = new Key(p.getCurve(), p.getEncoded(true));
+        long now = System.nanoTime();
+
+        CachedPoint cached = cache.get(key);
+        if (cached != null)
+        {
+            cached.lastAccess = now;
+            return cached.point;
+        }
+
+        long entrySize = estimateSize(p.getCurve());
+        if (entrySize > maxSize || !admit(key))
+        {
+            return p;
+        }
+
+        CachedPoint newCached = new CachedPoint(p.normalize(), entrySize);
+        newCached.lastAccess = now;
+
+        cached = cache.putIfAbsent(key, newCached);
+        if (cached != null)
+        {
+            return cached.point;
+        }
+
+        synchronized (cache)
+        {
+            size += entrySize;
+            evict(key);
+        }
+
+        return newCached.point;
+    }
+
+    /**
+     * Return the number of points in the cache.
+     *
+     * @return the number of cached points.
+     */
+    public int size()
+    {
+        return cache.size();
+    }
+
+    private boolean admit(Key key)
+    {
+        /*
+         * NOTE: Each slot records the hash of the last uncached point that landed in it. Races (and collisions) can
+         * only admit a point a little early or late, so the slots are deliberately left unsynchronized.
+         */
+        int hash = key.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (ADMISSION_SLOTS - 1);
+        if (seen[slot] == hash)
+        {
+            return true;
+        }
+
+        seen[slot] = hash;
+        return false;
+    }
+
+    private void evict(Key added)
+    {
+        // NOTE: Called with the cache lock held
+        while (size > maxSize)
+        {
+            Key lruKey = null;
+            CachedPoint lru = null;
+            for (Iterator<Map.Entry<Key, CachedPoint>> it = cache.entrySet().iterator(); it.hasNext();)
+            {
+                Map.Entry<Key, CachedPoint> entry = it.next();
+                CachedPoint cached = entry.getValue();
+                if (!added.equals(entry.getKey()) && (lru == null || cached.lastAccess < lru.lastAccess))
+                {
+                    lruKey = entry.getKey();
+                    lru = cached;
+                }
+            }
+
+            if (lru == null || !cache.remove(lruKey, lru))
+            {
+                break;
+            }
+
+            size -= lru.size;
+        }
+    }
+
+    private static long estimateSize(ECCurve c)
+    {
+        // NOTE: A rough figure for a fixed-point comb table plus the largest WNAF tables, in normalized points
+        int combWidth = FixedPointUtil.getCombSize(c) > 250 ? 6 : 5;
+        int pointCount = (1 << combWidth) + 2 * (1 << 6);
+        int pointSize = 2 * (((c.getFieldSize() + 7) / 8) + 48);
+
+        return (long)pointCount * pointSize;
+    }
+
+    private static class Key
+    {
+        private final ECCurve curve;
+        private final byte[] encoding;
+        private final int hashCode;
+
+        Key(ECCurve curve, byte[] encoding)
+        {
+            this.curve = curve;
+            this.encoding = encoding;
+            this.hashCode = Arrays.hashCode(encoding);
+        }
+
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+
+            // NOTE: Points are only shared between users of the same curve object
+            return curve == other.curve && Arrays.areEqual(encoding, other.encoding);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
+    private static class CachedPoint
+    {
+        final ECPoint point;
+        final long size;
+
+        volatile long lastAccess;
+
+        CachedPoint(ECPoint point, long size)
+        {
+            this.point = point;
+            this.size = size;
+        }
+    }
+}
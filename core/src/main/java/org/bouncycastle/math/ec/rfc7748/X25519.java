@@ -151,6 +151,34 @@ public static void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r,
         F.encode(x2, r, rOff);
     }
 
+    /**
+     * Carry out a batch of independent scalar multiplications, rs[i] = X25519(ks[i], us[i]). Where the platform
+     * supports it (Java 21 and later, with the jdk.incubator.vector module), several multiplications are done at once
+     * using vector instructions; otherwise this is the same as calling
+     * {@link #scalarMult(byte[], int, byte[], int, byte[], int)} for each entry.
+     *
+     * @param ks the scalars, each SCALAR_SIZE bytes.
+     * @param us the u-coordinates, each POINT_SIZE bytes.
+     * @param rs the arrays the results are written to, each at least POINT_SIZE bytes.
+     */
+    public static void scalarMultBatch(byte[][] ks, byte[][] us, byte[][] rs)
+    {
+        int count = ks.length;
+        if (us.length != count || rs.length != count)
+        {
+            throw new IllegalArgumentException("batch arrays must be the same length");
+        }
+        for (int i = 0; i < count; ++i)
+        {
+            if (ks[i].length < SCALAR_SIZE || us[i].length < POINT_SIZE || rs[i].length < POINT_SIZE)
+            {
+                throw new IllegalArgumentException("batch entry " + i + " too short");
+            }
+        }
+
+        X25519Batch.scalarMult(ks, us, rs);
+    }
+
     public static void scalarMultBase(byte[] k, int kOff, byte[] r, int rOff)
     {
         // Equivalent (but much slower)
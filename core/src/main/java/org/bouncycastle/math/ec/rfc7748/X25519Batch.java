@@ -0,0 +1,17 @@
+package org.bouncycastle.math.ec.rfc7748;
+
+/**
+ * Batch scalar multiplication for X25519. This version simply works through the batch one at a time; on Java 21 and
+ * later a version that does several multiplications at once, using the vector API, is used if the
+ * jdk.incubator.vector module is available.
+ */
+class X25519Batch
+{
+    static void scalarMult(byte[][] ks, byte[][] us, byte[][] rs)
+    {
+        for (int i = 0; i < ks.length; ++i)
+        {
+            X25519.scalarMult(ks[i], 0, us[i], 0, rs[i], 0);
+        }
+    }
+}
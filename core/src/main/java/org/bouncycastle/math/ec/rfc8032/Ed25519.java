@@ -85,7 +85,7 @@ private static class F extends X25519Field {};
     private static final int[] C_d4 = new int[]{ 0x0165E2B2, 0x034DCA13, 0x002ADD7A, 0x01A8283B, 0x00038052, 0x01E7A260,
         0x03407977, 0x019CE331, 0x01C56DFF, 0x00901B67 };
 
-//    private static final int WNAF_WIDTH = 5;
+    private static final int WNAF_WIDTH = 5;
     private static final int WNAF_WIDTH_128 = 4;
     private static final int WNAF_WIDTH_BASE = 6;
 
@@ -97,6 +97,9 @@ private static class F extends X25519Field {};
     private static final int PRECOMP_POINTS = 1 << (PRECOMP_TEETH - 1);
     private static final int PRECOMP_MASK = PRECOMP_POINTS - 1;
 
+    // The number of signatures combined into each multi-scalar multiplication by verifyBatch
+    private static final int BATCH_SIZE = 64;
+
     private static final Object PRECOMP_LOCK = new Object();
     private static PointPrecomp[] PRECOMP_BASE_WNAF = null;
     private static PointPrecomp[] PRECOMP_BASE128_WNAF = null;    
@@ -636,6 +639,190 @@ private static boolean implVerify(byte[] sig, int sigOff, PublicPoint publicPoin
         return normalizeToNeutralElementVar(pZ);
     }
 
+    private static boolean implVerifyBatch(SecureRandom random, byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx,
+        byte phflag, byte[][] ms, boolean[] results)
+    {
+        if (!checkContextVar(ctx, phflag))
+        {
+            throw new IllegalArgumentException("ctx");
+        }
+
+        int count = sigs.length;
+        if (publicPoints.length != count || ms.length != count)
+        {
+            throw new IllegalArgumentException("batch arrays must have the same length");
+        }
+        if (results.length < count)
+        {
+            throw new IllegalArgumentException("'results' too short");
+        }
+
+        boolean allValid = true;
+        for (int batchOff = 0; batchOff < count; batchOff += BATCH_SIZE)
+        {
+            int batchLen = Math.min(BATCH_SIZE, count - batchOff);
+            allValid &= implVerifyBatch(random, sigs, publicPoints, ctx, phflag, ms, results, batchOff, batchLen);
+        }
+        return allValid;
+    }
+
+    /*
+     * Checks a random linear combination of the (cofactored) verification equations of the given signatures, i.e.
+     * 8 * ([sum(z_i.S_i)]B - sum([z_i]R_i) - sum([z_i.k_i]A_i)) == 0, for random 127-bit z_i, using a single
+     * interleaved multi-scalar multiplication. If the combined check fails, each signature is checked individually
+     * so that the results identify the invalid ones.
+     */
+    private static boolean implVerifyBatch(SecureRandom random, byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx,
+        byte phflag, byte[][] ms, boolean[] results, int batchOff, int batchLen)
+    {
+        precompute();
+
+        int countA = 1 << (WNAF_WIDTH - 2);
+        int countR = 1 << (WNAF_WIDTH_128 - 2);
+
+        int[] indices = new int[batchLen];
+        byte[][] ws_a = new byte[batchLen][];
+        byte[][] ws_r = new byte[batchLen][];
+        PointPrecompZ[][] ta = new PointPrecompZ[batchLen][];
+        PointPrecompZ[][] tr = new PointPrecompZ[batchLen][];
+
+        Digest d = createDigest();
+        byte[] A = new byte[PUBLIC_KEY_SIZE];
+        byte[] h = new byte[64];
+        int[] nS = new int[SCALAR_INTS];
+        int[] nA = new int[SCALAR_INTS];
+        int[] nZ = new int[4];
+        int[] sum = new int[SCALAR_INTS];
+        PointAffine pA = new PointAffine();
+        PointAffine pR = new PointAffine();
+        PointTemp t = new PointTemp();
+
+        int valid = 0;
+        for (int i = batchOff, batchEnd = batchOff + batchLen; i < batchEnd; ++i)
+        {
+            results[i] = false;
+
+            byte[] sig = sigs[i];
+            if (sig == null || sig.length != SIGNATURE_SIZE)
+            {
+                continue;
+            }
+
+            byte[] R = copy(sig, 0, POINT_BYTES);
+            byte[] S = copy(sig, POINT_BYTES, SCALAR_BYTES);
+
+            if (!checkPointVar(R) || !Scalar25519.checkVar(S, nS) || !decodePointVar(R, true, pR))
+            {
+                continue;
+            }
+
+            PublicPoint publicPoint = publicPoints[i];
+            F.negate(publicPoint.data, pA.x);
+            F.copy(publicPoint.data, F.SIZE, pA.y, 0);
+            encodePublicPoint(publicPoint, A, 0);
+
+            if (ctx != null)
+            {
+                dom2(d, phflag, ctx);
+            }
+            d.update(R, 0, POINT_BYTES);
+            d.update(A, 0, POINT_BYTES);
+            d.update(ms[i], 0, ms[i].length);
+            d.doFinal(h, 0);
+
+            byte[] k = Scalar25519.reduce512(h);
+            Scalar25519.decode(k, nA);
+
+            // NOTE: z is kept below 2^127 so that it is non-negative as a signed 128-bit value
+            for (int j = 0; j < 4; ++j)
+            {
+                nZ[j] = random.nextInt();
+            }
+            nZ[3] &= 0x7FFFFFFF;
+
+            Scalar25519.multiply128Var(nS, nZ, nS);
+            Scalar25519.addVar(sum, nS, sum);
+            Scalar25519.multiply128Var(nA, nZ, nA);
+
+            Wnaf.getSignedVar(nA, WNAF_WIDTH, ws_a[valid] = new byte[256]);
+            Wnaf.getSignedVar(nZ, WNAF_WIDTH_128, ws_r[valid] = new byte[128]);
+
+            pointPrecomputeZ(pA, ta[valid] = new PointPrecompZ[countA], countA, t);
+            pointPrecomputeZ(pR, tr[valid] = new PointPrecompZ[countR], countR, t);
+
+            indices[valid++] = i;
+        }
+
+        if (valid == 0)
+        {
+            return false;
+        }
+
+        byte[] ws_b = new byte[256];
+        Wnaf.getSignedVar(sum, WNAF_WIDTH_BASE, ws_b);
+
+        PointAccum r = new PointAccum();
+        pointSetNeutral(r);
+
+        // NOTE: The scalars are all below L < 2^253, so their wNAF digits can't extend beyond bit 253
+        for (int bit = 253; bit >= 0; --bit)
+        {
+            int wb = ws_b[bit];
+            if (wb != 0)
+            {
+                int index = (wb >> 1) ^ (wb >> 31);
+                pointAddVar(wb < 0, PRECOMP_BASE_WNAF[index], r, t);
+            }
+
+            for (int j = 0; j < valid; ++j)
+            {
+                int wa = ws_a[j][bit];
+                if (wa != 0)
+                {
+                    int index = (wa >> 1) ^ (wa >> 31);
+                    pointAddVar(wa < 0, ta[j][index], r, t);
+                }
+            }
+
+            if (bit < 128)
+            {
+                for (int j = 0; j < valid; ++j)
+                {
+                    int wr = ws_r[j][bit];
+                    if (wr != 0)
+                    {
+                        int index = (wr >> 1) ^ (wr >> 31);
+                        pointAddVar(wr < 0, tr[j][index], r, t);
+                    }
+                }
+            }
+
+            pointDouble(r);
+        }
+
+        // NOTE: Together with the final pointDouble of the loop, this clears the cofactor of 8
+        pointDouble(r);
+        pointDouble(r);
+
+        if (normalizeToNeutralElementVar(r))
+        {
+            for (int j = 0; j < valid; ++j)
+            {
+                results[indices[j]] = true;
+            }
+            return valid == batchLen;
+        }
+
+        // At least one signature is invalid; fall back to individual verification to identify which
+        boolean allValid = valid == batchLen;
+        for (int j = 0; j < valid; ++j)
+        {
+            int i = indices[j];
+            allValid &= results[i] = implVerify(sigs[i], 0, publicPoints[i], ctx, phflag, ms[i], 0, ms[i].length);
+        }
+        return allValid;
+    }
+
     private static void invertDoubleZs(PointExtended[] points)
     {
         int count = points.length;
@@ -1579,6 +1766,39 @@ public static boolean verify(byte[] sig, int sigOff, PublicPoint publicPoint, by
         return implVerify(sig, sigOff, publicPoint, ctx, phflag, m, mOff, mLen);
     }
 
+    /**
+     * Verify a batch of Ed25519 signatures together, which is considerably faster than verifying them one at a time.
+     * If the batch as a whole does not verify, the signatures are then checked individually, so that on return
+     * results[i] is true if and only if sigs[i] is a valid signature of ms[i] under publicPoints[i].
+     *
+     * @param random a source of randomness for the (secret) batch coefficients.
+     * @param sigs the signatures, each of length {@link #SIGNATURE_SIZE}; any other length is simply invalid.
+     * @param publicPoints the public points for each signature.
+     * @param ms the (complete) messages for each signature.
+     * @param results receives the per-signature results; must be at least as long as sigs.
+     * @return true if every signature in the batch is valid.
+     */
+    public static boolean verifyBatch(SecureRandom random, byte[][] sigs, PublicPoint[] publicPoints, byte[][] ms,
+        boolean[] results)
+    {
+        byte[] ctx = null;
+        byte phflag = 0x00;
+
+        return implVerifyBatch(random, sigs, publicPoints, ctx, phflag, ms, results);
+    }
+
+    /**
+     * As {@link #verifyBatch(SecureRandom, byte[][], PublicPoint[], byte[][], boolean[])}, but for Ed25519ctx
+     * signatures sharing a single context.
+     */
+    public static boolean verifyBatch(SecureRandom random, byte[][] sigs, PublicPoint[] publicPoints, byte[] ctx,
+        byte[][] ms, boolean[] results)
+    {
+        byte phflag = 0x00;
+
+        return implVerifyBatch(random, sigs, publicPoints, ctx, phflag, ms, results);
+    }
+
     public static boolean verifyPrehash(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] ctx, byte[] ph, int phOff)
     {
         byte phflag = 0x01;
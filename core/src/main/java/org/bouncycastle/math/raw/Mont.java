@@ -0,0 +1,226 @@
+package org.bouncycastle.math.raw;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Montgomery arithmetic modulo an odd number of any length, using the same little-endian int[] representation as
+ * {@link Nat}. Values in Montgomery form are x.R mod m, where R = 2^(32.len).
+ * <p/>
+ * Unless noted otherwise, inputs must be less than the modulus, and the methods are constant-time with respect to
+ * the values (but not the length) of their inputs.
+ */
+public abstract class Mont
+{
+    private static final long M = 0xFFFFFFFFL;
+
+    /**
+     * Precomputed values for Montgomery arithmetic modulo a given odd number.
+     */
+    public static final class Modulus
+    {
+        final int len;
+        final int[] m;
+        final int mInv32;
+        final int[] r2;
+
+        public Modulus(BigInteger m)
+        {
+            if (m.signum() <= 0 || !m.testBit(0))
+            {
+                throw new IllegalArgumentException("'m' must be a positive odd number");
+            }
+
+            this.len = (m.bitLength() + 31) >>> 5;
+            this.m = fromBigInteger(len, m);
+            this.mInv32 = -Mod.inverse32(this.m[0]);
+            this.r2 = fromBigInteger(len, BigInteger.ONE.shiftLeft(len << 6).mod(m));
+        }
+
+        /**
+         * Return the length of values modulo this modulus, in 32-bit words.
+         */
+        public int getLength()
+        {
+            return len;
+        }
+    }
+
+    /**
+     * Convert a value to the int[] representation, padded to a given length (the value must fit).
+     *
+     * @param len the length of the result, in 32-bit words.
+     * @param x a non-negative value.
+     * @return the little-endian words of x.
+     */
+    public static int[] fromBigInteger(int len, BigInteger x)
+    {
+        byte[] bs = BigIntegers.asUnsignedByteArray(len << 2, x);
+
+        int[] z = Nat.create(len);
+        for (int i = 0, off = bs.length; i < len; ++i)
+        {
+            off -= 4;
+            z[i] = Pack.bigEndianToInt(bs, off);
+        }
+
+        Arrays.fill(bs, (byte)0);
+        return z;
+    }
+
+    /**
+     * z = x.y.R^-1 mod m.
+     *
+     * @param tt working space of length 2.len.
+     */
+    public static void mul(Modulus m, int[] x, int[] y, int[] z, int[] tt)
+    {
+        Nat.mul(m.len, x, 0, y, 0, tt, 0);
+        reduce(m, tt, z);
+    }
+
+    /**
+     * z = x^2.R^-1 mod m.
+     *
+     * @param tt working space of length 2.len.
+     */
+    public static void square(Modulus m, int[] x, int[] z, int[] tt)
+    {
+        Nat.square(m.len, x, 0, tt, 0);
+        reduce(m, tt, z);
+    }
+
+    /**
+     * z = tt.R^-1 mod m, for tt (of length 2.len, which is overwritten) less than m.R.
+     */
+    public static void reduce(Modulus m, int[] tt, int[] z)
+    {
+        int len = m.len, mInv32 = m.mInv32;
+        int[] mm = m.m;
+
+        long c = 0;
+        for (int i = 0; i < len; ++i)
+        {
+            int u = tt[i] * mInv32;
+            c += (Nat.mulWordAddTo(len, u, mm, 0, tt, i) & M) + (tt[i + len] & M);
+            tt[i + len] = (int)c;
+            c >>>= 32;
+        }
+
+        // The result (c:tt[len..]) is less than 2.m; subtract m unless that would go negative
+        int borrow = Nat.sub(len, tt, len, mm, 0, z, 0);
+        Nat.cmov(len, (int)c + borrow, tt, len, z, 0);
+    }
+
+    /**
+     * z = x mod m, for x (of length 2.len, which is overwritten) less than m.R.
+     */
+    public static void reduceExt(Modulus m, int[] xx, int[] z)
+    {
+        reduce(m, xx, z);
+        mul(m, z, m.r2, z, xx);
+    }
+
+    /**
+     * z = x.y mod m (i.e. for values not in Montgomery form).
+     *
+     * @param tt working space of length 2.len.
+     */
+    public static void modMul(Modulus m, int[] x, int[] y, int[] z, int[] tt)
+    {
+        mul(m, x, y, z, tt);
+        mul(m, z, m.r2, z, tt);
+    }
+
+    /**
+     * z = x - y mod m.
+     */
+    public static void modSub(Modulus m, int[] x, int[] y, int[] z)
+    {
+        int c = Nat.sub(m.len, x, y, z);
+        Nat.caddTo(m.len, c, m.m, z);
+    }
+
+    /**
+     * z = x^e mod m, using a fixed window over every bit of e (so the time taken depends only on the lengths).
+     *
+     * @param x the base, less than m.
+     * @param e the exponent, of length len.
+     */
+    public static void modPow(Modulus m, int[] x, int[] e, int[] z)
+    {
+        int len = m.len, bits = len << 5;
+        int width = len < 8 ? 3 : len < 32 ? 4 : 5;
+        int size = 1 << width, mask = size - 1;
+
+        int[] tt = Nat.create(len << 1);
+        int[] table = Nat.create(len << width);
+        int[] t = Nat.create(len);
+
+        // table[i] = x^i.R mod m
+        Nat.copy(len, m.r2, 0, tt, 0);
+        Nat.zero(len, tt, len);
+        reduce(m, tt, t);
+        System.arraycopy(t, 0, table, 0, len);
+
+        mul(m, x, m.r2, t, tt);
+        System.arraycopy(t, 0, table, len, len);
+
+        int[] acc = Nat.create(len);
+        Nat.copy(len, t, acc);
+        for (int i = 2; i < size; ++i)
+        {
+            mul(m, acc, t, acc, tt);
+            System.arraycopy(acc, 0, table, i * len, len);
+        }
+
+        int pos = ((bits - 1) / width) * width;
+        lookup(len, table, size, getWindow(e, pos, mask), acc);
+
+        while ((pos -= width) >= 0)
+        {
+            for (int j = 0; j < width; ++j)
+            {
+                square(m, acc, acc, tt);
+            }
+
+            lookup(len, table, size, getWindow(e, pos, mask), t);
+            mul(m, acc, t, acc, tt);
+        }
+
+        // Convert out of Montgomery form
+        Nat.copy(len, acc, 0, tt, 0);
+        Nat.zero(len, tt, len);
+        reduce(m, tt, z);
+
+        Arrays.fill(table, 0);
+        Arrays.fill(acc, 0);
+        Arrays.fill(t, 0);
+        Arrays.fill(tt, 0);
+    }
+
+    private static int getWindow(int[] e, int pos, int mask)
+    {
+        int word = pos >>> 5, shift = pos & 31;
+        int w = e[word] >>> shift;
+        if (shift > 0 && word + 1 < e.length)
+        {
+            w |= e[word + 1] << (32 - shift);
+        }
+        return w & mask;
+    }
+
+    private static void lookup(int len, int[] table, int size, int index, int[] z)
+    {
+        Nat.zero(len, z);
+
+        for (int i = 0, off = 0; i < size; ++i, off += len)
+        {
+            int cond = ((i ^ index) - 1) >> 31;
+            Nat.cmov(len, cond, table, off, z, 0);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.bouncycastle.crypto.prng.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.prng.EntropyPool;
+import org.bouncycastle.crypto.prng.EntropySource;
+import org.bouncycastle.crypto.prng.EntropySourceProvider;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class EntropyPoolTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "EntropyPool";
+    }
+
+    private void testConditioning()
+        throws Exception
+    {
+        EntropyPool pool = new EntropyPool(new ConstantEntropyProvider(), 100, 0);
+
+        isEquals(128, pool.getCapacity());
+
+        // each 64 byte block in the pool is the SHA-512 hash of 128 bytes from the source
+        byte[] block = new byte[64];
+        SHA512Digest digest = new SHA512Digest();
+        digest.update(ConstantEntropyProvider.SAMPLE, 0, 128);
+        digest.doFinal(block, 0);
+
+        // the first request starts the harvester, but (most likely) finds the pool empty
+        EntropySource source = pool.get(512);
+        isTrue("starved request wrong", Arrays.areEqual(block, source.getEntropy()));
+
+        waitForDepth(pool, 128);
+        long starvationCount = pool.getStarvationCount();
+
+        isTrue("pooled request wrong", Arrays.areEqual(block, source.getEntropy()));
+        isEquals(starvationCount, pool.getStarvationCount());
+
+        // a request larger than the pool can hold is always starved
+        byte[] large = pool.get(1536).getEntropy();
+        isEquals(starvationCount + 1, pool.getStarvationCount());
+        isTrue("large request wrong", Arrays.areEqual(Arrays.concatenate(block, block, block), large));
+    }
+
+    private void testRefill()
+        throws Exception
+    {
+        EntropyPool pool = new EntropyPool(new ConstantEntropyProvider(), 512, 0);
+        EntropySource source = pool.get(256);
+
+        pool.get(512).getEntropy();
+        waitForDepth(pool, 512);
+
+        // the pool is only refilled once it is below half full
+        for (int i = 0; i != 8; i++)
+        {
+            source.getEntropy();
+        }
+        isEquals(256, pool.getDepth());
+
+        // the pool is only added to in whole blocks
+        source.getEntropy();
+        waitForDepth(pool, 480);
+    }
+
+    private void testBuilder()
+    {
+        EntropyPool pool = new EntropyPool(new SecureRandomEntropyProvider(), 1024, 0);
+
+        SecureRandom random = new SP800SecureRandomBuilder(pool)
+            .buildHash(new SHA512Digest(), new byte[16], false);
+
+        byte[] a = new byte[32];
+        byte[] b = new byte[32];
+        random.nextBytes(a);
+        random.nextBytes(b);
+
+        isTrue("repeated output", !Arrays.areEqual(a, b));
+    }
+
+    private void waitForDepth(EntropyPool pool, int depth)
+        throws InterruptedException
+    {
+        for (int i = 0; pool.getDepth() != depth; i++)
+        {
+            if (i == 500)
+            {
+                fail("pool not filled: " + pool.getDepth());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testConditioning();
+        testRefill();
+        testBuilder();
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new EntropyPoolTest());
+    }
+
+    private static class ConstantEntropyProvider
+        implements EntropySourceProvider
+    {
+        static final byte[] SAMPLE = new byte[128];
+
+        static
+        {
+            for (int i = 0; i != SAMPLE.length; i++)
+            {
+                SAMPLE[i] = (byte)i;
+            }
+        }
+
+        public EntropySource get(final int bitsRequired)
+        {
+            return new EntropySource()
+            {
+                public boolean isPredictionResistant()
+                {
+                    return true;
+                }
+
+                public byte[] getEntropy()
+                {
+                    return Arrays.clone(SAMPLE);
+                }
+
+                public int entropySize()
+                {
+                    return SAMPLE.length * 8;
+                }
+            };
+        }
+    }
+
+    private static class SecureRandomEntropyProvider
+        implements EntropySourceProvider
+    {
+        private final SecureRandom random = new SecureRandom();
+
+        public EntropySource get(final int bitsRequired)
+        {
+            return new EntropySource()
+            {
+                public boolean isPredictionResistant()
+                {
+                    return false;
+                }
+
+                public byte[] getEntropy()
+                {
+                    byte[] seed = new byte[(bitsRequired + 7) / 8];
+                    random.nextBytes(seed);
+                    return seed;
+                }
+
+                public int entropySize()
+                {
+                    return bitsRequired;
+                }
+            };
+        }
+    }
+}
@@ -8,6 +8,7 @@
     public static Test[]    tests = {
         new CTRDRBGTest(),
         new DualECDRBGTest(),
+        new EntropyPoolTest(),
         new HashDRBGTest(),
         new HMacDRBGTest(),
         new SP800RandomTest(),
@@ -1,6 +1,8 @@
 package org.bouncycastle.crypto.prng.test;
 
 import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.bouncycastle.crypto.digests.SHA1Digest;
 import org.bouncycastle.crypto.digests.SHA256Digest;
@@ -9,7 +11,9 @@
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.engines.DESedeEngine;
 import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.engines.TwofishEngine;
 import org.bouncycastle.crypto.prng.BasicEntropySourceProvider;
+import org.bouncycastle.crypto.prng.PooledSP800SecureRandom;
 import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
@@ -271,6 +275,134 @@ private void testNames()
         isEquals("HMAC-DRBG-SHA512", rBuild.buildHMAC(new HMac(new SHA512Digest()), Hex.decode("20212223242526"), false).getAlgorithm());
     }
 
+    private void testPooledRandom()
+    {
+        byte[] nonce = Hex.decode("20212223242526");
+
+        // a pool of one DRBG behaves exactly as a single DRBG given the nonce followed by the index 0
+        SP800SecureRandomBuilder rBuild = new SP800SecureRandomBuilder(new SHA1EntropyProvider());
+        rBuild.setSecurityStrength(80);
+        rBuild.setEntropyBitsRequired(128);
+
+        SecureRandom random = rBuild.buildHash(new SHA1Digest(), Arrays.concatenate(nonce, new byte[4]), false);
+
+        rBuild = new SP800SecureRandomBuilder(new SHA1EntropyProvider());
+        rBuild.setSecurityStrength(80);
+        rBuild.setEntropyBitsRequired(128);
+        rBuild.setPoolSize(1);
+
+        PooledSP800SecureRandom pooled = rBuild.buildPooledHash(new SHA1Digest(), nonce, false);
+
+        byte[] expected = new byte[64];
+        byte[] produced = new byte[64];
+        for (int i = 0; i != 3; i++)
+        {
+            random.nextBytes(expected);
+            pooled.nextBytes(produced);
+
+            if (!Arrays.areEqual(expected, produced))
+            {
+                fail("pooled SP800 Hash SecureRandom produced incorrect result");
+            }
+        }
+        isEquals(1, pooled.getReseedCount());
+
+        // reseeding the pool reseeds (and if need be instantiates) every DRBG in it
+        rBuild = new SP800SecureRandomBuilder(new SecureRandom(), false);
+        rBuild.setPoolSize(4);
+
+        pooled = rBuild.buildPooledCTR(AESEngine.newInstance(), 256, nonce, false);
+        isEquals("CTR-DRBG-AES256", pooled.getAlgorithm());
+        isEquals(4, pooled.getPoolSize());
+
+        pooled.nextBytes(produced);
+        isEquals(1, pooled.getReseedCount());
+        pooled.reseed((byte[])null);
+        isEquals(8, pooled.getReseedCount());
+
+        try
+        {
+            rBuild.buildPooledCTR(new TwofishEngine(), 256, nonce, false);
+            fail("no exception for unsupported cipher");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("cipher not supported in a pool: Twofish", e.getMessage());
+        }
+
+        try
+        {
+            rBuild.setPoolSize(3);
+            fail("no exception for bad pool size");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("pool size must be a power of 2", e.getMessage());
+        }
+    }
+
+    private void testPooledRandomThreads()
+        throws Exception
+    {
+        SP800SecureRandomBuilder rBuild = new SP800SecureRandomBuilder(new SecureRandom(), false);
+        rBuild.setPoolSize(4);
+
+        final PooledSP800SecureRandom pooled = rBuild.buildPooledHash(new SHA512Digest(), Hex.decode("20212223242526"), false);
+        isEquals("HASH-DRBG-SHA512", pooled.getAlgorithm());
+
+        final int threadCount = 8, blockCount = 500;
+        final byte[][] blocks = new byte[threadCount * blockCount][];
+        final Exception[] exceptions = new Exception[threadCount];
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t != threadCount; t++)
+        {
+            final int base = t * blockCount;
+            final int index = t;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i != blockCount; i++)
+                        {
+                            byte[] block = new byte[32];
+                            pooled.nextBytes(block);
+                            blocks[base + i] = block;
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        exceptions[index] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        for (int t = 0; t != threadCount; t++)
+        {
+            threads[t].join();
+            if (exceptions[t] != null)
+            {
+                fail("pooled SP800 SecureRandom failed in thread: " + exceptions[t].getMessage(), exceptions[t]);
+            }
+        }
+
+        Set seen = new HashSet();
+        for (int i = 0; i != blocks.length; i++)
+        {
+            if (!seen.add(Hex.toHexString(blocks[i])))
+            {
+                fail("pooled SP800 SecureRandom repeated output");
+            }
+        }
+
+        // each DRBG is seeded once, when first used
+        isTrue("reseed count out of range", pooled.getReseedCount() >= 1 && pooled.getReseedCount() <= 4);
+    }
+
     public void performTest()
         throws Exception
     {
@@ -279,6 +411,8 @@ public void performTest()
         testCTRRandom();
         testGenerateSeed();
         testNames();
+        testPooledRandom();
+        testPooledRandomThreads();
     }
 
     public static void main(String[] args)
@@ -7,6 +7,7 @@
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.modes.CFBBlockCipher;
@@ -492,6 +493,66 @@ private void ctrFragmentedTest()
         }
     }
 
+    private void multiBlockTest()
+    {
+        SecureRandom rand = new SecureRandom();
+        byte[] key = new byte[32];
+        rand.nextBytes(key);
+
+        for (int keyLen = 16; keyLen <= 32; keyLen += 8)
+        {
+            KeyParameter kp = new KeyParameter(key, 0, keyLen);
+            for (int dir = 0; dir < 2; ++dir)
+            {
+                boolean forEncryption = (dir == 0);
+                MultiBlockCipher engine = AESEngine.newInstance();
+                engine.init(forEncryption, kp);
+
+                for (int blockCount = 0; blockCount < 20; ++blockCount)
+                {
+                    byte[] in = new byte[blockCount * 16 + 3];
+                    rand.nextBytes(in);
+
+                    byte[] expected = new byte[blockCount * 16];
+                    for (int i = 0; i < blockCount; ++i)
+                    {
+                        engine.processBlock(in, 3 + i * 16, expected, i * 16);
+                    }
+
+                    byte[] out = new byte[blockCount * 16 + 5];
+                    int len = engine.processBlocks(in, 3, blockCount, out, 5);
+                    isEquals(expected.length, len);
+                    isTrue("multi-block mismatch", Arrays.areEqual(expected, 0, expected.length, out, 5, out.length));
+                }
+            }
+        }
+
+        // bulk CTR must match the byte at a time path
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(key, 0, 16), Hex.decode("000102030405060708090a0b0cfffffe"));
+        CTRModeCipher bulk = SICBlockCipher.newInstance(AESEngine.newInstance());
+        CTRModeCipher single = SICBlockCipher.newInstance(AESEngine.newInstance());
+
+        byte[] plain = new byte[1000];
+        rand.nextBytes(plain);
+
+        for (int start = 0; start < 40; start += 7)
+        {
+            bulk.init(true, params);
+            single.init(true, params);
+
+            byte[] expected = new byte[plain.length];
+            for (int i = 0; i < plain.length; ++i)
+            {
+                expected[i] = single.returnByte(plain[i]);
+            }
+
+            byte[] out = new byte[plain.length];
+            bulk.processBytes(plain, 0, start, out, 0);
+            bulk.processBytes(plain, start, plain.length - start, out, start);
+            isTrue("bulk CTR mismatch", Arrays.areEqual(expected, out));
+        }
+    }
+
     public void performTest()
         throws Exception
     {
@@ -539,6 +600,7 @@ public void performTest()
         ctrCounterTest();
         ctrFragmentedTest();
         testLastByte();
+        multiBlockTest();
     }
 
     public static void main(
@@ -3,6 +3,8 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
 import org.bouncycastle.crypto.params.Argon2Parameters;
@@ -34,6 +36,8 @@ public void performTest()
 
         testPermutations();
         testVectorsFromInternetDraft();
+        testParallel();
+        testMemoryPool();
 
         int version = Argon2Parameters.ARGON2_VERSION_10;
 
@@ -315,6 +319,109 @@ private void testVectorsFromInternetDraft()
 
     }
 
+    private void testParallel()
+    {
+        byte[] salt = Hex.decode("02020202020202020202020202020202");
+        byte[] password = Hex.decode("0101010101010101010101010101010101010101010101010101010101010101");
+        int[] types = new int[]{ Argon2Parameters.ARGON2_d, Argon2Parameters.ARGON2_i, Argon2Parameters.ARGON2_id };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            for (int lanes = 1; lanes <= 5; ++lanes)
+            {
+                for (int t = 0; t < types.length; ++t)
+                {
+                    Argon2Parameters params = new Argon2Parameters.Builder(types[t])
+                        .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                        .withIterations(2)
+                        .withMemoryAsKB(64 * lanes)
+                        .withParallelism(lanes)
+                        .withSalt(salt)
+                        .build();
+
+                    Argon2BytesGenerator sequential = new Argon2BytesGenerator();
+                    sequential.init(params);
+                    byte[] expected = new byte[32];
+                    sequential.generateBytes(password, expected);
+
+                    Argon2BytesGenerator parallel = new Argon2BytesGenerator();
+                    parallel.setExecutor(executor);
+                    parallel.init(params);
+                    byte[] result = new byte[32];
+                    parallel.generateBytes(password, result);
+                    isTrue("parallel mismatch " + lanes + "/" + types[t], areEqual(expected, result));
+
+                    // reusable after parallel use
+                    Arrays.clear(result);
+                    parallel.generateBytes(password, result);
+                    isTrue("parallel reuse mismatch " + lanes + "/" + types[t], areEqual(expected, result));
+                }
+            }
+
+            // the RFC 9106 Argon2id vector, which has 4 lanes
+            Argon2BytesGenerator gen = new Argon2BytesGenerator();
+            gen.setExecutor(executor);
+            gen.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withIterations(3)
+                .withMemoryAsKB(32)
+                .withParallelism(4)
+                .withAdditional(Hex.decode("040404040404040404040404"))
+                .withSecret(Hex.decode("0303030303030303"))
+                .withSalt(salt)
+                .build());
+
+            byte[] result = new byte[32];
+            gen.generateBytes(password, result);
+            isTrue("parallel Argon 2id Failed", areEqual(result,
+                Hex.decode("0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659")));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void testMemoryPool()
+    {
+        byte[] password = Strings.toByteArray("password");
+        Argon2BytesGenerator.MemoryPool pool = new Argon2BytesGenerator.MemoryPool(256);
+
+        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_i)
+            .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+            .withIterations(2)
+            .withMemoryPowOfTwo(8)
+            .withParallelism(2)
+            .withSalt(Strings.toByteArray("somesalt"))
+            .build();
+        byte[] expected = Hex.decode("4ff5ce2769a1d7f4c8a491df09d41a9fbe90e5eb02155a13e4c01e20cd4eab61");
+
+        for (int i = 0; i < 3; ++i)
+        {
+            Argon2BytesGenerator gen = new Argon2BytesGenerator();
+            gen.setMemoryPool(pool);
+            gen.init(params);
+
+            byte[] result = new byte[32];
+            gen.generateBytes(password, result);
+            isTrue("pooled memory mismatch " + i, areEqual(expected, result));
+            isEquals("pooled memory not returned", 256, pool.getIdleKB());
+        }
+
+        // too big to keep
+        Argon2BytesGenerator gen = new Argon2BytesGenerator();
+        gen.setMemoryPool(pool);
+        gen.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_i)
+            .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+            .withIterations(1)
+            .withMemoryPowOfTwo(9)
+            .withSalt(Strings.toByteArray("somesalt"))
+            .build());
+        gen.generateBytes(password, new byte[32]);
+        isEquals("oversized memory pooled", 256, pool.getIdleKB());
+    }
+
     private static int getJvmVersion()
     {
         String version = System.getProperty("java.specification.version");
@@ -148,6 +148,56 @@ public void performTest()
         resetTest();
         testNullKeyVsUnkeyed();
         testLengthConstruction();
+        encodedStateTest();
+    }
+
+    private void encodedStateTest()
+    {
+        byte[] key = Hex.decode(keyedTestVectors[3][1]);
+
+        checkEncodedState(new Blake2bDigest());
+        checkEncodedState(new Blake2bDigest(160));
+        checkEncodedState(new Blake2bDigest(key));
+        checkEncodedState(new Blake2bDigest(key, 16, Hex.decode("000102030405060708090a0b0c0d0e0f"), Hex.decode("101112131415161718191a1b1c1d1e1f")));
+        checkEncodedState(new Blake2bDigest(null, 32, null, Hex.decode("101112131415161718191a1b1c1d1e1f")));
+    }
+
+    private void checkEncodedState(Blake2bDigest digest)
+    {
+        byte[] msg = new byte[400];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        byte[] expected = new byte[digest.getDigestSize()];
+        digest.update(msg, 0, msg.length);
+        digest.doFinal(expected, 0);
+
+        for (int split = 0; split <= msg.length; split += 8)
+        {
+            digest.update(msg, 0, split);
+
+            Blake2bDigest resumed = Blake2bDigest.newInstance(digest.getEncodedState());
+            resumed.update(msg, split, msg.length - split);
+
+            byte[] result = new byte[resumed.getDigestSize()];
+            resumed.doFinal(result, 0);
+            if (!areEqual(expected, result))
+            {
+                fail("BLAKE2b resumed at " + split, Hex.toHexString(expected), Hex.toHexString(result));
+            }
+
+            // key, salt and personalization are restored too, so reset() goes back to the same start
+            resumed.update(msg, 0, msg.length);
+            resumed.doFinal(result, 0);
+            if (!areEqual(expected, result))
+            {
+                fail("BLAKE2b reset at " + split, Hex.toHexString(expected), Hex.toHexString(result));
+            }
+
+            digest.reset();
+        }
     }
 
     private void cloneTest()
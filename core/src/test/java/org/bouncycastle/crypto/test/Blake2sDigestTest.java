@@ -301,6 +301,56 @@ public void performTest()
         runSelfTest();
         testNullKeyVsUnkeyed();
         testLengthConstruction();
+        testEncodedState();
+    }
+
+    public void testEncodedState()
+    {
+        byte[] key = Hex.decode("000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f");
+
+        checkEncodedState(new Blake2sDigest());
+        checkEncodedState(new Blake2sDigest(160));
+        checkEncodedState(new Blake2sDigest(key));
+        checkEncodedState(new Blake2sDigest(key, 16, Hex.decode("0001020304050607"), Hex.decode("08090a0b0c0d0e0f")));
+        checkEncodedState(new Blake2sDigest(null, 32, null, Hex.decode("08090a0b0c0d0e0f")));
+    }
+
+    private void checkEncodedState(Blake2sDigest digest)
+    {
+        byte[] msg = new byte[300];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        byte[] expected = new byte[digest.getDigestSize()];
+        digest.update(msg, 0, msg.length);
+        digest.doFinal(expected, 0);
+
+        for (int split = 0; split <= msg.length; split += 4)
+        {
+            digest.update(msg, 0, split);
+
+            Blake2sDigest resumed = Blake2sDigest.newInstance(digest.getEncodedState());
+            resumed.update(msg, split, msg.length - split);
+
+            byte[] result = new byte[resumed.getDigestSize()];
+            resumed.doFinal(result, 0);
+            if (!areEqual(expected, result))
+            {
+                fail("BLAKE2s resumed at " + split, Hex.toHexString(expected), Hex.toHexString(result));
+            }
+
+            // key, salt and personalization are restored too, so reset() goes back to the same start
+            resumed.update(msg, 0, msg.length);
+            resumed.doFinal(result, 0);
+            if (!areEqual(expected, result))
+            {
+                fail("BLAKE2s reset at " + split, Hex.toHexString(expected), Hex.toHexString(result));
+            }
+
+            digest.reset();
+        }
     }
 
     public static void main(String[] args)
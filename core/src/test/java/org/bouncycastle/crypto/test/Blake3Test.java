@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.test;
 
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.bouncycastle.crypto.digests.Blake3Digest;
 import org.bouncycastle.crypto.params.Blake3Parameters;
 import org.bouncycastle.util.Arrays;
@@ -257,6 +261,101 @@ public void performTest()
         runTestCase(TEST16384);
         runTestCase(TEST31744);
         runTestCase(TEST102400);
+
+        testParallel();
+        testEncodedState();
+    }
+
+    /**
+     * Check hashing resumed from an encoded state matches uninterrupted hashing.
+     */
+    private void testEncodedState()
+    {
+        final byte[] myData = new byte[20000];
+        for (int i = 0; i < myData.length; i++)
+        {
+            myData[i] = (byte)(i % BLAKE3MOD);
+        }
+        final int[] mySplits = { 0, 1, 64, 1023, 1024, 1025, 5000, 8192, 12345, 20000 };
+
+        final Blake3Parameters[] myParams = { null, Blake3Parameters.key(BLAKE3KEY),
+            Blake3Parameters.context(BLAKE3CTX) };
+        for (int j = 0; j < myParams.length; j++)
+        {
+            final Blake3Digest myDigest = new Blake3Digest();
+            myDigest.init(myParams[j]);
+
+            final byte[] myExpected = new byte[300];
+            myDigest.update(myData, 0, myData.length);
+            myDigest.doFinal(myExpected, 0, myExpected.length);
+
+            for (int i = 0; i < mySplits.length; i++)
+            {
+                final int mySplit = mySplits[i];
+                myDigest.update(myData, 0, mySplit);
+
+                Blake3Digest myResumed = new Blake3Digest(myDigest.getEncodedState());
+                myResumed.update(myData, mySplit, myData.length - mySplit);
+
+                /* Checkpoint part way through the output as well */
+                final byte[] myResult = new byte[myExpected.length];
+                final int myOutSplit = mySplit % myResult.length;
+                myResumed.doOutput(myResult, 0, myOutSplit);
+                myResumed = new Blake3Digest(myResumed.getEncodedState());
+                myResumed.doFinal(myResult, myOutSplit, myResult.length - myOutSplit);
+                isTrue("encoded state mismatch " + mySplit + "/" + j, Arrays.areEqual(myExpected, myResult));
+
+                myDigest.reset();
+            }
+        }
+    }
+
+    /**
+     * Check parallel hashing matches sequential hashing.
+     */
+    private void testParallel()
+    {
+        final ExecutorService myExecutor = Executors.newFixedThreadPool(3);
+        try
+        {
+            final SecureRandom myRandom = new SecureRandom();
+            final int[] myLengths = { 131072, 131073, 196608, 200000, 1048576 + 1000, 4194304 + 12345 };
+            final int[] myPrefixes = { 0, 1, 64, 1024, 3000, 65536 };
+
+            for (int i = 0; i < myLengths.length; i++)
+            {
+                final byte[] myData = new byte[myLengths[i]];
+                myRandom.nextBytes(myData);
+                final int myPrefix = myPrefixes[i % myPrefixes.length];
+
+                final Blake3Parameters[] myParams = { null, Blake3Parameters.key(BLAKE3KEY),
+                    Blake3Parameters.context(BLAKE3CTX) };
+                for (int j = 0; j < myParams.length; j++)
+                {
+                    final Blake3Digest mySequential = new Blake3Digest();
+                    final Blake3Digest myParallel = new Blake3Digest();
+                    mySequential.init(myParams[j]);
+                    myParallel.init(myParams[j]);
+                    myParallel.setExecutor(myExecutor);
+
+                    /* Start part way into the tree, as a prior update would */
+                    mySequential.update(myData, 0, myData.length);
+                    myParallel.update(myData, 0, myPrefix);
+                    myParallel.update(myData, myPrefix, myData.length - myPrefix);
+
+                    final byte[] myExpected = new byte[100];
+                    final byte[] myResult = new byte[100];
+                    mySequential.doFinal(myExpected, 0, myExpected.length);
+                    myParallel.doFinal(myResult, 0, myResult.length);
+                    isTrue("parallel mismatch " + myLengths[i] + "/" + myPrefix + "/" + j,
+                        Arrays.areEqual(myExpected, myResult));
+                }
+            }
+        }
+        finally
+        {
+            myExecutor.shutdown();
+        }
     }
 
     /**
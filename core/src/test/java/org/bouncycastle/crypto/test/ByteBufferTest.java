@@ -0,0 +1,381 @@
+package org.bouncycastle.crypto.test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.MD5Digest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.macs.CMac;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the ByteBuffer methods on digests, MACs and ciphers against the byte array ones, for heap,
+ * direct and read-only buffers, and for primitives with and without native ByteBuffer support.
+ */
+public class ByteBufferTest
+    extends SimpleTest
+{
+    private static final int[] LENGTHS = { 0, 1, 3, 15, 16, 17, 63, 64, 65, 100, 1000, 4099 };
+
+    private static final int HEAP = 0;
+    private static final int HEAP_OFFSET = 1;
+    private static final int DIRECT = 2;
+    private static final int DIRECT_LE = 3;
+    private static final int READ_ONLY = 4;
+    private static final int KINDS = 5;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBuffer";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        digestTest(new SHA256Digest());
+        digestTest(new SHA1Digest());
+        digestTest(new MD5Digest());
+        digestTest(new SHA3Digest(256));
+
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+
+        HMac hMac = new HMac(new SHA256Digest());
+        hMac.init(new KeyParameter(key));
+        macTest(hMac);
+
+        CMac cMac = new CMac(AESEngine.newInstance());
+        cMac.init(new KeyParameter(key, 0, 16));
+        macTest(cMac);
+
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+        streamCipherTest(new SICBlockCipher(AESEngine.newInstance()), new ParametersWithIV(new KeyParameter(key), iv));
+        streamCipherTest(new ChaCha7539Engine(), new ParametersWithIV(new KeyParameter(key), Arrays.copyOf(iv, 12)));
+
+        aeadTest(new GCMBlockCipher(AESEngine.newInstance()), new GCMBlockCipher(AESEngine.newInstance()), key, 128, 12);
+        aeadTest(new GCMBlockCipher(AESEngine.newInstance()), new GCMBlockCipher(AESEngine.newInstance()), key, 96, 16);
+        aeadTest(new ChaCha20Poly1305(), new ChaCha20Poly1305(), key, 128, 12);
+        aeadTest(new CCMBlockCipher(AESEngine.newInstance()), new CCMBlockCipher(AESEngine.newInstance()), Arrays.copyOf(key, 16), 128, 13);
+
+        outputLengthTest(key, iv);
+        stagingTest(key, iv);
+    }
+
+    private void digestTest(Digest digest)
+    {
+        for (int i = 0; i < LENGTHS.length; ++i)
+        {
+            byte[] data = randomBytes(LENGTHS[i]);
+            byte[] expected = new byte[digest.getDigestSize()];
+            digest.update(data, 0, data.length);
+            digest.doFinal(expected, 0);
+
+            for (int kind = 0; kind < KINDS; ++kind)
+            {
+                int chunk = 1 + random.nextInt(data.length + 1);
+                for (int off = 0; off < data.length; off += chunk)
+                {
+                    ByteBuffer input = toBuffer(Arrays.copyOfRange(data, off, Math.min(data.length, off + chunk)), kind);
+                    ByteBufferUtil.update(digest, input);
+                    isTrue(digest.getAlgorithmName() + " input not consumed", !input.hasRemaining());
+                }
+
+                byte[] result = new byte[digest.getDigestSize()];
+                digest.doFinal(result, 0);
+
+                isTrue(digest.getAlgorithmName() + " failed for kind " + kind + " length " + data.length,
+                    areEqual(expected, result));
+            }
+        }
+    }
+
+    private void macTest(Mac mac)
+    {
+        for (int i = 0; i < LENGTHS.length; ++i)
+        {
+            byte[] data = randomBytes(LENGTHS[i]);
+            byte[] expected = new byte[mac.getMacSize()];
+            mac.update(data, 0, data.length);
+            mac.doFinal(expected, 0);
+
+            for (int kind = 0; kind < KINDS; ++kind)
+            {
+                int chunk = 1 + random.nextInt(data.length + 1);
+                for (int off = 0; off < data.length; off += chunk)
+                {
+                    ByteBuffer input = toBuffer(Arrays.copyOfRange(data, off, Math.min(data.length, off + chunk)), kind);
+                    ByteBufferUtil.update(mac, input);
+                    isTrue(mac.getAlgorithmName() + " input not consumed", !input.hasRemaining());
+                }
+
+                byte[] result = new byte[mac.getMacSize()];
+                mac.doFinal(result, 0);
+
+                isTrue(mac.getAlgorithmName() + " failed for kind " + kind + " length " + data.length,
+                    areEqual(expected, result));
+            }
+        }
+    }
+
+    private void streamCipherTest(StreamCipher cipher, ParametersWithIV params)
+    {
+        for (int i = 0; i < LENGTHS.length; ++i)
+        {
+            byte[] data = randomBytes(LENGTHS[i]);
+            byte[] expected = new byte[data.length];
+            cipher.init(true, params);
+            cipher.processBytes(data, 0, data.length, expected, 0);
+
+            for (int kind = 0; kind < KINDS; ++kind)
+            {
+                cipher.init(true, params);
+
+                ByteBuffer output = allocate(data.length, kind);
+                int chunk = 1 + random.nextInt(data.length + 1);
+                for (int off = 0; off < data.length; off += chunk)
+                {
+                    ByteBuffer input = toBuffer(Arrays.copyOfRange(data, off, Math.min(data.length, off + chunk)), kind);
+                    int len = input.remaining();
+                    isEquals(len, ByteBufferUtil.processBytes(cipher, input, output));
+                    isTrue(!input.hasRemaining());
+                }
+
+                isTrue(cipher.getAlgorithmName() + " failed for kind " + kind + " length " + data.length,
+                    areEqual(expected, toArray(output)));
+            }
+
+            // in place on a direct buffer
+            ByteBuffer buf = toBuffer(data, DIRECT);
+            cipher.init(true, params);
+            ByteBufferUtil.processBytes(cipher, buf.duplicate(), buf.duplicate());
+            byte[] result = new byte[data.length];
+            buf.get(result);
+            isTrue(cipher.getAlgorithmName() + " failed in place", areEqual(expected, result));
+        }
+    }
+
+    /*
+     * The reference cipher does the byte array processing, as the ciphers refuse to encrypt twice with
+     * the same key and nonce.
+     */
+    private void aeadTest(AEADCipher reference, AEADCipher cipher, byte[] key, int macSize, int nonceSize)
+        throws InvalidCipherTextException
+    {
+        for (int i = 0; i < LENGTHS.length; ++i)
+        {
+            byte[] aad = randomBytes(LENGTHS[(i + 3) % LENGTHS.length]);
+            byte[] data = randomBytes(LENGTHS[i]);
+
+            for (int kind = 0; kind < KINDS; ++kind)
+            {
+                AEADParameters params = new AEADParameters(new KeyParameter(key), macSize, randomBytes(nonceSize));
+
+                reference.init(true, params);
+                reference.processAADBytes(aad, 0, aad.length);
+                byte[] expected = new byte[reference.getOutputSize(data.length)];
+                int len = reference.processBytes(data, 0, data.length, expected, 0);
+                reference.doFinal(expected, len);
+
+                byte[] enc = aeadRun(cipher, params, true, aad, data, kind);
+                isTrue(cipher.getAlgorithmName() + " encrypt failed for kind " + kind + " length " + data.length,
+                    areEqual(expected, enc));
+
+                byte[] dec = aeadRun(cipher, params, false, aad, expected, kind);
+                isTrue(cipher.getAlgorithmName() + " decrypt failed for kind " + kind + " length " + data.length,
+                    areEqual(data, dec));
+
+                byte[] tampered = Arrays.clone(expected);
+                tampered[random.nextInt(tampered.length)] ^= 1;
+                try
+                {
+                    aeadRun(cipher, params, false, aad, tampered, kind);
+                    fail(cipher.getAlgorithmName() + " tampered cipher text accepted");
+                }
+                catch (InvalidCipherTextException e)
+                {
+                    // expected
+                }
+            }
+        }
+    }
+
+    private byte[] aeadRun(AEADCipher cipher, AEADParameters params, boolean forEncryption, byte[] aad,
+        byte[] data, int kind)
+        throws InvalidCipherTextException
+    {
+        cipher.init(forEncryption, params);
+
+        int chunk = 1 + random.nextInt(aad.length + 1);
+        for (int off = 0; off < aad.length; off += chunk)
+        {
+            ByteBuffer input = toBuffer(Arrays.copyOfRange(aad, off, Math.min(aad.length, off + chunk)), kind);
+            ByteBufferUtil.processAADBytes(cipher, input);
+            isTrue(!input.hasRemaining());
+        }
+
+        ByteBuffer output = allocate(cipher.getOutputSize(data.length), kind);
+
+        chunk = 1 + random.nextInt(data.length + 1);
+        for (int off = 0; off < data.length; off += chunk)
+        {
+            ByteBuffer input = toBuffer(Arrays.copyOfRange(data, off, Math.min(data.length, off + chunk)), kind);
+            int pos = output.position();
+            int len = ByteBufferUtil.processBytes(cipher, input, output);
+            isEquals(pos + len, output.position());
+            isTrue(!input.hasRemaining());
+        }
+
+        int pos = output.position();
+        int len = ByteBufferUtil.doFinal(cipher, output);
+        isEquals(pos + len, output.position());
+
+        return toArray(output);
+    }
+
+    private void outputLengthTest(byte[] key, byte[] iv)
+        throws InvalidCipherTextException
+    {
+        GCMBlockCipher gcm = new GCMBlockCipher(AESEngine.newInstance());
+        gcm.init(true, new AEADParameters(new KeyParameter(key), 128, iv));
+
+        ByteBuffer input = ByteBuffer.allocateDirect(64);
+        try
+        {
+            gcm.processBytes(input, ByteBuffer.allocateDirect(63));
+            fail("short output buffer accepted");
+        }
+        catch (OutputLengthException e)
+        {
+            isEquals(0, input.position());
+        }
+
+        SICBlockCipher ctr = new SICBlockCipher(AESEngine.newInstance());
+        ctr.init(true, new ParametersWithIV(new KeyParameter(key), iv));
+        try
+        {
+            ctr.processBytes(input, ByteBuffer.allocate(63));
+            fail("short output buffer accepted");
+        }
+        catch (OutputLengthException e)
+        {
+            isEquals(0, input.position());
+        }
+    }
+
+    private void stagingTest(byte[] key, byte[] iv)
+        throws InvalidCipherTextException
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(key), 128, Arrays.copyOf(iv, 12));
+        byte[] data = randomBytes(1000);
+
+        GCMBlockCipher reference = new GCMBlockCipher(AESEngine.newInstance());
+        reference.init(true, params);
+        byte[] enc = new byte[reference.getOutputSize(data.length)];
+        reference.doFinal(enc, reference.processBytes(data, 0, data.length, enc, 0));
+
+        // Staging arrays smaller than the output a chunk can produce while the tag is held back
+        int[] sizes = new int[]{ 1, 16, 17, 40 };
+        for (int i = 0; i < sizes.length; ++i)
+        {
+            for (int j = 0; j < sizes.length; ++j)
+            {
+                GCMBlockCipher gcm = new GCMBlockCipher(AESEngine.newInstance());
+                gcm.init(false, params);
+
+                ByteBuffer output = allocate(data.length, DIRECT);
+                int chunk = 1 + random.nextInt(100);
+                for (int off = 0; off < enc.length; off += chunk)
+                {
+                    ByteBuffer input = toBuffer(Arrays.copyOfRange(enc, off, Math.min(enc.length, off + chunk)), DIRECT);
+                    ByteBufferUtil.processBytes(gcm, input, output, new byte[sizes[i]], new byte[sizes[j]]);
+                    isTrue(!input.hasRemaining());
+                }
+                ByteBufferUtil.doFinal(gcm, output, null);
+
+                isTrue("staging failed for " + sizes[i] + "/" + sizes[j], areEqual(data, toArray(output)));
+            }
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer toBuffer(byte[] data, int kind)
+    {
+        switch (kind)
+        {
+        case HEAP:
+            return ByteBuffer.wrap(data);
+        case HEAP_OFFSET:
+        {
+            byte[] buf = new byte[data.length + 11];
+            System.arraycopy(data, 0, buf, 7, data.length);
+            return ByteBuffer.wrap(buf, 7, data.length).slice();
+        }
+        case DIRECT:
+        case DIRECT_LE:
+        {
+            ByteBuffer buf = ByteBuffer.allocateDirect(data.length + 5);
+            buf.order(kind == DIRECT_LE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            buf.position(5);
+            buf.put(data);
+            buf.position(5);
+            return buf;
+        }
+        case READ_ONLY:
+            return ByteBuffer.wrap(data).asReadOnlyBuffer();
+        default:
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static ByteBuffer allocate(int len, int kind)
+    {
+        ByteBuffer buf = (kind == DIRECT || kind == DIRECT_LE) ? ByteBuffer.allocateDirect(len + 3) : ByteBuffer.allocate(len + 3);
+        buf.position(3);
+        return buf;
+    }
+
+    private static byte[] toArray(ByteBuffer output)
+    {
+        ByteBuffer buf = output.duplicate();
+        buf.flip();
+        buf.position(3);
+        byte[] result = new byte[buf.remaining()];
+        buf.get(result);
+        return result;
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new ByteBufferTest());
+    }
+}
@@ -106,6 +106,42 @@ public void performTest()
         checkSHAKE(128, new CSHAKEDigest(128, null, new byte[0]), Hex.decode("eeaabeef"));
         checkSHAKE(128, new CSHAKEDigest(128, null, null), Hex.decode("eeaabeef"));
         checkSHAKE(256, new CSHAKEDigest(256, null, null), Hex.decode("eeaabeef"));
+
+        checkEncodedState(new CSHAKEDigest(128, new byte[0], Strings.toByteArray("Email Signature")));
+        checkEncodedState(new CSHAKEDigest(256, Strings.toByteArray("N"), Strings.toByteArray("Email Signature")));
+        checkEncodedState(new CSHAKEDigest(256, null, null));
+    }
+
+    private void checkEncodedState(CSHAKEDigest cshake)
+    {
+        byte[] msg = new byte[300];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        byte[] expected = new byte[64];
+        cshake.update(msg, 0, msg.length);
+        cshake.doFinal(expected, 0, expected.length);
+
+        for (int split = 0; split <= msg.length; split += 17)
+        {
+            cshake.update(msg, 0, split);
+
+            CSHAKEDigest resumed = new CSHAKEDigest(cshake.getEncodedState());
+            resumed.update(msg, split, msg.length - split);
+
+            byte[] result = new byte[expected.length];
+            resumed.doFinal(result, 0, result.length);
+            isTrue(cshake.getAlgorithmName() + " resumed at " + split, Arrays.areEqual(expected, result));
+
+            // the customization is restored too, so reset() goes back to the customized start
+            resumed.update(msg, 0, msg.length);
+            resumed.doFinal(result, 0, result.length);
+            isTrue(cshake.getAlgorithmName() + " reset at " + split, Arrays.areEqual(expected, result));
+
+            cshake.reset();
+        }
     }
 
     private void checkZeroPadZ()
@@ -8,6 +8,7 @@
 import org.bouncycastle.crypto.engines.DESEngine;
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
 import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.gcm.AggregatedGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
@@ -309,6 +310,7 @@ public void performTest() throws Exception
 
 
         randomTests();
+        multiBlockMultiplierTest();
         outputSizeTests();
         testExceptions();
         testResetBehavior();
@@ -460,6 +462,7 @@ private void runTestCase(String[] testVector, int macLength)
         runTestCase(new Tables4kGCMMultiplier(), new Tables4kGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables8kGCMMultiplier(), new Tables8kGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables64kGCMMultiplier(), new Tables64kGCMMultiplier(), testName, K, IV, A, P, C, T);
+        runTestCase(new AggregatedGCMMultiplier(), new AggregatedGCMMultiplier(), testName, K, IV, A, P, C, T);
     }
 
     private void runTestCase(
@@ -598,6 +601,7 @@ private void randomTests()
         randomTests(srng, new Tables4kGCMMultiplier());
         randomTests(srng, new Tables8kGCMMultiplier());
         randomTests(srng, new Tables64kGCMMultiplier());
+        randomTests(srng, new AggregatedGCMMultiplier());
     }
 
     private void randomTests(SecureRandom srng, GCMMultiplier m)
@@ -606,6 +610,58 @@ private void randomTests(SecureRandom srng, GCMMultiplier m)
         for (int i = 0; i < 10; ++i)
         {
             randomTest(srng, m);
+            bulkTest(srng, m);
+        }
+    }
+
+    /*
+     * check the multi-block path used for large updates against byte at a time processing.
+     */
+    private void bulkTest(SecureRandom srng, GCMMultiplier m)
+            throws InvalidCipherTextException
+    {
+        byte[] K = new byte[16];
+        srng.nextBytes(K);
+
+        byte[] P = new byte[srng.nextInt() >>> 22];
+        srng.nextBytes(P);
+
+        byte[] IV = new byte[12];
+        srng.nextBytes(IV);
+
+        AEADParameters parameters = new AEADParameters(new KeyParameter(K), 16 * 8, IV);
+        GCMModeCipher bulk = initCipher(m, true, parameters);
+        GCMModeCipher single = initCipher(m, true, parameters);
+
+        int split = nextInt(srng, P.length + 1);
+        byte[] C1 = new byte[bulk.getOutputSize(P.length)];
+        int len = bulk.processBytes(P, 0, split, C1, 0);
+        len += bulk.processBytes(P, split, P.length - split, C1, len);
+        bulk.doFinal(C1, len);
+
+        byte[] C2 = new byte[single.getOutputSize(P.length)];
+        len = 0;
+        for (int i = 0; i < P.length; ++i)
+        {
+            len += single.processByte(P[i], C2, len);
+        }
+        single.doFinal(C2, len);
+
+        if (!areEqual(C1, C2))
+        {
+            fail("bulk encryption differs from byte-wise encryption");
+        }
+
+        bulk.init(false, parameters);
+        byte[] decP = new byte[bulk.getOutputSize(C1.length)];
+        split = nextInt(srng, C1.length + 1);
+        len = bulk.processBytes(C1, 0, split, decP, 0);
+        len += bulk.processBytes(C1, split, C1.length - split, decP, len);
+        bulk.doFinal(decP, len);
+
+        if (!areEqual(P, decP))
+        {
+            fail("incorrect bulk decrypt");
         }
     }
 
@@ -753,6 +809,58 @@ private void outputSizeTests()
         }
     }
 
+    private void multiBlockMultiplierTest()
+    {
+        SecureRandom srng = new SecureRandom();
+        byte[] H = new byte[16];
+        byte[] blocks = new byte[16 * 11 + 5];
+
+        for (int i = 0; i < 10; ++i)
+        {
+            srng.nextBytes(H);
+            srng.nextBytes(blocks);
+
+            GCMMultiplier basic = new BasicGCMMultiplier();
+            basic.init(H);
+            AggregatedGCMMultiplier aggregated = new AggregatedGCMMultiplier();
+            aggregated.init(H);
+
+            for (int blockCount = 0; blockCount <= 11; ++blockCount)
+            {
+                byte[] expected = new byte[16];
+                srng.nextBytes(expected);
+                byte[] Y = Arrays.clone(expected);
+
+                for (int j = 0; j < blockCount; ++j)
+                {
+                    for (int k = 0; k < 16; ++k)
+                    {
+                        expected[k] ^= blocks[5 + j * 16 + k];
+                    }
+                    basic.multiplyH(expected);
+                }
+
+                aggregated.gHASHBlocks(Y, blocks, 5, blockCount);
+
+                if (!areEqual(expected, Y))
+                {
+                    fail("aggregated GHASH mismatch for " + blockCount + " blocks");
+                }
+            }
+
+            byte[] x = new byte[16];
+            srng.nextBytes(x);
+            byte[] y = Arrays.clone(x);
+            basic.multiplyH(x);
+            aggregated.multiplyH(y);
+
+            if (!areEqual(x, y))
+            {
+                fail("aggregated multiplyH mismatch");
+            }
+        }
+    }
+
     private static int nextInt(SecureRandom rand, int n)
     {
         if ((n & -n) == n)  // i.e., n is a power of 2
@@ -138,6 +138,75 @@ public void performTest()
         checkKMAC(128, new KMAC(128, new byte[0]), Hex.decode("eeaabeef"));
         checkKMAC(128, new KMAC(128, null), Hex.decode("eeaabeef"));
         checkKMAC(256, new KMAC(256,  null), Hex.decode("eeaabeef"));
+
+        encodedStateTest(128);
+        encodedStateTest(256);
+    }
+
+    private void encodedStateTest(int bitLength)
+    {
+        KeyParameter key = new KeyParameter(Hex.decode(
+            "404142434445464748494A4B4C4D4E4F505152535455565758595A5B5C5D5E5F"));
+        byte[] S = Strings.toByteArray("My Tagged Application");
+
+        byte[] msg = new byte[300];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        KMAC kmac = new KMAC(bitLength, S);
+        kmac.init(key);
+
+        byte[] expected = new byte[kmac.getMacSize()];
+        kmac.update(msg, 0, msg.length);
+        kmac.doFinal(expected, 0);
+
+        byte[] expectedXof = new byte[100];
+        kmac.update(msg, 0, msg.length);
+        kmac.doOutput(expectedXof, 0, expectedXof.length);
+        kmac.reset();
+
+        for (int split = 0; split <= msg.length; split += 23)
+        {
+            kmac.update(msg, 0, split);
+            byte[] state = kmac.getEncodedState();
+            kmac.reset();
+
+            KMAC resumed = new KMAC(bitLength, S);
+            resumed.init(key);
+            resumed.restoreState(state);
+            resumed.update(msg, split, msg.length - split);
+
+            byte[] result = new byte[resumed.getMacSize()];
+            resumed.doFinal(result, 0);
+            isTrue("KMAC" + bitLength + " resumed at " + split, Arrays.areEqual(expected, result));
+
+            // XOF mode, with a checkpoint part way through the output
+            resumed.update(msg, 0, msg.length);
+            int outSplit = split % expectedXof.length;
+            result = new byte[expectedXof.length];
+            resumed.doOutput(result, 0, outSplit);
+            state = resumed.getEncodedState();
+
+            resumed = new KMAC(bitLength, S);
+            resumed.init(key);
+            resumed.restoreState(state);
+            resumed.doOutput(result, outSplit, result.length - outSplit);
+            isTrue("KMAC" + bitLength + " XOF resumed at " + split, Arrays.areEqual(expectedXof, result));
+        }
+
+        KMAC other = new KMAC(bitLength == 128 ? 256 : 128, S);
+        other.init(key);
+        try
+        {
+            other.restoreState(kmac.getEncodedState());
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("encoded state is not for " + other.getAlgorithmName(), e.getMessage());
+        }
     }
 
     private void doFinalTest()
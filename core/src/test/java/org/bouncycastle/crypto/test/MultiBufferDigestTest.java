@@ -0,0 +1,112 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBuffer;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBuffer;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * check the multi-buffer SHA-256 and SHA-512 digests match the single message ones.
+ */
+public class MultiBufferDigestTest
+    extends SimpleTest
+{
+    // lengths either side of the padding and block boundaries for both digests
+    private static final int[] EDGE_LENGTHS = { 0, 1, 55, 56, 63, 64, 65, 111, 112, 119, 120, 127, 128, 129, 239, 240, 256 };
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBufferDigest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        for (int count = 0; count <= 40; ++count)
+        {
+            byte[][] messages = new byte[count][];
+            for (int i = 0; i < count; ++i)
+            {
+                int length = (i % 3 == 0) ? EDGE_LENGTHS[random.nextInt(EDGE_LENGTHS.length)] : random.nextInt(600);
+                messages[i] = new byte[length];
+                random.nextBytes(messages[i]);
+            }
+
+            checkSHA256(messages);
+            checkSHA512(messages);
+        }
+
+        // all the same length
+        byte[][] messages = new byte[33][64];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            random.nextBytes(messages[i]);
+        }
+        checkSHA256(messages);
+        checkSHA512(messages);
+
+        try
+        {
+            SHA256MultiBuffer.digest(new byte[2][], new byte[1][32]);
+            fail("mismatched arrays not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            SHA512MultiBuffer.digest(new byte[][]{ new byte[1] }, new byte[][]{ new byte[32] });
+            fail("short digest not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkSHA256(byte[][] messages)
+    {
+        byte[][] digests = new byte[messages.length][SHA256MultiBuffer.DIGEST_LENGTH];
+        SHA256MultiBuffer.digest(messages, digests);
+
+        checkDigests(new SHA256Digest(), messages, digests);
+    }
+
+    private void checkSHA512(byte[][] messages)
+    {
+        byte[][] digests = new byte[messages.length][SHA512MultiBuffer.DIGEST_LENGTH];
+        SHA512MultiBuffer.digest(messages, digests);
+
+        checkDigests(new SHA512Digest(), messages, digests);
+    }
+
+    private void checkDigests(Digest digest, byte[][] messages, byte[][] digests)
+    {
+        byte[] expected = new byte[digest.getDigestSize()];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            digest.update(messages[i], 0, messages[i].length);
+            digest.doFinal(expected, 0);
+
+            if (!Arrays.areEqual(expected, digests[i]))
+            {
+                fail(digest.getAlgorithmName() + " message " + i + " of " + messages.length + " (length "
+                    + messages[i].length + ") wrong");
+            }
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new MultiBufferDigestTest());
+    }
+}
@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.test;
 
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.ParallelHash;
 import org.bouncycastle.util.Arrays;
@@ -118,6 +122,43 @@ public void performTest()
 
         testEmpty();
         testClone();
+        testParallel();
+    }
+
+    private void testParallel()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            SecureRandom random = new SecureRandom();
+            int[] blockSizes = { 8, 1000, 8192, 65536, 200000 };
+
+            for (int i = 0; i < blockSizes.length; i++)
+            {
+                byte[] data = new byte[1024 * 1024 + random.nextInt(100000)];
+                random.nextBytes(data);
+                int prefix = random.nextInt(blockSizes[i] * 2);
+
+                ParallelHash sequential = new ParallelHash(256, Strings.toByteArray("Parallel Data"), blockSizes[i]);
+                ParallelHash parallel = new ParallelHash(256, Strings.toByteArray("Parallel Data"), blockSizes[i]);
+                parallel.setExecutor(executor);
+
+                sequential.update(data, 0, data.length);
+                parallel.update(data, 0, prefix);
+                parallel.update(data, prefix, data.length - prefix);
+
+                byte[] expected = new byte[64];
+                byte[] result = new byte[64];
+                sequential.doFinal(expected, 0);
+                parallel.doFinal(result, 0);
+
+                isTrue("parallel mismatch, B = " + blockSizes[i], areEqual(expected, result));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
     }
 
     private void testEmpty()
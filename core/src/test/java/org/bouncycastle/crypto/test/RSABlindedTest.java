@@ -1,19 +1,27 @@
 package org.bouncycastle.crypto.test;
 
+import org.bouncycastle.asn1.ASN1Object;
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.encodings.OAEPEncoding;
 import org.bouncycastle.crypto.encodings.PKCS1Encoding;
 import org.bouncycastle.crypto.engines.RSABlindedEngine;
+import org.bouncycastle.crypto.engines.RSAEngine;
 import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
 import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
 
+import java.lang.reflect.Field;
 import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.security.SecureRandom;
 
 public class RSABlindedTest
@@ -192,6 +200,81 @@ private void testOAEP(RSAKeyParameters pubParameters, RSAKeyParameters privParam
         }
     }
 
+    /*
+     * The constant time path is chosen by the "org.bouncycastle.rsa.constant_time" property when the engine classes
+     * are loaded, so it is run here with a fresh copy of them, loaded while the property is set.
+     */
+    private void testConstantTime(RSAKeyParameters privParameters)
+    {
+        RSAPrivateCrtKeyParameters crtParameters = (RSAPrivateCrtKeyParameters)privParameters;
+        BigInteger n = crtParameters.getModulus();
+        SecureRandom random = new SecureRandom();
+
+        BigInteger[] inputs = new BigInteger[]{ BigInteger.ZERO, BigInteger.ONE, n.subtract(BigInteger.ONE),
+            new BigInteger(n.bitLength() - 1, random), new BigInteger(n.bitLength() - 1, random) };
+
+        String previous = System.getProperty("org.bouncycastle.rsa.constant_time");
+        System.setProperty("org.bouncycastle.rsa.constant_time", "true");
+        try
+        {
+            ClassLoader loader = new URLClassLoader(new URL[]{
+                RSAEngine.class.getProtectionDomain().getCodeSource().getLocation(),
+                ASN1Object.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+
+            Field constantTime = loader.loadClass("org.bouncycastle.crypto.engines.RSACoreEngine")
+                .getDeclaredField("CONSTANT_TIME");
+            constantTime.setAccessible(true);
+            isTrue("constant time RSA not selected", constantTime.getBoolean(null));
+
+            Class paramsClass = loader.loadClass("org.bouncycastle.crypto.CipherParameters");
+            Object key = loader.loadClass("org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters")
+                .getConstructor(new Class[]{ BigInteger.class, BigInteger.class, BigInteger.class, BigInteger.class,
+                    BigInteger.class, BigInteger.class, BigInteger.class, BigInteger.class })
+                .newInstance(new Object[]{ n, crtParameters.getPublicExponent(), crtParameters.getExponent(),
+                    crtParameters.getP(), crtParameters.getQ(), crtParameters.getDP(), crtParameters.getDQ(),
+                    crtParameters.getQInv() });
+
+            String[] engineNames = new String[]{ "org.bouncycastle.crypto.engines.RSAEngine",
+                "org.bouncycastle.crypto.engines.RSABlindedEngine" };
+
+            for (int i = 0; i < inputs.length; ++i)
+            {
+                byte[] data = BigIntegers.asUnsignedByteArray((n.bitLength() + 7) / 8, inputs[i]);
+
+                AsymmetricBlockCipher eng = new RSAEngine();
+                eng.init(false, privParameters);
+                byte[] expected = eng.processBlock(data, 0, data.length);
+
+                for (int j = 0; j < engineNames.length; ++j)
+                {
+                    Object ctEng = loader.loadClass(engineNames[j]).newInstance();
+                    ctEng.getClass().getMethod("init", new Class[]{ boolean.class, paramsClass })
+                        .invoke(ctEng, new Object[]{ Boolean.FALSE, key });
+                    byte[] actual = (byte[])ctEng.getClass()
+                        .getMethod("processBlock", new Class[]{ byte[].class, int.class, int.class })
+                        .invoke(ctEng, new Object[]{ data, Integers.valueOf(0), Integers.valueOf(data.length) });
+
+                    isTrue("constant time RSA failed: " + engineNames[j], Arrays.areEqual(expected, actual));
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            fail("constant time RSA exception " + e.toString(), e);
+        }
+        finally
+        {
+            if (previous == null)
+            {
+                System.clearProperty("org.bouncycastle.rsa.constant_time");
+            }
+            else
+            {
+                System.setProperty("org.bouncycastle.rsa.constant_time", previous);
+            }
+        }
+    }
+
     public void performTest()
     {
         RSAKeyParameters    pubParameters = new RSAKeyParameters(false, mod, pubExp);
@@ -410,6 +493,8 @@ public void performTest()
             fail("failed key generation (1024) test");
         }
 
+        testConstantTime(privParameters);
+        testConstantTime((RSAKeyParameters)pair.getPrivate());
         testOAEP(pubParameters, privParameters);
         testStrictPKCS1Length(pubParameters, privParameters);
         testDudPKCS1Block(pubParameters, privParameters);
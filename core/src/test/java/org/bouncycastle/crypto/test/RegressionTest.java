@@ -67,6 +67,7 @@
             new SHA512DigestTest(),
             new SHA512t224DigestTest(),
             new SHA512t256DigestTest(),
+            new MultiBufferDigestTest(),
             new SHA3DigestTest(),
             new RIPEMD128DigestTest(),
             new RIPEMD160DigestTest(),
@@ -195,6 +196,7 @@
             new SparkleTest(),
             new ISAPTest(),
             new ConcatenationKDFTest(),
+            new ByteBufferTest(),
         };
 
     public static void main(String[] args)
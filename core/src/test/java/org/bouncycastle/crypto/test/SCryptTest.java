@@ -4,6 +4,10 @@
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.crypto.generators.SCrypt;
 import org.bouncycastle.test.TestResourceFinder;
@@ -29,6 +33,7 @@ public void performTest()
     {
         testPermutations();
         testParameters();
+        testParallel();
         testVectors();
     }
 
@@ -217,6 +222,73 @@ public void testVectors()
         br.close();
     }
 
+    public void testParallel()
+    {
+        byte[] P = Strings.toByteArray("password");
+        byte[] S = Strings.toByteArray("NaCl");
+
+        // RFC 7914, section 12
+        byte[] expected = Hex.decode("fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b3731622eaf30d9"
+            + "2e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            SCrypt.ScratchCache cache = new SCrypt.ScratchCache();
+
+            isTrue("parallel", areEqual(expected, SCrypt.generate(P, S, 1024, 8, 16, 64, executor, null)));
+            isTrue("cached", areEqual(expected, SCrypt.generate(P, S, 1024, 8, 16, 64, null, cache)));
+            for (int i = 0; i != 3; i++)
+            {
+                isTrue("parallel cached " + i, areEqual(expected, SCrypt.generate(P, S, 1024, 8, 16, 64, executor, cache)));
+            }
+
+            // the cache is shared across different parameters
+            for (int p = 1; p <= 5; p++)
+            {
+                for (int r = 1; r <= 3; r++)
+                {
+                    byte[] result = SCrypt.generate(P, S, 64, r, p, 32);
+
+                    isTrue("parallel " + r + "/" + p, areEqual(result, SCrypt.generate(P, S, 64, r, p, 32, executor, null)));
+                    isTrue("parallel cached " + r + "/" + p, areEqual(result, SCrypt.generate(P, S, 64, r, p, 32, executor, cache)));
+                    isTrue("cached " + r + "/" + p, areEqual(result, SCrypt.generate(P, S, 64, r, p, 32, null, cache)));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // an executor that runs each task on the calling thread
+        Executor sameThread = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                command.run();
+            }
+        };
+        isTrue("same thread", areEqual(expected,
+            SCrypt.generate(P, S, 1024, 8, 16, 64, sameThread, new SCrypt.ScratchCache())));
+
+        try
+        {
+            SCrypt.generate(P, S, 1024, 8, 16, 64, new Executor()
+            {
+                public void execute(Runnable command)
+                {
+                    throw new RejectedExecutionException("full");
+                }
+            }, null);
+            fail("no exception");
+        }
+        catch (RejectedExecutionException e)
+        {
+            isEquals("full", e.getMessage());
+        }
+    }
+
     private static boolean isEndData(String line)
     {
         return line == null || line.startsWith("scrypt");
@@ -4,6 +4,7 @@
 import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTestResult;
 import org.bouncycastle.util.test.Test;
@@ -94,6 +95,27 @@ public TestResult perform()
                     "Reset with vector " + vector + " failed");
         }
 
+        // test resuming from an encoded state
+        m = Strings.toByteArray(messages[6]);
+        for (int split = 0; split <= m.length; split += 37)
+        {
+            hmac.init(new KeyParameter(Hex.decode(keys[6])));
+            hmac.update(m, 0, split);
+            byte[] state = hmac.getEncodedState();
+
+            HMac resumed = new HMac(new SHA256Digest());
+            resumed.init(new KeyParameter(Hex.decode(keys[6])));
+            resumed.restoreState(state);
+            resumed.update(m, split, m.length - split);
+            resumed.doFinal(resBuf, 0);
+
+            if (!Arrays.areEqual(resBuf, Hex.decode(digests[6])))
+            {
+                return new SimpleTestResult(false, getName() +
+                        "Resume at " + split + " failed");
+            }
+        }
+
         return new SimpleTestResult(true, getName() + ": Okay");
     }
 
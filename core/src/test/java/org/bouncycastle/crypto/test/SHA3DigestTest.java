@@ -44,6 +44,47 @@ public String getName()
     public void performTest() throws Exception
     {
         testVectors();
+        testEncodedState();
+    }
+
+    private void testEncodedState()
+    {
+        byte[] msg = new byte[400];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        int[] bitLengths = new int[]{ 224, 256, 384, 512 };
+        for (int i = 0; i < bitLengths.length; ++i)
+        {
+            SHA3Digest digest = new SHA3Digest(bitLengths[i]);
+            byte[] expected = new byte[digest.getDigestSize()];
+            digest.update(msg, 0, msg.length);
+            digest.doFinal(expected, 0);
+
+            for (int split = 0; split <= msg.length; split += 7)
+            {
+                digest.update(msg, 0, split);
+
+                byte[] state = digest.getEncodedState();
+                isTrue("encoding too long", state.length <= 214 + split % digest.getByteLength());
+
+                SHA3Digest resumed = new SHA3Digest(state);
+                resumed.update(msg, split, msg.length - split);
+
+                byte[] result = new byte[resumed.getDigestSize()];
+                resumed.doFinal(result, 0);
+                isTrue("SHA3-" + bitLengths[i] + " resumed at " + split, Arrays.areEqual(expected, result));
+
+                // the resumed digest resets to the start, like the original
+                resumed.update(msg, 0, msg.length);
+                resumed.doFinal(result, 0);
+                isTrue("SHA3-" + bitLengths[i] + " reset at " + split, Arrays.areEqual(expected, result));
+
+                digest.reset();
+            }
+        }
     }
 
     public void testVectors() throws Exception
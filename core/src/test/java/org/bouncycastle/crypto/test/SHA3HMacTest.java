@@ -304,6 +304,48 @@ public void doTest(HMac hmac, String[][] data)
         hmac.doFinal(resBuf, 0);
 
         isTrue(hmac.getAlgorithmName() + " reset with vector " + vector + " failed", Arrays.areEqual(resBuf, Hex.decode(data[vector][2])));
+
+        //
+        // test resuming from a saved state
+        //
+        byte[] msg = new byte[300];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        byte[] expected = new byte[hmac.getMacSize()];
+        hmac.update(msg, 0, msg.length);
+        hmac.doFinal(expected, 0);
+
+        for (int split = 0; split <= msg.length; split += 19)
+        {
+            hmac.update(msg, 0, split);
+            byte[] state = hmac.getEncodedState();
+            hmac.reset();
+
+            HMac resumed = new HMac(new SHA3Digest(hmac.getMacSize() * 8));
+            resumed.init(new KeyParameter(Hex.decode(data[vector][0])));
+            resumed.restoreState(state);
+            resumed.update(msg, split, msg.length - split);
+
+            byte[] result = new byte[resumed.getMacSize()];
+            resumed.doFinal(result, 0);
+            isTrue(hmac.getAlgorithmName() + " resumed at " + split, Arrays.areEqual(expected, result));
+        }
+
+        // a state for a different SHA-3 variant must be rejected
+        HMac other = new HMac(new SHA3Digest(hmac.getMacSize() == 32 ? 512 : 256));
+        other.init(new KeyParameter(Hex.decode(data[vector][0])));
+        try
+        {
+            other.restoreState(hmac.getEncodedState());
+            fail(hmac.getAlgorithmName() + " state accepted by " + other.getAlgorithmName());
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
     }
 
     private static boolean startsWith(byte[] a, byte[] b)
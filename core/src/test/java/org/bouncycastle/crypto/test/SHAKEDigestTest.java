@@ -44,6 +44,44 @@ public String getName()
     public void performTest() throws Exception
     {
         testVectors();
+        testEncodedState();
+    }
+
+    private void testEncodedState()
+    {
+        byte[] msg = new byte[400];
+        for (int i = 0; i < msg.length; ++i)
+        {
+            msg[i] = (byte)i;
+        }
+
+        int[] bitStrengths = new int[]{ 128, 256 };
+        for (int i = 0; i < bitStrengths.length; ++i)
+        {
+            SHAKEDigest digest = new SHAKEDigest(bitStrengths[i]);
+            byte[] expected = new byte[500];
+            digest.update(msg, 0, msg.length);
+            digest.doFinal(expected, 0, expected.length);
+
+            for (int split = 0; split <= msg.length; split += 11)
+            {
+                digest.update(msg, 0, split);
+
+                SHAKEDigest resumed = new SHAKEDigest(digest.getEncodedState());
+                resumed.update(msg, split, msg.length - split);
+
+                // checkpoint part way through the output as well
+                byte[] result = new byte[expected.length];
+                int outSplit = split % expected.length;
+                resumed.doOutput(result, 0, outSplit);
+                resumed = new SHAKEDigest(resumed.getEncodedState());
+                resumed.doFinal(result, outSplit, result.length - outSplit);
+
+                isTrue("SHAKE" + bitStrengths[i] + " resumed at " + split, Arrays.areEqual(expected, result));
+
+                digest.reset();
+            }
+        }
     }
 
     public void testVectors() throws Exception
@@ -36,6 +36,37 @@ public void testConsistency()
         }
     }
 
+//    @Test
+    public void testBatch()
+    {
+        for (int count = 0; count <= 20; ++count)
+        {
+            byte[][] ks = new byte[count][X25519.SCALAR_SIZE];
+            byte[][] us = new byte[count][X25519.POINT_SIZE];
+            byte[][] rs = new byte[count][X25519.POINT_SIZE];
+
+            for (int i = 0; i < count; ++i)
+            {
+                RANDOM.nextBytes(ks[i]);
+                RANDOM.nextBytes(us[i]);
+            }
+            if (count > 1)
+            {
+                // non-canonical u, with the top bit set
+                Arrays.fill(us[1], (byte)0xFF);
+            }
+
+            X25519.scalarMultBatch(ks, us, rs);
+
+            byte[] r = new byte[X25519.POINT_SIZE];
+            for (int i = 0; i < count; ++i)
+            {
+                X25519.scalarMult(ks[i], 0, us[i], 0, r, 0);
+                assertTrue("Batch " + count + " #" + i, Arrays.areEqual(r, rs[i]));
+            }
+        }
+    }
+
 //    @Test
     public void testECDH()
     {
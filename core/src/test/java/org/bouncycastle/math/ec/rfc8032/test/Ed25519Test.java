@@ -202,6 +202,145 @@ public void testEd25519phConsistency()
         }
     }
 
+//    @Test
+    public void testEd25519BatchConsistency()
+    {
+        // NOTE: Enough signatures to span more than one internal batch
+        int count = 70;
+
+        byte[] sk = new byte[Ed25519.SECRET_KEY_SIZE];
+        byte[][] sigs = new byte[count][];
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[count];
+        byte[][] ms = new byte[count][];
+        boolean[] results = new boolean[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            Ed25519.generatePrivateKey(RANDOM, sk);
+            publicPoints[i] = Ed25519.generatePublicKey(sk, 0);
+
+            ms[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(ms[i]);
+
+            sigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(sk, 0, ms[i], 0, ms[i].length, sigs[i], 0);
+        }
+
+        assertTrue("Ed25519 batch verify", Ed25519.verifyBatch(RANDOM, sigs, publicPoints, ms, results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertTrue("Ed25519 batch result #" + i, results[i]);
+        }
+
+        // Corrupt R of one signature, S of another, and truncate a third
+        sigs[3][Ed25519.PUBLIC_KEY_SIZE - 1] ^= 0x80;
+        sigs[42][Ed25519.SIGNATURE_SIZE - 2] ^= 0x01;
+        sigs[66] = Arrays.copyOf(sigs[66], Ed25519.SIGNATURE_SIZE - 1);
+
+        assertFalse("Ed25519 batch verification failure", Ed25519.verifyBatch(RANDOM, sigs, publicPoints, ms,
+            results));
+        for (int i = 0; i < count; ++i)
+        {
+            boolean expected = i != 3 && i != 42 && i != 66;
+
+            assertEquals("Ed25519 batch result #" + i, expected, results[i]);
+        }
+    }
+
+//    @Test
+    public void testEd25519ctxBatchConsistency()
+    {
+        int count = 10;
+
+        byte[] sk = new byte[Ed25519.SECRET_KEY_SIZE];
+        byte[] ctx = new byte[RANDOM.nextInt() & 7];
+        byte[][] sigs = new byte[count][];
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[count];
+        byte[][] ms = new byte[count][];
+        boolean[] results = new boolean[count];
+
+        RANDOM.nextBytes(ctx);
+
+        for (int i = 0; i < count; ++i)
+        {
+            Ed25519.generatePrivateKey(RANDOM, sk);
+            publicPoints[i] = Ed25519.generatePublicKey(sk, 0);
+
+            ms[i] = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(ms[i]);
+
+            sigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+            Ed25519.sign(sk, 0, ctx, ms[i], 0, ms[i].length, sigs[i], 0);
+        }
+
+        assertTrue("Ed25519ctx batch verify", Ed25519.verifyBatch(RANDOM, sigs, publicPoints, ctx, ms, results));
+
+        // Signatures made with a context don't verify without it (or with a different one)
+        assertFalse("Ed25519ctx batch without context", Ed25519.verifyBatch(RANDOM, sigs, publicPoints, ms,
+            results));
+        for (int i = 0; i < count; ++i)
+        {
+            assertFalse("Ed25519ctx batch result #" + i, results[i]);
+        }
+    }
+
+//    @Test
+    public void testEd25519BatchTamingVectors()
+    {
+        // NOTE: Batch verification is cofactored like single verification, so these (mixed-order) cases must agree
+        String[][] vectors = new String[][]{
+            { "9bd9f44f4dcc75bd531b56b2cd280b0bb38fc1cd6d1230e14861d861de092e79",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "9046a64750444938de19f227bb80485e92b83fdb4b6506c160484c016cc1852f" +
+              "87909e14428a7a1d62e9f22f3d3ad7802db02eb2e688b6c52fcd6648a98bd009" },
+            { "e47d62c63f830dc7a6851a0b1f33ae4bb2f507fb6cffec4011eaccd55b53f56c",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "160a1cb0dc9c0258cd0a7d23e94d8fa878bcb1925f2c64246b2dee1796bed512" +
+              "5ec6bc982a269b723e0668e540911a9a6a58921d6925e434ab10aa7940551a09" },
+            { "e47d62c63f830dc7a6851a0b1f33ae4bb2f507fb6cffec4011eaccd55b53f56c",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "21122a84e0b5fca4052f5b1235c80a537878b38f3142356b2c2384ebad4668b7" +
+              "e40bc836dac0f71076f9abe3a53f9c03c1ceeeddb658d0030494ace586687405" },
+            { "85e241a07d148b41e47d62c63f830dc7a6851a0b1f33ae4bb2f507fb6cffec40",
+              "442aad9f089ad9e14647b1ef9099a1ff4798d78589e66f28eca69c11f582a623",
+              "e96f66be976d82e60150baecff9906684aebb1ef181f67a7189ac78ea23b6c0e" +
+              "547f7690a0e2ddcd04d87dbc3490dc19b3b3052f7ff0538cb68afb369ba3a514" },
+        };
+
+        int count = vectors.length;
+        byte[][] sigs = new byte[count][];
+        Ed25519.PublicPoint[] publicPoints = new Ed25519.PublicPoint[count];
+        byte[][] ms = new byte[count][];
+        boolean[] results = new boolean[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            ms[i] = Hex.decodeStrict(vectors[i][0]);
+            publicPoints[i] = Ed25519.validatePublicKeyPartialExport(Hex.decodeStrict(vectors[i][1]), 0);
+            sigs[i] = Hex.decodeStrict(vectors[i][2]);
+        }
+
+        assertFalse(Ed25519.verifyBatch(RANDOM, sigs, publicPoints, ms, results));
+        for (int i = 0; i < count; ++i)
+        {
+            boolean expected = Ed25519.verify(sigs[i], 0, publicPoints[i], ms[i], 0, ms[i].length);
+
+            assertEquals("Taming EdDSA batch result #" + i, expected, results[i]);
+        }
+
+        // Without the last (invalid) vector, the batch as a whole verifies
+        --count;
+        byte[][] validSigs = new byte[count][];
+        Ed25519.PublicPoint[] validPublicPoints = new Ed25519.PublicPoint[count];
+        byte[][] validMs = new byte[count][];
+
+        System.arraycopy(sigs, 0, validSigs, 0, count);
+        System.arraycopy(publicPoints, 0, validPublicPoints, 0, count);
+        System.arraycopy(ms, 0, validMs, 0, count);
+
+        assertTrue(Ed25519.verifyBatch(RANDOM, validSigs, validPublicPoints, validMs, results));
+    }
+
 //    @Test
     public void testEd25519Vector1()
     {
@@ -25,6 +25,7 @@ public static Test suite()
         TestSuite suite = new TestSuite("EC Math tests");
 
         suite.addTestSuite(ECAlgorithmsTest.class);
+        suite.addTestSuite(ECPointCacheTest.class);
         suite.addTestSuite(ECPointTest.class);
         suite.addTestSuite(FixedPointTest.class);
 
@@ -18,6 +18,7 @@
 import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.Arrays;
 
 public class ECAlgorithmsTest extends TestCase
 {
@@ -43,6 +44,53 @@ public void testSumOfMultipliesComplete()
         }
     }
 
+    public void testSumOfMultipliesPippenger()
+    {
+        // NOTE: Enough points that sumOfMultiplies uses its bucket method
+        doTestSumOfManyMultiplies(CustomNamedCurves.getByName("secp256r1"), 300);
+        doTestSumOfManyMultiplies(CustomNamedCurves.getByName("secp256k1"), 300);
+        doTestSumOfManyMultiplies(ECNamedCurveTable.getByName("secp256r1"), 300);
+        doTestSumOfManyMultiplies(ECNamedCurveTable.getByName("sect233k1"), 300);
+    }
+
+    public void testSumOfMultipliesPippengerUnknownOrder()
+    {
+        X9ECParameters x9 = ECNamedCurveTable.getByName("secp256r1");
+        ECCurve.Fp c = (ECCurve.Fp)x9.getCurve();
+
+        // NOTE: Without the order, the scalars can't be reduced, so negative ones are used as they are
+        ECCurve curve = new ECCurve.Fp(c.getQ(), c.getA().toBigInteger(), c.getB().toBigInteger());
+
+        int count = 300;
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = curve.importPoint(getRandomPoint(x9));
+            scalars[i] = getRandomScalar(x9);
+            if ((i & 1) != 0)
+            {
+                scalars[i] = scalars[i].negate();
+            }
+        }
+
+        BigInteger[] original = (BigInteger[])scalars.clone();
+
+        ECPoint u = curve.getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            u = u.add(points[i].multiply(scalars[i]));
+        }
+
+        ECPoint v = ECAlgorithms.sumOfMultiplies(points, scalars);
+
+        ECPoint[] results = new ECPoint[]{ u, v };
+        curve.normalizeAll(results);
+
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect without a curve order", results[0], results[1]);
+        assertTrue("ECAlgorithms.sumOfMultiplies modified its scalars", Arrays.areEqual(original, scalars));
+    }
+
     public void testSumOfTwoMultiplies()
     {
         X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
@@ -86,6 +134,39 @@ private void doTestSumOfMultiplies(X9ECParameters x9)
         }
     }
 
+    private void doTestSumOfManyMultiplies(X9ECParameters x9, int count)
+    {
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = getRandomPoint(x9);
+            scalars[i] = getRandomScalar(x9);
+        }
+
+        // Include negative, oversized and zero scalars, and the point at infinity
+        scalars[1] = scalars[1].negate();
+        scalars[2] = scalars[2].add(x9.getN());
+        scalars[3] = BigInteger.valueOf(0);
+        points[4] = x9.getCurve().getInfinity();
+
+        ECPoint u = x9.getCurve().getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            u = u.add(points[i].multiply(scalars[i].mod(x9.getN())));
+        }
+
+        BigInteger[] original = (BigInteger[])scalars.clone();
+
+        ECPoint v = ECAlgorithms.sumOfMultiplies(points, scalars);
+
+        ECPoint[] results = new ECPoint[]{ u, v };
+        x9.getCurve().normalizeAll(results);
+
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect for " + count + " points", results[0], results[1]);
+        assertTrue("ECAlgorithms.sumOfMultiplies modified its scalars", Arrays.areEqual(original, scalars));
+    }
+
     private void doTestSumOfTwoMultiplies(X9ECParameters x9)
     {
         ECPoint p = getRandomPoint(x9);
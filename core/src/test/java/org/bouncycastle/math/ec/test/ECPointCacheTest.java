@@ -0,0 +1,157 @@
+package org.bouncycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.agreement.ECDHBasicAgreement;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.ECPointCache;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ECPointCacheTest
+    extends TestCase
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public void testSharedPoint()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        ECCurve curve = x9.getCurve();
+        ECPointCache cache = new ECPointCache(1024 * 1024);
+
+        // a point is only cached once it has been seen before
+        ECPoint p = x9.getG().multiply(randomScalar(x9.getN())).normalize();
+        assertSame(p, cache.get(p));
+        assertEquals(0, cache.size());
+
+        ECPoint p1 = cache.get(curve.decodePoint(p.getEncoded(true)));
+        ECPoint p2 = cache.get(curve.decodePoint(p.getEncoded(false)));
+
+        assertSame(p1, p2);
+        assertEquals(p, p2);
+        assertEquals(1, cache.size());
+
+        // points on a different curve object are kept apart
+        X9ECParameters x9B = CustomNamedCurves.getByName("secp256k1");
+        ECPoint q = x9B.getG().multiply(randomScalar(x9B.getN())).normalize();
+        cache.get(q);
+        assertSame(q, cache.get(q));
+        assertEquals(2, cache.size());
+
+        ECPoint inf = curve.getInfinity();
+        assertSame(inf, cache.get(inf));
+        assertEquals(2, cache.size());
+    }
+
+    public void testEviction()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        BigInteger n = x9.getN();
+
+        // enough for a few P-256 points only
+        ECPointCache cache = new ECPointCache(64 * 1024);
+
+        ECPoint hot = x9.getG().multiply(randomScalar(n)).normalize();
+        cache.get(hot);
+        assertSame(hot, cache.get(hot));
+
+        for (int i = 0; i < 100; ++i)
+        {
+            ECPoint p = x9.getG().multiply(randomScalar(n)).normalize();
+            cache.get(p);
+            cache.get(p);
+
+            // keep the hot point the most recently used
+            assertSame(hot, cache.get(x9.getCurve().decodePoint(hot.getEncoded(true))));
+        }
+
+        assertTrue(cache.size() < 10);
+
+        ECPointCache disabled = new ECPointCache(0);
+        ECPoint p = x9.getG().multiply(randomScalar(n)).normalize();
+        disabled.get(p);
+        assertSame(p, disabled.get(p));
+        assertEquals(0, disabled.size());
+    }
+
+    public void testOneOffPoints()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        BigInteger n = x9.getN();
+        ECPointCache cache = new ECPointCache(1024 * 1024);
+
+        // points seen only once (e.g. ephemeral ECDH keys) never take up space in the cache
+        for (int i = 0; i < 100; ++i)
+        {
+            ECPoint p = x9.getG().multiply(randomScalar(n)).normalize();
+            assertSame(p, cache.get(p));
+        }
+
+        assertEquals(0, cache.size());
+    }
+
+    public void testHotKeys()
+    {
+        String[] names = new String[]{ "secp256r1", "secp256k1", "secp384r1" };
+
+        for (int i = 0; i < names.length; ++i)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[i]);
+            ECDomainParameters params = new ECDomainParameters(x9);
+            BigInteger n = x9.getN();
+
+            BigInteger dA = randomScalar(n), dB = randomScalar(n);
+            ECPoint qA = x9.getG().multiply(dA).normalize();
+            BigInteger expected = ECAlgorithms.referenceMultiply(qA, dB).normalize().getAffineXCoord().toBigInteger();
+
+            ECDSASigner signer = new ECDSASigner();
+            signer.init(true, new ECPrivateKeyParameters(dA, params));
+            byte[] message = new byte[32];
+            RANDOM.nextBytes(message);
+            BigInteger[] sig = signer.generateSignature(message);
+
+            // use the same key, decoded afresh each time, enough times for it to be promoted
+            for (int j = 0; j < 10; ++j)
+            {
+                ECPublicKeyParameters pubA = new ECPublicKeyParameters(
+                    x9.getCurve().decodePoint(qA.getEncoded(j % 2 == 0)), params);
+
+                ECDHBasicAgreement agreement = new ECDHBasicAgreement();
+                agreement.init(new ECPrivateKeyParameters(dB, params));
+                assertEquals(names[i], expected, agreement.calculateAgreement(pubA));
+
+                ECDSASigner verifier = new ECDSASigner();
+                verifier.init(false, pubA);
+                assertTrue(names[i], verifier.verifySignature(message, sig[0], sig[1]));
+                assertFalse(names[i], verifier.verifySignature(message, sig[0], sig[1].add(BigInteger.ONE)));
+            }
+        }
+    }
+
+    private static BigInteger randomScalar(BigInteger n)
+    {
+        BigInteger k;
+        do
+        {
+            k = new BigInteger(n.bitLength(), RANDOM);
+        }
+        while (k.signum() == 0 || k.compareTo(n) >= 0);
+        return k;
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite(ECPointCacheTest.class);
+    }
+}
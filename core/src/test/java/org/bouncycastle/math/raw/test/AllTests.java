@@ -21,6 +21,7 @@ public static Test suite()
         TestSuite suite = new TestSuite("Raw math tests");
 
         suite.addTest(InterleaveTest.suite());
+        suite.addTest(MontTest.suite());
 
         return new BCTestSetup(suite);
     }
@@ -0,0 +1,90 @@
+package org.bouncycastle.math.raw.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.math.raw.Mont;
+import org.bouncycastle.math.raw.Nat;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class MontTest extends TestCase
+{
+    private static final int ITERATIONS = 20;
+
+    private static final SecureRandom R = new SecureRandom();
+
+    public void testModMul()
+    {
+        int[] sizes = new int[]{ 1, 31, 32, 33, 255, 1024 };
+        for (int i = 0; i < sizes.length; ++i)
+        {
+            BigInteger m = randomModulus(sizes[i]);
+            Mont.Modulus modulus = new Mont.Modulus(m);
+            int len = modulus.getLength();
+
+            for (int iteration = 0; iteration < ITERATIONS; ++iteration)
+            {
+                BigInteger x = randomBelow(m), y = randomBelow(m);
+                int[] z = Nat.create(len), tt = Nat.create(len << 1);
+
+                Mont.modMul(modulus, Mont.fromBigInteger(len, x), Mont.fromBigInteger(len, y), z, tt);
+                assertEquals(x.multiply(y).mod(m), Nat.toBigInteger(len, z));
+
+                Mont.modSub(modulus, Mont.fromBigInteger(len, x), Mont.fromBigInteger(len, y), z);
+                assertEquals(x.subtract(y).mod(m), Nat.toBigInteger(len, z));
+
+                BigInteger xx = new BigInteger(m.bitLength() + (len << 5) - 1, R);
+                Mont.reduceExt(modulus, Mont.fromBigInteger(len << 1, xx), z);
+                assertEquals(xx.mod(m), Nat.toBigInteger(len, z));
+            }
+        }
+    }
+
+    public void testModPow()
+    {
+        int[] sizes = new int[]{ 1, 64, 255, 512, 1024, 1536 };
+        for (int i = 0; i < sizes.length; ++i)
+        {
+            BigInteger m = randomModulus(sizes[i]);
+            Mont.Modulus modulus = new Mont.Modulus(m);
+            int len = modulus.getLength();
+
+            BigInteger[] bases = new BigInteger[]{ BigInteger.ZERO, BigInteger.ONE, m.subtract(BigInteger.ONE),
+                randomBelow(m), randomBelow(m) };
+            BigInteger[] exponents = new BigInteger[]{ BigInteger.ZERO, BigInteger.ONE,
+                BigInteger.ONE.shiftLeft(len << 5).subtract(BigInteger.ONE), randomBelow(m), randomBelow(m) };
+
+            for (int j = 0; j < bases.length; ++j)
+            {
+                for (int k = 0; k < exponents.length; ++k)
+                {
+                    int[] z = Nat.create(len);
+                    Mont.modPow(modulus, Mont.fromBigInteger(len, bases[j]), Mont.fromBigInteger(len, exponents[k]), z);
+                    assertEquals(bases[j].modPow(exponents[k], m), Nat.toBigInteger(len, z));
+                }
+            }
+        }
+    }
+
+    private static BigInteger randomModulus(int bits)
+    {
+        if (bits == 1)
+        {
+            return BigInteger.ONE;
+        }
+        return new BigInteger(bits, R).setBit(bits - 1).setBit(0);
+    }
+
+    private static BigInteger randomBelow(BigInteger m)
+    {
+        return new BigInteger(m.bitLength() + 16, R).mod(m);
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite(MontTest.class);
+    }
+}
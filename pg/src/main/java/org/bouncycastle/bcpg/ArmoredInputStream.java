@@ -123,6 +123,12 @@ else if (in3 == '=')
         }
     }
 
+    /*
+     * the most characters read ahead of the current position in the body. A well formed armor always has
+     * at least a line end and "-----END PGP MESSAGE-----" after the end of any group, so we never read past it.
+     */
+    private static final int LOOK_AHEAD_SIZE = 24;
+
     /*
      * Ignore missing CRC checksums.
      * https://tests.sequoia-pgp.org/#ASCII_Armor suggests that missing CRC sums do not invalidate the message.
@@ -144,6 +150,9 @@ else if (in3 == '=')
     StringList     headerList= Strings.newList();
     int            lastC = 0;
     boolean        isEndOfStream;
+    byte[]         lookAhead = new byte[LOOK_AHEAD_SIZE];
+    int            lookAheadPos = 0;
+    int            lookAheadEnd = 0;
     
     /**
      * Create a stream for reading a PGP armoured message, parsing up to a header 
@@ -204,7 +213,7 @@ private ArmoredInputStream(
     public int available()
         throws IOException
     {
-        return in.available();
+        return in.available() + (lookAheadEnd - lookAheadPos);
     }
     
     private boolean parseHeaders()
@@ -227,7 +236,7 @@ private boolean parseHeaders()
         }
         else
         {
-            while ((c = in.read()) >= 0)
+            while ((c = readChar()) >= 0)
             {
                 if (c == '-' && (last == 0 || last == '\n' || last == '\r'))
                 {
@@ -252,7 +261,7 @@ private boolean parseHeaders()
                 buf.write('-');
             }
             
-            while ((c = in.read()) >= 0)
+            while ((c = readChar()) >= 0)
             {
                 if (last == '\r' && c == '\n')
                 {
@@ -299,7 +308,7 @@ private boolean parseHeaders()
             
             if (crLf)
             {
-                int nl = in.read(); // skip last \n
+                int nl = readChar(); // skip last \n
                 if (nl != '\n')
                 {
                     throw new ArmoredInputException("inconsistent line endings in headers");
@@ -358,14 +367,25 @@ public String[] getArmorHeaders()
         return headerList.toStringArray(1, headerList.size());
     }
     
+    private int readChar()
+        throws IOException
+    {
+        if (lookAheadPos < lookAheadEnd)
+        {
+            return lookAhead[lookAheadPos++] & 0xff;
+        }
+
+        return in.read();
+    }
+
     private int readIgnoreSpace() 
         throws IOException
     {
-        int    c = in.read();
+        int    c = readChar();
         
         while (c == ' ' || c == '\t' || c == '\f' || c == '\u000B') // \u000B ~ \v
         {
-            c = in.read();
+            c = readChar();
         }
 
         if (c >= 128)
@@ -397,7 +417,7 @@ public int read()
         
         if (clearText)
         {
-            c = in.read();
+            c = readChar();
 
             if (c == '\r' || (c == '\n' && lastC != '\r'))
             {
@@ -405,7 +425,7 @@ public int read()
             }
             else if (newLineFound && c == '-')
             {
-                c = in.read();
+                c = readChar();
                 if (c == '-')            // a header, not dash escaped
                 {
                     clearText = false;
@@ -414,7 +434,7 @@ else if (newLineFound && c == '-')
                 }
                 else                   // a space - must be a dash escape
                 {
-                    c = in.read();
+                    c = readChar();
                 }
                 newLineFound = false;
             }
@@ -475,7 +495,7 @@ else if (newLineFound && c == '-')
 
                 if (c == '-')        // end of record reached
                 {
-                    while ((c = in.read()) >= 0)
+                    while ((c = readChar()) >= 0)
                     {
                         if (c == '\n' || c == '\r')
                         {
@@ -559,24 +579,151 @@ public int read(byte[] b, int off, int len) throws IOException
             return 0;
         }
 
-        int c = read();
-        if (c == -1)
+        int i = 0;
+        while (i < len)
         {
-            return -1;
+            if (len - i >= 3 && bufPtr > 2 && !crcFound && !start && !clearText)
+            {
+                int count = decodeBlock(b, off + i, len - i);
+                if (count > 0)
+                {
+                    i += count;
+                    continue;
+                }
+            }
+
+            // headers, line ends, the CRC, the trailer and padding go a byte at a time
+            int c = read();
+            if (c == -1)
+            {
+                return (i == 0) ? -1 : i;
+            }
+            b[off + i++] = (byte)c;
         }
-        b[off] = (byte)c;
+        return i;
+    }
 
-        int i = 1;
-        for (; i < len ; i++)
+    /**
+     * Decode as many complete 4 character groups as will fit straight into out, reading the input a block at a
+     * time. Decoding stops before anything that does not lead to a complete, unpadded group - the CRC, the
+     * trailer, padding, bad characters or the end of the input - leaving it for read() to deal with.
+     *
+     * @return the number of bytes written to out, a multiple of 3.
+     */
+    private int decodeBlock(byte[] out, int outOff, int outLen)
+        throws IOException
+    {
+        int outPos = outOff;
+        int outEnd = outOff + (outLen / 3) * 3;
+
+        while (outPos < outEnd)
         {
-            c = read();
-            if (c == -1)
+            // the same characters read() would skip at the start of a group
+            int p = skipSpace(lookAheadPos);
+            while (p < lookAheadEnd && (lookAhead[p] == '\r' || lookAhead[p] == '\n'))
+            {
+                p = skipSpace(p + 1);
+            }
+
+            int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+            if (p < lookAheadEnd)
+            {
+                c0 = lookAhead[p];
+                p = skipSpace(p + 1);
+            }
+            if (p < lookAheadEnd)
+            {
+                c1 = lookAhead[p];
+                p = skipSpace(p + 1);
+            }
+            if (p < lookAheadEnd)
+            {
+                c2 = lookAhead[p];
+                p = skipSpace(p + 1);
+            }
+            if (p >= lookAheadEnd)
+            {
+                if (fillLookAhead())
+                {
+                    continue;
+                }
+                break;
+            }
+            c3 = lookAhead[p++];
+
+            // characters of 128 and over are negative here
+            if ((c0 | c1 | c2 | c3) < 0)
+            {
+                break;
+            }
+
+            int b1 = decodingTable[c0];
+            int b2 = decodingTable[c1];
+            int b3 = decodingTable[c2];
+            int b4 = decodingTable[c3];
+
+            if ((b1 | b2 | b3 | b4) < 0)
             {
                 break;
             }
-            b[off + i] = (byte)c;
+
+            out[outPos++] = (byte)((b1 << 2) | (b2 >> 4));
+            out[outPos++] = (byte)((b2 << 4) | (b3 >> 2));
+            out[outPos++] = (byte)((b3 << 6) | b4);
+
+            lookAheadPos = p;
         }
-        return i;
+
+        int count = outPos - outOff;
+        if (crc != null)
+        {
+            crc.update(out, outOff, count);
+        }
+
+        return count;
+    }
+
+    /**
+     * Top up the look ahead buffer, which must start at a group boundary in the body.
+     *
+     * @return true if more characters were read, false otherwise.
+     */
+    private boolean fillLookAhead()
+        throws IOException
+    {
+        int count = lookAheadEnd - lookAheadPos;
+        if (count == lookAhead.length)
+        {
+            return false;
+        }
+
+        System.arraycopy(lookAhead, lookAheadPos, lookAhead, 0, count);
+        lookAheadPos = 0;
+        lookAheadEnd = count;
+
+        int len = in.read(lookAhead, count, lookAhead.length - count);
+        if (len <= 0)
+        {
+            return false;
+        }
+
+        lookAheadEnd += len;
+
+        return true;
+    }
+
+    private int skipSpace(int off)
+    {
+        while (off < lookAheadEnd)
+        {
+            byte c = lookAhead[off];
+            if (c != ' ' && c != '\t' && c != '\f' && c != '\u000B') // \u000B ~ \v
+            {
+                break;
+            }
+            ++off;
+        }
+        return off;
     }
 
     private void checkIndexSize(int size, int off, int len)
@@ -31,6 +31,8 @@
     public static final String CHARSET_HDR = "Charset";
 
     public static final String DEFAULT_VERSION = "BCPG v@RELEASE_NAME@";
+
+    private static final int ENC_BUF_SIZE = 4096;
     
     private static final byte[] encodingTable =
         {
@@ -106,7 +108,25 @@ private static void encode3(OutputStream out, byte[] data)
         out.write(encodingTable[d3 & 0x3f]);
     }
 
+    /**
+     * encode 3 bytes of input data into a buffer, returning the new offset in the buffer.
+     */
+    private static int encode3(byte[] data, int dataOff, byte[] enc, int encOff)
+    {
+        int d1 = data[dataOff] & 0xFF;
+        int d2 = data[dataOff + 1] & 0xFF;
+        int d3 = data[dataOff + 2] & 0xFF;
+
+        enc[encOff++] = encodingTable[(d1 >>> 2) & 0x3f];
+        enc[encOff++] = encodingTable[((d1 << 4) | (d2 >>> 4)) & 0x3f];
+        enc[encOff++] = encodingTable[((d2 << 2) | (d3 >>> 6)) & 0x3f];
+        enc[encOff++] = encodingTable[d3 & 0x3f];
+
+        return encOff;
+    }
+
     OutputStream out;
+    byte[] encBuf;
     byte[] buf = new byte[3];
     int bufPtr = 0;
     CRC24 crc = new FastCRC24();
@@ -472,6 +492,87 @@ public void write(
         buf[bufPtr++] = (byte)b;
     }
 
+    public void write(byte[] b, int off, int len)
+        throws IOException
+    {
+        if (off < 0 || len < 0 || off > b.length - len)
+        {
+            throw new IndexOutOfBoundsException("invalid offset and length");
+        }
+
+        if (clearText)
+        {
+            for (int i = 0; i != len; i++)
+            {
+                write(b[off + i] & 0xff);
+            }
+            return;
+        }
+
+        if (len > 0 && start)
+        {
+            write(b[off++] & 0xff);       // writes the armor headers
+            len--;
+        }
+
+        while (len > 0 && bufPtr < 3)
+        {
+            buf[bufPtr++] = b[off++];
+            len--;
+        }
+
+        if (len == 0)
+        {
+            return;
+        }
+
+        // as with write(int), a full group is only encoded once the next byte arrives,
+        // so the last 1 to 3 bytes are always left in buf.
+        byte[] nlBytes = Strings.toUTF8ByteArray(nl);
+        if (encBuf == null)
+        {
+            encBuf = new byte[ENC_BUF_SIZE];
+        }
+
+        int groups = (len - 1) / 3;
+        if (crc != null)
+        {
+            crc.update3(buf, 0);
+            crc.update(b, off, groups * 3);
+        }
+
+        int encLen = encode3(buf, 0, encBuf, 0);
+        encLen = lineEnd(nlBytes, encBuf, encLen);
+
+        for (int i = 0; i != groups; i++)
+        {
+            if (encLen > encBuf.length - 4 - nlBytes.length)
+            {
+                out.write(encBuf, 0, encLen);
+                encLen = 0;
+            }
+
+            encLen = encode3(b, off, encBuf, encLen);
+            encLen = lineEnd(nlBytes, encBuf, encLen);
+            off += 3;
+        }
+
+        out.write(encBuf, 0, encLen);
+
+        bufPtr = len - groups * 3;
+        System.arraycopy(b, off, buf, 0, bufPtr);
+    }
+
+    private int lineEnd(byte[] nlBytes, byte[] enc, int encOff)
+    {
+        if ((++chunkCount & 0xf) == 0)
+        {
+            System.arraycopy(nlBytes, 0, enc, encOff, nlBytes.length);
+            encOff += nlBytes.length;
+        }
+        return encOff;
+    }
+
     public void flush()
         throws IOException
     {
@@ -35,6 +35,21 @@ public void update3(byte[] buf, int off)
         update(buf[off + 2] & 0xFF);
     }
 
+    /**
+     * Update the CRC with a range of bytes.
+     *
+     * @param buf the buffer holding the bytes.
+     * @param off the offset of the first byte in buf.
+     * @param len the number of bytes to add.
+     */
+    public void update(byte[] buf, int off, int len)
+    {
+        for (int i = 0; i < len; ++i)
+        {
+            update(buf[off + i] & 0xFF);
+        }
+    }
+
     public int getValue()
     {
         return crc & 0xFFFFFF;
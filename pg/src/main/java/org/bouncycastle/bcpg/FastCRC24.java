@@ -3,13 +3,12 @@
 public class FastCRC24
     extends CRC24
 {
-    private static final int[] TABLE0, TABLE8, TABLE16;
+    private static final int[] TABLE0, TABLE8, TABLE16, TABLE24, TABLE32, TABLE40, TABLE48, TABLE56;
 
     static
     {
-        int[] table0 = new int[256];
-        int[] table8 = new int[256];
-        int[] table16 = new int[256];
+        int[][] tables = new int[8][256];
+        int[] table0 = tables[0];
 
         int crc = 0x800000;
         for (int i = 1; i < 256; i <<= 1)
@@ -23,25 +22,36 @@
             }
         }
 
-        for (int i = 1; i < 256; ++i)
+        // tables[k][i] is the CRC of byte i followed by k zero bytes
+        for (int k = 1; k < tables.length; ++k)
         {
-            int crc0 = table0[i];
-            int crc8 = ((crc0 & 0xFFFF) << 8) ^ table0[(crc0 >> 16) & 255];
-            int crc16 = ((crc8 & 0xFFFF) << 8) ^ table0[(crc8 >> 16) & 255];
+            int[] prev = tables[k - 1];
+            int[] table = tables[k];
 
-            table8[i] = crc8;
-            table16[i] = crc16;
+            for (int i = 1; i < 256; ++i)
+            {
+                int v = prev[i];
+                table[i] = ((v & 0xFFFF) << 8) ^ table0[(v >> 16) & 255];
+            }
         }
 
-        TABLE0 = table0;
-        TABLE8 = table8;
-        TABLE16 = table16;
+        TABLE0 = tables[0];
+        TABLE8 = tables[1];
+        TABLE16 = tables[2];
+        TABLE24 = tables[3];
+        TABLE32 = tables[4];
+        TABLE40 = tables[5];
+        TABLE48 = tables[6];
+        TABLE56 = tables[7];
     }
 
     /**
      * Fast CRC-24 implementation using a lookup table to handle multiple bits at a time.
      * <p>
      * Compare: Sarwate, Dilip V. "Computation of cyclic redundancy checks via table look-up."
+     * </p><p>
+     * Ranges of bytes are processed 8 at a time ("slicing-by-8"), with a table for each byte position.
+     * </p>
      */
     public FastCRC24()
     {
@@ -59,4 +69,30 @@ public void update3(byte[] buf, int off)
             ^ TABLE8[(buf[off + 1] ^ (crc >> 8)) & 255]
             ^ TABLE0[(buf[off + 2] ^ crc) & 255];
     }
+
+    public void update(byte[] buf, int off, int len)
+    {
+        int c = crc;
+        int end = off + len;
+
+        while (end - off >= 8)
+        {
+            c = TABLE56[(buf[off + 0] ^ (c >> 16)) & 255]
+              ^ TABLE48[(buf[off + 1] ^ (c >> 8)) & 255]
+              ^ TABLE40[(buf[off + 2] ^ c) & 255]
+              ^ TABLE32[buf[off + 3] & 255]
+              ^ TABLE24[buf[off + 4] & 255]
+              ^ TABLE16[buf[off + 5] & 255]
+              ^ TABLE8[buf[off + 6] & 255]
+              ^ TABLE0[buf[off + 7] & 255];
+            off += 8;
+        }
+
+        while (off < end)
+        {
+            c = (c << 8) ^ TABLE0[(buf[off++] ^ (c >> 16)) & 255];
+        }
+
+        crc = c;
+    }
 }
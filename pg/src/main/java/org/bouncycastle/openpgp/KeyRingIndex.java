@@ -0,0 +1,299 @@
+package org.bouncycastle.openpgp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Longs;
+import org.bouncycastle.util.Strings;
+
+/**
+ * Secondary indexes for a key ring collection, from key ID, fingerprint, user ID and e-mail address to the rings
+ * containing them. Rings are listed in the order they were added, which is also the order of the rings in the
+ * collection. The lists in the maps are never modified once created, so a copy of an index can share them with
+ * the original.
+ */
+class KeyRingIndex<R extends PGPKeyRing>
+{
+    private final Map<Long, List<R>> keyIDs;
+    private final Map<Fingerprint, List<R>> fingerprints;
+    private final Map<String, List<R>> userIDs;
+    private final Map<String, List<R>> lowerCaseUserIDs;
+    private final Map<String, List<R>> emails;
+    private final Map<R, Long> positions;
+    private long nextPosition;
+
+    KeyRingIndex()
+    {
+        this.keyIDs = new HashMap<Long, List<R>>();
+        this.fingerprints = new HashMap<Fingerprint, List<R>>();
+        this.userIDs = new HashMap<String, List<R>>();
+        this.lowerCaseUserIDs = new HashMap<String, List<R>>();
+        this.emails = new HashMap<String, List<R>>();
+        this.positions = new IdentityHashMap<R, Long>();
+        this.nextPosition = 0;
+    }
+
+    KeyRingIndex(KeyRingIndex<R> other)
+    {
+        this.keyIDs = new HashMap<Long, List<R>>(other.keyIDs);
+        this.fingerprints = new HashMap<Fingerprint, List<R>>(other.fingerprints);
+        this.userIDs = new HashMap<String, List<R>>(other.userIDs);
+        this.lowerCaseUserIDs = new HashMap<String, List<R>>(other.lowerCaseUserIDs);
+        this.emails = new HashMap<String, List<R>>(other.emails);
+        this.positions = new IdentityHashMap<R, Long>(other.positions);
+        this.nextPosition = other.nextPosition;
+    }
+
+    /**
+     * Index a ring.
+     *
+     * @param ring the ring to add.
+     * @param keys the keys in the ring which are to be found by key ID and fingerprint.
+     */
+    void add(R ring, Iterator<PGPPublicKey> keys)
+    {
+        positions.put(ring, Longs.valueOf(nextPosition++));
+
+        while (keys.hasNext())
+        {
+            PGPPublicKey key = (PGPPublicKey)keys.next();
+
+            append(keyIDs, Longs.valueOf(key.getKeyID()), ring, false);
+            append(fingerprints, new Fingerprint(key.getFingerprint()), ring, false);
+        }
+
+        // NOTE: a ring is listed once for each matching user ID, as the user ID searches have always done
+        for (Iterator<String> it = ring.getPublicKey().getUserIDs(); it.hasNext(); )
+        {
+            String userID = (String)it.next();
+
+            append(userIDs, userID, ring, true);
+            append(lowerCaseUserIDs, Strings.toLowerCase(userID), ring, true);
+
+            String email = getEmail(userID);
+            if (email != null)
+            {
+                append(emails, email, ring, false);
+            }
+        }
+    }
+
+    /**
+     * Remove a ring from the index.
+     *
+     * @param ring the ring to remove, as previously passed to add().
+     * @param keys the keys in the ring which were indexed.
+     */
+    void remove(R ring, Iterator<PGPPublicKey> keys)
+    {
+        positions.remove(ring);
+
+        while (keys.hasNext())
+        {
+            PGPPublicKey key = (PGPPublicKey)keys.next();
+
+            removeFrom(keyIDs, Longs.valueOf(key.getKeyID()), ring);
+            removeFrom(fingerprints, new Fingerprint(key.getFingerprint()), ring);
+        }
+
+        for (Iterator<String> it = ring.getPublicKey().getUserIDs(); it.hasNext(); )
+        {
+            String userID = (String)it.next();
+
+            removeFrom(userIDs, userID, ring);
+            removeFrom(lowerCaseUserIDs, Strings.toLowerCase(userID), ring);
+
+            String email = getEmail(userID);
+            if (email != null)
+            {
+                removeFrom(emails, email, ring);
+            }
+        }
+    }
+
+    R getRing(long keyID)
+    {
+        return first(keyIDs.get(Longs.valueOf(keyID)));
+    }
+
+    R getRing(byte[] fingerprint)
+    {
+        return first(fingerprints.get(new Fingerprint(fingerprint)));
+    }
+
+    List<R> getRings(String userID, boolean matchPartial, boolean ignoreCase)
+    {
+        Map<String, List<R>> index = ignoreCase ? lowerCaseUserIDs : userIDs;
+        if (ignoreCase)
+        {
+            userID = Strings.toLowerCase(userID);
+        }
+
+        if (!matchPartial)
+        {
+            List<R> rings = index.get(userID);
+
+            return rings == null ? new ArrayList<R>() : new ArrayList<R>(rings);
+        }
+
+        // each distinct user ID is only checked once
+        List<R> rings = new ArrayList<R>();
+        for (Iterator<Map.Entry<String, List<R>>> it = index.entrySet().iterator(); it.hasNext(); )
+        {
+            Map.Entry<String, List<R>> entry = (Map.Entry<String, List<R>>)it.next();
+
+            if (((String)entry.getKey()).indexOf(userID) >= 0)
+            {
+                rings.addAll((List<R>)entry.getValue());
+            }
+        }
+
+        // the map iterates in hash order, so put the matches back in collection order
+        Collections.sort(rings, new Comparator<R>()
+        {
+            public int compare(R r1, R r2)
+            {
+                long p1 = positions.get(r1).longValue(), p2 = positions.get(r2).longValue();
+
+                return p1 < p2 ? -1 : p1 > p2 ? 1 : 0;
+            }
+        });
+
+        return rings;
+    }
+
+    List<R> getRingsByEmail(String email)
+    {
+        List<R> rings = emails.get(Strings.toLowerCase(email.trim()));
+
+        return rings == null ? new ArrayList<R>() : new ArrayList<R>(rings);
+    }
+
+    /**
+     * Return the e-mail address in a user ID, in lower case - either the part in angle brackets of a
+     * "Name &lt;address&gt;" style user ID or the whole user ID if it is a bare address.
+     *
+     * @param userID the user ID to take the address from.
+     * @return the e-mail address, null if there isn't one.
+     */
+    static String getEmail(String userID)
+    {
+        String email;
+
+        int end = userID.lastIndexOf('>');
+        int start = (end > 0) ? userID.lastIndexOf('<', end) : -1;
+        if (start >= 0)
+        {
+            email = userID.substring(start + 1, end).trim();
+        }
+        else
+        {
+            email = userID.trim();
+            if (email.indexOf(' ') >= 0)
+            {
+                return null;
+            }
+        }
+
+        if (email.indexOf('@') <= 0)
+        {
+            return null;
+        }
+
+        return Strings.toLowerCase(email);
+    }
+
+    private static <K, R> void append(Map<K, List<R>> index, K key, R ring, boolean allowRepeats)
+    {
+        List<R> rings = index.get(key);
+
+        if (rings == null)
+        {
+            index.put(key, Collections.singletonList(ring));
+            return;
+        }
+
+        if (!allowRepeats && rings.get(rings.size() - 1) == ring)
+        {
+            return;
+        }
+
+        List<R> newRings = new ArrayList<R>(rings.size() + 1);
+        newRings.addAll(rings);
+        newRings.add(ring);
+
+        index.put(key, Collections.unmodifiableList(newRings));
+    }
+
+    private static <K, R> void removeFrom(Map<K, List<R>> index, K key, R ring)
+    {
+        List<R> rings = index.get(key);
+
+        if (rings == null)
+        {
+            return;
+        }
+
+        List<R> newRings = new ArrayList<R>(rings.size());
+        for (int i = 0; i != rings.size(); i++)
+        {
+            R r = rings.get(i);
+            if (r != ring)
+            {
+                newRings.add(r);
+            }
+        }
+
+        if (newRings.isEmpty())
+        {
+            index.remove(key);
+        }
+        else if (newRings.size() != rings.size())
+        {
+            index.put(key, Collections.unmodifiableList(newRings));
+        }
+    }
+
+    private static <R> R first(List<R> rings)
+    {
+        return rings == null ? null : rings.get(0);
+    }
+
+    private static class Fingerprint
+    {
+        private final byte[] fingerprint;
+        private final int hashCode;
+
+        Fingerprint(byte[] fingerprint)
+        {
+            this.fingerprint = fingerprint;
+            this.hashCode = Arrays.hashCode(fingerprint);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof Fingerprint))
+            {
+                return false;
+            }
+
+            return Arrays.areEqual(fingerprint, ((Fingerprint)o).fingerprint);
+        }
+    }
+}
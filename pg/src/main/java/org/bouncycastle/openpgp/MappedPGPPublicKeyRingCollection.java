@@ -0,0 +1,799 @@
+package org.bouncycastle.openpgp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.bouncycastle.bcpg.BCPGInputStream;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.bcpg.PublicKeyPacket;
+import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
+import org.bouncycastle.util.Iterable;
+
+/**
+ * A read-only collection of the public key rings in a file, either a sequence of binary encoded public key rings
+ * (such as a GnuPG pubring.gpg) or a GnuPG keybox (pubring.kbx).
+ * <p>
+ * Rather than reading every key ring into memory, as {@link PGPPublicKeyRingCollection} does, the file is memory
+ * mapped and scanned once to build an index of where each ring is, by key ID and fingerprint. Only the key packets
+ * are decoded while doing this. A ring is decoded when it is asked for, and the most recently used rings are kept
+ * for reuse, up to a fixed number.
+ * <p>
+ * The file must not be changed while the collection is in use. Blob checksums in a keybox are not verified.
+ */
+public class MappedPGPPublicKeyRingCollection
+    implements Iterable<PGPPublicKeyRing>
+{
+    /**
+     * The number of decoded rings kept, by default.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final MappedFile file;
+    private final KeyFingerPrintCalculator fingerPrintCalculator;
+
+    private final long[] ringStarts;
+    private final long[] ringEnds;
+    private final LongIndex keyIDs;
+    private final LongIndex fingerprints;
+
+    private final Map<Integer, PGPPublicKeyRing> cache;
+
+    /**
+     * Index the public key rings in a file, keeping up to {@link #DEFAULT_CACHE_SIZE} decoded rings.
+     *
+     * @param file                  a binary key ring file or GnuPG keybox.
+     * @param fingerPrintCalculator calculator for key fingerprints.
+     * @throws IOException  if the file cannot be read or mapped, or is badly formed.
+     * @throws PGPException if the file contains something other than public key rings.
+     */
+    public MappedPGPPublicKeyRingCollection(
+        File file,
+        KeyFingerPrintCalculator fingerPrintCalculator)
+        throws IOException, PGPException
+    {
+        this(file, fingerPrintCalculator, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Index the public key rings in a file.
+     *
+     * @param file                  a binary key ring file or GnuPG keybox.
+     * @param fingerPrintCalculator calculator for key fingerprints.
+     * @param cacheSize             the maximum number of decoded rings to keep, 0 for none.
+     * @throws IOException  if the file cannot be read or mapped, or is badly formed.
+     * @throws PGPException if the file contains something other than public key rings.
+     */
+    public MappedPGPPublicKeyRingCollection(
+        File file,
+        KeyFingerPrintCalculator fingerPrintCalculator,
+        int cacheSize)
+        throws IOException, PGPException
+    {
+        this(file, fingerPrintCalculator, cacheSize, MAX_SEGMENT_SIZE);
+    }
+
+    MappedPGPPublicKeyRingCollection(
+        File file,
+        KeyFingerPrintCalculator fingerPrintCalculator,
+        int cacheSize,
+        int segmentSize)
+        throws IOException, PGPException
+    {
+        if (cacheSize < 0)
+        {
+            throw new IllegalArgumentException("cacheSize cannot be negative");
+        }
+
+        this.file = new MappedFile(file, segmentSize);
+        this.fingerPrintCalculator = fingerPrintCalculator;
+
+        Scanner scanner = new Scanner();
+        if (this.file.length() > 0 && (this.file.get(0) & 0x80) == 0)
+        {
+            scanner.scanKeyBox();
+        }
+        else
+        {
+            scanner.scanPackets(0, this.file.length());
+        }
+
+        this.ringStarts = scanner.ringStarts.toArray();
+        this.ringEnds = scanner.ringEnds.toArray();
+        this.keyIDs = scanner.keyIDs;
+        this.fingerprints = scanner.fingerprints;
+        keyIDs.sort();
+        fingerprints.sort();
+
+        this.cache = new RingCache(cacheSize);
+    }
+
+    /**
+     * Return the number of rings in this collection.
+     *
+     * @return size of the collection
+     */
+    public int size()
+    {
+        return ringStarts.length;
+    }
+
+    /**
+     * Return the public key rings making up this collection, in the order they appear in the file. Each ring is
+     * decoded as it is reached.
+     */
+    public Iterator<PGPPublicKeyRing> getKeyRings()
+    {
+        return new Iterator<PGPPublicKeyRing>()
+        {
+            private int index = 0;
+
+            public boolean hasNext()
+            {
+                return index < ringStarts.length;
+            }
+
+            public PGPPublicKeyRing next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                // NOTE: a full pass over the file shouldn't push the rings in use out of the cache
+                return getRing(index++, false);
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException("remove not available");
+            }
+        };
+    }
+
+    /**
+     * Return the PGP public key associated with the given key id.
+     *
+     * @param keyID id of the PGP public key
+     * @return the PGP public key, null if it is not present.
+     */
+    public PGPPublicKey getPublicKey(
+        long keyID)
+    {
+        PGPPublicKeyRing pubRing = getPublicKeyRing(keyID);
+
+        return pubRing == null ? null : pubRing.getPublicKey(keyID);
+    }
+
+    /**
+     * Return the public key ring which contains the key referred to by keyID.
+     *
+     * @param keyID key ID to match against
+     * @return the public key ring, null if there isn't one.
+     */
+    public PGPPublicKeyRing getPublicKeyRing(
+        long keyID)
+    {
+        int pos = keyIDs.find(keyID);
+
+        return pos < 0 ? null : getRing(keyIDs.rings[pos], true);
+    }
+
+    /**
+     * Return the PGP public key associated with the given key fingerprint.
+     *
+     * @param fingerprint the public key fingerprint to match against.
+     * @return the PGP public key matching fingerprint, null if it is not present.
+     */
+    public PGPPublicKey getPublicKey(
+        byte[] fingerprint)
+    {
+        PGPPublicKeyRing pubRing = getPublicKeyRing(fingerprint);
+
+        return pubRing == null ? null : pubRing.getPublicKey(fingerprint);
+    }
+
+    /**
+     * Return the public key ring which contains the key with the given fingerprint.
+     *
+     * @param fingerprint the public key fingerprint to match against.
+     * @return the PGP public key ring containing the PGP public key matching fingerprint, null if there isn't one.
+     */
+    public PGPPublicKeyRing getPublicKeyRing(
+        byte[] fingerprint)
+    {
+        long prefix = getFingerprintPrefix(fingerprint);
+
+        // the index only holds the start of each fingerprint, so check the candidates
+        for (int pos = fingerprints.find(prefix); pos >= 0 && pos < fingerprints.count
+            && fingerprints.keys[pos] == prefix; ++pos)
+        {
+            PGPPublicKeyRing pubRing = getRing(fingerprints.rings[pos], true);
+            if (pubRing.getPublicKey(fingerprint) != null)
+            {
+                return pubRing;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return true if a key matching the passed in key ID is present, false otherwise.
+     *
+     * @param keyID key ID to look for.
+     * @return true if keyID present, false otherwise.
+     */
+    public boolean contains(long keyID)
+    {
+        return keyIDs.find(keyID) >= 0;
+    }
+
+    /**
+     * Return true if a key matching the passed in fingerprint is present, false otherwise.
+     *
+     * @param fingerprint the key fingerprint to look for.
+     * @return true if fingerprint present, false otherwise.
+     */
+    public boolean contains(byte[] fingerprint)
+    {
+        return getPublicKeyRing(fingerprint) != null;
+    }
+
+    /**
+     * Support method for Iterable where available.
+     */
+    public Iterator<PGPPublicKeyRing> iterator()
+    {
+        return getKeyRings();
+    }
+
+    private PGPPublicKeyRing getRing(int index, boolean useCache)
+    {
+        Integer key = Integer.valueOf(index);
+
+        synchronized (cache)
+        {
+            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)cache.get(key);
+            if (pubRing != null)
+            {
+                return pubRing;
+            }
+        }
+
+        PGPPublicKeyRing pubRing;
+        try
+        {
+            pubRing = new PGPPublicKeyRing(file.getInputStream(ringStarts[index], ringEnds[index]),
+                fingerPrintCalculator);
+        }
+        catch (IOException e)
+        {
+            throw new PGPRuntimeOperationException(
+                "unable to decode key ring at offset " + ringStarts[index] + ": " + e.getMessage(), e);
+        }
+
+        if (useCache)
+        {
+            synchronized (cache)
+            {
+                cache.put(key, pubRing);
+            }
+        }
+
+        return pubRing;
+    }
+
+    private static long getFingerprintPrefix(byte[] fingerprint)
+    {
+        long prefix = 0;
+        for (int i = 0; i < 8 && i < fingerprint.length; ++i)
+        {
+            prefix = (prefix << 8) | (fingerprint[i] & 0xFF);
+        }
+        return prefix;
+    }
+
+    /**
+     * One pass over the file, recording where each ring is and indexing its keys.
+     */
+    private class Scanner
+    {
+        final LongList ringStarts = new LongList();
+        final LongList ringEnds = new LongList();
+        final LongIndex keyIDs = new LongIndex();
+        final LongIndex fingerprints = new LongIndex();
+
+        void scanKeyBox()
+            throws IOException, PGPException
+        {
+            long length = file.length();
+            long pos = 0;
+
+            while (pos < length)
+            {
+                if (length - pos < 6)
+                {
+                    throw new IOException("truncated keybox blob at offset " + pos);
+                }
+
+                long blobLength = file.getU32(pos);
+                int type = file.get(pos + 4);
+
+                if (blobLength < 6 || blobLength > length - pos)
+                {
+                    throw new IOException("keybox blob at offset " + pos + " has invalid length " + blobLength);
+                }
+
+                if (pos == 0)
+                {
+                    // "First Blob", with the magic "KBXf" after the version and flags
+                    if (type != 1 || blobLength < 12 || file.getU32(8) != 0x4B425866L)
+                    {
+                        throw new IOException("file is neither a key ring nor a keybox");
+                    }
+                }
+                else if (type == 1)
+                {
+                    throw new IOException("Unexpected second 'FirstBlob', there should only be one FirstBlob at the start of the file.");
+                }
+                else if (type == 2)
+                {
+                    // u16 flags, u32 offset to the OpenPGP keyblock, u32 its length
+                    if (blobLength < 16)
+                    {
+                        throw new IOException("truncated keybox blob at offset " + pos);
+                    }
+
+                    long keyBlockOffset = file.getU32(pos + 8);
+                    long keyBlockLength = file.getU32(pos + 12);
+                    if (keyBlockOffset > blobLength || keyBlockLength > blobLength - keyBlockOffset)
+                    {
+                        throw new IOException("keybox blob at offset " + pos + " has invalid keyblock");
+                    }
+
+                    int ringCount = ringStarts.count;
+
+                    scanPackets(pos + keyBlockOffset, pos + keyBlockOffset + keyBlockLength);
+
+                    if (ringStarts.count != ringCount + 1)
+                    {
+                        throw new IOException("keybox blob at offset " + pos + " does not hold a single key ring");
+                    }
+                }
+                // empty and X.509 blobs hold no key rings
+
+                pos += blobLength;
+            }
+        }
+
+        void scanPackets(long start, long end)
+            throws IOException, PGPException
+        {
+            int ring = -1;
+            long pos = start;
+
+            while (pos < end)
+            {
+                int hdr = file.get(pos);
+                if ((hdr & 0x80) == 0)
+                {
+                    throw new IOException("invalid header encountered at offset " + pos);
+                }
+
+                int tag;
+                long bodyStart = pos + 1;
+                long bodyLength;
+
+                if ((hdr & 0x40) != 0)
+                {
+                    tag = hdr & 0x3f;
+
+                    int l = getByte(bodyStart++, end);
+                    if (l < 192)
+                    {
+                        bodyLength = l;
+                    }
+                    else if (l <= 223)
+                    {
+                        bodyLength = ((l - 192) << 8) + getByte(bodyStart++, end) + 192;
+                    }
+                    else if (l == 255)
+                    {
+                        bodyLength = getU32(bodyStart, end);
+                        bodyStart += 4;
+                    }
+                    else
+                    {
+                        throw new IOException("partial body length found in key ring at offset " + pos);
+                    }
+                }
+                else
+                {
+                    tag = (hdr & 0x3f) >> 2;
+
+                    switch (hdr & 0x3)
+                    {
+                    case 0:
+                        bodyLength = getByte(bodyStart++, end);
+                        break;
+                    case 1:
+                        bodyLength = (getByte(bodyStart, end) << 8) | getByte(bodyStart + 1, end);
+                        bodyStart += 2;
+                        break;
+                    case 2:
+                        bodyLength = getU32(bodyStart, end);
+                        bodyStart += 4;
+                        break;
+                    default:
+                        throw new IOException("indeterminate length packet found in key ring at offset " + pos);
+                    }
+                }
+
+                long next = bodyStart + bodyLength;
+                if (next > end)
+                {
+                    throw new IOException("truncated packet at offset " + pos);
+                }
+
+                switch (tag)
+                {
+                case PacketTags.PUBLIC_KEY:
+                    if (ring >= 0)
+                    {
+                        ringEnds.add(pos);
+                    }
+                    ring = ringStarts.count;
+                    ringStarts.add(pos);
+                    indexKey(ring, pos, next, true);
+                    break;
+                case PacketTags.PUBLIC_SUBKEY:
+                    if (ring < 0)
+                    {
+                        throw new PGPException("public subkey found where PGPPublicKeyRing expected");
+                    }
+                    indexKey(ring, pos, next, false);
+                    break;
+                case PacketTags.SECRET_KEY:
+                case PacketTags.SECRET_SUBKEY:
+                    throw new PGPException("secret key found where PGPPublicKeyRing expected");
+                case PacketTags.MARKER:
+                case PacketTags.PADDING:
+                    // ignored between rings, as PGPPublicKeyRingCollection does
+                    break;
+                default:
+                    if (ring < 0)
+                    {
+                        throw new PGPException("packet with tag " + tag + " found where PGPPublicKeyRing expected");
+                    }
+                    break;
+                }
+
+                pos = next;
+            }
+
+            if (ring >= 0)
+            {
+                ringEnds.add(end);
+            }
+        }
+
+        private void indexKey(int ring, long start, long end, boolean isMasterKey)
+            throws IOException, PGPException
+        {
+            PGPPublicKey key;
+            try
+            {
+                BCPGInputStream pIn = new BCPGInputStream(file.getInputStream(start, end));
+
+                key = new PGPPublicKey((PublicKeyPacket)pIn.readPacket(), fingerPrintCalculator);
+            }
+            catch (IOException e)
+            {
+                if (isMasterKey)
+                {
+                    throw e;
+                }
+
+                // unrecognizable subkeys are skipped, as PGPPublicKeyRing does
+                return;
+            }
+
+            keyIDs.add(key.getKeyID(), ring);
+            fingerprints.add(getFingerprintPrefix(key.getFingerprint()), ring);
+        }
+
+        private int getByte(long pos, long end)
+            throws IOException
+        {
+            if (pos >= end)
+            {
+                throw new IOException("truncated packet header at offset " + pos);
+            }
+            return file.get(pos);
+        }
+
+        private long getU32(long pos, long end)
+            throws IOException
+        {
+            if (end - pos < 4)
+            {
+                throw new IOException("truncated packet header at offset " + pos);
+            }
+            return file.getU32(pos);
+        }
+    }
+
+    private static class RingCache
+        extends LinkedHashMap<Integer, PGPPublicKeyRing>
+    {
+        private final int maxSize;
+
+        RingCache(int maxSize)
+        {
+            super(16, 0.75f, true);
+
+            this.maxSize = maxSize;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<Integer, PGPPublicKeyRing> eldest)
+        {
+            return size() > maxSize;
+        }
+    }
+
+    private static class LongList
+    {
+        long[] values = new long[64];
+        int count;
+
+        void add(long value)
+        {
+            if (count == values.length)
+            {
+                long[] tmp = new long[count * 2];
+                System.arraycopy(values, 0, tmp, 0, count);
+                values = tmp;
+            }
+            values[count++] = value;
+        }
+
+        long[] toArray()
+        {
+            long[] result = new long[count];
+            System.arraycopy(values, 0, result, 0, count);
+            return result;
+        }
+    }
+
+    /**
+     * Sorted (key, ring) pairs, searched by binary search.
+     */
+    private static class LongIndex
+    {
+        long[] keys = new long[64];
+        int[] rings = new int[64];
+        int count;
+
+        void add(long key, int ring)
+        {
+            if (count == keys.length)
+            {
+                long[] tmpKeys = new long[count * 2];
+                int[] tmpRings = new int[count * 2];
+                System.arraycopy(keys, 0, tmpKeys, 0, count);
+                System.arraycopy(rings, 0, tmpRings, 0, count);
+                keys = tmpKeys;
+                rings = tmpRings;
+            }
+            keys[count] = key;
+            rings[count] = ring;
+            ++count;
+        }
+
+        /**
+         * Return the position of the first entry for key, -1 if there are none.
+         */
+        int find(long key)
+        {
+            int lo = 0, hi = count;
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key)
+                {
+                    lo = mid + 1;
+                }
+                else
+                {
+                    hi = mid;
+                }
+            }
+            return (lo < count && keys[lo] == key) ? lo : -1;
+        }
+
+        /**
+         * Heap sort by key, then ring, so the entries for a key are in file order.
+         */
+        void sort()
+        {
+            for (int i = count / 2 - 1; i >= 0; --i)
+            {
+                siftDown(i, count);
+            }
+            for (int n = count - 1; n > 0; --n)
+            {
+                swap(0, n);
+                siftDown(0, n);
+            }
+        }
+
+        private void siftDown(int i, int n)
+        {
+            for (;;)
+            {
+                int child = 2 * i + 1;
+                if (child >= n)
+                {
+                    return;
+                }
+                if (child + 1 < n && less(child, child + 1))
+                {
+                    ++child;
+                }
+                if (!less(i, child))
+                {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private boolean less(int i, int j)
+        {
+            return keys[i] < keys[j] || (keys[i] == keys[j] && rings[i] < rings[j]);
+        }
+
+        private void swap(int i, int j)
+        {
+            long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+            int r = rings[i]; rings[i] = rings[j]; rings[j] = r;
+        }
+    }
+
+    /**
+     * A read-only file, mapped in segments so files of more than 2GB can be handled.
+     */
+    private static class MappedFile
+    {
+        private final ByteBuffer[] segments;
+        private final int segmentSize;
+        private final long length;
+
+        MappedFile(File file, int segmentSize)
+            throws IOException
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+                FileChannel channel = raf.getChannel();
+
+                this.length = channel.size();
+                this.segmentSize = segmentSize;
+                this.segments = new ByteBuffer[(int)((length + segmentSize - 1) / segmentSize)];
+
+                for (int i = 0; i != segments.length; i++)
+                {
+                    long start = (long)i * segmentSize;
+
+                    // NOTE: the mapping remains valid once the channel is closed
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, length - start));
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+
+        long length()
+        {
+            return length;
+        }
+
+        int get(long pos)
+        {
+            return segments[(int)(pos / segmentSize)].get((int)(pos % segmentSize)) & 0xFF;
+        }
+
+        long getU32(long pos)
+        {
+            return ((long)get(pos) << 24) | (get(pos + 1) << 16) | (get(pos + 2) << 8) | get(pos + 3);
+        }
+
+        int read(long pos, byte[] buf, int off, int len)
+        {
+            int total = 0;
+            while (total < len)
+            {
+                ByteBuffer segment = segments[(int)(pos / segmentSize)].duplicate();
+                int segOff = (int)(pos % segmentSize);
+                int n = Math.min(len - total, segment.limit() - segOff);
+
+                ((java.nio.Buffer)segment).position(segOff);
+                segment.get(buf, off + total, n);
+
+                pos += n;
+                total += n;
+            }
+            return total;
+        }
+
+        InputStream getInputStream(long start, long end)
+        {
+            return new MappedInputStream(this, start, end);
+        }
+    }
+
+    private static class MappedInputStream
+        extends InputStream
+    {
+        private final MappedFile file;
+        private final long end;
+        private long pos;
+
+        MappedInputStream(MappedFile file, long start, long end)
+        {
+            this.file = file;
+            this.pos = start;
+            this.end = end;
+        }
+
+        public int available()
+        {
+            return (int)Math.min(Integer.MAX_VALUE, end - pos);
+        }
+
+        public int read()
+        {
+            if (pos >= end)
+            {
+                return -1;
+            }
+            return file.get(pos++);
+        }
+
+        public int read(byte[] buf, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (pos >= end)
+            {
+                return -1;
+            }
+
+            int n = file.read(pos, buf, off, (int)Math.min(len, end - pos));
+            pos += n;
+            return n;
+        }
+
+        public long skip(long n)
+        {
+            long skipped = Math.max(0, Math.min(n, end - pos));
+            pos += skipped;
+            return skipped;
+        }
+    }
+}
@@ -16,7 +16,6 @@
 import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Longs;
-import org.bouncycastle.util.Strings;
 
 /**
  * Often a PGP key ring file is made up of a succession of master/sub-key key rings.
@@ -27,13 +26,16 @@
 {
     private Map<Long, PGPPublicKeyRing> pubRings = new HashMap<Long, PGPPublicKeyRing>();
     private List<Long> order = new ArrayList<Long>();
+    private KeyRingIndex<PGPPublicKeyRing> index = new KeyRingIndex<PGPPublicKeyRing>();
 
     private PGPPublicKeyRingCollection(
         Map<Long, PGPPublicKeyRing> pubRings,
-        List<Long> order)
+        List<Long> order,
+        KeyRingIndex<PGPPublicKeyRing> index)
     {
         this.pubRings = pubRings;
         this.order = order;
+        this.index = index;
     }
 
     public PGPPublicKeyRingCollection(
@@ -74,8 +76,7 @@ public PGPPublicKeyRingCollection(
             PGPPublicKeyRing pgpPub = (PGPPublicKeyRing)obj;
             Long key = Longs.valueOf(pgpPub.getPublicKey().getKeyID());
 
-            pubRings.put(key, pgpPub);
-            order.add(key);
+            addRing(key, pgpPub);
         }
     }
 
@@ -90,8 +91,7 @@ public PGPPublicKeyRingCollection(
 
             Long key = Longs.valueOf(pgpPub.getPublicKey().getKeyID());
 
-            pubRings.put(key, pgpPub);
-            order.add(key);
+            addRing(key, pgpPub);
         }
     }
 
@@ -154,45 +154,20 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
         boolean matchPartial,
         boolean ignoreCase)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
-        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
-
-        if (ignoreCase)
-        {
-            userID = Strings.toLowerCase(userID);
-        }
-
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            Iterator<String> uIt = pubRing.getPublicKey().getUserIDs();
-
-            while (uIt.hasNext())
-            {
-                String next = (String)uIt.next();
-                if (ignoreCase)
-                {
-                    next = Strings.toLowerCase(next);
-                }
-
-                if (matchPartial)
-                {
-                    if (next.indexOf(userID) >= 0)
-                    {
-                        rings.add(pubRing);
-                    }
-                }
-                else
-                {
-                    if (next.equals(userID))
-                    {
-                        rings.add(pubRing);
-                    }
-                }
-            }
-        }
+        return index.getRings(userID, matchPartial, ignoreCase).iterator();
+    }
 
-        return rings.iterator();
+    /**
+     * Return an iterator of the key rings with a user ID for the passed in e-mail address, either as the
+     * whole user ID or in angle brackets, as in "Name &lt;address&gt;". Case is ignored.
+     *
+     * @param email the e-mail address to be matched.
+     * @return an iterator (possibly empty) of key rings which matched.
+     */
+    public Iterator<PGPPublicKeyRing> getKeyRingsByEmail(
+        String email)
+    {
+        return index.getRingsByEmail(email).iterator();
     }
 
     /**
@@ -204,20 +179,9 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
     public PGPPublicKey getPublicKey(
         long keyID)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        PGPPublicKeyRing pubRing = index.getRing(keyID);
 
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            PGPPublicKey pub = pubRing.getPublicKey(keyID);
-
-            if (pub != null)
-            {
-                return pub;
-            }
-        }
-
-        return null;
+        return pubRing == null ? null : pubRing.getPublicKey(keyID);
     }
 
     /**
@@ -236,20 +200,7 @@ public PGPPublicKeyRing getPublicKeyRing(
             return (PGPPublicKeyRing)pubRings.get(id);
         }
 
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
-
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            PGPPublicKey pub = pubRing.getPublicKey(keyID);
-
-            if (pub != null)
-            {
-                return pubRing;
-            }
-        }
-
-        return null;
+        return index.getRing(keyID);
     }
 
     /**
@@ -261,20 +212,9 @@ public PGPPublicKeyRing getPublicKeyRing(
     public PGPPublicKey getPublicKey(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        PGPPublicKeyRing pubRing = index.getRing(fingerprint);
 
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            PGPPublicKey pub = pubRing.getPublicKey(fingerprint);
-
-            if (pub != null)
-            {
-                return pub;
-            }
-        }
-
-        return null;
+        return pubRing == null ? null : pubRing.getPublicKey(fingerprint);
     }
 
     /**
@@ -286,20 +226,7 @@ public PGPPublicKey getPublicKey(
     public PGPPublicKeyRing getPublicKeyRing(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
-
-        while (it.hasNext())
-        {
-            PGPPublicKeyRing pubRing = (PGPPublicKeyRing)it.next();
-            PGPPublicKey pub = pubRing.getPublicKey(fingerprint);
-
-            if (pub != null)
-            {
-                return pubRing;
-            }
-        }
-
-        return null;
+        return index.getRing(fingerprint);
     }
 
     /**
@@ -394,11 +321,13 @@ public static PGPPublicKeyRingCollection addPublicKeyRing(
 
         Map<Long, PGPPublicKeyRing> newPubRings = new HashMap<Long, PGPPublicKeyRing>(ringCollection.pubRings);
         List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
+        KeyRingIndex<PGPPublicKeyRing> newIndex = new KeyRingIndex<PGPPublicKeyRing>(ringCollection.index);
 
         newPubRings.put(key, publicKeyRing);
         newOrder.add(key);
+        newIndex.add(publicKeyRing, publicKeyRing.getPublicKeys());
 
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        return new PGPPublicKeyRingCollection(newPubRings, newOrder, newIndex);
     }
 
     /**
@@ -423,8 +352,10 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
 
         Map<Long, PGPPublicKeyRing> newPubRings = new HashMap<Long, PGPPublicKeyRing>(ringCollection.pubRings);
         List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
+        KeyRingIndex<PGPPublicKeyRing> newIndex = new KeyRingIndex<PGPPublicKeyRing>(ringCollection.index);
 
-        newPubRings.remove(key);
+        PGPPublicKeyRing removed = (PGPPublicKeyRing)newPubRings.remove(key);
+        newIndex.remove(removed, removed.getPublicKeys());
 
         for (int i = 0; i < newOrder.size(); i++)
         {
@@ -437,7 +368,18 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
             }
         }
 
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        return new PGPPublicKeyRingCollection(newPubRings, newOrder, newIndex);
+    }
+
+    private void addRing(Long key, PGPPublicKeyRing pgpPub)
+    {
+        PGPPublicKeyRing previous = (PGPPublicKeyRing)pubRings.put(key, pgpPub);
+        if (previous != null)
+        {
+            index.remove(previous, previous.getPublicKeys());
+        }
+        index.add(pgpPub, pgpPub.getPublicKeys());
+        order.add(key);
     }
 
     /**
@@ -16,7 +16,6 @@
 import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Longs;
-import org.bouncycastle.util.Strings;
 
 /**
  * Often a PGP key ring file is made up of a succession of master/sub-key key rings.
@@ -27,13 +26,16 @@
 {
     private Map<Long, PGPSecretKeyRing> secretRings = new HashMap<Long, PGPSecretKeyRing>();
     private List<Long> order = new ArrayList<Long>();
+    private KeyRingIndex<PGPSecretKeyRing> index = new KeyRingIndex<PGPSecretKeyRing>();
 
     private PGPSecretKeyRingCollection(
         Map<Long, PGPSecretKeyRing> secretRings,
-        List<Long> order)
+        List<Long> order,
+        KeyRingIndex<PGPSecretKeyRing> index)
     {
         this.secretRings = secretRings;
         this.order = order;
+        this.index = index;
     }
 
     public PGPSecretKeyRingCollection(
@@ -74,8 +76,7 @@ public PGPSecretKeyRingCollection(
             PGPSecretKeyRing pgpSecret = (PGPSecretKeyRing)obj;
             Long key = Longs.valueOf(pgpSecret.getPublicKey().getKeyID());
 
-            secretRings.put(key, pgpSecret);
-            order.add(key);
+            addRing(key, pgpSecret);
         }
     }
 
@@ -89,8 +90,7 @@ public PGPSecretKeyRingCollection(
             PGPSecretKeyRing pgpSecret = (PGPSecretKeyRing)it.next();
             Long key = Longs.valueOf(pgpSecret.getPublicKey().getKeyID());
 
-            secretRings.put(key, pgpSecret);
-            order.add(key);
+            addRing(key, pgpSecret);
         }
     }
 
@@ -153,45 +153,20 @@ public Iterator<PGPSecretKeyRing> getKeyRings(
         boolean matchPartial,
         boolean ignoreCase)
     {
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
-        List<PGPSecretKeyRing> rings = new ArrayList<PGPSecretKeyRing>();
-
-        if (ignoreCase)
-        {
-            userID = Strings.toLowerCase(userID);
-        }
-
-        while (it.hasNext())
-        {
-            PGPSecretKeyRing secRing = (PGPSecretKeyRing)it.next();
-            Iterator<String> uIt = secRing.getSecretKey().getUserIDs();
-
-            while (uIt.hasNext())
-            {
-                String next = (String)uIt.next();
-                if (ignoreCase)
-                {
-                    next = Strings.toLowerCase(next);
-                }
-
-                if (matchPartial)
-                {
-                    if (next.indexOf(userID) >= 0)
-                    {
-                        rings.add(secRing);
-                    }
-                }
-                else
-                {
-                    if (next.equals(userID))
-                    {
-                        rings.add(secRing);
-                    }
-                }
-            }
-        }
+        return index.getRings(userID, matchPartial, ignoreCase).iterator();
+    }
 
-        return rings.iterator();
+    /**
+     * Return an iterator of the key rings with a user ID for the passed in e-mail address, either as the
+     * whole user ID or in angle brackets, as in "Name &lt;address&gt;". Case is ignored.
+     *
+     * @param email the e-mail address to be matched.
+     * @return an iterator (possibly empty) of key rings which matched.
+     */
+    public Iterator<PGPSecretKeyRing> getKeyRingsByEmail(
+        String email)
+    {
+        return index.getRingsByEmail(email).iterator();
     }
 
     /**
@@ -203,20 +178,9 @@ public Iterator<PGPSecretKeyRing> getKeyRings(
     public PGPSecretKey getSecretKey(
         long keyID)
     {
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
+        PGPSecretKeyRing secRing = index.getRing(keyID);
 
-        while (it.hasNext())
-        {
-            PGPSecretKeyRing secRing = (PGPSecretKeyRing)it.next();
-            PGPSecretKey sec = secRing.getSecretKey(keyID);
-
-            if (sec != null)
-            {
-                return sec;
-            }
-        }
-
-        return null;
+        return secRing == null ? null : secRing.getSecretKey(keyID);
     }
 
     /**
@@ -235,20 +199,33 @@ public PGPSecretKeyRing getSecretKeyRing(
             return (PGPSecretKeyRing)secretRings.get(id);
         }
 
-        Iterator<PGPSecretKeyRing> it = this.getKeyRings();
+        return index.getRing(keyID);
+    }
 
-        while (it.hasNext())
-        {
-            PGPSecretKeyRing secretRing = (PGPSecretKeyRing)it.next();
-            PGPSecretKey secret = secretRing.getSecretKey(keyID);
+    /**
+     * Return the PGP secret key associated with the given key fingerprint.
+     *
+     * @param fingerprint the fingerprint of the secret key's public key.
+     * @return the secret key matching fingerprint, null if there isn't one.
+     */
+    public PGPSecretKey getSecretKey(
+        byte[] fingerprint)
+    {
+        PGPSecretKeyRing secRing = index.getRing(fingerprint);
 
-            if (secret != null)
-            {
-                return secretRing;
-            }
-        }
+        return secRing == null ? null : secRing.getSecretKey(fingerprint);
+    }
 
-        return null;
+    /**
+     * Return the secret key ring which contains the secret key with the given fingerprint.
+     *
+     * @param fingerprint the fingerprint of the secret key's public key.
+     * @return the secret key ring containing the secret key matching fingerprint, null if there isn't one.
+     */
+    public PGPSecretKeyRing getSecretKeyRing(
+        byte[] fingerprint)
+    {
+        return index.getRing(fingerprint);
     }
 
     /**
@@ -308,11 +285,13 @@ public static PGPSecretKeyRingCollection addSecretKeyRing(
 
         Map<Long, PGPSecretKeyRing> newSecretRings = new HashMap<Long, PGPSecretKeyRing>(ringCollection.secretRings);
         List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
+        KeyRingIndex<PGPSecretKeyRing> newIndex = new KeyRingIndex<PGPSecretKeyRing>(ringCollection.index);
 
         newSecretRings.put(key, secretKeyRing);
         newOrder.add(key);
+        newIndex.add(secretKeyRing, getIndexedKeys(secretKeyRing));
 
-        return new PGPSecretKeyRingCollection(newSecretRings, newOrder);
+        return new PGPSecretKeyRingCollection(newSecretRings, newOrder, newIndex);
     }
 
     /**
@@ -337,8 +316,10 @@ public static PGPSecretKeyRingCollection removeSecretKeyRing(
 
         Map<Long, PGPSecretKeyRing> newSecretRings = new HashMap<Long, PGPSecretKeyRing>(ringCollection.secretRings);
         List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
+        KeyRingIndex<PGPSecretKeyRing> newIndex = new KeyRingIndex<PGPSecretKeyRing>(ringCollection.index);
 
-        newSecretRings.remove(key);
+        PGPSecretKeyRing removed = (PGPSecretKeyRing)newSecretRings.remove(key);
+        newIndex.remove(removed, getIndexedKeys(removed));
 
         for (int i = 0; i < newOrder.size(); i++)
         {
@@ -351,7 +332,33 @@ public static PGPSecretKeyRingCollection removeSecretKeyRing(
             }
         }
 
-        return new PGPSecretKeyRingCollection(newSecretRings, newOrder);
+        return new PGPSecretKeyRingCollection(newSecretRings, newOrder, newIndex);
+    }
+
+    private void addRing(Long key, PGPSecretKeyRing pgpSecret)
+    {
+        PGPSecretKeyRing previous = (PGPSecretKeyRing)secretRings.put(key, pgpSecret);
+        if (previous != null)
+        {
+            index.remove(previous, getIndexedKeys(previous));
+        }
+        index.add(pgpSecret, getIndexedKeys(pgpSecret));
+        order.add(key);
+    }
+
+    /**
+     * Only the keys with secret parts are found by key ID or fingerprint, not the extra public keys.
+     */
+    private static Iterator<PGPPublicKey> getIndexedKeys(PGPSecretKeyRing secretRing)
+    {
+        List<PGPPublicKey> keys = new ArrayList<PGPPublicKey>();
+
+        for (Iterator<PGPSecretKey> it = secretRing.getSecretKeys(); it.hasNext(); )
+        {
+            keys.add(((PGPSecretKey)it.next()).getPublicKey());
+        }
+
+        return keys.iterator();
     }
 
     /**
@@ -1,16 +1,22 @@
 package org.bouncycastle.openpgp.test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.SecureRandom;
 import java.security.Security;
 
 import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPObjectFactory;
 import org.bouncycastle.openpgp.operator.jcajce.JcaKeyFingerprintCalculator;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.io.Streams;
 import org.bouncycastle.util.test.SimpleTest;
 
 public class ArmoredInputStreamTest
@@ -98,6 +104,184 @@ public void performTest()
         {
             isTrue("invalid armor header".equals(e.getMessage()));
         }
+
+        testBlockReads();
+    }
+
+    private void testBlockReads()
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+        int[] sizes = { 1, 2, 3, 4, 47, 48, 49, 50, 1000, 3 * 1024 * 1024 + 1 };
+        int[] readSizes = { 1, 2, 3, 5, 7, 48, 1000, 4096, 65536 };
+
+        for (int i = 0; i != sizes.length; i++)
+        {
+            byte[] data = new byte[sizes[i]];
+            random.nextBytes(data);
+            // the leading byte determines the armor type
+            data[0] = (byte)0xc1;
+
+            byte[] armor = armor(data, data.length);
+            isTrue("bulk write", Arrays.areEqual(armor(data, 1), armor));
+            isTrue("bulk write", Arrays.areEqual(armor(data, 17), armor));
+
+            // trailing text, which should be left in the underlying stream
+            byte[] input = Arrays.concatenate(armor, Strings.toByteArray("trailer"));
+            int readSize = readSizes[i % readSizes.length];
+
+            checkBlockReads(new ByteArrayInputStream(input), data, readSize);
+            checkBlockReads(new ByteArrayInputStream(input), data, 4096);
+            checkBlockReads(new TrickleInputStream(new ByteArrayInputStream(input)), data, readSize);
+
+            if (data.length > 1000)
+            {
+                checkIrregularArmor(armor, data);
+            }
+        }
+    }
+
+    private void checkBlockReads(InputStream in, byte[] data, int readSize)
+        throws IOException
+    {
+        ArmoredInputStream aIn = new ArmoredInputStream(in);
+        byte[] buf = new byte[data.length];
+
+        for (int off = 0; off < buf.length; )
+        {
+            int len = aIn.read(buf, off, Math.min(readSize, buf.length - off));
+            isTrue("block read", len > 0);
+            off += len;
+        }
+
+        isTrue("block read", Arrays.areEqual(data, buf));
+        isEquals(-1, aIn.read());
+        isTrue("remaining input", Arrays.areEqual(Strings.toByteArray("trailer"), Streams.readAll(in)));
+    }
+
+    private void checkIrregularArmor(byte[] armor, byte[] data)
+        throws IOException
+    {
+        String[] lines = Strings.fromByteArray(armor).replace("\r", "").split("\n");
+        StringBuffer irregular = new StringBuffer();
+        StringBuffer badChar = new StringBuffer();
+        StringBuffer badCRC = new StringBuffer();
+
+        boolean inBody = false;
+        for (int i = 0; i != lines.length; i++)
+        {
+            String line = lines[i];
+
+            if (inBody && line.startsWith("="))
+            {
+                inBody = false;
+                badCRC.append(line.charAt(1) == 'A' ? "=B" : "=A").append(line.substring(2)).append('\n');
+            }
+            else
+            {
+                badCRC.append(line).append('\n');
+            }
+
+            if (inBody)
+            {
+                // white space between characters, trailing white space and CRLF line ends
+                int mid = line.length() / 2;
+
+                irregular.append(line.substring(0, mid)).append(" \t").append(line.substring(mid)).append(" \r\n");
+                badChar.append(i == lines.length / 2 ? line.substring(0, mid) + "!" + line.substring(mid + 1) : line).append('\n');
+            }
+            else
+            {
+                irregular.append(line).append('\n');
+                badChar.append(line).append('\n');
+            }
+
+            if (line.length() == 0)
+            {
+                inBody = true;
+            }
+        }
+
+        isTrue("irregular", Arrays.areEqual(data,
+            readAll(new ArmoredInputStream(new ByteArrayInputStream(Strings.toByteArray(irregular.toString()))), 65536)));
+
+        try
+        {
+            readAll(new ArmoredInputStream(new ByteArrayInputStream(Strings.toByteArray(badChar.toString()))), 65536);
+            fail("bad character not detected");
+        }
+        catch (IOException e)
+        {
+            isEquals("invalid armor", e.getMessage());
+        }
+
+        try
+        {
+            readAll(new ArmoredInputStream(new ByteArrayInputStream(Strings.toByteArray(badCRC.toString()))), 65536);
+            fail("bad CRC not detected");
+        }
+        catch (IOException e)
+        {
+            isEquals("crc check failed in armored message", e.getMessage());
+        }
+    }
+
+    private static byte[] armor(byte[] data, int writeSize)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        ArmoredOutputStream aOut = ArmoredOutputStream.builder().build(bOut);
+
+        if (writeSize == 1)
+        {
+            for (int i = 0; i != data.length; i++)
+            {
+                aOut.write(data[i] & 0xff);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < data.length; i += writeSize)
+            {
+                aOut.write(data, i, Math.min(writeSize, data.length - i));
+            }
+        }
+        aOut.close();
+
+        return bOut.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in, int readSize)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        byte[] buf = new byte[readSize];
+        int len;
+
+        while ((len = in.read(buf, 0, buf.length)) >= 0)
+        {
+            bOut.write(buf, 0, len);
+        }
+
+        return bOut.toByteArray();
+    }
+
+    /**
+     * Returns at most one byte per read, as a slow network stream might.
+     */
+    private static class TrickleInputStream
+        extends FilterInputStream
+    {
+        TrickleInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        public int read(byte[] b, int off, int len)
+            throws IOException
+        {
+            return super.read(b, off, Math.min(len, 1));
+        }
     }
 
     public static void main(
@@ -38,6 +38,7 @@ public void performTest()
     {
         testDefaultImpl();
         testFastImpl();
+        testRangeUpdate();
 
         performanceTest();
     }
@@ -54,6 +55,54 @@ public void testFastImpl()
         testCrcImplementationAgainstTestVectors(crc);
     }
 
+    public void testRangeUpdate()
+    {
+        CRC24 byteWise = new CRC24();
+        CRC24 defaultImpl = new CRC24();
+        CRC24 fastImpl = new FastCRC24();
+
+        fastImpl.update(TEST_VECTOR_1, 0, TEST_VECTOR_1.length);
+        isEquals("Wrong CRC sum calculated", 0x71cee5, fastImpl.getValue());
+
+        fastImpl.reset();
+        fastImpl.update(TEST_VECTOR_2, 0, TEST_VECTOR_2.length);
+        isEquals("Wrong CRC sum calculated", 0x1938a3, fastImpl.getValue());
+
+        for (int off = 0; off != 9; off++)
+        {
+            for (int len = 0; len != 67; len++)
+            {
+                byteWise.reset();
+                defaultImpl.reset();
+                fastImpl.reset();
+
+                // a mix of single byte and range updates
+                byteWise.update(LARGE_RANDOM[0] & 0xff);
+                defaultImpl.update(LARGE_RANDOM[0] & 0xff);
+                fastImpl.update(LARGE_RANDOM[0] & 0xff);
+
+                for (int i = 0; i != len; i++)
+                {
+                    byteWise.update(LARGE_RANDOM[off + i] & 0xff);
+                }
+                defaultImpl.update(LARGE_RANDOM, off, len);
+                fastImpl.update(LARGE_RANDOM, off, len);
+
+                isEquals("Range update of default CRC-24 diverges", byteWise.getValue(), defaultImpl.getValue());
+                isEquals("Range update of fast CRC-24 diverges", byteWise.getValue(), fastImpl.getValue());
+            }
+        }
+
+        defaultImpl.reset();
+        fastImpl.reset();
+        for (int i = 0; i != LARGE_RANDOM.length; i += 3)
+        {
+            defaultImpl.update3(LARGE_RANDOM, i);
+        }
+        fastImpl.update(LARGE_RANDOM, 0, LARGE_RANDOM.length);
+        isEquals("Range update of fast CRC-24 diverges", defaultImpl.getValue(), fastImpl.getValue());
+    }
+
     private void testCrcImplementationAgainstTestVectors(CRC24 crc)
     {
         isEquals("CRC implementation has wrong initial value", 0x0b704ce, crc.getValue());
@@ -107,12 +156,24 @@ public void performanceTest()
         int fastVal = fastImpl.getValue();
         long afterFast = System.currentTimeMillis();
 
+        fastImpl.reset();
+        for (int j = 0; j < 100; ++j)
+        {
+            fastImpl.update(LARGE_RANDOM, 0, LARGE_RANDOM.length);
+        }
+        int rangeVal = fastImpl.getValue();
+        long afterRange = System.currentTimeMillis();
+
         isEquals("Calculated value of default and fast CRC-24 implementations diverges", defVal, fastVal);
+        isEquals("Calculated value of default and fast CRC-24 range update diverges", defVal, rangeVal);
         long defDuration = afterDefault - start;
         System.out.println("Default Implementation: " + defDuration / 1000 + "s" + defDuration % 1000);
 
         long fastDuration = afterFast - afterDefault;
         System.out.println("Fast Implementation: " + fastDuration / 1000 + "s" + fastDuration % 1000);
 
+        long rangeDuration = afterRange - afterFast;
+        System.out.println("Fast Implementation (range): " + rangeDuration / 1000 + "s" + rangeDuration % 1000);
+
     }
 }
@@ -0,0 +1,215 @@
+package org.bouncycastle.openpgp.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bouncycastle.gpg.keybox.KeyBlob;
+import org.bouncycastle.gpg.keybox.PublicKeyRingBlob;
+import org.bouncycastle.gpg.keybox.bc.BcKeyBox;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.MappedPGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.operator.bc.BcKeyFingerprintCalculator;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.io.Streams;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class MappedPGPPublicKeyRingCollectionTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "MappedPGPPublicKeyRingCollection";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
+        rings.addAll(testKeyBox("/pgpdata/pubring.kbx"));
+        rings.addAll(testKeyBox("/pgpdata/eg_pubring.kbx"));
+
+        testKeyRingFile(rings);
+        testBadFiles(rings);
+    }
+
+    private List<PGPPublicKeyRing> testKeyBox(String name)
+        throws Exception
+    {
+        byte[] keyBox = Streams.readAll(getClass().getResourceAsStream(name));
+
+        List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
+        for (Iterator it = new BcKeyBox(keyBox).getKeyBlobs().iterator(); it.hasNext();)
+        {
+            KeyBlob blob = (KeyBlob)it.next();
+            if (blob instanceof PublicKeyRingBlob)
+            {
+                rings.add(((PublicKeyRingBlob)blob).getPGPPublicKeyRing());
+            }
+        }
+        isTrue(name, !rings.isEmpty());
+
+        MappedPGPPublicKeyRingCollection mapped = new MappedPGPPublicKeyRingCollection(
+            writeFile(keyBox), new BcKeyFingerprintCalculator());
+
+        checkCollection(mapped, rings);
+
+        return rings;
+    }
+
+    private void testKeyRingFile(List<PGPPublicKeyRing> rings)
+        throws Exception
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+
+        // a marker packet, which is ignored
+        bOut.write(Hex.decode("a803504750"));
+        for (int i = 0; i != rings.size(); i++)
+        {
+            ((PGPPublicKeyRing)rings.get(i)).encode(bOut);
+        }
+        byte[] encoding = bOut.toByteArray();
+        File file = writeFile(encoding);
+
+        PGPPublicKeyRingCollection pubRings = new PGPPublicKeyRingCollection(encoding, new BcKeyFingerprintCalculator());
+        List<PGPPublicKeyRing> expected = new ArrayList<PGPPublicKeyRing>();
+        for (Iterator it = pubRings.iterator(); it.hasNext();)
+        {
+            expected.add((PGPPublicKeyRing)it.next());
+        }
+
+        for (int cacheSize = 0; cacheSize != 3; cacheSize++)
+        {
+            MappedPGPPublicKeyRingCollection mapped = new MappedPGPPublicKeyRingCollection(
+                file, new BcKeyFingerprintCalculator(), cacheSize);
+
+            checkCollection(mapped, expected);
+            checkCollection(mapped, expected);
+        }
+
+        MappedPGPPublicKeyRingCollection mapped = new MappedPGPPublicKeyRingCollection(
+            file, new BcKeyFingerprintCalculator());
+
+        // rings looked up again come from the cache
+        PGPPublicKeyRing ring = (PGPPublicKeyRing)expected.get(0);
+        long keyID = ring.getPublicKey().getKeyID();
+        isTrue("cached", mapped.getPublicKeyRing(keyID) == mapped.getPublicKeyRing(keyID));
+
+        isTrue("unknown key ID", mapped.getPublicKey(keyID ^ 1) == null);
+        isTrue("unknown key ID", !mapped.contains(keyID ^ 1));
+
+        byte[] fingerprint = ring.getPublicKey().getFingerprint();
+        fingerprint[fingerprint.length - 1] ^= 1;
+        isTrue("unknown fingerprint", mapped.getPublicKey(fingerprint) == null);
+        isTrue("unknown fingerprint", !mapped.contains(fingerprint));
+
+        MappedPGPPublicKeyRingCollection empty = new MappedPGPPublicKeyRingCollection(
+            writeFile(new byte[0]), new BcKeyFingerprintCalculator());
+        isEquals(0, empty.size());
+        isTrue(!empty.iterator().hasNext());
+    }
+
+    private void testBadFiles(List<PGPPublicKeyRing> rings)
+        throws Exception
+    {
+        byte[] encoding = ((PGPPublicKeyRing)rings.get(0)).getEncoded();
+
+        try
+        {
+            new MappedPGPPublicKeyRingCollection(writeFile(Arrays.copyOf(encoding, encoding.length - 1)),
+                new BcKeyFingerprintCalculator());
+            fail("truncated ring accepted");
+        }
+        catch (IOException e)
+        {
+            isTrue(e.getMessage().startsWith("truncated packet"));
+        }
+
+        try
+        {
+            // an (empty) secret key packet
+            new MappedPGPPublicKeyRingCollection(writeFile(Arrays.concatenate(encoding, Hex.decode("c500"))),
+                new BcKeyFingerprintCalculator());
+            fail("secret key accepted");
+        }
+        catch (PGPException e)
+        {
+            isEquals("secret key found where PGPPublicKeyRing expected", e.getMessage());
+        }
+
+        try
+        {
+            new MappedPGPPublicKeyRingCollection(writeFile(new byte[12]), new BcKeyFingerprintCalculator());
+            fail("bad keybox accepted");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkCollection(MappedPGPPublicKeyRingCollection mapped, List<PGPPublicKeyRing> rings)
+        throws Exception
+    {
+        isEquals(rings.size(), mapped.size());
+
+        Iterator it = mapped.iterator();
+        for (int i = 0; i != rings.size(); i++)
+        {
+            PGPPublicKeyRing ring = (PGPPublicKeyRing)rings.get(i);
+
+            isTrue("ring " + i, it.hasNext());
+            isTrue("ring " + i, Arrays.areEqual(ring.getEncoded(), ((PGPPublicKeyRing)it.next()).getEncoded()));
+
+            for (Iterator keys = ring.getPublicKeys(); keys.hasNext();)
+            {
+                PGPPublicKey key = (PGPPublicKey)keys.next();
+
+                isTrue("key ID", mapped.contains(key.getKeyID()));
+                isTrue("key ID", Arrays.areEqual(key.getEncoded(), mapped.getPublicKey(key.getKeyID()).getEncoded()));
+                isTrue("key ID ring", Arrays.areEqual(ring.getEncoded(), mapped.getPublicKeyRing(key.getKeyID()).getEncoded()));
+
+                isTrue("fingerprint", mapped.contains(key.getFingerprint()));
+                isTrue("fingerprint", Arrays.areEqual(key.getEncoded(), mapped.getPublicKey(key.getFingerprint()).getEncoded()));
+                isTrue("fingerprint ring", Arrays.areEqual(ring.getEncoded(), mapped.getPublicKeyRing(key.getFingerprint()).getEncoded()));
+            }
+        }
+        isTrue(!it.hasNext());
+    }
+
+    private static File writeFile(byte[] data)
+        throws IOException
+    {
+        File file = File.createTempFile("bcpg", ".tmp");
+        file.deleteOnExit();
+
+        FileOutputStream fOut = new FileOutputStream(file);
+        try
+        {
+            fOut.write(data);
+        }
+        finally
+        {
+            fOut.close();
+        }
+
+        return file;
+    }
+
+    public static void main(String[] args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new MappedPGPPublicKeyRingCollectionTest());
+    }
+}
@@ -10,8 +10,10 @@
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.Security;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.crypto.Cipher;
 
@@ -34,6 +36,7 @@
 import org.bouncycastle.openpgp.PGPEncryptedData;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPKeyRing;
 import org.bouncycastle.openpgp.PGPKeyRingGenerator;
 import org.bouncycastle.openpgp.PGPObjectFactory;
 import org.bouncycastle.openpgp.PGPPrivateKey;
@@ -42,6 +45,7 @@
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
 import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketGenerator;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
@@ -3561,6 +3565,7 @@ public void performTest()
             testKeyRingWithMarker();
             testKeyRingGeneratorDirectKeySignedPrimaryKey();
             testSubKeyCreation();
+            testCollectionIndexes();
         }
         catch (PGPException e)
         {
@@ -3576,6 +3581,210 @@ public void performTest()
         }
     }
 
+    private void testCollectionIndexes()
+        throws Exception
+    {
+        byte[][] pubEncodings = new byte[][]{ pub1, pub2, pub3, pub5, pub8, pub10 };
+        List<PGPPublicKeyRing> pubList = new ArrayList<PGPPublicKeyRing>();
+        for (int i = 0; i != pubEncodings.length; i++)
+        {
+            for (Iterator it = new JcaPGPPublicKeyRingCollection(pubEncodings[i]).iterator(); it.hasNext();)
+            {
+                PGPPublicKeyRing ring = (PGPPublicKeyRing)it.next();
+                if (findRing(pubList, ring.getPublicKey().getKeyID()) < 0)
+                {
+                    pubList.add(ring);
+                }
+            }
+        }
+
+        PGPPublicKeyRingCollection pubRings = new PGPPublicKeyRingCollection(pubList);
+        checkIndexes(pubRings, pubList);
+
+        for (int i = 0; i != pubList.size(); i++)
+        {
+            PGPPublicKeyRing ring = (PGPPublicKeyRing)pubList.get(i);
+            List<PGPPublicKeyRing> remaining = new ArrayList<PGPPublicKeyRing>(pubList);
+            remaining.remove(i);
+
+            PGPPublicKeyRingCollection removed = PGPPublicKeyRingCollection.removePublicKeyRing(pubRings, ring);
+            checkIndexes(removed, remaining);
+            for (Iterator it = ring.getPublicKeys(); it.hasNext();)
+            {
+                PGPPublicKey key = (PGPPublicKey)it.next();
+
+                isTrue("removed key found", removed.getPublicKey(key.getKeyID()) == null);
+                isTrue("removed fingerprint found", removed.getPublicKeyRing(key.getFingerprint()) == null);
+            }
+
+            checkIndexes(PGPPublicKeyRingCollection.addPublicKeyRing(removed, ring), pubList);
+        }
+
+        // the original collection is unchanged
+        checkIndexes(pubRings, pubList);
+
+        isEquals("email", 1, count(pubRings.getKeyRingsByEmail("TEST@ubicall.com")));
+        isEquals("email", 0, count(pubRings.getKeyRingsByEmail("test")));
+
+        byte[][] secEncodings = new byte[][]{ sec1, sec2, sec3, sec5, sec8, sec9, sec10 };
+        List<PGPSecretKeyRing> secList = new ArrayList<PGPSecretKeyRing>();
+        for (int i = 0; i != secEncodings.length; i++)
+        {
+            for (Iterator it = new JcaPGPSecretKeyRingCollection(secEncodings[i]).iterator(); it.hasNext();)
+            {
+                PGPSecretKeyRing ring = (PGPSecretKeyRing)it.next();
+                if (findRing(secList, ring.getPublicKey().getKeyID()) < 0)
+                {
+                    secList.add(ring);
+                }
+            }
+        }
+
+        PGPSecretKeyRingCollection secRings = new PGPSecretKeyRingCollection(secList);
+        checkIndexes(secRings, secList);
+
+        for (int i = 0; i != secList.size(); i++)
+        {
+            PGPSecretKeyRing ring = (PGPSecretKeyRing)secList.get(i);
+            List<PGPSecretKeyRing> remaining = new ArrayList<PGPSecretKeyRing>(secList);
+            remaining.remove(i);
+
+            PGPSecretKeyRingCollection removed = PGPSecretKeyRingCollection.removeSecretKeyRing(secRings, ring);
+            checkIndexes(removed, remaining);
+            for (Iterator it = ring.getSecretKeys(); it.hasNext();)
+            {
+                PGPSecretKey key = (PGPSecretKey)it.next();
+
+                isTrue("removed key found", removed.getSecretKey(key.getKeyID()) == null);
+                isTrue("removed fingerprint found", removed.getSecretKeyRing(key.getPublicKey().getFingerprint()) == null);
+            }
+
+            checkIndexes(PGPSecretKeyRingCollection.addSecretKeyRing(removed, ring), secList);
+        }
+
+        checkIndexes(secRings, secList);
+
+        isEquals("email", 1, count(secRings.getKeyRingsByEmail("test@Ubicall.com")));
+    }
+
+    private void checkIndexes(PGPPublicKeyRingCollection pubRings, List<PGPPublicKeyRing> rings)
+    {
+        isEquals(rings.size(), pubRings.size());
+
+        for (int i = 0; i != rings.size(); i++)
+        {
+            PGPPublicKeyRing ring = (PGPPublicKeyRing)rings.get(i);
+            long ringID = ring.getPublicKey().getKeyID();
+
+            for (Iterator it = ring.getPublicKeys(); it.hasNext();)
+            {
+                PGPPublicKey key = (PGPPublicKey)it.next();
+
+                isTrue("key ID", pubRings.contains(key.getKeyID()));
+                isEquals("key ID", key.getKeyID(), pubRings.getPublicKey(key.getKeyID()).getKeyID());
+                isEquals("key ID ring", ringID, pubRings.getPublicKeyRing(key.getKeyID()).getPublicKey().getKeyID());
+
+                isTrue("fingerprint", pubRings.contains(key.getFingerprint()));
+                isTrue("fingerprint", areEqual(key.getFingerprint(), pubRings.getPublicKey(key.getFingerprint()).getFingerprint()));
+                isEquals("fingerprint ring", ringID, pubRings.getPublicKeyRing(key.getFingerprint()).getPublicKey().getKeyID());
+            }
+
+            for (Iterator it = ring.getPublicKey().getUserIDs(); it.hasNext();)
+            {
+                String userID = (String)it.next();
+
+                isTrue("user ID", findRing(pubRings.getKeyRings(userID), ringID) >= 0);
+                isTrue("user ID", findRing(pubRings.getKeyRings(Strings.toUpperCase(userID), false, true), ringID) >= 0);
+                isTrue("user ID", findRing(pubRings.getKeyRings(userID.substring(1), true), ringID) >= 0);
+            }
+        }
+
+        checkPartialMatchOrder(pubRings.iterator(), pubRings.getKeyRings("", true));
+    }
+
+    private void checkIndexes(PGPSecretKeyRingCollection secRings, List<PGPSecretKeyRing> rings)
+    {
+        isEquals(rings.size(), secRings.size());
+
+        for (int i = 0; i != rings.size(); i++)
+        {
+            PGPSecretKeyRing ring = (PGPSecretKeyRing)rings.get(i);
+            long ringID = ring.getPublicKey().getKeyID();
+
+            for (Iterator it = ring.getSecretKeys(); it.hasNext();)
+            {
+                PGPSecretKey key = (PGPSecretKey)it.next();
+                byte[] fingerprint = key.getPublicKey().getFingerprint();
+
+                isTrue("key ID", secRings.contains(key.getKeyID()));
+                isEquals("key ID", key.getKeyID(), secRings.getSecretKey(key.getKeyID()).getKeyID());
+                isEquals("key ID ring", ringID, secRings.getSecretKeyRing(key.getKeyID()).getPublicKey().getKeyID());
+
+                isEquals("fingerprint", key.getKeyID(), secRings.getSecretKey(fingerprint).getKeyID());
+                isEquals("fingerprint ring", ringID, secRings.getSecretKeyRing(fingerprint).getPublicKey().getKeyID());
+            }
+
+            for (Iterator it = ring.getPublicKey().getUserIDs(); it.hasNext();)
+            {
+                String userID = (String)it.next();
+
+                isTrue("user ID", findRing(secRings.getKeyRings(userID), ringID) >= 0);
+                isTrue("user ID", findRing(secRings.getKeyRings(Strings.toUpperCase(userID), false, true), ringID) >= 0);
+            }
+        }
+
+        checkPartialMatchOrder(secRings.iterator(), secRings.getKeyRings("", true));
+    }
+
+    private void checkPartialMatchOrder(Iterator collection, Iterator matches)
+    {
+        // every user ID contains "", so each ring is listed once per user ID, in collection order
+        while (collection.hasNext())
+        {
+            PGPKeyRing ring = (PGPKeyRing)collection.next();
+
+            for (Iterator it = ring.getPublicKey().getUserIDs(); it.hasNext();)
+            {
+                it.next();
+
+                isTrue("partial match count", matches.hasNext());
+                isTrue("partial match order", ring == matches.next());
+            }
+        }
+
+        isTrue("partial match count", !matches.hasNext());
+    }
+
+    private static int findRing(List rings, long keyID)
+    {
+        return findRing(rings.iterator(), keyID);
+    }
+
+    private static int findRing(Iterator rings, long keyID)
+    {
+        for (int i = 0; rings.hasNext(); i++)
+        {
+            PGPKeyRing ring = (PGPKeyRing)rings.next();
+            if (ring.getPublicKey().getKeyID() == keyID)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int count(Iterator it)
+    {
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+        }
+        return count;
+    }
+
     private void testSubKeyCreation()
         throws Exception
     {
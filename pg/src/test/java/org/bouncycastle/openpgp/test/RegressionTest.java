@@ -62,7 +62,8 @@
         new BcImplProviderTest(),
         new OperatorJcajceTest(),
         new OpenpgpTest(),
-        new OperatorBcTest()
+        new OperatorBcTest(),
+        new MappedPGPPublicKeyRingCollectionTest()
     };
 
     public static void main(String[] args)
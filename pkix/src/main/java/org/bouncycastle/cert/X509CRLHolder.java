@@ -33,6 +33,7 @@
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.IssuingDistributionPoint;
+import org.bouncycastle.asn1.x509.RevokedCertificateIndex;
 import org.bouncycastle.asn1.x509.TBSCertList;
 import org.bouncycastle.asn1.x509.Time;
 import org.bouncycastle.operator.ContentVerifier;
@@ -51,6 +52,7 @@
     private transient boolean isIndirect;
     private transient Extensions extensions;
     private transient GeneralNames issuerName;
+    private transient volatile RevokedCertificateIndex revokedCertificateIndex;
 
     private static CertificateList parseStream(InputStream stream)
         throws IOException
@@ -169,28 +171,27 @@ public Date getNextUpdate()
 
     public X509CRLEntryHolder getRevokedCertificate(BigInteger serialNumber)
     {
-        GeneralNames currentCA = issuerName;
-        for (Enumeration en = x509CRL.getRevokedCertificateEnumeration(); en.hasMoreElements(); )
+        RevokedCertificateIndex index = revokedCertificateIndex;
+        if (index == null)
         {
-            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)en.nextElement();
-
-            if (entry.getUserCertificate().hasValue(serialNumber))
-            {
-                return new X509CRLEntryHolder(entry, isIndirect, currentCA);
-            }
+            // NOTE: Racing threads may each build an index, but they are equivalent
+            index = new RevokedCertificateIndex(x509CRL.getTBSCertList(), isIndirect);
+            revokedCertificateIndex = index;
+        }
 
-            if (isIndirect && entry.hasExtensions())
-            {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+        int position = index.indexOf(serialNumber);
+        if (position < 0)
+        {
+            return null;
+        }
 
-                if (currentCaName != null)
-                {
-                    currentCA = GeneralNames.getInstance(currentCaName.getParsedValue());
-                }
-            }
+        GeneralNames currentCA = index.getCertificateIssuer(position);
+        if (currentCA == null)
+        {
+            currentCA = issuerName;
         }
 
-        return null;
+        return new X509CRLEntryHolder(index.getEntry(position), isIndirect, currentCA);
     }
 
     /**
@@ -3,22 +3,27 @@
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.WeakReference;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.security.cert.CRL;
 import java.security.cert.CRLException;
+import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509CRL;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.naming.Context;
 import javax.naming.NamingException;
@@ -30,68 +35,102 @@
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.util.CollectionStore;
 import org.bouncycastle.util.Iterable;
+import org.bouncycastle.util.Properties;
 import org.bouncycastle.util.Selector;
 import org.bouncycastle.util.Store;
+import org.bouncycastle.util.io.Streams;
 
+/**
+ * A cache of CRLs downloaded from distribution points, keyed by URI.
+ * <p>
+ * Lookups of a cached, current CRL take no locks. Only one download per distribution point is in progress at a
+ * time: callers that need a fresh CRL wait for that download rather than starting their own, and callers for other
+ * distribution points are never blocked by it. A CRL that is close to its nextUpdate is refreshed in the
+ * background while the cached copy continues to be served; if a download fails, the previous CRLs are returned
+ * and it is left to the caller's validity checks to reject any that are out of date.
+ * </p><p>
+ * The total encoded size of the cached CRLs is bounded (the system property
+ * "org.bouncycastle.x509.crlCache.maxSize", in bytes, checked after each download), with the least recently used
+ * distribution points evicted first. The CRLs just downloaded are never evicted, even if they exceed the bound on
+ * their own. Use of a cached CRL is recorded at most once a second, so that busy distribution points don't contend
+ * for the cache lock. The background refresh starts "org.bouncycastle.x509.crlCache.refreshAhead" seconds before nextUpdate
+ * (but no earlier than half way from the download to nextUpdate).
+ * </p>
+ */
 class CrlCache
 {
     private static final int DEFAULT_TIMEOUT = 15000;
+    private static final int DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+    private static final int DEFAULT_REFRESH_AHEAD = 5 * 60;
+    private static final long REFRESH_RETRY_INTERVAL = 60 * 1000L;
+    private static final long ACCESS_INTERVAL = 1000L;
 
-    private static Map<URI, WeakReference<PKIXCRLStore>> cache =
-        Collections.synchronizedMap(new WeakHashMap<URI, WeakReference<PKIXCRLStore>>());
+    private static final long refreshAhead = Properties.asInteger("org.bouncycastle.x509.crlCache.refreshAhead",
+        DEFAULT_REFRESH_AHEAD) * 1000L;
 
-    static synchronized PKIXCRLStore getCrl(CertificateFactory certFact, Date validDate, URI distributionPoint)
+    private static final ConcurrentMap<URI, Entry> cache = new ConcurrentHashMap<URI, Entry>();
+    private static long cacheSize = 0;      // guarded by cache
+
+    // NOTE: Entries with CRLs, least recently used first; guarded by cache
+    private static final LinkedHashMap<URI, Entry> lru = new LinkedHashMap<URI, Entry>(16, 0.75f, true);
+
+    static PKIXCRLStore getCrl(CertificateFactory certFact, Date validDate, URI distributionPoint)
         throws IOException, CRLException
     {
-        PKIXCRLStore crlStore = null;
-
-        WeakReference<PKIXCRLStore> markerRef = (WeakReference)cache.get(distributionPoint);
-        if (markerRef != null)
+        Entry entry = cache.get(distributionPoint);
+        if (entry == null)
         {
-            crlStore = (PKIXCRLStore)markerRef.get();
-        }
+            Entry newEntry = new Entry(distributionPoint);
 
-        if (crlStore != null)
-        {
-            boolean isExpired = false;
-            for (Iterator it = crlStore.getMatches(null).iterator(); it.hasNext();)
+            entry = cache.putIfAbsent(distributionPoint, newEntry);
+            if (entry == null)
             {
-                X509CRL crl = (X509CRL)it.next();
-
-                Date nextUpdate = crl.getNextUpdate();
-                if (nextUpdate != null && nextUpdate.before(validDate))
-                {
-                    isExpired = true;
-                    break;
-                }
+                entry = newEntry;
             }
+        }
+
+        return entry.getCrl(certFact, validDate);
+    }
+
+    private static void evict(Entry keep)
+    {
+        // NOTE: Called with the cache lock held
+        long maxSize = Properties.asInteger("org.bouncycastle.x509.crlCache.maxSize", DEFAULT_MAX_SIZE);
 
-            if (!isExpired)
+        for (Iterator<Entry> it = lru.values().iterator(); cacheSize > maxSize && it.hasNext();)
+        {
+            Entry entry = it.next();
+            if (entry == keep)
             {
-                return crlStore;
+                continue;
             }
-        }
 
-        Collection crls;
+            it.remove();
+            cache.remove(entry.distributionPoint, entry);
+            cacheSize -= entry.current.size;
+        }
+    }
 
+    private static CachedCrls fetchCrls(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        byte[] data;
         if (distributionPoint.getScheme().equals("ldap"))
         {
-            crls = getCrlsFromLDAP(certFact, distributionPoint);
+            data = getCrlsFromLDAP(distributionPoint);
         }
         else
         {
             // http, https, ftp
-            crls = getCrls(certFact, distributionPoint);
+            data = getCrls(distributionPoint);
         }
 
-        LocalCRLStore localCRLStore = new LocalCRLStore(new CollectionStore<CRL>(crls));
-
-        cache.put(distributionPoint, new WeakReference<PKIXCRLStore>(localCRLStore));
+        Collection crls = certFact.generateCRLs(new ByteArrayInputStream(data));
 
-        return localCRLStore;
+        return new CachedCrls(new LocalCRLStore(new CollectionStore<CRL>(crls)), crls, data.length);
     }
 
-    private static Collection getCrlsFromLDAP(CertificateFactory certFact, URI distributionPoint)
+    private static byte[] getCrlsFromLDAP(URI distributionPoint)
         throws IOException, CRLException
     {
         Map<String, String> env = new Hashtable<String, String>();
@@ -116,26 +155,239 @@ private static Collection getCrlsFromLDAP(CertificateFactory certFact, URI distr
         {
             throw new CRLException("no CRL returned from: " + distributionPoint);
         }
-        else
-        {
-            return certFact.generateCRLs(new ByteArrayInputStream(val));
-        }
+
+        return val;
     }
 
-    private static Collection getCrls(CertificateFactory certFact, URI distributionPoint)
-        throws IOException, CRLException
+    private static byte[] getCrls(URI distributionPoint)
+        throws IOException
     {
         HttpURLConnection crlCon = (HttpURLConnection)distributionPoint.toURL().openConnection();
         crlCon.setConnectTimeout(DEFAULT_TIMEOUT);
         crlCon.setReadTimeout(DEFAULT_TIMEOUT);
 
         InputStream crlIn = crlCon.getInputStream();
+        try
+        {
+            return Streams.readAll(crlIn);
+        }
+        finally
+        {
+            crlIn.close();
+        }
+    }
+
+    /**
+     * The CRLs from one download, with the earliest of their nextUpdate times.
+     */
+    private static class CachedCrls
+    {
+        final PKIXCRLStore store;
+        final long size;
+        final Date nextUpdate;
+
+        CachedCrls(PKIXCRLStore store, Collection crls, long size)
+        {
+            this.store = store;
+            this.size = size;
+
+            Date nextUpdate = null;
+            for (Iterator it = crls.iterator(); it.hasNext();)
+            {
+                Date crlNextUpdate = ((X509CRL)it.next()).getNextUpdate();
+                if (crlNextUpdate != null && (nextUpdate == null || crlNextUpdate.before(nextUpdate)))
+                {
+                    nextUpdate = crlNextUpdate;
+                }
+            }
+            this.nextUpdate = nextUpdate;
+        }
+
+        boolean isExpired(Date validDate)
+        {
+            return nextUpdate != null && nextUpdate.before(validDate);
+        }
+    }
+
+    private static class Entry
+    {
+        final URI distributionPoint;
+
+        volatile CachedCrls current = null;
+        volatile long lastAccess;
+        volatile long refreshAfter = Long.MAX_VALUE;
+
+        private FutureTask<CachedCrls> fetch = null;     // guarded by this
+
+        Entry(URI distributionPoint)
+        {
+            this.distributionPoint = distributionPoint;
+        }
+
+        PKIXCRLStore getCrl(CertificateFactory certFact, Date validDate)
+            throws IOException, CRLException
+        {
+            long now = System.currentTimeMillis();
+            if (now - lastAccess >= ACCESS_INTERVAL)
+            {
+                this.lastAccess = now;
+
+                synchronized (cache)
+                {
+                    lru.get(distributionPoint);
+                }
+            }
+
+            CachedCrls crls = current;
+            if (crls != null && !crls.isExpired(validDate))
+            {
+                if (now >= refreshAfter)
+                {
+                    refreshInBackground(certFact, now);
+                }
+                return crls.store;
+            }
+
+            FutureTask<CachedCrls> task;
+            boolean runHere = false;
+            synchronized (this)
+            {
+                task = fetch;
+                if (task == null)
+                {
+                    task = fetch = createFetch(certFact);
+                    runHere = true;
+                }
+            }
+
+            if (runHere)
+            {
+                task.run();
+            }
+
+            try
+            {
+                return task.get().store;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for CRL from: " + distributionPoint);
+            }
+            catch (ExecutionException e)
+            {
+                if (crls != null)
+                {
+                    return crls.store;
+                }
+
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException)
+                {
+                    throw (IOException)cause;
+                }
+                if (cause instanceof CRLException)
+                {
+                    throw (CRLException)cause;
+                }
+                throw new CRLException("unable to fetch CRL from: " + distributionPoint, cause);
+            }
+        }
 
-        Collection crls = certFact.generateCRLs(crlIn);
+        private void refreshInBackground(CertificateFactory certFact, long now)
+        {
+            FutureTask<CachedCrls> task;
+            synchronized (this)
+            {
+                if (fetch != null)
+                {
+                    return;
+                }
 
-        crlIn.close();
+                // NOTE: A successful refresh resets this; otherwise it limits how often we retry
+                refreshAfter = now + REFRESH_RETRY_INTERVAL;
 
-        return crls;
+                CertificateFactory refreshCertFact;
+                try
+                {
+                    // NOTE: The caller's CertificateFactory may not be safe to share with another thread
+                    refreshCertFact = CertificateFactory.getInstance(certFact.getType(), certFact.getProvider());
+                }
+                catch (CertificateException e)
+                {
+                    return;
+                }
+
+                task = fetch = createFetch(refreshCertFact);
+            }
+
+            Thread refresher = new Thread(task, "BC CRL refresh");
+            refresher.setDaemon(true);
+            refresher.start();
+        }
+
+        private static long getRefreshTime(Date nextUpdate)
+        {
+            if (nextUpdate == null)
+            {
+                return Long.MAX_VALUE;
+            }
+
+            // NOTE: For short-lived CRLs, refresh no earlier than half way through their remaining lifetime
+            long now = System.currentTimeMillis(), expiry = nextUpdate.getTime();
+            return expiry - Math.min(refreshAhead, (expiry - now) / 2);
+        }
+
+        private FutureTask<CachedCrls> createFetch(final CertificateFactory certFact)
+        {
+            return new FutureTask<CachedCrls>(new Callable<CachedCrls>()
+            {
+                public CachedCrls call()
+                    throws Exception
+                {
+                    try
+                    {
+                        CachedCrls crls = fetchCrls(certFact, distributionPoint);
+                        update(crls);
+                        return crls;
+                    }
+                    catch (Exception e)
+                    {
+                        if (current == null)
+                        {
+                            // Don't hold on to entries for distribution points that have never worked
+                            cache.remove(distributionPoint, Entry.this);
+                        }
+                        throw e;
+                    }
+                    finally
+                    {
+                        synchronized (Entry.this)
+                        {
+                            fetch = null;
+                        }
+                    }
+                }
+            });
+        }
+
+        private void update(CachedCrls crls)
+        {
+            synchronized (cache)
+            {
+                CachedCrls previous = current;
+
+                current = crls;
+                refreshAfter = getRefreshTime(crls.nextUpdate);
+
+                if (cache.get(distributionPoint) == this)
+                {
+                    cacheSize += crls.size - (previous == null ? 0 : previous.size);
+                    lru.put(distributionPoint, this);
+                    evict(this);
+                }
+            }
+        }
     }
 
     private static class LocalCRLStore<T extends CRL>
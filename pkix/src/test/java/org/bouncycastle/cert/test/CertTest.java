@@ -5313,6 +5313,81 @@ private void testIndirect2()
         }
     }
 
+    private void testLargeIndirect()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(testCAp12);
+
+        keyStore.load(input, "test".toCharArray());
+
+        X509Certificate certificate = (X509Certificate)keyStore.getCertificate("ca");
+        PrivateKey privateKey = (PrivateKey)keyStore.getKey("ca", null);
+
+        X500Name crlIssuer = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+        X500Name caName = X500Name.getInstance(certificate.getIssuerX500Principal().getEncoded());
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(crlIssuer, new Date());
+
+        builder.addExtension(Extension.issuingDistributionPoint, true, new IssuingDistributionPoint(null, true, false));
+
+        // serial numbers that all agree in their low bits, then a run of sequential ones
+        for (int i = 1; i <= 1000; ++i)
+        {
+            builder.addCRLEntry(BigInteger.valueOf(i).shiftLeft(64).add(BigInteger.valueOf(7)), new Date(), CRLReason.cACompromise);
+        }
+        for (int i = 0; i < 1000; ++i)
+        {
+            builder.addCRLEntry(BigInteger.valueOf(1000 + i), new Date(), CRLReason.cACompromise);
+        }
+
+        ExtensionsGenerator extGen = new ExtensionsGenerator();
+
+        extGen.addExtension(Extension.reasonCode, false, CRLReason.lookup(CRLReason.cACompromise));
+        extGen.addExtension(Extension.certificateIssuer, true, new GeneralNames(new GeneralName(caName)));
+
+        builder.addCRLEntry(certificate.getSerialNumber(), new Date(), extGen.generate());
+
+        // a repeat of an earlier serial number, now under a different certificate issuer
+        builder.addCRLEntry(BigInteger.valueOf(1500), new Date(), CRLReason.cACompromise);
+        builder.addCRLEntry(BigInteger.valueOf(3000), new Date(), CRLReason.cACompromise);
+
+        X509CRLHolder cRLHolder = builder.build(new JcaContentSignerBuilder("SHA256WithRSAEncryption").setProvider(BC).build(privateKey));
+
+        X509CRLEntryHolder cRLEntryHolder = cRLHolder.getRevokedCertificate(BigInteger.valueOf(999).shiftLeft(64).add(BigInteger.valueOf(7)));
+
+        isTrue("large CRL entry not found", cRLEntryHolder != null);
+        isEquals(BigInteger.valueOf(999).shiftLeft(64).add(BigInteger.valueOf(7)), cRLEntryHolder.getSerialNumber());
+        isEquals(new GeneralNames(new GeneralName(crlIssuer)), cRLEntryHolder.getCertificateIssuer());
+
+        cRLEntryHolder = cRLHolder.getRevokedCertificate(BigInteger.valueOf(1500));
+
+        isEquals(new GeneralNames(new GeneralName(crlIssuer)), cRLEntryHolder.getCertificateIssuer());
+
+        cRLEntryHolder = cRLHolder.getRevokedCertificate(BigInteger.valueOf(3000));
+
+        isEquals(new GeneralNames(new GeneralName(caName)), cRLEntryHolder.getCertificateIssuer());
+
+        isTrue(null == cRLHolder.getRevokedCertificate(BigInteger.valueOf(1001).shiftLeft(64).add(BigInteger.valueOf(7))));
+        isTrue(null == cRLHolder.getRevokedCertificate(BigInteger.valueOf(7)));
+        isTrue(null == cRLHolder.getRevokedCertificate(BigInteger.valueOf(2000)));
+        isEquals(2003, cRLHolder.getRevokedCertificates().size());
+
+        X509CRL crl = new JcaX509CRLConverter().setProvider(BC).getCRL(cRLHolder);
+
+        X509CRLEntry crlEntry = crl.getRevokedCertificate(BigInteger.valueOf(1999));
+
+        isEquals(BigInteger.valueOf(1999), crlEntry.getSerialNumber());
+        isTrue("JCA large CRL certificate issuer incorrect", null == crlEntry.getCertificateIssuer());
+
+        crlEntry = crl.getRevokedCertificate(BigInteger.valueOf(3000));
+
+        isEquals(new X500Principal(caName.getEncoded()), crlEntry.getCertificateIssuer());
+        isTrue(null == crl.getRevokedCertificate(BigInteger.valueOf(2000)));
+        isTrue("large CRL revocation not found", crl.isRevoked(certificate));
+    }
+
     // issuing distribution point must be set for an indirect CRL to be recognised
     private void testMalformedIndirect()
         throws Exception
@@ -5446,6 +5521,7 @@ public void performTest()
         testDirect();
         testIndirect();
         testIndirect2();
+        testLargeIndirect();
         testMalformedIndirect();
 
         checkCertificate(1, cert1);
@@ -1,6 +1,11 @@
 package org.bouncycastle.pkix.test;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PublicKey;
@@ -28,11 +33,14 @@
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.pkix.jcajce.X509RevocationChecker;
 import org.bouncycastle.util.CollectionStore;
+import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Base64;
 
 public class RevocationTest
     extends TestCase
 {
+    private static final String CRL_CACHE_MAX_SIZE = "org.bouncycastle.x509.crlCache.maxSize";
+
     public static byte[] rootCertBin = Base64.decode(
         "MIIBqzCCARQCAQEwDQYJKoZIhvcNAQEFBQAwHjEcMBoGA1UEAxMTVGVzdCBDQSBDZXJ0aWZpY2F0ZTAeFw0wODA5MDQwNDQ1MDhaFw0wODA5MTEwNDQ1MDhaMB4xHDAaBgNVBAMTE1Rlc3QgQ0EgQ2VydGlmaWNhdGUwgZ8wDQYJKoZIhvcNAQEBBQADgY0AMIGJAoGBAMRLUjhPe4YUdLo6EcjKcWUOG7CydFTH53Pr1lWjOkbmszYDpkhCTT9LOsI+disk18nkBxSl8DAHTqV+VxtuTPt64iyi10YxyDeep+DwZG/f8cVQv97U3hA9cLurZ2CofkMLGr6JpSGCMZ9FcstcTdHB4lbErIJ54YqfF4pNOs4/AgMBAAEwDQYJKoZIhvcNAQEFBQADgYEAgyrTEFY7ALpeY59jL6xFOLpuPqoBOWrUWv6O+zy5BCU0qiX71r3BpigtxRj+DYcfLIM9FNERDoHu3TthD3nwYWUBtFX8N0QUJIdJabxqAMhLjSC744koiFpCYse5Ye3ZvEdFwDzgAQsJTp5eFGgTZPkPzcdhkFJ2p9+OWs+cb24=");
 
@@ -373,6 +381,151 @@ public void testEndEntityOnly()
         }
     }
 
+    public void testCRLDistPointFetchedOnce()
+        throws Exception
+    {
+        CrlServer crlServer = new CrlServer(caCrl.getEncoded(), 500);
+        crlServer.start();
+
+        try
+        {
+            X509Certificate eeCertWithUri = TestUtil.makeEeCertificate("http://localhost:" + crlServer.getPort() + "/ca.crl",
+                caCert, caKp.getPrivate(), eeKp.getPublic(), "CN=End Entity");
+
+            List certchain = new ArrayList();
+            certchain.add(eeCertWithUri);
+            certchain.add(caCert);
+
+            final CertPath cp = CertificateFactory.getInstance("X.509", "BC").generateCertPath(certchain);
+
+            // Concurrent validations needing the same CRL should all wait for a single download
+            ValidationThread[] threads = new ValidationThread[4];
+            for (int i = 0; i < threads.length; ++i)
+            {
+                threads[i] = new ValidationThread(cp);
+                threads[i].start();
+            }
+            for (int i = 0; i < threads.length; ++i)
+            {
+                threads[i].join();
+                if (threads[i].exception != null)
+                {
+                    fail(threads[i].exception.toString());
+                }
+            }
+
+            // ...and later validations should find it in the cache
+            ValidationThread thread = new ValidationThread(cp);
+            thread.run();
+            if (thread.exception != null)
+            {
+                fail(thread.exception.toString());
+            }
+
+            assertEquals(1, crlServer.getRequestCount());
+        }
+        finally
+        {
+            crlServer.close();
+        }
+    }
+
+    public void testOversizedCRLDistPointKept()
+        throws Exception
+    {
+        CrlServer crlServer = new CrlServer(caCrl.getEncoded(), 0);
+        crlServer.start();
+
+        String maxSize = System.getProperty(CRL_CACHE_MAX_SIZE);
+        System.setProperty(CRL_CACHE_MAX_SIZE, "1");
+        try
+        {
+            CertPath cp = makeCertPath(crlServer);
+
+            // A CRL larger than the whole cache must still be kept once downloaded
+            validate(cp);
+            validate(cp);
+
+            assertEquals(1, crlServer.getRequestCount());
+        }
+        finally
+        {
+            restoreProperty(CRL_CACHE_MAX_SIZE, maxSize);
+            crlServer.close();
+        }
+    }
+
+    public void testCRLDistPointLeastRecentlyUsedEvicted()
+        throws Exception
+    {
+        CrlServer serverA = new CrlServer(caCrl.getEncoded(), 0);
+        CrlServer serverB = new CrlServer(caCrl.getEncoded(), 0);
+        serverA.start();
+        serverB.start();
+
+        String maxSize = System.getProperty(CRL_CACHE_MAX_SIZE);
+        System.setProperty(CRL_CACHE_MAX_SIZE, String.valueOf(caCrl.getEncoded().length));
+        try
+        {
+            CertPath cpA = makeCertPath(serverA);
+            CertPath cpB = makeCertPath(serverB);
+
+            // Room for one CRL: each download evicts the other distribution point
+            validate(cpA);
+            validate(cpB);
+            validate(cpB);
+            assertEquals(1, serverA.getRequestCount());
+            assertEquals(1, serverB.getRequestCount());
+
+            validate(cpA);
+            assertEquals(2, serverA.getRequestCount());
+
+            validate(cpB);
+            assertEquals(2, serverB.getRequestCount());
+        }
+        finally
+        {
+            restoreProperty(CRL_CACHE_MAX_SIZE, maxSize);
+            serverA.close();
+            serverB.close();
+        }
+    }
+
+    private static CertPath makeCertPath(CrlServer crlServer)
+        throws Exception
+    {
+        X509Certificate eeCertWithUri = TestUtil.makeEeCertificate("http://localhost:" + crlServer.getPort() + "/ca.crl",
+            caCert, caKp.getPrivate(), eeKp.getPublic(), "CN=End Entity");
+
+        List certchain = new ArrayList();
+        certchain.add(eeCertWithUri);
+        certchain.add(caCert);
+
+        return CertificateFactory.getInstance("X.509", "BC").generateCertPath(certchain);
+    }
+
+    private static void validate(CertPath cp)
+    {
+        ValidationThread thread = new ValidationThread(cp);
+        thread.run();
+        if (thread.exception != null)
+        {
+            fail(thread.exception.toString());
+        }
+    }
+
+    private static void restoreProperty(String name, String value)
+    {
+        if (value == null)
+        {
+            System.clearProperty(name);
+        }
+        else
+        {
+            System.setProperty(name, value);
+        }
+    }
+
     public void testRevokedEndEntityOnly()
         throws Exception
     {
@@ -540,4 +693,131 @@ public void testRevokedWithCRLDistPointEndEntityOnly()
 //            fail(e.getMessage());
 //        }
     }
+
+    private static class ValidationThread
+        extends Thread
+    {
+        private final CertPath cp;
+
+        Exception exception;
+
+        ValidationThread(CertPath cp)
+        {
+            this.cp = cp;
+        }
+
+        public void run()
+        {
+            try
+            {
+                Set trust = new HashSet();
+                trust.add(new TrustAnchor(trustCert, null));
+
+                X509RevocationChecker revocationChecker = new X509RevocationChecker
+                    .Builder(new TrustAnchor(trustCert, null))
+                    .setCheckEndEntityOnly(true)
+                    .usingProvider("BC")
+                    .build();
+
+                PKIXParameters param = new PKIXParameters(trust);
+                param.setRevocationEnabled(false);
+                param.addCertPathChecker(revocationChecker);
+
+                CertPathValidator.getInstance("PKIX", "BC").validate(cp, param);
+            }
+            catch (Exception e)
+            {
+                exception = e;
+            }
+        }
+    }
+
+    private static class CrlServer
+        extends Thread
+    {
+        private final byte[] crl;
+        private final long delay;
+        private final ServerSocket serverSocket;
+
+        private int requestCount = 0;
+
+        CrlServer(byte[] crl, long delay)
+            throws IOException
+        {
+            this.crl = crl;
+            this.delay = delay;
+            this.serverSocket = new ServerSocket(0);
+
+            setDaemon(true);
+        }
+
+        int getPort()
+        {
+            return serverSocket.getLocalPort();
+        }
+
+        synchronized int getRequestCount()
+        {
+            return requestCount;
+        }
+
+        void close()
+            throws IOException
+        {
+            serverSocket.close();
+        }
+
+        public void run()
+        {
+            try
+            {
+                for (;;)
+                {
+                    Socket s = serverSocket.accept();
+                    try
+                    {
+                        // read the request headers
+                        InputStream sIn = s.getInputStream();
+                        int ch, last = 0, blank = 0;
+                        while (blank < 2 && (ch = sIn.read()) >= 0)
+                        {
+                            if (ch == '\n')
+                            {
+                                blank = (last == '\n') ? 2 : 1;
+                            }
+                            if (ch != '\r')
+                            {
+                                last = ch;
+                            }
+                        }
+
+                        synchronized (this)
+                        {
+                            ++requestCount;
+                        }
+
+                        // simulate a slow distribution point
+                        Thread.sleep(delay);
+
+                        OutputStream sOut = s.getOutputStream();
+                        sOut.write(Strings.toByteArray("HTTP/1.1 200 OK\r\n"));
+                        sOut.write(Strings.toByteArray("Content-Type: application/pkix-crl\r\n"));
+                        sOut.write(Strings.toByteArray("Content-Length: " + crl.length + "\r\n"));
+                        sOut.write(Strings.toByteArray("Connection: close\r\n"));
+                        sOut.write(Strings.toByteArray("\r\n"));
+                        sOut.write(crl);
+                        sOut.flush();
+                    }
+                    finally
+                    {
+                        s.close();
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                // closed
+            }
+        }
+    }
 }
@@ -12,11 +12,17 @@
 
 import javax.security.auth.x500.X500Principal;
 
+import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
 import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
 import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.cert.X509v1CertificateBuilder;
 import org.bouncycastle.cert.X509v2CRLBuilder;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
@@ -103,6 +109,21 @@ public static X509Certificate makeCaCertificate(X509Certificate issuer, PrivateK
 
     public static X509Certificate makeEeCertificate(boolean withDistPoint, X509Certificate issuer, PrivateKey issuerKey, PublicKey subjectKey, String subject)
         throws GeneralSecurityException, IOException, OperatorCreationException
+    {
+        return makeEeCertificate(withDistPoint ? new DERSequence() : null, issuer, issuerKey, subjectKey, subject);
+    }
+
+    public static X509Certificate makeEeCertificate(String distPointUri, X509Certificate issuer, PrivateKey issuerKey, PublicKey subjectKey, String subject)
+        throws GeneralSecurityException, IOException, OperatorCreationException
+    {
+        GeneralNames distPointNames = new GeneralNames(new GeneralName(GeneralName.uniformResourceIdentifier, distPointUri));
+        DistributionPoint distPoint = new DistributionPoint(new DistributionPointName(distPointNames), null, null);
+
+        return makeEeCertificate(new CRLDistPoint(new DistributionPoint[]{ distPoint }), issuer, issuerKey, subjectKey, subject);
+    }
+
+    private static X509Certificate makeEeCertificate(ASN1Encodable distPoints, X509Certificate issuer, PrivateKey issuerKey, PublicKey subjectKey, String subject)
+        throws GeneralSecurityException, IOException, OperatorCreationException
     {
         X509v3CertificateBuilder v3CertGen = new JcaX509v3CertificateBuilder(
             issuer.getSubjectX500Principal(),
@@ -129,12 +150,12 @@ public static X509Certificate makeEeCertificate(boolean withDistPoint, X509Certi
             false,
             new BasicConstraints(false));
 
-        if (withDistPoint)
+        if (distPoints != null)
         {
             v3CertGen.addExtension(
                 Extension.cRLDistributionPoints,
                 false,
-                new DERSequence());
+                distPoints);
         }
 
         JcaContentSignerBuilder contentSignerBuilder = new JcaContentSignerBuilder("SHA256WithRSA").setProvider("BC");
@@ -0,0 +1,131 @@
+package org.bouncycastle.jcajce;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.util.PublicKeyFactory;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Batch verification of Ed25519 signatures, as a companion to the provider's "Ed25519" Signature. Signatures are
+ * added one at a time, each with its own public key and message, and are then verified together in a single
+ * combined check, which is considerably faster than verifying each of them with a Signature instance.
+ * <p>
+ * If the batch does not verify as a whole, the signatures are checked individually, so that the results always
+ * report which signatures (if any) are invalid.
+ * </p>
+ */
+public class Ed25519BatchVerifier
+{
+    private final SecureRandom random;
+    private final List publicKeys = new ArrayList();
+    private final List messages = new ArrayList();
+    private final List signatures = new ArrayList();
+
+    public Ed25519BatchVerifier()
+    {
+        this(null);
+    }
+
+    /**
+     * @param random the source of randomness for the batch coefficients (if null, the default is used).
+     */
+    public Ed25519BatchVerifier(SecureRandom random)
+    {
+        this.random = random;
+    }
+
+    /**
+     * Add a signature to the batch.
+     *
+     * @param publicKey the Ed25519 public key to verify the signature with.
+     * @param message the complete message that was signed.
+     * @param signature the signature.
+     * @throws InvalidKeyException if the public key is not an Ed25519 key.
+     */
+    public void add(PublicKey publicKey, byte[] message, byte[] signature)
+        throws InvalidKeyException
+    {
+        publicKeys.add(getPublicKeyParameters(publicKey));
+        messages.add(Arrays.clone(message));
+        signatures.add(Arrays.clone(signature));
+    }
+
+    /**
+     * Return the number of signatures added since construction or the last call to verify().
+     *
+     * @return the size of the batch.
+     */
+    public int size()
+    {
+        return signatures.size();
+    }
+
+    /**
+     * Verify all signatures added since construction or the last call to verify(), and reset the batch.
+     *
+     * @param results receives true or false for each signature, in the order they were added, according to whether
+     * it is valid; must have a length of at least {@link #size()}.
+     * @return true if every signature in the batch is valid.
+     */
+    public boolean verify(boolean[] results)
+    {
+        int count = signatures.size();
+        if (results.length < count)
+        {
+            throw new IllegalArgumentException("'results' too short");
+        }
+
+        try
+        {
+            return Ed25519Signer.verifySignatures(random,
+                (Ed25519PublicKeyParameters[])publicKeys.toArray(new Ed25519PublicKeyParameters[count]),
+                (byte[][])messages.toArray(new byte[count][]),
+                (byte[][])signatures.toArray(new byte[count][]),
+                results);
+        }
+        finally
+        {
+            publicKeys.clear();
+            messages.clear();
+            signatures.clear();
+        }
+    }
+
+    private static Ed25519PublicKeyParameters getPublicKeyParameters(PublicKey publicKey)
+        throws InvalidKeyException
+    {
+        byte[] encoding = publicKey.getEncoded();
+        if (encoding == null)
+        {
+            throw new InvalidKeyException("no encoding for Ed25519 public key");
+        }
+
+        AsymmetricKeyParameter keyParameters;
+        try
+        {
+            keyParameters = PublicKeyFactory.createKey(encoding);
+        }
+        catch (IOException e)
+        {
+            throw new InvalidKeyException("cannot identify Ed25519 public key: " + e.getMessage());
+        }
+        catch (RuntimeException e)
+        {
+            throw new InvalidKeyException("cannot identify Ed25519 public key: " + e.getMessage());
+        }
+
+        if (!(keyParameters instanceof Ed25519PublicKeyParameters))
+        {
+            throw new InvalidKeyException("unsupported public key type");
+        }
+        return (Ed25519PublicKeyParameters)keyParameters;
+    }
+}
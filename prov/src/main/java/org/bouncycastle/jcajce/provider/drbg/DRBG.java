@@ -9,12 +9,15 @@
 import java.security.SecureRandom;
 import java.security.SecureRandomSpi;
 import java.security.Security;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.bouncycastle.crypto.digests.SHA512Digest;
 import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.prng.EntropyPool;
 import org.bouncycastle.crypto.prng.EntropySource;
 import org.bouncycastle.crypto.prng.EntropySourceProvider;
 import org.bouncycastle.crypto.prng.SP800SecureRandom;
@@ -34,7 +37,8 @@
  * available entropy on the system. The original motivation for the hybrid infrastructure was virtual machines
  * sometimes produce very few bits of entropy a second, the original approach (which "worked" at least for BC) was
  * to just read on the second thread and allow things to progress around it, but it did tend to hog the system
- * if other processes were using /dev/random. By default the thread will pause for 5 seconds between 64 bit reads,
+ * if other processes were using /dev/random. By default the thread will pause for 5 seconds between 64 bit reads
+ * (with org.bouncycastle.drbg.entropy_thread, between reads made to top up the entropy pool once it is half full),
  * increasing this time will reduce the demands on the system entropy pool. Ideally the pause will be set to large
  * enough to allow everyone to work together, but small enough to ensure the provider's DRBG is being regularly
  * reseeded.
@@ -45,13 +49,15 @@
  * could be avoided.
  * </p>
  * <p>
- * org.bouncycastle.drbg.entropy_thread - if true the provider will start a single daemon thread for handling entropy requests,
- * rather than starting a thread periodically when samples are required.
+ * org.bouncycastle.drbg.entropy_thread - if true the provider will start a single daemon thread which keeps a pool of
+ * entropy gathered in advance (see {@link EntropyPool}), rather than starting a thread periodically when samples are
+ * required.
  * </p>
  */
 public class DRBG
 {
     private static final String PREFIX = DRBG.class.getName();
+    private static final int ENTROPY_POOL_SIZE = 1024;
 
     // {"Provider class name","SecureRandomSpi class name"}
     private static final String[][] initialEntropySourceNames = new String[][]
@@ -86,13 +92,7 @@ private final static Object[] findSource()
         return null;
     }
 
-    private static EntropyDaemon entropyDaemon = null;
-    private static Thread entropyThread = null;
-
-    static
-    {
-        entropyDaemon = new EntropyDaemon();
-    }
+    private static EntropyPool entropyPool = null;
 
     public static class Mappings
         extends AsymmetricAlgorithmProvider
@@ -105,13 +105,18 @@ public void configure(ConfigurableProvider provider)
         {
             provider.addAlgorithm("SecureRandom.DEFAULT", PREFIX + "$Default");
             provider.addAlgorithm("SecureRandom.NONCEANDIV", PREFIX + "$NonceAndIV");
+            // NOTE: Declared thread-safe so that (on Java 9+) SecureRandom doesn't serialize calls to the pool
+            Map<String, String> pooledAttributes = new HashMap<String, String>();
+            pooledAttributes.put("ThreadSafe", "true");
+
+            provider.addAlgorithm("SecureRandom.POOLED", PREFIX + "$Pooled", pooledAttributes);
         }
     }
 
     public static class Default
         extends SecureRandomSpi
     {
-        private static final SecureRandom random = createBaseRandom(true);
+        private static final SecureRandom random = createBaseRandom(true, false);
 
         public Default()
         {
@@ -136,7 +141,7 @@ protected byte[] engineGenerateSeed(int numBytes)
     public static class NonceAndIV
         extends SecureRandomSpi
     {
-        private static final SecureRandom random = createBaseRandom(false);
+        private static final SecureRandom random = createBaseRandom(false, false);
 
         public NonceAndIV()
         {
@@ -158,7 +163,36 @@ protected byte[] engineGenerateSeed(int numBytes)
         }
     }
 
-    private static SecureRandom createBaseRandom(boolean isPredictionResistant)
+    /**
+     * As for NonceAndIV, but backed by a pool of DRBGs so that threads using it concurrently do not have to wait
+     * for each other.
+     */
+    public static class Pooled
+        extends SecureRandomSpi
+    {
+        private static final SecureRandom random = createBaseRandom(false, true);
+
+        public Pooled()
+        {
+        }
+
+        protected void engineSetSeed(byte[] bytes)
+        {
+            random.setSeed(bytes);
+        }
+
+        protected void engineNextBytes(byte[] bytes)
+        {
+            random.nextBytes(bytes);
+        }
+
+        protected byte[] engineGenerateSeed(int numBytes)
+        {
+            return random.generateSeed(numBytes);
+        }
+    }
+
+    private static SecureRandom createBaseRandom(boolean isPredictionResistant, boolean isPooled)
     {
         if (Properties.getPropertyValue("org.bouncycastle.drbg.entropysource") != null)
         {
@@ -170,36 +204,27 @@ private static SecureRandom createBaseRandom(boolean isPredictionResistant)
                 ? generateDefaultPersonalizationString(initSource.getEntropy())
                 : generateNonceIVPersonalizationString(initSource.getEntropy());
 
-            return new SP800SecureRandomBuilder(entropyProvider)
-                .setPersonalizationString(personalisationString)
-                .buildHash(new SHA512Digest(), initSource.getEntropy(), isPredictionResistant);
+            return buildHash(new SP800SecureRandomBuilder(entropyProvider)
+                .setPersonalizationString(personalisationString), initSource.getEntropy(), isPredictionResistant, isPooled);
         }
         else if (Properties.isOverrideSet("org.bouncycastle.drbg.entropy_thread"))
         {
-            synchronized (entropyDaemon)
-            {
-                if (entropyThread == null)
-                {
-                    entropyThread = new Thread(entropyDaemon, "BC Entropy Daemon");
-                    entropyThread.setDaemon(true);
-                    entropyThread.start();
-                }
-            }
-            EntropySource source = new HybridEntropySource(entropyDaemon, 256);
+            final EntropyPool entropyPool = getEntropyPool();
+
+            EntropySource source = new HybridEntropySource(entropyPool, 256);
 
             byte[] personalisationString = isPredictionResistant
                 ? generateDefaultPersonalizationString(source.getEntropy())
                 : generateNonceIVPersonalizationString(source.getEntropy());
 
-            return new SP800SecureRandomBuilder(new EntropySourceProvider()
+            return buildHash(new SP800SecureRandomBuilder(new EntropySourceProvider()
             {
                 public EntropySource get(int bitsRequired)
                 {
-                    return new HybridEntropySource(entropyDaemon, bitsRequired);
+                    return new HybridEntropySource(entropyPool, bitsRequired);
                 }
             })
-                .setPersonalizationString(personalisationString)
-                .buildHash(new SHA512Digest(), source.getEntropy(), isPredictionResistant);
+                .setPersonalizationString(personalisationString), source.getEntropy(), isPredictionResistant, isPooled);
         }
         else
         {
@@ -209,16 +234,34 @@ public EntropySource get(int bitsRequired)
                 ? generateDefaultPersonalizationString(initSource.getEntropy())
                 : generateNonceIVPersonalizationString(initSource.getEntropy());
 
-            return new SP800SecureRandomBuilder(new EntropySourceProvider()
+            return buildHash(new SP800SecureRandomBuilder(new EntropySourceProvider()
             {
                 public EntropySource get(int bitsRequired)
                 {
                     return new OneShotHybridEntropySource(bitsRequired);
                 }
             })
-                .setPersonalizationString(personalisationString)
-                .buildHash(new SHA512Digest(), initSource.getEntropy(), isPredictionResistant);
+                .setPersonalizationString(personalisationString), initSource.getEntropy(), isPredictionResistant, isPooled);
+        }
+    }
+
+    private static SecureRandom buildHash(SP800SecureRandomBuilder builder, byte[] nonce, boolean isPredictionResistant, boolean isPooled)
+    {
+        if (isPooled)
+        {
+            return builder.buildPooledHash(new SHA512Digest(), nonce, isPredictionResistant);
         }
+
+        return builder.buildHash(new SHA512Digest(), nonce, isPredictionResistant);
+    }
+
+    private static synchronized EntropyPool getEntropyPool()
+    {
+        if (entropyPool == null)
+        {
+            entropyPool = new EntropyPool(createCoreEntropySourceProvider(), ENTROPY_POOL_SIZE, EntropyGatherer.getPause());
+        }
+        return entropyPool;
     }
 
     // unfortunately new SecureRandom() can cause a regress and it's the only reliable way of getting access
@@ -444,20 +487,19 @@ public int entropySize()
     private static class HybridEntropySource
         implements EntropySource
     {
-        private final AtomicBoolean seedAvailable = new AtomicBoolean(false);
         private final AtomicInteger samples = new AtomicInteger(0);
 
+        private final EntropyPool entropyPool;
         private final SP800SecureRandom drbg;
-        private final SignallingEntropySource entropySource;
         private final int bytesRequired;
         private final byte[] additionalInput = Pack.longToBigEndian(System.currentTimeMillis());
 
-        HybridEntropySource(final EntropyDaemon entropyDaemon, final int bitsRequired)
+        HybridEntropySource(EntropyPool entropyPool, final int bitsRequired)
         {
-            EntropySourceProvider entropyProvider = createCoreEntropySourceProvider();
+            this.entropyPool = entropyPool;
             bytesRequired = (bitsRequired + 7) / 8;
             // remember for the seed generator we need the correct security strength for SHA-512
-            entropySource = new SignallingEntropySource(entropyDaemon, seedAvailable, entropyProvider, 256);
+            final EntropySource entropySource = entropyPool.get(256);
             drbg = new SP800SecureRandomBuilder(new EntropySourceProvider()
             {
                 public EntropySource get(final int bitsRequired)
@@ -478,18 +520,11 @@ public byte[] getEntropy()
         {
             byte[] entropy = new byte[bytesRequired];
 
-            // after 128 samples we'll start to check if there is new seed material.
-            if (samples.getAndIncrement() > 128)
+            // after 128 samples we'll reseed as soon as the pool has the seed material ready.
+            if (samples.getAndIncrement() > 128 && entropyPool.getDepth() >= 32)
             {
-                if (seedAvailable.getAndSet(false))
-                {
-                    samples.set(0);
-                    drbg.reseed(additionalInput);
-                }
-                else
-                {
-                    entropySource.schedule();
-                }
+                samples.set(0);
+                drbg.reseed(additionalInput);
             }
 
             drbg.nextBytes(entropy);
@@ -501,73 +536,6 @@ public int entropySize()
         {
             return bytesRequired * 8;
         }
-
-        private static class SignallingEntropySource
-            implements IncrementalEntropySource
-        {
-            private final EntropyDaemon entropyDaemon;
-            private final AtomicBoolean seedAvailable;
-            private final IncrementalEntropySource entropySource;
-            private final int byteLength;
-            private final AtomicReference entropy = new AtomicReference();
-            private final AtomicBoolean scheduled = new AtomicBoolean(false);
-
-            SignallingEntropySource(EntropyDaemon entropyDaemon, AtomicBoolean seedAvailable, EntropySourceProvider baseRandom, int bitsRequired)
-            {
-                this.entropyDaemon = entropyDaemon;
-                this.seedAvailable = seedAvailable;
-                this.entropySource = (IncrementalEntropySource)baseRandom.get(bitsRequired);
-                this.byteLength = (bitsRequired + 7) / 8;
-            }
-
-            public boolean isPredictionResistant()
-            {
-                return true;
-            }
-
-            public byte[] getEntropy()
-            {
-                try
-                {
-                    return getEntropy(0);
-                }
-                catch (InterruptedException e)
-                {
-                    Thread.currentThread().interrupt();
-                    throw new IllegalStateException("initial entropy fetch interrupted"); // should never happen
-                }
-            }
-
-            public byte[] getEntropy(long pause)
-                throws InterruptedException
-            {
-                byte[] seed = (byte[])entropy.getAndSet(null);
-
-                if (seed == null || seed.length != byteLength)
-                {
-                    seed = entropySource.getEntropy(pause);
-                }
-                else
-                {
-                    scheduled.set(false);
-                }
-
-                return seed;
-            }
-
-            void schedule()
-            {
-                if (!scheduled.getAndSet(true))
-                {
-                    entropyDaemon.addTask(new EntropyGatherer(entropySource, seedAvailable, entropy));
-                }
-            }
-
-            public int entropySize()
-            {
-                return byteLength * 8;
-            }
-        }
     }
 
     private static class OneShotHybridEntropySource
@@ -42,7 +42,7 @@ public void run()
         }
     }
 
-    private static long getPause()
+    static long getPause()
     {
         String pauseSetting = Properties.getPropertyValue("org.bouncycastle.drbg.gather_pause_secs");
 
@@ -0,0 +1,65 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.Optional;
+
+/**
+ * Dispatch for the multi-buffer SHA-2 digests. Messages are hashed a vector's worth at a time using the vector API
+ * if the jdk.incubator.vector module is available (it has to be added with "--add-modules jdk.incubator.vector"),
+ * with any left over, or all of them if the module is not available, hashed by the portable, interleaved, code.
+ */
+class SHA2MultiBuffer
+{
+    private static final boolean VECTOR_AVAILABLE = isVectorAvailable();
+
+    static void sha256(byte[][] messages, byte[][] digests, int[] order)
+    {
+        int pos = 0;
+        if (VECTOR_AVAILABLE)
+        {
+            while (order.length - pos >= SHA2Vector.INT_LANES)
+            {
+                SHA2Vector.sha256(messages, digests, order, pos);
+                pos += SHA2Vector.INT_LANES;
+            }
+        }
+
+        SHA256MultiBuffer.digestInterleaved(messages, digests, order, pos, order.length);
+    }
+
+    static void sha512(byte[][] messages, byte[][] digests, int[] order)
+    {
+        int pos = 0;
+        if (VECTOR_AVAILABLE)
+        {
+            while (order.length - pos >= SHA2Vector.LONG_LANES)
+            {
+                SHA2Vector.sha512(messages, digests, order, pos);
+                pos += SHA2Vector.LONG_LANES;
+            }
+        }
+
+        SHA512MultiBuffer.digestInterleaved(messages, digests, order, pos, order.length);
+    }
+
+    private static boolean isVectorAvailable()
+    {
+        try
+        {
+            Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+            if (vector.isEmpty())
+            {
+                return false;
+            }
+
+            SHA2MultiBuffer.class.getModule().addReads(vector.get());
+
+            // NOTE: Without at least 4 lanes the vector code is no faster than the interleaved code
+            return SHA2Vector.LONG_LANES >= 4;
+        }
+        catch (Throwable e)
+        {
+            // NOTE: The vector API is an incubator module - fall back to the portable code if anything is amiss
+            return false;
+        }
+    }
+}
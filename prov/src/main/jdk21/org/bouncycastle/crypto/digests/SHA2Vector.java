@@ -0,0 +1,245 @@
+package org.bouncycastle.crypto.digests;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import org.bouncycastle.util.Pack;
+
+/**
+ * SHA-256 and SHA-512 for several messages at once, one message per lane of an int (or long) vector. Working
+ * arrays are held word-major, so entry t * LANES + i is word t for the message in lane i.
+ */
+class SHA2Vector
+{
+    static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+
+    static final int INT_LANES = INT_SPECIES.length();
+    static final int LONG_LANES = LONG_SPECIES.length();
+
+    private SHA2Vector()
+    {
+    }
+
+    /**
+     * Hash the messages order[off] to order[off + INT_LANES - 1] with SHA-256.
+     */
+    static void sha256(byte[][] messages, byte[][] digests, int[] order, int off)
+    {
+        final int lanes = INT_LANES, blockSize = SHA256MultiBuffer.BLOCK_SIZE;
+
+        byte[][] tails = new byte[lanes][];
+        int[] full = new int[lanes], blocks = new int[lanes];
+        int maxBlocks = 0;
+        for (int i = 0; i < lanes; ++i)
+        {
+            byte[] m = messages[order[off + i]];
+            tails[i] = MultiBufferPadding.tail(m, blockSize, SHA256MultiBuffer.LENGTH_SIZE);
+            full[i] = m.length / blockSize;
+            blocks[i] = full[i] + tails[i].length / blockSize;
+            maxBlocks = Math.max(maxBlocks, blocks[i]);
+        }
+
+        IntVector blockCounts = IntVector.fromArray(INT_SPECIES, blocks, 0);
+
+        IntVector h0 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[0]);
+        IntVector h1 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[1]);
+        IntVector h2 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[2]);
+        IntVector h3 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[3]);
+        IntVector h4 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[4]);
+        IntVector h5 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[5]);
+        IntVector h6 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[6]);
+        IntVector h7 = IntVector.broadcast(INT_SPECIES, SHA256MultiBuffer.IV[7]);
+
+        int[] w = new int[64 * lanes];
+        int[] word = new int[16];
+
+        for (int j = 0; j < maxBlocks; ++j)
+        {
+            for (int i = 0; i < lanes; ++i)
+            {
+                if (j < full[i])
+                {
+                    Pack.bigEndianToInt(messages[order[off + i]], j * blockSize, word);
+                }
+                else if (j < blocks[i])
+                {
+                    Pack.bigEndianToInt(tails[i], (j - full[i]) * blockSize, word);
+                }
+                for (int t = 0; t < 16; ++t)
+                {
+                    w[t * lanes + i] = word[t];
+                }
+            }
+
+            for (int t = 16; t < 64; ++t)
+            {
+                IntVector x2 = IntVector.fromArray(INT_SPECIES, w, (t - 2) * lanes);
+                IntVector x15 = IntVector.fromArray(INT_SPECIES, w, (t - 15) * lanes);
+
+                IntVector theta1 = x2.lanewise(VectorOperators.ROR, 17)
+                    .lanewise(VectorOperators.XOR, x2.lanewise(VectorOperators.ROR, 19))
+                    .lanewise(VectorOperators.XOR, x2.lanewise(VectorOperators.LSHR, 10));
+                IntVector theta0 = x15.lanewise(VectorOperators.ROR, 7)
+                    .lanewise(VectorOperators.XOR, x15.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR, x15.lanewise(VectorOperators.LSHR, 3));
+
+                theta1.add(IntVector.fromArray(INT_SPECIES, w, (t - 7) * lanes))
+                    .add(theta0)
+                    .add(IntVector.fromArray(INT_SPECIES, w, (t - 16) * lanes))
+                    .intoArray(w, t * lanes);
+            }
+
+            IntVector a = h0, b = h1, c = h2, d = h3, e = h4, f = h5, g = h6, h = h7;
+
+            for (int t = 0; t < 64; ++t)
+            {
+                IntVector sum1 = e.lanewise(VectorOperators.ROR, 6)
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+                IntVector ch = e.and(f).lanewise(VectorOperators.XOR, e.not().and(g));
+                IntVector x = h.add(sum1).add(ch).add(SHA256Digest.K[t]).add(IntVector.fromArray(INT_SPECIES, w, t * lanes));
+
+                IntVector sum0 = a.lanewise(VectorOperators.ROR, 2)
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+                IntVector maj = a.and(b).or(c.and(a.lanewise(VectorOperators.XOR, b)));
+                IntVector y = sum0.add(maj);
+
+                h = g; g = f; f = e; e = d.add(x); d = c; c = b; b = a; a = x.add(y);
+            }
+
+            // lanes whose message has already finished are left as they are
+            VectorMask<Integer> active = blockCounts.compare(VectorOperators.GT, j);
+            h0 = h0.add(a, active); h1 = h1.add(b, active); h2 = h2.add(c, active); h3 = h3.add(d, active);
+            h4 = h4.add(e, active); h5 = h5.add(f, active); h6 = h6.add(g, active); h7 = h7.add(h, active);
+        }
+
+        int[] H = new int[8 * lanes];
+        h0.intoArray(H, 0 * lanes); h1.intoArray(H, 1 * lanes); h2.intoArray(H, 2 * lanes);
+        h3.intoArray(H, 3 * lanes); h4.intoArray(H, 4 * lanes); h5.intoArray(H, 5 * lanes);
+        h6.intoArray(H, 6 * lanes); h7.intoArray(H, 7 * lanes);
+
+        for (int i = 0; i < lanes; ++i)
+        {
+            byte[] digest = digests[order[off + i]];
+            for (int t = 0; t < 8; ++t)
+            {
+                Pack.intToBigEndian(H[t * lanes + i], digest, t * 4);
+            }
+        }
+    }
+
+    /**
+     * Hash the messages order[off] to order[off + LONG_LANES - 1] with SHA-512.
+     */
+    static void sha512(byte[][] messages, byte[][] digests, int[] order, int off)
+    {
+        final int lanes = LONG_LANES, blockSize = SHA512MultiBuffer.BLOCK_SIZE;
+
+        byte[][] tails = new byte[lanes][];
+        int[] full = new int[lanes];
+        long[] blocks = new long[lanes];
+        int maxBlocks = 0;
+        for (int i = 0; i < lanes; ++i)
+        {
+            byte[] m = messages[order[off + i]];
+            tails[i] = MultiBufferPadding.tail(m, blockSize, SHA512MultiBuffer.LENGTH_SIZE);
+            full[i] = m.length / blockSize;
+            blocks[i] = full[i] + tails[i].length / blockSize;
+            maxBlocks = Math.max(maxBlocks, (int)blocks[i]);
+        }
+
+        LongVector blockCounts = LongVector.fromArray(LONG_SPECIES, blocks, 0);
+
+        LongVector h0 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[0]);
+        LongVector h1 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[1]);
+        LongVector h2 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[2]);
+        LongVector h3 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[3]);
+        LongVector h4 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[4]);
+        LongVector h5 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[5]);
+        LongVector h6 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[6]);
+        LongVector h7 = LongVector.broadcast(LONG_SPECIES, SHA512MultiBuffer.IV[7]);
+
+        long[] w = new long[80 * lanes];
+        long[] word = new long[16];
+
+        for (int j = 0; j < maxBlocks; ++j)
+        {
+            for (int i = 0; i < lanes; ++i)
+            {
+                if (j < full[i])
+                {
+                    Pack.bigEndianToLong(messages[order[off + i]], j * blockSize, word);
+                }
+                else if (j < blocks[i])
+                {
+                    Pack.bigEndianToLong(tails[i], (j - full[i]) * blockSize, word);
+                }
+                for (int t = 0; t < 16; ++t)
+                {
+                    w[t * lanes + i] = word[t];
+                }
+            }
+
+            for (int t = 16; t < 80; ++t)
+            {
+                LongVector x2 = LongVector.fromArray(LONG_SPECIES, w, (t - 2) * lanes);
+                LongVector x15 = LongVector.fromArray(LONG_SPECIES, w, (t - 15) * lanes);
+
+                LongVector sigma1 = x2.lanewise(VectorOperators.ROR, 19)
+                    .lanewise(VectorOperators.XOR, x2.lanewise(VectorOperators.ROR, 61))
+                    .lanewise(VectorOperators.XOR, x2.lanewise(VectorOperators.LSHR, 6));
+                LongVector sigma0 = x15.lanewise(VectorOperators.ROR, 1)
+                    .lanewise(VectorOperators.XOR, x15.lanewise(VectorOperators.ROR, 8))
+                    .lanewise(VectorOperators.XOR, x15.lanewise(VectorOperators.LSHR, 7));
+
+                sigma1.add(LongVector.fromArray(LONG_SPECIES, w, (t - 7) * lanes))
+                    .add(sigma0)
+                    .add(LongVector.fromArray(LONG_SPECIES, w, (t - 16) * lanes))
+                    .intoArray(w, t * lanes);
+            }
+
+            LongVector a = h0, b = h1, c = h2, d = h3, e = h4, f = h5, g = h6, h = h7;
+
+            for (int t = 0; t < 80; ++t)
+            {
+                LongVector sum1 = e.lanewise(VectorOperators.ROR, 14)
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 41));
+                LongVector ch = e.and(f).lanewise(VectorOperators.XOR, e.not().and(g));
+                LongVector x = h.add(sum1).add(ch).add(LongDigest.K[t]).add(LongVector.fromArray(LONG_SPECIES, w, t * lanes));
+
+                LongVector sum0 = a.lanewise(VectorOperators.ROR, 28)
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 34))
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 39));
+                LongVector maj = a.and(b).or(c.and(a.lanewise(VectorOperators.XOR, b)));
+                LongVector y = sum0.add(maj);
+
+                h = g; g = f; f = e; e = d.add(x); d = c; c = b; b = a; a = x.add(y);
+            }
+
+            // lanes whose message has already finished are left as they are
+            VectorMask<Long> active = blockCounts.compare(VectorOperators.GT, j);
+            h0 = h0.add(a, active); h1 = h1.add(b, active); h2 = h2.add(c, active); h3 = h3.add(d, active);
+            h4 = h4.add(e, active); h5 = h5.add(f, active); h6 = h6.add(g, active); h7 = h7.add(h, active);
+        }
+
+        long[] H = new long[8 * lanes];
+        h0.intoArray(H, 0 * lanes); h1.intoArray(H, 1 * lanes); h2.intoArray(H, 2 * lanes);
+        h3.intoArray(H, 3 * lanes); h4.intoArray(H, 4 * lanes); h5.intoArray(H, 5 * lanes);
+        h6.intoArray(H, 6 * lanes); h7.intoArray(H, 7 * lanes);
+
+        for (int i = 0; i < lanes; ++i)
+        {
+            byte[] digest = digests[order[off + i]];
+            for (int t = 0; t < 8; ++t)
+            {
+                Pack.longToBigEndian(H[t * lanes + i], digest, t * 8);
+            }
+        }
+    }
+}
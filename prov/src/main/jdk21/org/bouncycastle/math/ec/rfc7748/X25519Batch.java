@@ -0,0 +1,54 @@
+package org.bouncycastle.math.ec.rfc7748;
+
+import java.util.Optional;
+
+/**
+ * Batch scalar multiplication for X25519, using the vector API to do several multiplications at once if the
+ * jdk.incubator.vector module is available (it has to be added with "--add-modules jdk.incubator.vector"), and
+ * working through the batch one at a time otherwise.
+ */
+class X25519Batch
+{
+    private static final int LANES = getLanes();
+
+    static void scalarMult(byte[][] ks, byte[][] us, byte[][] rs)
+    {
+        int count = ks.length, pos = 0;
+
+        if (LANES > 1)
+        {
+            while (count - pos >= LANES)
+            {
+                X25519Vector.scalarMult(ks, us, rs, pos);
+                pos += LANES;
+            }
+        }
+
+        while (pos < count)
+        {
+            X25519.scalarMult(ks[pos], 0, us[pos], 0, rs[pos], 0);
+            ++pos;
+        }
+    }
+
+    private static int getLanes()
+    {
+        try
+        {
+            Optional<Module> vector = ModuleLayer.boot().findModule("jdk.incubator.vector");
+            if (vector.isEmpty())
+            {
+                return 0;
+            }
+
+            X25519Batch.class.getModule().addReads(vector.get());
+
+            return X25519Vector.LANES;
+        }
+        catch (Throwable e)
+        {
+            // NOTE: The vector API is an incubator module - fall back to the scalar code if anything is amiss
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package org.bouncycastle.math.ec.rfc7748;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * X25519 scalar multiplication for several independent (k, u) pairs at once, one pair per lane of a long vector.
+ * <p>
+ * Field elements are held as 10 limbs of alternately 26 and 25 bits (radix 2^25.5), each limb being a long vector
+ * across the lanes; a batch of field elements is stored limb-major in a long[] of 10 * LANES entries. The ladder is
+ * the same as in {@link X25519#scalarMult(byte[], int, byte[], int, byte[], int)}, with a per-lane swap mask, so it
+ * takes the same time whatever the scalars.
+ * </p>
+ */
+class X25519Vector
+{
+    static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    static final int LANES = SPECIES.length();
+
+    private static final int SIZE = 10;
+    private static final long M25 = 0x01FFFFFFL;
+    private static final long M26 = 0x03FFFFFFL;
+    private static final int C_A24 = (486662 + 2) / 4;
+
+    private X25519Vector()
+    {
+    }
+
+    /**
+     * Calculate rs[off + i] = X25519(ks[off + i], us[off + i]) for i in [0, LANES).
+     */
+    static void scalarMult(byte[][] ks, byte[][] us, byte[][] rs, int off)
+    {
+        int[][] n = new int[LANES][8];
+        long[] x1 = new long[SIZE * LANES];
+
+        long[] limbs = new long[SIZE];
+        for (int lane = 0; lane < LANES; ++lane)
+        {
+            decodeScalar(ks[off + lane], n[lane]);
+
+            decodeU(us[off + lane], limbs);
+            for (int i = 0; i < SIZE; ++i)
+            {
+                x1[i * LANES + lane] = limbs[i];
+            }
+        }
+
+        long[] x2 = x1.clone();
+        long[] z2 = new long[SIZE * LANES];     setOne(z2);
+        long[] x3 = new long[SIZE * LANES];     setOne(x3);
+        long[] z3 = new long[SIZE * LANES];
+
+        long[] t1 = new long[SIZE * LANES];
+        long[] t2 = new long[SIZE * LANES];
+        long[] swapMask = new long[LANES];
+        int[] swap = new int[LANES];
+        Arrays.fill(swap, 1);
+
+        int bit = 254;
+        do
+        {
+            apm(x3, z3, t1, x3);
+            apm(x2, z2, z3, x2);
+            mul(t1, x2, t1);
+            mul(x3, z3, x3);
+            mul(z3, z3, z3);
+            mul(x2, x2, x2);
+
+            sub(z3, x2, t2);
+            mulA24(t2, z2);
+            add(z2, x2, z2);
+            mul(z2, t2, z2);
+            mul(x2, z3, x2);
+
+            apm(t1, x3, x3, z3);
+            mul(x3, x3, x3);
+            mul(z3, z3, z3);
+            mul(z3, x1, z3);
+
+            --bit;
+
+            int word = bit >>> 5, shift = bit & 0x1F;
+            for (int lane = 0; lane < LANES; ++lane)
+            {
+                int kt = (n[lane][word] >>> shift) & 1;
+                swapMask[lane] = -(long)(swap[lane] ^ kt);
+                swap[lane] = kt;
+            }
+            cswap(swapMask, x2, x3);
+            cswap(swapMask, z2, z3);
+        }
+        while (bit >= 3);
+
+        for (int i = 0; i < 3; ++i)
+        {
+            pointDouble(x2, z2, t1, t2);
+        }
+
+        inv(z2, t1, t2, z3);
+        mul(x2, z3, x2);
+
+        for (int lane = 0; lane < LANES; ++lane)
+        {
+            for (int i = 0; i < SIZE; ++i)
+            {
+                limbs[i] = x2[i * LANES + lane];
+            }
+            encode(limbs, rs[off + lane]);
+        }
+    }
+
+    private static void pointDouble(long[] x, long[] z, long[] a, long[] b)
+    {
+        apm(x, z, a, b);
+        mul(a, a, a);
+        mul(b, b, b);
+        mul(a, b, x);
+        sub(a, b, a);
+        mulA24(a, z);
+        add(z, b, z);
+        mul(z, a, z);
+    }
+
+    private static void inv(long[] x, long[] t, long[] u, long[] z)
+    {
+        // z = x^(p - 2), p - 2 = 2^255 - 21, using the addition chain from ref10
+        long[] t0 = new long[SIZE * LANES];
+
+        mul(x, x, t0);                  // 2
+        sqrN(t0, 2, t);                 // 8
+        mul(x, t, t);                   // 9
+        mul(t0, t, t0);                 // 11
+        mul(t0, t0, u);                 // 22
+        mul(t, u, t);                   // 2^5 - 2^0
+        sqrN(t, 5, u);
+        mul(u, t, t);                   // 2^10 - 2^0
+        sqrN(t, 10, u);
+        mul(u, t, u);                   // 2^20 - 2^0
+        sqrN(u, 20, z);
+        mul(z, u, u);                   // 2^40 - 2^0
+        sqrN(u, 10, u);
+        mul(u, t, t);                   // 2^50 - 2^0
+        sqrN(t, 50, u);
+        mul(u, t, u);                   // 2^100 - 2^0
+        sqrN(u, 100, z);
+        mul(z, u, u);                   // 2^200 - 2^0
+        sqrN(u, 50, u);
+        mul(u, t, u);                   // 2^250 - 2^0
+        sqrN(u, 5, u);
+        mul(u, t0, z);                  // 2^255 - 2^5 + 11
+    }
+
+    private static void sqrN(long[] x, int n, long[] z)
+    {
+        mul(x, x, z);
+        while (--n > 0)
+        {
+            mul(z, z, z);
+        }
+    }
+
+    private static void setOne(long[] z)
+    {
+        Arrays.fill(z, 0, LANES, 1L);
+    }
+
+    private static void add(long[] x, long[] y, long[] z)
+    {
+        for (int i = 0; i < SIZE * LANES; i += LANES)
+        {
+            LongVector.fromArray(SPECIES, x, i).add(LongVector.fromArray(SPECIES, y, i)).intoArray(z, i);
+        }
+    }
+
+    private static void sub(long[] x, long[] y, long[] z)
+    {
+        for (int i = 0; i < SIZE * LANES; i += LANES)
+        {
+            LongVector.fromArray(SPECIES, x, i).sub(LongVector.fromArray(SPECIES, y, i)).intoArray(z, i);
+        }
+    }
+
+    private static void apm(long[] x, long[] y, long[] zp, long[] zm)
+    {
+        for (int i = 0; i < SIZE * LANES; i += LANES)
+        {
+            LongVector xi = LongVector.fromArray(SPECIES, x, i);
+            LongVector yi = LongVector.fromArray(SPECIES, y, i);
+            xi.add(yi).intoArray(zp, i);
+            xi.sub(yi).intoArray(zm, i);
+        }
+    }
+
+    private static void cswap(long[] mask, long[] a, long[] b)
+    {
+        LongVector m = LongVector.fromArray(SPECIES, mask, 0);
+        for (int i = 0; i < SIZE * LANES; i += LANES)
+        {
+            LongVector ai = LongVector.fromArray(SPECIES, a, i);
+            LongVector bi = LongVector.fromArray(SPECIES, b, i);
+            LongVector dummy = ai.lanewise(VectorOperators.XOR, bi).and(m);
+            ai.lanewise(VectorOperators.XOR, dummy).intoArray(a, i);
+            bi.lanewise(VectorOperators.XOR, dummy).intoArray(b, i);
+        }
+    }
+
+    private static void mulA24(long[] x, long[] z)
+    {
+        LongVector h0 = LongVector.fromArray(SPECIES, x, 0 * LANES).mul(C_A24);
+        LongVector h1 = LongVector.fromArray(SPECIES, x, 1 * LANES).mul(C_A24);
+        LongVector h2 = LongVector.fromArray(SPECIES, x, 2 * LANES).mul(C_A24);
+        LongVector h3 = LongVector.fromArray(SPECIES, x, 3 * LANES).mul(C_A24);
+        LongVector h4 = LongVector.fromArray(SPECIES, x, 4 * LANES).mul(C_A24);
+        LongVector h5 = LongVector.fromArray(SPECIES, x, 5 * LANES).mul(C_A24);
+        LongVector h6 = LongVector.fromArray(SPECIES, x, 6 * LANES).mul(C_A24);
+        LongVector h7 = LongVector.fromArray(SPECIES, x, 7 * LANES).mul(C_A24);
+        LongVector h8 = LongVector.fromArray(SPECIES, x, 8 * LANES).mul(C_A24);
+        LongVector h9 = LongVector.fromArray(SPECIES, x, 9 * LANES).mul(C_A24);
+
+        carry(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+    /*
+     * z = x * y. Input limbs must be less than 2^27 in magnitude (e.g. a sum or difference of carried values); output
+     * limbs are carried, to 26 bits (even limbs) or 25 bits (odd limbs) plus a small excess.
+     */
+    private static void mul(long[] x, long[] y, long[] z)
+    {
+        LongVector f0 = LongVector.fromArray(SPECIES, x, 0 * LANES);
+        LongVector f1 = LongVector.fromArray(SPECIES, x, 1 * LANES);
+        LongVector f2 = LongVector.fromArray(SPECIES, x, 2 * LANES);
+        LongVector f3 = LongVector.fromArray(SPECIES, x, 3 * LANES);
+        LongVector f4 = LongVector.fromArray(SPECIES, x, 4 * LANES);
+        LongVector f5 = LongVector.fromArray(SPECIES, x, 5 * LANES);
+        LongVector f6 = LongVector.fromArray(SPECIES, x, 6 * LANES);
+        LongVector f7 = LongVector.fromArray(SPECIES, x, 7 * LANES);
+        LongVector f8 = LongVector.fromArray(SPECIES, x, 8 * LANES);
+        LongVector f9 = LongVector.fromArray(SPECIES, x, 9 * LANES);
+
+        LongVector g0 = LongVector.fromArray(SPECIES, y, 0 * LANES);
+        LongVector g1 = LongVector.fromArray(SPECIES, y, 1 * LANES);
+        LongVector g2 = LongVector.fromArray(SPECIES, y, 2 * LANES);
+        LongVector g3 = LongVector.fromArray(SPECIES, y, 3 * LANES);
+        LongVector g4 = LongVector.fromArray(SPECIES, y, 4 * LANES);
+        LongVector g5 = LongVector.fromArray(SPECIES, y, 5 * LANES);
+        LongVector g6 = LongVector.fromArray(SPECIES, y, 6 * LANES);
+        LongVector g7 = LongVector.fromArray(SPECIES, y, 7 * LANES);
+        LongVector g8 = LongVector.fromArray(SPECIES, y, 8 * LANES);
+        LongVector g9 = LongVector.fromArray(SPECIES, y, 9 * LANES);
+
+        // Terms that wrap past 2^255 are multiplied by 19; odd-by-odd limb products carry an extra factor of 2
+        LongVector g1_19 = g1.mul(19), g2_19 = g2.mul(19), g3_19 = g3.mul(19), g4_19 = g4.mul(19);
+        LongVector g5_19 = g5.mul(19), g6_19 = g6.mul(19), g7_19 = g7.mul(19), g8_19 = g8.mul(19);
+        LongVector g9_19 = g9.mul(19);
+        LongVector f1_2 = f1.add(f1), f3_2 = f3.add(f3), f5_2 = f5.add(f5), f7_2 = f7.add(f7), f9_2 = f9.add(f9);
+
+        LongVector h0 = f0.mul(g0).add(f1_2.mul(g9_19)).add(f2.mul(g8_19)).add(f3_2.mul(g7_19)).add(f4.mul(g6_19))
+            .add(f5_2.mul(g5_19)).add(f6.mul(g4_19)).add(f7_2.mul(g3_19)).add(f8.mul(g2_19)).add(f9_2.mul(g1_19));
+        LongVector h1 = f0.mul(g1).add(f1.mul(g0)).add(f2.mul(g9_19)).add(f3.mul(g8_19)).add(f4.mul(g7_19))
+            .add(f5.mul(g6_19)).add(f6.mul(g5_19)).add(f7.mul(g4_19)).add(f8.mul(g3_19)).add(f9.mul(g2_19));
+        LongVector h2 = f0.mul(g2).add(f1_2.mul(g1)).add(f2.mul(g0)).add(f3_2.mul(g9_19)).add(f4.mul(g8_19))
+            .add(f5_2.mul(g7_19)).add(f6.mul(g6_19)).add(f7_2.mul(g5_19)).add(f8.mul(g4_19)).add(f9_2.mul(g3_19));
+        LongVector h3 = f0.mul(g3).add(f1.mul(g2)).add(f2.mul(g1)).add(f3.mul(g0)).add(f4.mul(g9_19))
+            .add(f5.mul(g8_19)).add(f6.mul(g7_19)).add(f7.mul(g6_19)).add(f8.mul(g5_19)).add(f9.mul(g4_19));
+        LongVector h4 = f0.mul(g4).add(f1_2.mul(g3)).add(f2.mul(g2)).add(f3_2.mul(g1)).add(f4.mul(g0))
+            .add(f5_2.mul(g9_19)).add(f6.mul(g8_19)).add(f7_2.mul(g7_19)).add(f8.mul(g6_19)).add(f9_2.mul(g5_19));
+        LongVector h5 = f0.mul(g5).add(f1.mul(g4)).add(f2.mul(g3)).add(f3.mul(g2)).add(f4.mul(g1))
+            .add(f5.mul(g0)).add(f6.mul(g9_19)).add(f7.mul(g8_19)).add(f8.mul(g7_19)).add(f9.mul(g6_19));
+        LongVector h6 = f0.mul(g6).add(f1_2.mul(g5)).add(f2.mul(g4)).add(f3_2.mul(g3)).add(f4.mul(g2))
+            .add(f5_2.mul(g1)).add(f6.mul(g0)).add(f7_2.mul(g9_19)).add(f8.mul(g8_19)).add(f9_2.mul(g7_19));
+        LongVector h7 = f0.mul(g7).add(f1.mul(g6)).add(f2.mul(g5)).add(f3.mul(g4)).add(f4.mul(g3))
+            .add(f5.mul(g2)).add(f6.mul(g1)).add(f7.mul(g0)).add(f8.mul(g9_19)).add(f9.mul(g8_19));
+        LongVector h8 = f0.mul(g8).add(f1_2.mul(g7)).add(f2.mul(g6)).add(f3_2.mul(g5)).add(f4.mul(g4))
+            .add(f5_2.mul(g3)).add(f6.mul(g2)).add(f7_2.mul(g1)).add(f8.mul(g0)).add(f9_2.mul(g9_19));
+        LongVector h9 = f0.mul(g9).add(f1.mul(g8)).add(f2.mul(g7)).add(f3.mul(g6)).add(f4.mul(g5))
+            .add(f5.mul(g4)).add(f6.mul(g3)).add(f7.mul(g2)).add(f8.mul(g1)).add(f9.mul(g0));
+
+        carry(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+    private static void carry(LongVector h0, LongVector h1, LongVector h2, LongVector h3, LongVector h4,
+        LongVector h5, LongVector h6, LongVector h7, LongVector h8, LongVector h9, long[] z)
+    {
+        LongVector c;
+
+        c = h0.lanewise(VectorOperators.ASHR, 26); h1 = h1.add(c); h0 = h0.and(M26);
+        c = h4.lanewise(VectorOperators.ASHR, 26); h5 = h5.add(c); h4 = h4.and(M26);
+        c = h1.lanewise(VectorOperators.ASHR, 25); h2 = h2.add(c); h1 = h1.and(M25);
+        c = h5.lanewise(VectorOperators.ASHR, 25); h6 = h6.add(c); h5 = h5.and(M25);
+        c = h2.lanewise(VectorOperators.ASHR, 26); h3 = h3.add(c); h2 = h2.and(M26);
+        c = h6.lanewise(VectorOperators.ASHR, 26); h7 = h7.add(c); h6 = h6.and(M26);
+        c = h3.lanewise(VectorOperators.ASHR, 25); h4 = h4.add(c); h3 = h3.and(M25);
+        c = h7.lanewise(VectorOperators.ASHR, 25); h8 = h8.add(c); h7 = h7.and(M25);
+        c = h4.lanewise(VectorOperators.ASHR, 26); h5 = h5.add(c); h4 = h4.and(M26);
+        c = h8.lanewise(VectorOperators.ASHR, 26); h9 = h9.add(c); h8 = h8.and(M26);
+        c = h9.lanewise(VectorOperators.ASHR, 25); h0 = h0.add(c.mul(19)); h9 = h9.and(M25);
+        c = h0.lanewise(VectorOperators.ASHR, 26); h1 = h1.add(c); h0 = h0.and(M26);
+
+        h0.intoArray(z, 0 * LANES);
+        h1.intoArray(z, 1 * LANES);
+        h2.intoArray(z, 2 * LANES);
+        h3.intoArray(z, 3 * LANES);
+        h4.intoArray(z, 4 * LANES);
+        h5.intoArray(z, 5 * LANES);
+        h6.intoArray(z, 6 * LANES);
+        h7.intoArray(z, 7 * LANES);
+        h8.intoArray(z, 8 * LANES);
+        h9.intoArray(z, 9 * LANES);
+    }
+
+    private static int limbBits(int i)
+    {
+        return 26 - (i & 1);
+    }
+
+    private static void decodeScalar(byte[] k, int[] n)
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            int off = i * 4;
+            n[i] = (k[off] & 0xFF) | (k[off + 1] & 0xFF) << 8 | (k[off + 2] & 0xFF) << 16 | k[off + 3] << 24;
+        }
+
+        n[0] &= 0xFFFFFFF8;
+        n[7] &= 0x7FFFFFFF;
+        n[7] |= 0x40000000;
+    }
+
+    private static void decodeU(byte[] u, long[] z)
+    {
+        // The top bit of u is ignored, as per RFC 7748
+        long acc = 0;
+        int bits = 0, pos = 0;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            int limbBits = limbBits(i);
+            while (bits < limbBits)
+            {
+                long b = u[pos++] & 0xFF;
+                if (pos == 32)
+                {
+                    b &= 0x7F;
+                }
+                acc |= b << bits;
+                bits += 8;
+            }
+            z[i] = acc & ((1L << limbBits) - 1);
+            acc >>>= limbBits;
+            bits -= limbBits;
+        }
+    }
+
+    private static void encode(long[] h, byte[] r)
+    {
+        // Reduce fully modulo p = 2^255 - 19 (as in ref10's fe_tobytes)
+        long q = (19 * h[9] + (1L << 24)) >> 25;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            q = (h[i] + q) >> limbBits(i);
+        }
+
+        h[0] += 19 * q;
+        for (int i = 0; i < SIZE - 1; ++i)
+        {
+            int limbBits = limbBits(i);
+            long c = h[i] >> limbBits;
+            h[i + 1] += c;
+            h[i] -= c << limbBits;
+        }
+        h[SIZE - 1] &= M25;
+
+        long acc = 0;
+        int bits = 0, pos = 0;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            acc |= h[i] << bits;
+            bits += limbBits(i);
+            while (bits >= 8)
+            {
+                r[pos++] = (byte)acc;
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+        r[pos] = (byte)acc;
+    }
+}
@@ -1,10 +1,17 @@
 package org.bouncycastle.jcajce.provider.test;
 
+import java.security.Provider;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
 
 public class RandomTest
     extends TestCase
@@ -33,6 +40,70 @@ public void testCheckNonceIVRandom()
         Assert.assertTrue(checkNonConstant(rng));
     }
 
+    public void testCheckPooledRandom()
+        throws Exception
+    {
+        SecureRandom random = SecureRandom.getInstance("POOLED", new BouncyCastleProvider());
+
+        byte[] rng = new byte[20];
+
+        random.nextBytes(rng);
+
+        Assert.assertTrue(checkNonConstant(rng));
+    }
+
+    public void testPooledRandomConcurrent()
+        throws Exception
+    {
+        Provider provider = new BouncyCastleProvider();
+
+        Assert.assertEquals("true", provider.getService("SecureRandom", "POOLED").getAttribute("ThreadSafe"));
+
+        final SecureRandom random = SecureRandom.getInstance("POOLED", provider);
+        final Set<String> outputs = Collections.synchronizedSet(new HashSet<String>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        final int threadCount = 8, requestsPerThread = 1000;
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t != threadCount; t++)
+        {
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i != requestsPerThread; i++)
+                        {
+                            byte[] rng = new byte[32];
+                            random.nextBytes(rng);
+                            outputs.add(Hex.toHexString(rng));
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t != threadCount; t++)
+        {
+            threads[t].start();
+        }
+        for (int t = 0; t != threadCount; t++)
+        {
+            threads[t].join();
+        }
+
+        Assert.assertTrue(failures.toString(), failures.isEmpty());
+
+        // No output may be handed to two callers
+        Assert.assertEquals(threadCount * requestsPerThread, outputs.size());
+    }
+
     private boolean checkNonConstant(byte[] data)
     {
         for (int i = 1; i != data.length; i++)
@@ -6,6 +6,7 @@
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
 import java.security.InvalidParameterException;
 import java.security.Key;
 import java.security.KeyFactory;
@@ -36,6 +37,7 @@
 import org.bouncycastle.asn1.edec.EdECObjectIdentifiers;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.jcajce.Ed25519BatchVerifier;
 import org.bouncycastle.jcajce.interfaces.EdDSAPrivateKey;
 import org.bouncycastle.jcajce.spec.DHUParameterSpec;
 import org.bouncycastle.jcajce.spec.EdDSAParameterSpec;
@@ -179,6 +181,7 @@ public void performTest()
         x25519AgreementTest();
         ed448SignatureTest();
         ed25519SignatureTest();
+        ed25519BatchVerifierTest();
         x448withCKDFTest();
         x25519withCKDFTest();
         x448withKDFTest();
@@ -737,6 +740,54 @@ private void signatureTest(String algorithm)
         isTrue(signature.verify(sig));
     }
 
+    private void ed25519BatchVerifierTest()
+        throws Exception
+    {
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("Ed25519", "BC");
+        Signature signature = Signature.getInstance("Ed25519", "BC");
+        Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(new SecureRandom());
+
+        int count = 8;
+        for (int i = 0; i < count; ++i)
+        {
+            KeyPair kp = kpGen.generateKeyPair();
+            byte[] msg = Strings.toByteArray("Hello, world! #" + i);
+
+            signature.initSign(kp.getPrivate());
+            signature.update(msg);
+            byte[] sig = signature.sign();
+
+            if (i == 5)
+            {
+                sig[0] ^= 0x01;
+            }
+
+            verifier.add(kp.getPublic(), msg, sig);
+        }
+
+        isEquals(count, verifier.size());
+
+        boolean[] results = new boolean[count];
+        isTrue(!verifier.verify(results));
+        isEquals(0, verifier.size());
+
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("batch result " + i, results[i] == (i != 5));
+        }
+
+        try
+        {
+            verifier.add(KeyPairGenerator.getInstance("Ed448", "BC").generateKeyPair().getPublic(), new byte[1],
+                new byte[114]);
+            fail("Ed448 key accepted");
+        }
+        catch (InvalidKeyException e)
+        {
+            // expected
+        }
+    }
+
     private void testPKCS8Override()
         throws Exception
     {
@@ -19,6 +19,8 @@ public static Test suite()
     {
         TestSuite suite = new TestSuite("JDK21 Provider Tests");
         suite.addTestSuite(SNTRUPrimeKEMTest.class);
+        suite.addTestSuite(X25519BatchTest.class);
+        suite.addTestSuite(SHA2MultiBufferTest.class);
         return suite;
     }
 }
@@ -0,0 +1,71 @@
+package org.bouncycastle.jcacje.provider.test;
+
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBuffer;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBuffer;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Check the multi-buffer SHA-2 digests against the single message ones. With the jdk.incubator.vector module added
+ * this covers the vector API version, without it the fallback.
+ */
+public class SHA2MultiBufferTest
+    extends TestCase
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public void testSHA256()
+    {
+        for (int count = 0; count <= 50; ++count)
+        {
+            byte[][] messages = randomMessages(count);
+            byte[][] digests = new byte[count][SHA256MultiBuffer.DIGEST_LENGTH];
+
+            SHA256MultiBuffer.digest(messages, digests);
+
+            checkDigests(new SHA256Digest(), messages, digests);
+        }
+    }
+
+    public void testSHA512()
+    {
+        for (int count = 0; count <= 50; ++count)
+        {
+            byte[][] messages = randomMessages(count);
+            byte[][] digests = new byte[count][SHA512MultiBuffer.DIGEST_LENGTH];
+
+            SHA512MultiBuffer.digest(messages, digests);
+
+            checkDigests(new SHA512Digest(), messages, digests);
+        }
+    }
+
+    private static byte[][] randomMessages(int count)
+    {
+        byte[][] messages = new byte[count][];
+        for (int i = 0; i < count; ++i)
+        {
+            messages[i] = new byte[RANDOM.nextInt(4) == 0 ? RANDOM.nextInt(4096) : RANDOM.nextInt(260)];
+            RANDOM.nextBytes(messages[i]);
+        }
+        return messages;
+    }
+
+    private static void checkDigests(Digest digest, byte[][] messages, byte[][] digests)
+    {
+        byte[] expected = new byte[digest.getDigestSize()];
+        for (int i = 0; i < messages.length; ++i)
+        {
+            digest.update(messages[i], 0, messages[i].length);
+            digest.doFinal(expected, 0);
+
+            assertTrue(digest.getAlgorithmName() + " #" + i + " of " + messages.length,
+                Arrays.areEqual(expected, digests[i]));
+        }
+    }
+}
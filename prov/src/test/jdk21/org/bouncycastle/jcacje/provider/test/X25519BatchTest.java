@@ -0,0 +1,101 @@
+package org.bouncycastle.jcacje.provider.test;
+
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.math.ec.rfc7748.X25519;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Check the batch X25519 code against single scalar multiplications. With the jdk.incubator.vector module added this
+ * covers the vector API version, without it the fallback.
+ */
+public class X25519BatchTest
+    extends TestCase
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public void testRandomBatches()
+    {
+        for (int count = 0; count <= 35; ++count)
+        {
+            byte[][] ks = new byte[count][X25519.SCALAR_SIZE];
+            byte[][] us = new byte[count][X25519.POINT_SIZE];
+            byte[][] rs = new byte[count][X25519.POINT_SIZE];
+
+            for (int i = 0; i < count; ++i)
+            {
+                RANDOM.nextBytes(ks[i]);
+                RANDOM.nextBytes(us[i]);
+            }
+
+            X25519.scalarMultBatch(ks, us, rs);
+
+            byte[] r = new byte[X25519.POINT_SIZE];
+            for (int i = 0; i < count; ++i)
+            {
+                X25519.scalarMult(ks[i], 0, us[i], 0, r, 0);
+                assertTrue("Batch " + count + " #" + i, Arrays.areEqual(r, rs[i]));
+            }
+        }
+    }
+
+    public void testEdgeValues()
+    {
+        // u values at and around p = 2^255 - 19, with and without the (ignored) top bit, and small order points
+        String[] uValues = {
+            "0000000000000000000000000000000000000000000000000000000000000000",
+            "0100000000000000000000000000000000000000000000000000000000000000",
+            "ecffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f",
+            "edffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f",
+            "eeffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f",
+            "ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff",
+            "e0eb7a7c3b41b8ae1656e3faf19fc46ada098deb9c32b1fd866205165f49b800",
+            "5f9c95bca3508c24b1d0b1559c83ef5b04445cc4581c8e86d8224eddd09f1157",
+        };
+
+        int count = uValues.length * 3;
+        byte[][] ks = new byte[count][X25519.SCALAR_SIZE];
+        byte[][] us = new byte[count][];
+        byte[][] rs = new byte[count][X25519.POINT_SIZE];
+
+        for (int i = 0; i < count; ++i)
+        {
+            RANDOM.nextBytes(ks[i]);
+            us[i] = Hex.decode(uValues[i % uValues.length]);
+        }
+
+        X25519.scalarMultBatch(ks, us, rs);
+
+        byte[] r = new byte[X25519.POINT_SIZE];
+        for (int i = 0; i < count; ++i)
+        {
+            X25519.scalarMult(ks[i], 0, us[i], 0, r, 0);
+            assertTrue("Edge value #" + i, Arrays.areEqual(r, rs[i]));
+        }
+    }
+
+    public void testRFC7748Vectors()
+    {
+        byte[][] ks = new byte[16][];
+        byte[][] us = new byte[16][];
+        byte[][] rs = new byte[16][X25519.POINT_SIZE];
+
+        for (int i = 0; i < 16; i += 2)
+        {
+            ks[i] = Hex.decode("a546e36bf0527c9d3b16154b82465edd62144c0ac1fc5a18506a2244ba449ac4");
+            us[i] = Hex.decode("e6db6867583030db3594c1a424b15f7c726624ec26b3353b10a903a6d0ab1c4c");
+            ks[i + 1] = Hex.decode("4b66e9d4d1b4673c5ad22691957d6af5c11b6421e0ea01d42ca4169e7918ba0d");
+            us[i + 1] = Hex.decode("e5210f12786811d3f4b7959d0538ae2c31dbe7106fc03c3efc4cd549c715a493");
+        }
+
+        X25519.scalarMultBatch(ks, us, rs);
+
+        for (int i = 0; i < 16; i += 2)
+        {
+            assertTrue(Arrays.areEqual(Hex.decode("c3da55379de9c6908e94ea4df28d084f32eccf03491c71f754b4075577a28552"), rs[i]));
+            assertTrue(Arrays.areEqual(Hex.decode("95cbde9476e8907d7aade45cb4b873f88b595a68799fa152e6f8f7647aac7957"), rs[i + 1]));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.bouncycastle.jsse;
+
+import javax.net.ssl.SSLSessionContext;
+
+import org.bouncycastle.tls.TicketKeyManager;
+
+/**
+ * A BCJSSE-specific interface providing access to extended session context functionality: counters
+ * describing the behaviour of the session cache, and the management of keys for TLS 1.3 session tickets.
+ * <p>
+ * The counters are maintained without synchronization between them, so a set of values read together
+ * is only approximately consistent while the cache is in use.
+ * </p>
+ */
+public interface BCSSLSessionContext
+    extends SSLSessionContext
+{
+    /**
+     * Returns the number of session lookups that found a valid cached session.
+     *
+     * @return The cache hit count.
+     */
+    long getCacheHitCount();
+
+    /**
+     * Returns the number of session lookups that did not find a valid cached session, including those
+     * that found a session which had expired or been invalidated.
+     *
+     * @return The cache miss count.
+     */
+    long getCacheMissCount();
+
+    /**
+     * Returns the number of sessions removed from the cache to keep it within the session cache size.
+     *
+     * @return The cache eviction count.
+     */
+    long getCacheEvictionCount();
+
+    /**
+     * Returns the {@link TicketKeyManager} protecting the TLS 1.3 session tickets issued by servers using this
+     * session context. Unless one has been set explicitly, a default (per-context) manager is created when
+     * the system property "org.bouncycastle.jsse.server.enableSessionTickets" is true.
+     *
+     * @return The ticket key manager, or null if session tickets are not issued.
+     */
+    TicketKeyManager getTicketKeyManager();
+
+    /**
+     * Sets the {@link TicketKeyManager} protecting the TLS 1.3 session tickets issued by servers using this
+     * session context. Servers that share ticket keys (e.g. behind a load balancer) can resume each other's
+     * sessions without any server-side session state.
+     *
+     * @param ticketKeyManager
+     *            The ticket key manager to use, or null to stop issuing (and accepting) session tickets.
+     */
+    void setTicketKeyManager(TicketKeyManager ticketKeyManager);
+}
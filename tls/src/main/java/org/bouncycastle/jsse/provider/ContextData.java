@@ -27,8 +27,8 @@
         this.crypto = crypto;
         this.x509KeyManager = x509KeyManager;
         this.x509TrustManager = x509TrustManager;
-        this.clientSessionContext = new ProvSSLSessionContext(this);
-        this.serverSessionContext = new ProvSSLSessionContext(this);
+        this.clientSessionContext = ProvSSLSessionContext.create(this);
+        this.serverSessionContext = ProvSSLSessionContext.create(this);
         this.namedGroups = NamedGroupInfo.createPerContext(context.isFips(), crypto);
         this.signatureSchemes = SignatureSchemeInfo.createPerContext(context.isFips(), crypto, namedGroups);
     }
@@ -13,21 +13,41 @@
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLSession;
-import javax.net.ssl.SSLSessionContext;
 
+import org.bouncycastle.jsse.BCSSLSessionContext;
+import org.bouncycastle.tls.DefaultTicketKeyManager;
 import org.bouncycastle.tls.SessionID;
+import org.bouncycastle.tls.TicketKeyManager;
 import org.bouncycastle.tls.TlsSession;
 import org.bouncycastle.tls.TlsUtils;
 import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
 
 class ProvSSLSessionContext
-    implements SSLSessionContext
+    implements BCSSLSessionContext
 {
     private static final Logger LOG = Logger.getLogger(ProvSSLSessionContext.class.getName());
 
     private static final int provSessionCacheSize = PropertyUtils
         .getIntegerSystemProperty("javax.net.ssl.sessionCacheSize", 20480, 0, Integer.MAX_VALUE);
 
+    private static final boolean provServerEnableSessionTickets = PropertyUtils
+        .getBooleanSystemProperty("org.bouncycastle.jsse.server.enableSessionTickets", false);
+
+    private static final int provServerSessionTicketKeyRotation = PropertyUtils.getIntegerSystemProperty(
+        "org.bouncycastle.jsse.server.sessionTicketKeyRotation", (int)DefaultTicketKeyManager.DEFAULT_ROTATION_PERIOD,
+        1, Integer.MAX_VALUE);
+
+    static ProvSSLSessionContext create(ContextData contextData)
+    {
+        // NOTE: Read for each new context rather than once, so that it can differ between contexts
+        boolean sharded = PropertyUtils.getBooleanSystemProperty("org.bouncycastle.jsse.sessionCache.sharded",
+            false);
+
+        return sharded
+            ?   new ProvSSLSessionContextSharded(contextData)
+            :   new ProvSSLSessionContext(contextData);
+    }
+
     // NOTE: This is configured as a simple LRU cache using the "access order" constructor
     @SuppressWarnings("serial")
     protected final Map<SessionID, SessionEntry> sessionsByID = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true)
@@ -38,6 +58,7 @@ protected boolean removeEldestEntry(Map.Entry<SessionID, SessionEntry> eldest)
             if (shouldRemove)
             {
                 removeSessionByPeer(eldest.getValue());
+                ++cacheEvictions;
             }
             return shouldRemove;
         }
@@ -47,8 +68,15 @@ protected boolean removeEldestEntry(Map.Entry<SessionID, SessionEntry> eldest)
 
     protected final ContextData contextData;
 
-    protected int sessionCacheSize = provSessionCacheSize;
-    protected int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+    protected volatile int sessionCacheSize = provSessionCacheSize;
+    protected volatile int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+
+    protected long cacheHits = 0L, cacheMisses = 0L, cacheEvictions = 0L;
+
+    // NOTE: Kept apart from the cache lock, since servers consult it on every TLS 1.3 handshake
+    private final Object ticketKeyManagerLock = new Object();
+    private volatile TicketKeyManager ticketKeyManager = null;
+    private volatile boolean ticketKeyManagerSet = false;
 
     ProvSSLSessionContext(ContextData contextData)
     {
@@ -69,21 +97,23 @@ synchronized ProvSSLSession getSessionImpl(byte[] sessionID)
     {
         processQueue();
 
-        return accessSession(mapGet(sessionsByID, makeSessionID(sessionID)));
+        SessionID key = makeSessionID(sessionID);
+        return countLookup(key, accessSession(mapGet(sessionsByID, key)));
     }
 
     synchronized ProvSSLSession getSessionImpl(String hostName, int port)
     {
         processQueue();
 
-        SessionEntry sessionEntry = mapGet(sessionsByPeer, makePeerKey(hostName, port));
+        String peerKey = makePeerKey(hostName, port);
+        SessionEntry sessionEntry = mapGet(sessionsByPeer, peerKey);
         ProvSSLSession session = accessSession(sessionEntry);
         if (session != null)
         {
             // NOTE: For the current simple cache implementation, need to 'access' the sessionByIDs entry
             sessionsByID.get(sessionEntry.getSessionID());
         }
-        return session;
+        return countLookup(peerKey, session);
     }
 
     synchronized void removeSession(byte[] sessionID)
@@ -140,6 +170,21 @@ public synchronized Enumeration<byte[]> getIds()
         return Collections.enumeration(ids);
     }
 
+    public synchronized long getCacheHitCount()
+    {
+        return cacheHits;
+    }
+
+    public synchronized long getCacheMissCount()
+    {
+        return cacheMisses;
+    }
+
+    public synchronized long getCacheEvictionCount()
+    {
+        return cacheEvictions;
+    }
+
     public SSLSession getSession(byte[] sessionID)
     {
         if (sessionID == null)
@@ -189,11 +234,51 @@ public synchronized void setSessionCacheSize(int size) throws IllegalArgumentExc
                     iter.remove();
                     removeSessionByPeer(sessionEntry);
                     --currentSize;
+                    ++cacheEvictions;
                 }
             }
         }
     }
 
+    public TicketKeyManager getTicketKeyManager()
+    {
+        if (ticketKeyManagerSet)
+        {
+            return ticketKeyManager;
+        }
+
+        synchronized (ticketKeyManagerLock)
+        {
+            if (!ticketKeyManagerSet)
+            {
+                if (provServerEnableSessionTickets)
+                {
+                    /*
+                     * NOTE: The ticket lifetime is fixed when the default manager is created, using the session
+                     * timeout at that time (capped at the 7 days allowed by RFC 8446).
+                     */
+                    long maxTicketLifetime = 7 * 24 * 60 * 60;
+                    int timeout = getSessionTimeout();
+                    long ticketLifetime = (timeout < 1) ? maxTicketLifetime : Math.min(timeout, maxTicketLifetime);
+
+                    this.ticketKeyManager = new DefaultTicketKeyManager(getCrypto().getSecureRandom(),
+                        ticketLifetime, provServerSessionTicketKeyRotation);
+                }
+                this.ticketKeyManagerSet = true;
+            }
+            return ticketKeyManager;
+        }
+    }
+
+    public void setTicketKeyManager(TicketKeyManager ticketKeyManager)
+    {
+        synchronized (ticketKeyManagerLock)
+        {
+            this.ticketKeyManager = ticketKeyManager;
+            this.ticketKeyManagerSet = true;
+        }
+    }
+
     public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentException
     {
         if (sessionTimeoutSeconds == seconds)
@@ -211,6 +296,19 @@ public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentEx
         removeAllExpiredSessions();
     }
 
+    private ProvSSLSession countLookup(Object key, ProvSSLSession session)
+    {
+        if (null != session)
+        {
+            ++cacheHits;
+        }
+        else if (null != key)
+        {
+            ++cacheMisses;
+        }
+        return session;
+    }
+
     private ProvSSLSession accessSession(SessionEntry sessionEntry)
     {
         if (sessionEntry != null)
@@ -231,7 +329,7 @@ private ProvSSLSession accessSession(SessionEntry sessionEntry)
         return null;
     }
 
-    private long getCreationTimeLimit(long expiryTimeMillis)
+    long getCreationTimeLimit(long expiryTimeMillis)
     {
         return sessionTimeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * sessionTimeoutSeconds);
     }
@@ -297,17 +395,17 @@ private boolean removeSessionByPeer(SessionEntry sessionEntry)
         return mapRemove(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
     }
 
-    private static String makePeerKey(ProvSSLSession session)
+    static String makePeerKey(ProvSSLSession session)
     {
         return session == null ? null : makePeerKey(session.getPeerHost(), session.getPeerPort());
     }
 
-    private static String makePeerKey(String hostName, int port)
+    static String makePeerKey(String hostName, int port)
     {
         return (hostName == null || port < 0) ? null : (hostName + ':' + Integer.toString(port)).toLowerCase(Locale.ENGLISH);
     }
 
-    private static SessionID makeSessionID(byte[] sessionID)
+    static SessionID makeSessionID(byte[] sessionID)
     {
         return TlsUtils.isNullOrEmpty(sessionID) ? null : new SessionID(sessionID);
     }
@@ -0,0 +1,501 @@
+package org.bouncycastle.jsse.provider;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.bouncycastle.tls.SessionID;
+import org.bouncycastle.tls.TlsSession;
+
+/**
+ * A session context for high handshake rates. Sessions are spread over a number of shards by session ID,
+ * lookups never block and updates only contend within a shard.
+ * <p>
+ * Each shard evicts using the CLOCK (second chance) approximation of LRU: sessions are queued in insertion
+ * order and a lookup just marks the session as referenced; eviction takes sessions from the head of the
+ * queue, re-queueing referenced ones once after clearing the mark. Timeouts are applied lazily, when a
+ * session is looked up and whenever the whole cache is swept (see {@link #getIds()}).
+ * </p>
+ * <p>
+ * Selected with the "org.bouncycastle.jsse.sessionCache.sharded" system property. The maps inherited from
+ * {@link ProvSSLSessionContext} are not used.
+ * </p>
+ */
+class ProvSSLSessionContextSharded
+    extends ProvSSLSessionContext
+{
+    private static final Logger LOG = Logger.getLogger(ProvSSLSessionContextSharded.class.getName());
+
+    private static final int SHARD_COUNT = 16;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final ConcurrentHashMap<String, Entry> entriesByPeer = new ConcurrentHashMap<String, Entry>();
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    ProvSSLSessionContextSharded(ContextData contextData)
+    {
+        super(contextData);
+
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    ProvSSLSession getSessionImpl(byte[] sessionID)
+    {
+        processQueue();
+
+        SessionID key = makeSessionID(sessionID);
+        if (null == key)
+        {
+            return null;
+        }
+
+        Shard shard = getShard(key.hashCode());
+        ProvSSLSession session = accessSession(shard.entries.get(key));
+        shard.countLookup(session);
+        return session;
+    }
+
+    ProvSSLSession getSessionImpl(String hostName, int port)
+    {
+        processQueue();
+
+        String peerKey = makePeerKey(hostName, port);
+        if (null == peerKey)
+        {
+            return null;
+        }
+
+        Entry entry = entriesByPeer.get(peerKey);
+        ProvSSLSession session = accessSession(entry);
+        (null == entry ? getShard(peerKey.hashCode()) : entry.shard).countLookup(session);
+        return session;
+    }
+
+    void removeSession(byte[] sessionID)
+    {
+        SessionID key = makeSessionID(sessionID);
+        if (null != key)
+        {
+            Entry entry = getShard(key.hashCode()).entries.get(key);
+            if (null != entry)
+            {
+                removeEntry(entry);
+            }
+        }
+    }
+
+    ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
+        JsseSessionParameters jsseSessionParameters, boolean addToCache)
+    {
+        processQueue();
+
+        if (!addToCache)
+        {
+            return new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+        }
+
+        SessionID sessionID = makeSessionID(tlsSession.getSessionID());
+        Shard shard = null == sessionID ? null : getShard(sessionID.hashCode());
+        Entry entry = null == shard ? null : shard.entries.get(sessionID);
+
+        ProvSSLSession session = entry == null ? null : entry.get();
+        if (null == session || session.getTlsSession() != tlsSession)
+        {
+            session = new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+
+            if (null != shard)
+            {
+                entry = new Entry(sessionID, session, sessionsQueue, shard);
+
+                Entry previous = shard.entries.put(sessionID, entry);
+                if (null == previous)
+                {
+                    size.incrementAndGet();
+                }
+                else
+                {
+                    // The replaced entry is no longer in the map, so only the peer index needs updating
+                    previous.removed = true;
+                    removeEntryByPeer(previous);
+                }
+
+                shard.enqueue(entry);
+            }
+        }
+
+        if (null != entry && null != entry.peerKey)
+        {
+            entriesByPeer.put(entry.peerKey, entry);
+
+            // NOTE: The entry may have been evicted or invalidated concurrently, before it was in the peer index
+            if (entry.removed)
+            {
+                entriesByPeer.remove(entry.peerKey, entry);
+            }
+        }
+
+        if (null != shard)
+        {
+            evictExcess(shard);
+        }
+
+        return session;
+    }
+
+    public Enumeration<byte[]> getIds()
+    {
+        removeAllExpiredSessions();
+
+        ArrayList<byte[]> ids = new ArrayList<byte[]>(size.get());
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            for (SessionID sessionID : shards[i].entries.keySet())
+            {
+                ids.add(sessionID.getBytes());
+            }
+        }
+        return Collections.enumeration(ids);
+    }
+
+    public long getCacheHitCount()
+    {
+        long total = 0L;
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            total += shards[i].hits.get();
+        }
+        return total;
+    }
+
+    public long getCacheMissCount()
+    {
+        long total = 0L;
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            total += shards[i].misses.get();
+        }
+        return total;
+    }
+
+    public long getCacheEvictionCount()
+    {
+        long total = 0L;
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            total += shards[i].evictions.get();
+        }
+        return total;
+    }
+
+    public int getSessionCacheSize()
+    {
+        return sessionCacheSize;
+    }
+
+    public int getSessionTimeout()
+    {
+        return sessionTimeoutSeconds;
+    }
+
+    public void setSessionCacheSize(int size) throws IllegalArgumentException
+    {
+        if (sessionCacheSize == size)
+        {
+            return;
+        }
+
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("'size' cannot be < 0");
+        }
+
+        this.sessionCacheSize = size;
+
+        removeAllExpiredSessions();
+
+        // Immediately remove LRU sessions in excess of the new limit
+        evictExcess(shards[0]);
+    }
+
+    public void setSessionTimeout(int seconds) throws IllegalArgumentException
+    {
+        if (sessionTimeoutSeconds == seconds)
+        {
+            return;
+        }
+
+        if (seconds < 0)
+        {
+            throw new IllegalArgumentException("'seconds' cannot be < 0");
+        }
+
+        this.sessionTimeoutSeconds = seconds;
+
+        removeAllExpiredSessions();
+    }
+
+    private ProvSSLSession accessSession(Entry entry)
+    {
+        if (entry != null)
+        {
+            ProvSSLSession session = entry.removed ? null : entry.get();
+            if (session != null)
+            {
+                long currentTimeMillis = System.currentTimeMillis();
+                if (!invalidateIfCreatedBefore(session, getCreationTimeLimit(currentTimeMillis)))
+                {
+                    session.accessedAt(currentTimeMillis);
+                    entry.markReferenced();
+                    return session;
+                }
+            }
+
+            removeEntry(entry);
+        }
+        return null;
+    }
+
+    /**
+     * Evict from the given shard, and then the others in turn, until the cache is back within its size limit.
+     */
+    private void evictExcess(Shard shard)
+    {
+        int index = shard.index;
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            int limit = sessionCacheSize;
+            if (limit < 1 || size.get() <= limit)
+            {
+                return;
+            }
+
+            Shard next = shards[(index + i) & (SHARD_COUNT - 1)];
+            synchronized (next)
+            {
+                while (size.get() > sessionCacheSize)
+                {
+                    Entry victim = next.nextVictim();
+                    if (null == victim)
+                    {
+                        break;
+                    }
+                    if (removeEntry(victim))
+                    {
+                        next.evictions.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private Shard getShard(int hashCode)
+    {
+        hashCode ^= (hashCode >>> 16);
+        return shards[hashCode & (SHARD_COUNT - 1)];
+    }
+
+    private boolean invalidateIfCreatedBefore(ProvSSLSession session, long creationTimeLimit)
+    {
+        if (session.getCreationTime() < creationTimeLimit)
+        {
+            session.invalidatedBySessionContext();
+        }
+        return !session.isValid();
+    }
+
+    private void processQueue()
+    {
+        int count = 0;
+
+        Entry entry;
+        while ((entry = (Entry)sessionsQueue.poll()) != null)
+        {
+            removeEntry(entry);
+            ++count;
+        }
+
+        if (count > 0)
+        {
+            LOG.fine("Processed " + count + " session entries (soft references) from the reference queue");
+        }
+    }
+
+    private void removeAllExpiredSessions()
+    {
+        processQueue();
+
+        long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
+
+        for (int i = 0; i < SHARD_COUNT; ++i)
+        {
+            Iterator<Entry> iter = shards[i].entries.values().iterator();
+            while (iter.hasNext())
+            {
+                Entry entry = iter.next();
+                ProvSSLSession session = entry.get();
+                if (null == session || invalidateIfCreatedBefore(session, creationTimeLimit))
+                {
+                    removeEntry(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove an entry from its shard and the peer index, if it is still present.
+     *
+     * @return true if this call removed the entry from its shard.
+     */
+    private boolean removeEntry(Entry entry)
+    {
+        boolean removed = entry.shard.entries.remove(entry.sessionID, entry);
+        if (removed)
+        {
+            entry.removed = true;
+            size.decrementAndGet();
+        }
+
+        removeEntryByPeer(entry);
+
+        return removed;
+    }
+
+    private void removeEntryByPeer(Entry entry)
+    {
+        if (null != entry.peerKey)
+        {
+            entriesByPeer.remove(entry.peerKey, entry);
+        }
+    }
+
+    private static final class Shard
+    {
+        final int index;
+        final ConcurrentHashMap<SessionID, Entry> entries = new ConcurrentHashMap<SessionID, Entry>();
+        final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<Entry>();
+        final AtomicInteger clockSize = new AtomicInteger(0);
+        final AtomicLong hits = new AtomicLong(0L), misses = new AtomicLong(0L), evictions = new AtomicLong(0L);
+
+        Shard(int index)
+        {
+            this.index = index;
+        }
+
+        void countLookup(ProvSSLSession session)
+        {
+            (null == session ? misses : hits).incrementAndGet();
+        }
+
+        void enqueue(Entry entry)
+        {
+            clock.offer(entry);
+
+            /*
+             * Removed entries stay queued until eviction reaches them. If the cache never fills they would
+             * accumulate, so compact the queue once they are the majority.
+             */
+            if (clockSize.incrementAndGet() > 2 * entries.size() + 64)
+            {
+                synchronized (this)
+                {
+                    Iterator<Entry> iter = clock.iterator();
+                    while (iter.hasNext())
+                    {
+                        if (iter.next().removed)
+                        {
+                            iter.remove();
+                            clockSize.decrementAndGet();
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Select the next entry to evict, giving referenced entries a second chance. Must be called holding
+         * the shard's lock.
+         *
+         * @return the entry to evict, or null if the shard is empty.
+         */
+        Entry nextVictim()
+        {
+            // Bounded so that concurrent lookups re-marking entries cannot keep us here indefinitely
+            int limit = 2 * clockSize.get() + 1;
+            for (int i = 0; i < limit; ++i)
+            {
+                Entry entry = clock.poll();
+                if (null == entry)
+                {
+                    return null;
+                }
+                if (entry.removed)
+                {
+                    clockSize.decrementAndGet();
+                    continue;
+                }
+                if (entry.referenced && null != entry.get())
+                {
+                    entry.referenced = false;
+                    clock.offer(entry);
+                    continue;
+                }
+
+                clockSize.decrementAndGet();
+                return entry;
+            }
+
+            // Everything was recently referenced, fall back to strict insertion order
+            Entry entry = clock.poll();
+            if (null != entry)
+            {
+                clockSize.decrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    private static final class Entry
+        extends SoftReference<ProvSSLSession>
+    {
+        final SessionID sessionID;
+        final String peerKey;
+        final Shard shard;
+
+        volatile boolean referenced = false;
+        volatile boolean removed = false;
+
+        Entry(SessionID sessionID, ProvSSLSession session, ReferenceQueue<ProvSSLSession> queue, Shard shard)
+        {
+            super(session, queue);
+
+            if (sessionID == null || session == null || queue == null || shard == null)
+            {
+                throw new NullPointerException();
+            }
+
+            this.sessionID = sessionID;
+            this.peerKey = makePeerKey(session);
+            this.shard = shard;
+        }
+
+        void markReferenced()
+        {
+            // Avoid the write, and the cache line invalidation, when the mark is already set
+            if (!referenced)
+            {
+                referenced = true;
+            }
+        }
+    }
+}
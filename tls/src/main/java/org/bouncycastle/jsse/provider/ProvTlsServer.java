@@ -36,6 +36,7 @@
 import org.bouncycastle.tls.ServerName;
 import org.bouncycastle.tls.SessionParameters;
 import org.bouncycastle.tls.SignatureAndHashAlgorithm;
+import org.bouncycastle.tls.TicketKeyManager;
 import org.bouncycastle.tls.TlsContext;
 import org.bouncycastle.tls.TlsCredentials;
 import org.bouncycastle.tls.TlsDHUtils;
@@ -47,6 +48,7 @@
 import org.bouncycastle.tls.crypto.DHGroup;
 import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Hex;
 
 class ProvTlsServer
@@ -675,6 +677,76 @@ public TlsSession getSessionToResume(byte[] sessionID)
         return null;
     }
 
+    @Override
+    public TicketKeyManager getTicketKeyManager()
+    {
+        if (!provServerEnableSessionResumption)
+        {
+            return null;
+        }
+
+        return manager.getContextData().getServerSessionContext().getTicketKeyManager();
+    }
+
+    @Override
+    public byte[] getTicketApplicationData() throws IOException
+    {
+        // The endpoint ID algorithm is carried in the ticket, to be checked as isResumable does for sessions
+        String endpointID = sslParameters.getEndpointIdentificationAlgorithm();
+
+        return null == endpointID ? null : Strings.toUTF8ByteArray(endpointID);
+    }
+
+    @Override
+    public boolean allowTicketResumption(SessionParameters sessionParameters, byte[] applicationData)
+        throws IOException
+    {
+        int cipherSuite = sessionParameters.getCipherSuite();
+        if (!Arrays.contains(getCipherSuites(), cipherSuite) ||
+            !Arrays.contains(offeredCipherSuites, cipherSuite))
+        {
+            if (LOG.isLoggable(Level.FINER))
+            {
+                LOG.finer(serverID + ": Ticket not resumable - cipher suite not enabled or not offered");
+            }
+            return false;
+        }
+
+        {
+            String connectionEndpointID = sslParameters.getEndpointIdentificationAlgorithm();
+            if (null != connectionEndpointID)
+            {
+                String ticketEndpointID = TlsUtils.isNullOrEmpty(applicationData)
+                    ?   null
+                    :   Strings.fromUTF8ByteArray(applicationData);
+                if (!connectionEndpointID.equalsIgnoreCase(ticketEndpointID))
+                {
+                    if (LOG.isLoggable(Level.FINER))
+                    {
+                        LOG.finer(serverID + ": Ticket not resumable - endpoint ID algorithm mismatch; connection: "
+                            + connectionEndpointID + ", ticket: " + ticketEndpointID);
+                    }
+                    return false;
+                }
+            }
+        }
+
+        if (sslParameters.getNeedClientAuth())
+        {
+            Certificate peerCertificate = sessionParameters.getPeerCertificate();
+            if (null == peerCertificate || peerCertificate.isEmpty())
+            {
+                if (LOG.isLoggable(Level.FINER))
+                {
+                    LOG.finer(serverID + ": Ticket not resumable - client authentication required");
+                }
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public byte[] getNewSessionID()
     {
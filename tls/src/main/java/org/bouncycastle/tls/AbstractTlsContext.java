@@ -2,6 +2,7 @@
 
 import java.io.IOException;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCrypto;
 import org.bouncycastle.tls.crypto.TlsCryptoUtils;
 import org.bouncycastle.tls.crypto.TlsHash;
@@ -35,6 +36,7 @@ private static TlsNonceGenerator createNonceGenerator(TlsCrypto crypto, int conn
     private TlsCrypto crypto;
     private int connectionEnd;
     private TlsNonceGenerator nonceGenerator;
+    private TlsBufferPool bufferPool = null;
     private SecurityParameters securityParametersHandshake = null;
     private SecurityParameters securityParametersConnection = null;
 
@@ -111,6 +113,16 @@ public TlsNonceGenerator getNonceGenerator()
         return nonceGenerator;
     }
 
+    public TlsBufferPool getBufferPool()
+    {
+        return bufferPool;
+    }
+
+    void setBufferPool(TlsBufferPool bufferPool)
+    {
+        this.bufferPool = bufferPool;
+    }
+
     public synchronized SecurityParameters getSecurityParameters()
     {
         return null != securityParametersHandshake
@@ -2,6 +2,7 @@
 
 import java.io.IOException;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCrypto;
 
 /**
@@ -72,6 +73,11 @@ public boolean allowLegacyResumption()
         return false;
     }
 
+    public TlsBufferPool getBufferPool()
+    {
+        return null;
+    }
+
     public int getMaxCertificateChainLength()
     {
         return 10;
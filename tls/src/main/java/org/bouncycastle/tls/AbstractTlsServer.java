@@ -319,6 +319,22 @@ public TlsPSKExternal getExternalPSK(Vector identities)
         return null;
     }
 
+    public TicketKeyManager getTicketKeyManager()
+    {
+        return null;
+    }
+
+    public byte[] getTicketApplicationData() throws IOException
+    {
+        return null;
+    }
+
+    public boolean allowTicketResumption(SessionParameters sessionParameters, byte[] applicationData)
+        throws IOException
+    {
+        return true;
+    }
+
     public void notifySession(TlsSession session)
     {
     }
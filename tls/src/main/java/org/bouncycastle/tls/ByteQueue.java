@@ -4,6 +4,8 @@
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
+
 /**
  * A queue for bytes. This file could be more optimized.
  */
@@ -43,6 +45,11 @@ public static int nextTwoPow(int i)
 
     private boolean readOnlyBuf = false;
 
+    /**
+     * If set, where buffers are obtained from, and returned to once the queue is empty.
+     */
+    private TlsBufferPool bufferPool = null;
+
     public ByteQueue()
     {
         this(0);
@@ -61,6 +68,22 @@ public ByteQueue(byte[] buf, int off, int len)
         this.readOnlyBuf = true;
     }
 
+    /**
+     * Obtain (and return) the buffer from the given pool, so that an idle queue holds no buffer. Only for queues
+     * that never hand out views of the buffer (see {@link #readHandshakeMessage(int)}).
+     *
+     * @param bufferPool The {@link TlsBufferPool} to use, or null to allocate as needed.
+     */
+    void setBufferPool(TlsBufferPool bufferPool)
+    {
+        if (readOnlyBuf)
+        {
+            throw new IllegalStateException("Cannot pool a read-only buffer");
+        }
+
+        this.bufferPool = bufferPool;
+    }
+
     /**
      * Add some data to our buffer.
      *
@@ -79,19 +102,18 @@ public void addData(byte[] buf, int off, int len)
         {
             if (len > databuf.length)
             {
-                int desiredSize = nextTwoPow(len | 256);
-                databuf = new byte[desiredSize];
+                int desiredSize = isPoolSize(len) ? len : nextTwoPow(len | 256);
+                replaceBuf(desiredSize, false);
             }
             skipped = 0;
         }
         else if ((skipped + available + len) > databuf.length)
         {
-            int desiredSize = nextTwoPow(available + len);
+            // NOTE: Don't round up beyond what the pool's buffers can hold, but keep growth geometric past that
+            int desiredSize = isPoolSize(available + len) ? available + len : nextTwoPow(available + len);
             if (desiredSize > databuf.length)
             {
-                byte[] tmp = new byte[desiredSize];
-                System.arraycopy(databuf, skipped, tmp, 0, available);
-                databuf = tmp;
+                replaceBuf(desiredSize, true);
             }
             else
             {
@@ -239,6 +261,11 @@ public void removeData(int i)
          */
         available -= i;
         skipped += i;
+
+        if (available == 0 && null != bufferPool)
+        {
+            releaseBuf();
+        }
     }
 
     /**
@@ -279,19 +306,46 @@ public void shrink()
     {
         if (available == 0)
         {
-            databuf = TlsUtils.EMPTY_BYTES;
-            skipped = 0;
+            releaseBuf();
         }
         else
         {
             int desiredSize = nextTwoPow(available);
             if (desiredSize < databuf.length)
             {
-                byte[] tmp = new byte[desiredSize];
-                System.arraycopy(databuf, skipped, tmp, 0, available);
-                databuf = tmp;
+                replaceBuf(desiredSize, true);
                 skipped = 0;
             }
         }
     }
+
+    private boolean isPoolSize(int size)
+    {
+        return null != bufferPool && size <= bufferPool.getBufferSize();
+    }
+
+    private void releaseBuf()
+    {
+        if (null != bufferPool && databuf.length > 0)
+        {
+            bufferPool.release(databuf);
+        }
+
+        databuf = TlsUtils.EMPTY_BYTES;
+        skipped = 0;
+    }
+
+    private void replaceBuf(int size, boolean copy)
+    {
+        byte[] tmp = null == bufferPool ? new byte[size] : bufferPool.acquire(size);
+        if (copy)
+        {
+            System.arraycopy(databuf, skipped, tmp, 0, available);
+        }
+        if (null != bufferPool && databuf.length > 0)
+        {
+            bufferPool.release(databuf);
+        }
+        databuf = tmp;
+    }
 }
@@ -2,6 +2,8 @@
 
 import java.io.InputStream;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
+
 /**
  * InputStream based on a ByteQueue implementation.
  */
@@ -15,6 +17,11 @@ public ByteQueueInputStream()
         buffer = new ByteQueue();
     }
 
+    void setBufferPool(TlsBufferPool bufferPool)
+    {
+        buffer.setBufferPool(bufferPool);
+    }
+
     public void addBytes(byte[] buf)
     {
         buffer.addData(buf, 0, buf.length);
@@ -0,0 +1,154 @@
+package org.bouncycastle.tls;
+
+import java.security.SecureRandom;
+import java.util.Vector;
+
+/**
+ * A {@link TicketKeyManager} that generates random ticket keys and rotates them on a fixed schedule.
+ * <p>
+ * A new key is generated once the current one is older than the rotation period. Each retired key is kept
+ * (for decryption only) until the last ticket that can have been issued under it has expired, so that
+ * rotation never invalidates outstanding tickets.
+ * </p>
+ */
+public class DefaultTicketKeyManager
+    implements TicketKeyManager
+{
+    public static final long DEFAULT_ROTATION_PERIOD = 60 * 60;
+    public static final long DEFAULT_TICKET_LIFETIME = 24 * 60 * 60;
+
+    /*
+     * RFC 8446 4.6.1. Servers MUST NOT use any value greater than 604800 seconds (7 days).
+     */
+    private static final long MAX_TICKET_LIFETIME = 7 * 24 * 60 * 60;
+
+    private final SecureRandom random;
+    private final long ticketLifetime;
+    private final long rotationPeriodMillis;
+    private final Vector retiredKeys = new Vector();
+
+    private TicketKey currentKey = null;
+
+    public DefaultTicketKeyManager(SecureRandom random)
+    {
+        this(random, DEFAULT_TICKET_LIFETIME, DEFAULT_ROTATION_PERIOD);
+    }
+
+    /**
+     * @param random the {@link SecureRandom} to generate ticket keys with.
+     * @param ticketLifetime the lifetime of issued tickets, in seconds (at most 604800).
+     * @param rotationPeriod how long each key is used to protect new tickets, in seconds.
+     */
+    public DefaultTicketKeyManager(SecureRandom random, long ticketLifetime, long rotationPeriod)
+    {
+        if (null == random)
+        {
+            throw new NullPointerException("'random' cannot be null");
+        }
+        if (ticketLifetime <= 0 || ticketLifetime > MAX_TICKET_LIFETIME)
+        {
+            throw new IllegalArgumentException("'ticketLifetime' must be in the range 1.." + MAX_TICKET_LIFETIME);
+        }
+        if (rotationPeriod <= 0)
+        {
+            throw new IllegalArgumentException("'rotationPeriod' must be > 0");
+        }
+
+        this.random = random;
+        this.ticketLifetime = ticketLifetime;
+        this.rotationPeriodMillis = rotationPeriod * 1000L;
+    }
+
+    public synchronized TicketKey getEncryptionKey()
+    {
+        long now = currentTimeMillis();
+
+        if (null == currentKey || !isCurrent(currentKey, now))
+        {
+            if (null != currentKey)
+            {
+                retiredKeys.addElement(currentKey);
+            }
+
+            currentKey = generateKey(now);
+        }
+
+        removeExpiredKeys(now);
+
+        return currentKey;
+    }
+
+    public synchronized TicketKey getDecryptionKey(byte[] keyName)
+    {
+        long now = currentTimeMillis();
+
+        removeExpiredKeys(now);
+
+        if (null != currentKey && currentKey.hasName(keyName))
+        {
+            return currentKey;
+        }
+
+        for (int i = 0; i < retiredKeys.size(); ++i)
+        {
+            TicketKey retiredKey = (TicketKey)retiredKeys.elementAt(i);
+            if (retiredKey.hasName(keyName))
+            {
+                return retiredKey;
+            }
+        }
+
+        return null;
+    }
+
+    public long getTicketLifetime()
+    {
+        return ticketLifetime;
+    }
+
+    /**
+     * Return the current time in milliseconds. Subclasses may override this to control rotation (e.g. for
+     * testing).
+     */
+    protected long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+
+    protected TicketKey generateKey(long creationTime)
+    {
+        byte[] name = new byte[TicketKey.NAME_LENGTH];
+        byte[] key = new byte[TicketKey.KEY_LENGTH];
+
+        random.nextBytes(name);
+        random.nextBytes(key);
+
+        return new TicketKey(name, key, creationTime);
+    }
+
+    private boolean isCurrent(TicketKey key, long now)
+    {
+        long age = now - key.getCreationTime();
+
+        return age >= 0 && age < rotationPeriodMillis;
+    }
+
+    private void removeExpiredKeys(long now)
+    {
+        /*
+         * A key stops being used for new tickets no later than the end of its rotation period, so tickets
+         * protected by it have all expired one ticket lifetime after that.
+         */
+        long retentionMillis = rotationPeriodMillis + ticketLifetime * 1000L;
+
+        for (int i = retiredKeys.size() - 1; i >= 0; --i)
+        {
+            TicketKey retiredKey = (TicketKey)retiredKeys.elementAt(i);
+            long age = now - retiredKey.getCreationTime();
+            if (age < 0 || age >= retentionMillis)
+            {
+                retiredKeys.removeElementAt(i);
+            }
+        }
+    }
+}
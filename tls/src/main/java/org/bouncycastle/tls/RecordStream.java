@@ -6,6 +6,7 @@
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCipher;
 import org.bouncycastle.tls.crypto.TlsDecodeResult;
 import org.bouncycastle.tls.crypto.TlsEncodeResult;
@@ -30,6 +31,7 @@
     private TlsCipher writeCipher = TlsNullNullCipher.INSTANCE;
 
     private ProtocolVersion writeVersion = null;
+    private TlsBufferPool bufferPool = null;
 
     private int plaintextLimit = DEFAULT_PLAINTEXT_LIMIT;
     private int ciphertextLimit = DEFAULT_PLAINTEXT_LIMIT;
@@ -53,6 +55,12 @@ void setPlaintextLimit(int plaintextLimit)
         this.ciphertextLimit = readCipher.getCiphertextDecodeLimit(plaintextLimit);
     }
 
+    void setBufferPool(TlsBufferPool bufferPool)
+    {
+        this.bufferPool = bufferPool;
+        inputRecord.setBufferPool(bufferPool);
+    }
+
     void setWriteVersion(ProtocolVersion writeVersion)
     {
         this.writeVersion = writeVersion;
@@ -228,7 +236,6 @@ boolean readRecord()
 
         inputRecord.readFragment(input, length);
 
-        TlsDecodeResult decoded;
         try
         {
             if (ignoreChangeCipherSpec && ContentType.change_cipher_spec == recordType)
@@ -237,14 +244,17 @@ boolean readRecord()
                 return true;
             }
 
-            decoded = decodeAndVerify(recordType, recordVersion, inputRecord.buf, RecordFormat.FRAGMENT_OFFSET, length);
+            TlsDecodeResult decoded = decodeAndVerify(recordType, recordVersion, inputRecord.buf,
+                RecordFormat.FRAGMENT_OFFSET, length);
+
+            // NOTE: The record buffer may be pooled, so it has to be processed before the reset
+            handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
         }
         finally
         {
             inputRecord.reset();
         }
 
-        handler.processRecord(decoded.contentType, decoded.buf, decoded.off, decoded.len);
         return true;
     }
 
@@ -312,6 +322,14 @@ void writeRecord(short contentType, byte[] plaintext, int plaintextOffset, int p
         {
             throw new TlsFatalAlert(AlertDescription.internal_error, e);
         }
+        finally
+        {
+            // NOTE: The encoded record is ours to dispose of (see TlsCipher.encodePlaintext)
+            if (null != bufferPool)
+            {
+                bufferPool.release(encoded.buf);
+            }
+        }
 
         output.flush();
     }
@@ -433,6 +451,8 @@ private static void checkLength(int length, int limit, short alertDescription)
         volatile byte[] buf = header;
         volatile int pos = 0;
 
+        private TlsBufferPool bufferPool = null;
+
         void fillTo(InputStream input, int length) throws IOException
         {
             while (pos < length)
@@ -492,15 +512,25 @@ boolean readHeader(InputStream input) throws IOException
 
         void reset()
         {
+            if (null != bufferPool && buf != header)
+            {
+                bufferPool.release(buf);
+            }
+
             buf = header;
             pos = 0;
         }
 
+        void setBufferPool(TlsBufferPool bufferPool)
+        {
+            this.bufferPool = bufferPool;
+        }
+
         private void resize(int length)
         {
             if (buf.length < length)
             {
-                byte[] tmp = new byte[length];
+                byte[] tmp = null == bufferPool ? new byte[length] : bufferPool.acquire(length);
                 System.arraycopy(buf, 0, tmp, 0, pos);
                 buf = tmp;
             }
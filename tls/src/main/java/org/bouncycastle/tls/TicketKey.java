@@ -0,0 +1,66 @@
+package org.bouncycastle.tls;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A named key for the protection of session tickets, as managed by a {@link TicketKeyManager}.
+ * <p>
+ * Tickets are encrypted with AES-256-GCM, so the key must be 32 bytes long. The name is carried in the clear
+ * at the start of each ticket, and is used to find the key again when the ticket is presented for resumption.
+ * </p>
+ */
+public final class TicketKey
+{
+    public static final int KEY_LENGTH = 32;
+    public static final int NAME_LENGTH = 16;
+
+    private final byte[] name;
+    private final byte[] key;
+    private final long creationTime;
+
+    /**
+     * @param name the (public) name of the key, {@link #NAME_LENGTH} bytes.
+     * @param key the (secret) key material, {@link #KEY_LENGTH} bytes.
+     * @param creationTime the time the key was created, in milliseconds since the epoch.
+     */
+    public TicketKey(byte[] name, byte[] key, long creationTime)
+    {
+        if (null == name || name.length != NAME_LENGTH)
+        {
+            throw new IllegalArgumentException("'name' must have length " + NAME_LENGTH);
+        }
+        if (null == key || key.length != KEY_LENGTH)
+        {
+            throw new IllegalArgumentException("'key' must have length " + KEY_LENGTH);
+        }
+
+        this.name = Arrays.clone(name);
+        this.key = Arrays.clone(key);
+        this.creationTime = creationTime;
+    }
+
+    public long getCreationTime()
+    {
+        return creationTime;
+    }
+
+    public byte[] getName()
+    {
+        return Arrays.clone(name);
+    }
+
+    public boolean hasName(byte[] name)
+    {
+        return Arrays.areEqual(this.name, name);
+    }
+
+    byte[] getKey()
+    {
+        return key;
+    }
+
+    byte[] getNameInternal()
+    {
+        return name;
+    }
+}
@@ -0,0 +1,36 @@
+package org.bouncycastle.tls;
+
+/**
+ * Interface for the management of the keys protecting stateless (TLS 1.3) session tickets. See
+ * {@link TlsServer#getTicketKeyManager()}.
+ * <p>
+ * The key used for new tickets is expected to change from time to time, while retired keys remain available
+ * for decryption for as long as tickets issued under them can still be valid. Servers sharing a ticket key
+ * manager (or its keys) can resume each other's sessions.
+ * </p>
+ */
+public interface TicketKeyManager
+{
+    /**
+     * Return the key to be used to protect a new ticket.
+     *
+     * @return the current {@link TicketKey}.
+     */
+    TicketKey getEncryptionKey();
+
+    /**
+     * Return the key to be used to decrypt a ticket received from a client.
+     *
+     * @param keyName the name of the key, as recorded in the ticket.
+     * @return the {@link TicketKey} with the given name, or null if it is not (or no longer) known.
+     */
+    TicketKey getDecryptionKey(byte[] keyName);
+
+    /**
+     * Return the lifetime, in seconds, of tickets issued under this ticket key manager. Tickets older than this
+     * are not accepted for resumption.
+     *
+     * @return the ticket lifetime in seconds (at most 604800, i.e. 7 days).
+     */
+    long getTicketLifetime();
+}
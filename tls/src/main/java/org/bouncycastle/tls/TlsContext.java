@@ -1,5 +1,6 @@
 package org.bouncycastle.tls;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCrypto;
 import org.bouncycastle.tls.crypto.TlsNonceGenerator;
 
@@ -12,6 +13,13 @@
 
     TlsNonceGenerator getNonceGenerator();
 
+    /**
+     * Return the {@link TlsBufferPool} that record buffers for this connection are taken from, if any.
+     *
+     * @return the buffer pool, or null if buffers are simply allocated.
+     */
+    TlsBufferPool getBufferPool();
+
     SecurityParameters getSecurityParameters();
 
     SecurityParameters getSecurityParametersConnection();
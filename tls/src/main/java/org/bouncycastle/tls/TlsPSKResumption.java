@@ -0,0 +1,277 @@
+package org.bouncycastle.tls;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Vector;
+
+import org.bouncycastle.tls.crypto.TlsAEAD;
+import org.bouncycastle.tls.crypto.TlsCertificate;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.TlsSecret;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A resumption PSK (RFC 8446 4.6.1) carried by a stateless session ticket.
+ * <p>
+ * The server keeps no per-session state; instead the ticket is<br>
+ * key_name || nonce || AES-256-GCM(key, nonce, key_name, state)<br>
+ * where key_name identifies a {@link TicketKey} of the server's {@link TicketKeyManager}, and state is:
+ * </p>
+ * <pre>
+ * struct {
+ *     uint8 version;
+ *     CipherSuite cipher_suite;
+ *     uint64 creation_time;
+ *     uint32 ticket_lifetime;
+ *     opaque resumption_psk&lt;1..2^8-1&gt;;
+ *     uint8 has_peer_certificate;
+ *     select (has_peer_certificate) {
+ *         case 0: struct {};
+ *         case 1: CertificateType certificate_type;
+ *                 opaque certificate_list&lt;0..2^24-1&gt;;
+ *     };
+ *     opaque application_data&lt;0..2^16-1&gt;;
+ * } TicketState;
+ * </pre>
+ * <p>
+ * The application_data is supplied by {@link TlsServer#getTicketApplicationData()} and presented to
+ * {@link TlsServer#allowTicketResumption(SessionParameters, byte[])} when the ticket is used.
+ * </p>
+ */
+final class TlsPSKResumption
+    implements TlsPSK
+{
+    private static final short STATE_VERSION = 1;
+    private static final int NONCE_LENGTH = 12;
+    private static final int MAC_SIZE = 16;
+    private static final int HEADER_LENGTH = TicketKey.NAME_LENGTH + NONCE_LENGTH;
+
+    static byte[] createTicket(TlsServerContext context, TicketKey ticketKey, long creationTime, long ticketLifetime,
+        TlsSecret psk, byte[] applicationData) throws IOException
+    {
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+        Certificate peerCertificate = securityParameters.getPeerCertificate();
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        TlsUtils.writeUint8(STATE_VERSION, buf);
+        TlsUtils.writeUint16(securityParameters.getCipherSuite(), buf);
+        TlsUtils.writeUint64(creationTime, buf);
+        TlsUtils.writeUint32(ticketLifetime, buf);
+        TlsUtils.writeOpaque8(psk.extract(), buf);
+
+        if (null == peerCertificate)
+        {
+            TlsUtils.writeUint8(0, buf);
+        }
+        else
+        {
+            TlsUtils.writeUint8(1, buf);
+            TlsUtils.writeUint8(peerCertificate.getCertificateType(), buf);
+
+            ByteArrayOutputStream certs = new ByteArrayOutputStream();
+            for (int i = 0; i < peerCertificate.getLength(); ++i)
+            {
+                TlsUtils.writeOpaque24(peerCertificate.getCertificateAt(i).getEncoded(), certs);
+            }
+            TlsUtils.writeOpaque24(certs.toByteArray(), buf);
+        }
+
+        TlsUtils.writeOpaque16(null == applicationData ? TlsUtils.EMPTY_BYTES : applicationData, buf);
+
+        byte[] state = buf.toByteArray();
+        byte[] nonce = context.getNonceGenerator().generateNonce(NONCE_LENGTH);
+
+        try
+        {
+            TlsAEAD cipher = createCipher(context.getCrypto(), ticketKey, nonce, true);
+
+            byte[] ticket = new byte[HEADER_LENGTH + cipher.getOutputSize(state.length)];
+            System.arraycopy(ticketKey.getNameInternal(), 0, ticket, 0, TicketKey.NAME_LENGTH);
+            System.arraycopy(nonce, 0, ticket, TicketKey.NAME_LENGTH, NONCE_LENGTH);
+            cipher.doFinal(ticketKey.getNameInternal(), state, 0, state.length, ticket, HEADER_LENGTH);
+            return ticket;
+        }
+        finally
+        {
+            Arrays.fill(state, (byte)0);
+        }
+    }
+
+    /**
+     * Recover the resumption PSK from a ticket, returning null if the ticket was not issued under a key the
+     * ticket key manager still knows, cannot be authenticated, has expired, or is otherwise unusable.
+     */
+    static TlsPSKResumption parseTicket(TlsServerContext context, TicketKeyManager ticketKeyManager, byte[] ticket,
+        long currentTime)
+    {
+        if (ticket.length < HEADER_LENGTH + MAC_SIZE)
+        {
+            return null;
+        }
+
+        byte[] keyName = Arrays.copyOfRange(ticket, 0, TicketKey.NAME_LENGTH);
+        TicketKey ticketKey = ticketKeyManager.getDecryptionKey(keyName);
+        if (null == ticketKey)
+        {
+            return null;
+        }
+
+        byte[] nonce = Arrays.copyOfRange(ticket, TicketKey.NAME_LENGTH, HEADER_LENGTH);
+        TlsCrypto crypto = context.getCrypto();
+
+        byte[] state = null;
+        try
+        {
+            TlsAEAD cipher = createCipher(crypto, ticketKey, nonce, false);
+
+            int ciphertextLength = ticket.length - HEADER_LENGTH;
+            state = new byte[cipher.getOutputSize(ciphertextLength)];
+            int stateLength = cipher.doFinal(keyName, ticket, HEADER_LENGTH, ciphertextLength, state, 0);
+
+            ByteArrayInputStream buf = new ByteArrayInputStream(state, 0, stateLength);
+            if (STATE_VERSION != TlsUtils.readUint8(buf))
+            {
+                return null;
+            }
+
+            int cipherSuite = TlsUtils.readUint16(buf);
+            long creationTime = (TlsUtils.readUint32(buf) << 32) | TlsUtils.readUint32(buf);
+            long ticketLifetime = TlsUtils.readUint32(buf);
+            byte[] psk = TlsUtils.readOpaque8(buf, 1);
+
+            try
+            {
+                Certificate peerCertificate = null;
+                short hasPeerCertificate = TlsUtils.readUint8(buf);
+                if (hasPeerCertificate == 1)
+                {
+                    short certificateType = TlsUtils.readUint8(buf);
+                    ByteArrayInputStream certs = new ByteArrayInputStream(TlsUtils.readOpaque24(buf));
+
+                    Vector entries = new Vector();
+                    while (certs.available() > 0)
+                    {
+                        TlsCertificate cert = crypto.createCertificate(certificateType, TlsUtils.readOpaque24(certs, 1));
+                        entries.addElement(new CertificateEntry(cert, null));
+                    }
+
+                    CertificateEntry[] entryList = new CertificateEntry[entries.size()];
+                    entries.copyInto(entryList);
+
+                    peerCertificate = new Certificate(certificateType, TlsUtils.EMPTY_BYTES, entryList);
+                }
+                else if (hasPeerCertificate != 0)
+                {
+                    return null;
+                }
+
+                byte[] applicationData = TlsUtils.readOpaque16(buf);
+
+                if (buf.available() != 0)
+                {
+                    return null;
+                }
+
+                long age = currentTime - creationTime;
+                if (age < 0 || age > ticketLifetime * 1000L)
+                {
+                    return null;
+                }
+
+                int prfAlgorithm = TlsUtils.getPRFAlgorithm13(cipherSuite);
+                if (prfAlgorithm < 0)
+                {
+                    return null;
+                }
+
+                SessionParameters sessionParameters = new SessionParameters.Builder()
+                    .setCipherSuite(cipherSuite)
+                    .setExtendedMasterSecret(true)
+                    .setMasterSecret(crypto.createSecret(psk))
+                    .setNegotiatedVersion(ProtocolVersion.TLSv13)
+                    .setPeerCertificate(peerCertificate)
+                    .build();
+
+                return new TlsPSKResumption(ticket, crypto.createSecret(psk), prfAlgorithm, sessionParameters,
+                    applicationData);
+            }
+            finally
+            {
+                Arrays.fill(psk, (byte)0);
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        finally
+        {
+            if (null != state)
+            {
+                Arrays.fill(state, (byte)0);
+            }
+        }
+    }
+
+    private static TlsAEAD createCipher(TlsCrypto crypto, TicketKey ticketKey, byte[] nonce, boolean isEncrypting)
+        throws IOException
+    {
+        byte[] key = ticketKey.getKey();
+
+        TlsAEAD cipher = crypto.createAEAD(EncryptionAlgorithm.AES_256_GCM, isEncrypting);
+        cipher.setKey(key, 0, key.length);
+        cipher.init(nonce, MAC_SIZE);
+        return cipher;
+    }
+
+    private final byte[] identity;
+    private final TlsSecret key;
+    private final int prfAlgorithm;
+    private final SessionParameters sessionParameters;
+    private final byte[] applicationData;
+
+    private TlsPSKResumption(byte[] identity, TlsSecret key, int prfAlgorithm, SessionParameters sessionParameters,
+        byte[] applicationData)
+    {
+        this.identity = identity;
+        this.key = key;
+        this.prfAlgorithm = prfAlgorithm;
+        this.sessionParameters = sessionParameters;
+        this.applicationData = applicationData;
+    }
+
+    public byte[] getIdentity()
+    {
+        return identity;
+    }
+
+    public TlsSecret getKey()
+    {
+        return key;
+    }
+
+    public int getPRFAlgorithm()
+    {
+        return prfAlgorithm;
+    }
+
+    SessionParameters getSessionParameters()
+    {
+        return sessionParameters;
+    }
+
+    byte[] getApplicationData()
+    {
+        return applicationData;
+    }
+
+    /**
+     * Destroy the resumption secret recovered from the ticket, once it has been rejected or used.
+     */
+    void destroy()
+    {
+        key.destroy();
+        sessionParameters.clear();
+    }
+}
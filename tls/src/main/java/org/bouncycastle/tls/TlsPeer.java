@@ -2,6 +2,7 @@
 
 import java.io.IOException;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCertificate;
 import org.bouncycastle.tls.crypto.TlsCrypto;
 
@@ -53,6 +54,20 @@
 
     boolean allowLegacyResumption();
 
+    /**
+     * <p>
+     * NOTE: Currently only respected by TLS (not DTLS) protocols.
+     * </p>
+     * <p>
+     * Specify a {@link TlsBufferPool} for the record layer to take its working buffers from. A pool may be
+     * shared by many connections (see {@link org.bouncycastle.tls.crypto.DefaultTlsBufferPool}), in which case
+     * idle connections don't hold on to any record buffers.
+     * </p>
+     *
+     * @return the {@link TlsBufferPool} to use, or null to simply allocate buffers as needed.
+     */
+    TlsBufferPool getBufferPool();
+
     int getMaxCertificateChainLength();
 
     int getMaxHandshakeMessageSize();
@@ -12,6 +12,7 @@
 import java.util.Hashtable;
 import java.util.Vector;
 
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCrypto;
 import org.bouncycastle.tls.crypto.TlsSecret;
 import org.bouncycastle.util.Arrays;
@@ -169,6 +170,7 @@ protected boolean isTLSv13ConnectionState()
 
     protected boolean blocking;
     protected ByteQueueInputStream inputBuffers;
+    private final byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
     protected ByteQueueOutputStream outputBuffer;
 
     protected TlsProtocol()
@@ -440,6 +442,20 @@ protected void beginHandshake(boolean renegotiation)
         this.connection_state = CS_START;
         this.selectedPSK13 = false;
 
+        if (!renegotiation)
+        {
+            TlsBufferPool bufferPool = peer.getBufferPool();
+
+            context.setBufferPool(bufferPool);
+            recordStream.setBufferPool(bufferPool);
+            applicationDataQueue.setBufferPool(bufferPool);
+
+            if (!blocking)
+            {
+                inputBuffers.setBufferPool(bufferPool);
+            }
+        }
+
         context.handshakeBeginning(peer);
 
         SecurityParameters securityParameters = context.getSecurityParametersHandshake();
@@ -1383,7 +1399,6 @@ public void offerInput(byte[] input, int inputOff, int inputLen) throws IOExcept
         // loop while there are enough bytes to read the length of the next record
         while (inputBuffers.available() >= RecordFormat.FRAGMENT_OFFSET)
         {
-            byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
             if (RecordFormat.FRAGMENT_OFFSET != inputBuffers.peek(recordHeader))
             {
                 throw new TlsFatalAlert(AlertDescription.internal_error);
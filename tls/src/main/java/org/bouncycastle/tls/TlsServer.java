@@ -39,6 +39,40 @@
      */
     TlsPSKExternal getExternalPSK(Vector identities);
 
+    /**
+     * RFC 8446 4.6.1. Return the {@link TicketKeyManager} protecting stateless session tickets, or null if
+     * session tickets are not to be used. If non-null, a TLS 1.3 server issues a NewSessionTicket after each
+     * handshake (provided the client supports PSK with (EC)DHE key establishment) and accepts those tickets
+     * for resumption in later handshakes.
+     *
+     * @return the {@link TicketKeyManager}, or null.
+     */
+    TicketKeyManager getTicketKeyManager();
+
+    /**
+     * Return any data the server wants carried in a new session ticket, for checking when the ticket is
+     * offered for resumption. The data is encrypted along with the rest of the ticket state.
+     *
+     * @return the application data (of at most 2^16-1 bytes), or null for none.
+     * @throws IOException
+     */
+    byte[] getTicketApplicationData() throws IOException;
+
+    /**
+     * Called when a client offers a valid session ticket for TLS 1.3 resumption, giving the server the
+     * chance to decline to resume the session, e.g. because the session has no peer certificate and client
+     * authentication is now required. Note that the cipher suite of the resumed handshake is selected as
+     * usual, and the ticket is only used if it is compatible with that selection.
+     *
+     * @param sessionParameters the {@link SessionParameters} recovered from the ticket.
+     * @param applicationData the data from {@link #getTicketApplicationData()} when the ticket was issued,
+     *                        empty if there was none.
+     * @return true to resume the session, or false to ignore the ticket.
+     * @throws IOException
+     */
+    boolean allowTicketResumption(SessionParameters sessionParameters, byte[] applicationData)
+        throws IOException;
+
     void notifySession(TlsSession session);
 
     void notifyClientVersion(ProtocolVersion clientVersion) throws IOException;
@@ -10,6 +10,7 @@
 
 import org.bouncycastle.tls.crypto.TlsAgreement;
 import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.TlsCryptoUtils;
 import org.bouncycastle.tls.crypto.TlsDHConfig;
 import org.bouncycastle.tls.crypto.TlsECConfig;
 import org.bouncycastle.tls.crypto.TlsSecret;
@@ -181,6 +182,13 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
                 throw new TlsFatalAlert(AlertDescription.internal_error);
             }
 
+            // NOTE: An incompatible resumption PSK is ignored, as for the initial ClientHello (see below)
+            if (!isCompatibleResumptionPSK(selectedPSK, securityParameters))
+            {
+                selectedPSK.earlySecret.destroy();
+                selectedPSK = null;
+            }
+
             if (null == selectedPSK)
             {
                 /*
@@ -260,13 +268,10 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
             tlsServer.processClientExtensions(clientHelloExtensions);
 
             /*
-             * NOTE: Currently no server support for session resumption
-             * 
-             * If adding support, ensure securityParameters.tlsUnique is set to the localVerifyData, but
-             * ONLY when extended_master_secret has been negotiated (otherwise NULL).
+             * NOTE: Resumption in TLS 1.3 is via a resumption PSK (see below), which establishes a new session
+             * rather than resuming the old one.
              */
             {
-                // TODO[tls13] Resumption/PSK
                 securityParameters.resumedSession = false;
 
                 this.tlsSession = TlsUtils.importSession(TlsUtils.EMPTY_BYTES, null);
@@ -293,6 +298,22 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
                 TlsUtils.negotiatedCipherSuite(securityParameters, cipherSuite);
             }
 
+            /*
+             * RFC 8446 4.2.11. [..] the server MUST ensure that it selects a compatible PSK (if any) and
+             * cipher suite. A resumption PSK that doesn't match the cipher suite selection is ignored in favour
+             * of a full handshake.
+             */
+            if (!isCompatibleResumptionPSK(selectedPSK, securityParameters))
+            {
+                selectedPSK.earlySecret.destroy();
+                selectedPSK = null;
+
+                if (null == securityParameters.getClientSigAlgs())
+                {
+                    throw new TlsFatalAlert(AlertDescription.missing_extension);
+                }
+            }
+
             int[] clientSupportedGroups = securityParameters.getClientSupportedGroups();
             int[] serverSupportedGroups = securityParameters.getServerSupportedGroups();
 
@@ -380,7 +401,17 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
         securityParameters.statusRequestVersion = clientHelloExtensions.containsKey(TlsExtensionsUtils.EXT_status_request)
             ? 1 : 0;
 
-        this.expectSessionTicket = false;
+        /*
+         * RFC 8446 4.6.1. Clients that don't offer psk_dhe_ke can't make use of a session ticket (we don't
+         * support psk_ke), so only issue one when it will be usable.
+         */
+        {
+            short[] pskKeyExchangeModes = TlsExtensionsUtils.getPSKKeyExchangeModesExtension(clientHelloExtensions);
+
+            this.expectSessionTicket = null != tlsServer.getTicketKeyManager()
+                && null != pskKeyExchangeModes
+                && Arrays.contains(pskKeyExchangeModes, PskKeyExchangeMode.psk_dhe_ke);
+        }
 
         TlsSecret pskEarlySecret = null;
         if (null != selectedPSK)
@@ -392,6 +423,14 @@ protected ServerHello generate13ServerHello(ClientHello clientHello, HandshakeMe
             TlsExtensionsUtils.addPreSharedKeyServerHello(serverHelloExtensions, selectedPSK.index);
         }
 
+        /*
+         * With a resumption PSK there is no certificate-based authentication, so the peer's identity is
+         * carried over from the original session.
+         */
+        securityParameters.peerCertificate = (null != selectedPSK && selectedPSK.psk instanceof TlsPSKResumption)
+            ?   ((TlsPSKResumption)selectedPSK.psk).getSessionParameters().getPeerCertificate()
+            :   null;
+
         TlsSecret sharedSecret;
         {
             int namedGroup = clientShare.getNamedGroup();
@@ -431,6 +470,14 @@ else if (NamedGroup.refersToASpecificFiniteField(namedGroup))
             securityParameters.getCipherSuite(), serverHelloExtensions);
     }
 
+    private static boolean isCompatibleResumptionPSK(OfferedPsks.SelectedConfig selectedPSK,
+        SecurityParameters securityParameters)
+    {
+        return null == selectedPSK
+            || !(selectedPSK.psk instanceof TlsPSKResumption)
+            || selectedPSK.psk.getPRFAlgorithm() == securityParameters.getPRFAlgorithm();
+    }
+
     protected ServerHello generateServerHello(ClientHello clientHello, HandshakeMessageInput clientHelloMessage)
         throws IOException
     {
@@ -960,6 +1007,14 @@ protected void handle13HandshakeMessage(short type, HandshakeMessageInput buf)
                 // NOTE: Completes the switch to application-data phase (server entered after CS_SERVER_FINISHED).
                 recordStream.enablePendingCipherRead(false);
 
+                if (this.expectSessionTicket)
+                {
+                    // NOTE: The resumption master secret covers the transcript up to the client Finished
+                    buf.updateHash(handshakeHash);
+
+                    send13NewSessionTicketMessage();
+                }
+
                 completeHandshake();
                 break;
             }
@@ -1666,6 +1721,54 @@ protected void sendHelloRequestMessage()
         HandshakeMessageOutput.send(this, HandshakeType.hello_request, TlsUtils.EMPTY_BYTES);
     }
 
+    protected void send13NewSessionTicketMessage() throws IOException
+    {
+        TicketKeyManager ticketKeyManager = tlsServer.getTicketKeyManager();
+        SecurityParameters securityParameters = tlsServerContext.getSecurityParametersHandshake();
+
+        long ticketLifetime = ticketKeyManager.getTicketLifetime();
+        long ticketAgeAdd = TlsUtils.readUint32(tlsServerContext.getNonceGenerator().generateNonce(4), 0);
+        byte[] ticketNonce = TlsUtils.EMPTY_BYTES;
+
+        byte[] ticket;
+        {
+            TlsSecret resumptionMasterSecret = TlsUtils.deriveSecret(securityParameters,
+                securityParameters.getMasterSecret(), "res master", TlsUtils.getCurrentPRFHash(handshakeHash));
+            TlsSecret psk = TlsCryptoUtils.hkdfExpandLabel(resumptionMasterSecret,
+                securityParameters.getPRFCryptoHashAlgorithm(), "resumption", ticketNonce,
+                securityParameters.getPRFHashLength());
+
+            try
+            {
+                ticket = TlsPSKResumption.createTicket(tlsServerContext, ticketKeyManager.getEncryptionKey(),
+                    System.currentTimeMillis(), ticketLifetime, psk, tlsServer.getTicketApplicationData());
+            }
+            finally
+            {
+                psk.destroy();
+                resumptionMasterSecret.destroy();
+            }
+        }
+
+        /*
+         * NOTE: Large client certificate chains could produce a ticket too long for the message; the client
+         * will simply have to do a full handshake next time.
+         */
+        if (!TlsUtils.isValidUint16(ticket.length))
+        {
+            return;
+        }
+
+        HandshakeMessageOutput message = new HandshakeMessageOutput(HandshakeType.new_session_ticket);
+        TlsUtils.writeUint32(ticketLifetime, message);
+        TlsUtils.writeUint32(ticketAgeAdd, message);
+        TlsUtils.writeOpaque8(ticketNonce, message);
+        TlsUtils.writeOpaque16(ticket, message);
+        // NOTE: No extensions (we don't support early data)
+        TlsUtils.writeUint16(0, message);
+        message.send(this);
+    }
+
     protected void sendNewSessionTicketMessage(NewSessionTicket newSessionTicket)
         throws IOException
     {
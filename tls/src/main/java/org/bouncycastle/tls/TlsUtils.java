@@ -6006,50 +6006,100 @@ static OfferedPsks.SelectedConfig selectPreSharedKey(TlsServerContext serverCont
             // TODO[tls13] Add support for psk_ke?
             if (Arrays.contains(pskKeyExchangeModes, PskKeyExchangeMode.psk_dhe_ke))
             {
+                TlsPSK psk = null;
+                int index = -1;
+
                 // TODO[tls13] Prefer to get the exact index from the server?
-                TlsPSKExternal psk = server.getExternalPSK(offeredPsks.getIdentities());
-                if (null != psk)
+                TlsPSKExternal pskExternal = server.getExternalPSK(offeredPsks.getIdentities());
+                if (null != pskExternal)
                 {
-                    int index = offeredPsks.getIndexOfIdentity(new PskIdentity(psk.getIdentity(), 0L));
+                    index = offeredPsks.getIndexOfIdentity(new PskIdentity(pskExternal.getIdentity(), 0L));
                     if (index >= 0)
                     {
-                        byte[] binder = (byte[])offeredPsks.getBinders().elementAt(index);
-
-                        TlsCrypto crypto = serverContext.getCrypto();
-                        TlsSecret earlySecret = getPSKEarlySecret(crypto, psk);
-
-                        // TODO[tls13-psk] Handle resumption PSKs
-                        boolean isExternalPSK = true;
-                        int pskCryptoHashAlgorithm = TlsCryptoUtils.getHashForPRF(psk.getPRFAlgorithm());
-
-                        byte[] transcriptHash;
+                        psk = pskExternal;
+                    }
+                }
+                else
+                {
+                    TicketKeyManager ticketKeyManager = server.getTicketKeyManager();
+                    if (null != ticketKeyManager)
+                    {
+                        long currentTime = System.currentTimeMillis();
+
+                        /*
+                         * NOTE: Without early data there is no need to check the obfuscated_ticket_age; we
+                         * rely on the lifetime recorded (and authenticated) in the ticket itself.
+                         */
+                        Vector identities = offeredPsks.getIdentities();
+                        for (int i = 0; i < identities.size(); ++i)
                         {
-                            handshakeHashUpdated = true;
-                            int bindersSize = offeredPsks.getBindersSize();
-                            clientHelloMessage.updateHashPrefix(handshakeHash, bindersSize);
+                            PskIdentity identity = (PskIdentity)identities.elementAt(i);
+                            TlsPSKResumption pskResumption = TlsPSKResumption.parseTicket(serverContext,
+                                ticketKeyManager, identity.getIdentity(), currentTime);
 
-                            if (afterHelloRetryRequest)
-                            {
-                                transcriptHash = handshakeHash.getFinalHash(pskCryptoHashAlgorithm);
-                            }
-                            else
+                            if (null != pskResumption)
                             {
-                                TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
-                                handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
-                                transcriptHash = hash.calculateHash();
+                                if (server.allowTicketResumption(pskResumption.getSessionParameters(),
+                                    pskResumption.getApplicationData()))
+                                {
+                                    index = i;
+                                    psk = pskResumption;
+                                }
+                                else
+                                {
+                                    pskResumption.destroy();
+                                }
+                                break;
                             }
-
-                            clientHelloMessage.updateHashSuffix(handshakeHash, bindersSize);
                         }
+                    }
+                }
+
+                if (null != psk)
+                {
+                    byte[] binder = (byte[])offeredPsks.getBinders().elementAt(index);
+
+                    TlsCrypto crypto = serverContext.getCrypto();
+                    TlsSecret earlySecret = getPSKEarlySecret(crypto, psk);
+
+                    // NOTE: The resumption secret is only needed for the early secret, whatever becomes of the PSK
+                    if (psk instanceof TlsPSKResumption)
+                    {
+                        ((TlsPSKResumption)psk).destroy();
+                    }
 
-                        byte[] calculatedBinder = calculatePSKBinder(crypto, isExternalPSK, pskCryptoHashAlgorithm,
-                            earlySecret, transcriptHash);
+                    boolean isExternalPSK = psk instanceof TlsPSKExternal;
+                    int pskCryptoHashAlgorithm = TlsCryptoUtils.getHashForPRF(psk.getPRFAlgorithm());
+
+                    byte[] transcriptHash;
+                    {
+                        handshakeHashUpdated = true;
+                        int bindersSize = offeredPsks.getBindersSize();
+                        clientHelloMessage.updateHashPrefix(handshakeHash, bindersSize);
 
-                        if (Arrays.constantTimeAreEqual(calculatedBinder, binder))
+                        if (afterHelloRetryRequest)
                         {
-                            return new OfferedPsks.SelectedConfig(index, psk, pskKeyExchangeModes, earlySecret);
+                            transcriptHash = handshakeHash.getFinalHash(pskCryptoHashAlgorithm);
                         }
+                        else
+                        {
+                            TlsHash hash = crypto.createHash(pskCryptoHashAlgorithm);
+                            handshakeHash.copyBufferTo(new TlsHashOutputStream(hash));
+                            transcriptHash = hash.calculateHash();
+                        }
+
+                        clientHelloMessage.updateHashSuffix(handshakeHash, bindersSize);
+                    }
+
+                    byte[] calculatedBinder = calculatePSKBinder(crypto, isExternalPSK, pskCryptoHashAlgorithm,
+                        earlySecret, transcriptHash);
+
+                    if (Arrays.constantTimeAreEqual(calculatedBinder, binder))
+                    {
+                        return new OfferedPsks.SelectedConfig(index, psk, pskKeyExchangeModes, earlySecret);
                     }
+
+                    earlySecret.destroy();
                 }
             }
         }
@@ -0,0 +1,97 @@
+package org.bouncycastle.tls.crypto;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A {@link TlsBufferPool} holding a bounded number of buffers of a single size, by default large enough for
+ * any TLS record. Requests for larger buffers are served by plain allocation.
+ * <p>
+ * A single instance can be shared by any number of connections, in which case idle connections hold no
+ * buffers at all. Access is synchronized; where many threads are processing records, using several pools
+ * (e.g. one per group of connections) reduces contention.
+ * </p>
+ * <p>
+ * Released buffers are zeroed before they are pooled, so that no record data is passed between connections.
+ * </p>
+ */
+public class DefaultTlsBufferPool
+    implements TlsBufferPool
+{
+    /**
+     * The size of a record header plus the largest ciphertext permitted by RFC 5246 6.2.3.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 5 + (1 << 14) + 2048;
+
+    public static final int DEFAULT_MAX_BUFFERS = 32;
+
+    private final int bufferSize;
+    private final byte[][] buffers;
+    private int count = 0;
+
+    public DefaultTlsBufferPool()
+    {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS);
+    }
+
+    /**
+     * @param bufferSize the size of the pooled buffers.
+     * @param maxBuffers the maximum number of buffers the pool will hold while they are not in use.
+     */
+    public DefaultTlsBufferPool(int bufferSize, int maxBuffers)
+    {
+        if (bufferSize < 1)
+        {
+            throw new IllegalArgumentException("'bufferSize' must be > 0");
+        }
+        if (maxBuffers < 0)
+        {
+            throw new IllegalArgumentException("'maxBuffers' cannot be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.buffers = new byte[maxBuffers][];
+    }
+
+    public byte[] acquire(int minLength)
+    {
+        if (minLength > bufferSize)
+        {
+            return new byte[minLength];
+        }
+
+        synchronized (buffers)
+        {
+            if (count > 0)
+            {
+                byte[] buf = buffers[--count];
+                buffers[count] = null;
+                return buf;
+            }
+        }
+
+        return new byte[bufferSize];
+    }
+
+    public void release(byte[] buf)
+    {
+        if (null == buf || buf.length != bufferSize)
+        {
+            return;
+        }
+
+        Arrays.fill(buf, (byte)0);
+
+        synchronized (buffers)
+        {
+            if (count < buffers.length)
+            {
+                buffers[count++] = buf;
+            }
+        }
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+}
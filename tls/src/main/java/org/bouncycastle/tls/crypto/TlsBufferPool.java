@@ -0,0 +1,37 @@
+package org.bouncycastle.tls.crypto;
+
+/**
+ * Interface for a pool of byte arrays used as working buffers for records, so that steady-state record
+ * processing need not allocate.
+ * <p>
+ * Implementations must be thread-safe: a pool may be shared by many connections, and a single connection may
+ * be reading and writing at the same time.
+ * </p>
+ */
+public interface TlsBufferPool
+{
+    /**
+     * Obtain a buffer of at least the given length. The contents of the buffer are unspecified.
+     *
+     * @param minLength the minimum length of the buffer.
+     * @return a buffer of at least minLength bytes.
+     */
+    byte[] acquire(int minLength);
+
+    /**
+     * Return a buffer to the pool. The caller must not use the buffer (or let anyone else use it) afterwards.
+     * Buffers that the pool cannot reuse are simply discarded. The buffer may still hold record data, so a pool
+     * that reuses it must clear it first.
+     *
+     * @param buf the buffer to return.
+     */
+    void release(byte[] buf);
+
+    /**
+     * The size of the buffers this pool holds. Larger requests are not served from the pool, so users with
+     * growing data should size their requests themselves beyond this.
+     *
+     * @return the size of the pooled buffers.
+     */
+    int getBufferSize();
+}
@@ -46,7 +46,8 @@
     int getPlaintextEncodeLimit(int ciphertextLimit);
 
     /**
-     * Encode the passed in plaintext using the current bulk cipher.
+     * Encode the passed in plaintext using the current bulk cipher. The returned buffer belongs to the caller,
+     * which may release it to the connection's {@link TlsBufferPool} (if any) once the record has been written.
      *
      * @param seqNo sequence number of the message represented by plaintext.
      * @param contentType content type of the message represented by plaintext.
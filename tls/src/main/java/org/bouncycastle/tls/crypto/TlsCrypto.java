@@ -197,6 +197,17 @@
     TlsCipher createCipher(TlsCryptoParameters cryptoParams, int encryptionAlgorithm, int macAlgorithm)
         throws IOException;
 
+    /**
+     * Create an AEAD cipher that is not tied to the record layer of any connection, e.g. for protecting
+     * session tickets. The caller is responsible for supplying a key of the appropriate size.
+     *
+     * @param encryptionAlgorithm the AEAD {@link EncryptionAlgorithm} to use.
+     * @param isEncrypting true if the cipher is for encryption, false otherwise.
+     * @return a {@link TlsAEAD}.
+     * @throws IOException in case of failure, including if encryptionAlgorithm is not a supported AEAD algorithm.
+     */
+    TlsAEAD createAEAD(int encryptionAlgorithm, boolean isEncrypting) throws IOException;
+
     /**
      * Create a domain object supporting the domain parameters described in dhConfig.
      *
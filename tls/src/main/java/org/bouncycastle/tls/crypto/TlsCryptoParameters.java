@@ -55,4 +55,9 @@ public TlsNonceGenerator getNonceGenerator()
     {
         return context.getNonceGenerator();
     }
+
+    public TlsBufferPool getBufferPool()
+    {
+        return context.getBufferPool();
+    }
 }
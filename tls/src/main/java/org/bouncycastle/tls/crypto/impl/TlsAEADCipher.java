@@ -182,7 +182,8 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
         int encryptionLength = encryptCipher.getOutputSize(innerPlaintextLength);
         int ciphertextLength = record_iv_length + encryptionLength;
 
-        byte[] output = new byte[headerAllocation + ciphertextLength];
+        int outputLength = headerAllocation + ciphertextLength;
+        byte[] output = TlsImplUtils.allocateRecord(cryptoParams, outputLength);
         int outputPos = headerAllocation;
 
         if (record_iv_length != 0)
@@ -202,27 +203,33 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
 
         try
         {
-            System.arraycopy(plaintext, plaintextOffset, output, outputPos, plaintextLength);
             if (encryptUseInnerPlaintext)
             {
+                // The content type has to follow the plaintext, so stage it in the record and encrypt in place
+                System.arraycopy(plaintext, plaintextOffset, output, outputPos, plaintextLength);
                 output[outputPos + plaintextLength] = (byte)contentType;
-            }
 
-            outputPos += encryptCipher.doFinal(additionalData, output, outputPos, innerPlaintextLength, output,
-                outputPos);
+                outputPos += encryptCipher.doFinal(additionalData, output, outputPos, innerPlaintextLength, output,
+                    outputPos);
+            }
+            else
+            {
+                outputPos += encryptCipher.doFinal(additionalData, plaintext, plaintextOffset, plaintextLength,
+                    output, outputPos);
+            }
         }
         catch (RuntimeException e)
         {
             throw new TlsFatalAlert(AlertDescription.internal_error, e);
         }
 
-        if (outputPos != output.length)
+        if (outputPos != outputLength)
         {
             // NOTE: The additional data mechanism for AEAD ciphers requires exact output size prediction.
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
 
-        return new TlsEncodeResult(output, 0, output.length, recordType);
+        return new TlsEncodeResult(output, 0, outputLength, recordType);
     }
 
     public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
@@ -212,7 +212,8 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
             totalSize += blockSize;
         }
 
-        byte[] outBuf = new byte[headerAllocation + totalSize];
+        int outLength = headerAllocation + totalSize;
+        byte[] outBuf = TlsImplUtils.allocateRecord(cryptoParams, outLength);
         int outOff = headerAllocation;
 
         if (useExplicitIV)
@@ -259,12 +260,12 @@ public TlsEncodeResult encodePlaintext(long seqNo, short contentType, ProtocolVe
             outOff += mac.length;
         }
 
-        if (outOff != outBuf.length)
+        if (outOff != outLength)
         {
             throw new TlsFatalAlert(AlertDescription.internal_error);
         }
 
-        return new TlsEncodeResult(outBuf, 0, outBuf.length, recordType);
+        return new TlsEncodeResult(outBuf, 0, outLength, recordType);
     }
 
     public TlsDecodeResult decodeCiphertext(long seqNo, short recordType, ProtocolVersion recordVersion,
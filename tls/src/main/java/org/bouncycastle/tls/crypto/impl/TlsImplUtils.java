@@ -3,6 +3,7 @@
 import org.bouncycastle.tls.ExporterLabel;
 import org.bouncycastle.tls.ProtocolVersion;
 import org.bouncycastle.tls.SecurityParameters;
+import org.bouncycastle.tls.crypto.TlsBufferPool;
 import org.bouncycastle.tls.crypto.TlsCryptoParameters;
 import org.bouncycastle.tls.crypto.TlsSecret;
 import org.bouncycastle.util.Arrays;
@@ -65,4 +66,17 @@ public static byte[] calculateKeyBlock(TlsCryptoParameters cryptoParams, int len
         byte[] seed = Arrays.concatenate(securityParameters.getServerRandom(), securityParameters.getClientRandom());
         return master_secret.deriveUsingPRF(prfAlgorithm, ExporterLabel.key_expansion, seed, length).extract();
     }
+
+    /**
+     * Obtain a buffer for an outgoing record, from the connection's {@link TlsBufferPool} if it has one.
+     *
+     * @param cryptoParams the crypto parameters for the connection.
+     * @param length the minimum length of the buffer.
+     * @return a buffer of at least length bytes.
+     */
+    public static byte[] allocateRecord(TlsCryptoParameters cryptoParams, int length)
+    {
+        TlsBufferPool bufferPool = cryptoParams.getBufferPool();
+        return null == bufferPool ? new byte[length] : bufferPool.acquire(length);
+    }
 }
@@ -4,6 +4,7 @@
 
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.tls.AlertDescription;
@@ -18,6 +19,8 @@
     private final AEADBlockCipher cipher;
 
     private KeyParameter key;
+    private boolean keyChanged;
+    private byte[] lastNonce;
 
     BcTlsAEADCipherImpl(AEADBlockCipher cipher, boolean isEncrypting)
     {
@@ -28,11 +31,27 @@
     public void setKey(byte[] key, int keyOff, int keyLen)
     {
         this.key = new KeyParameter(key, keyOff, keyLen);
+        this.keyChanged = true;
     }
 
     public void init(byte[] nonce, int macSize)
+        throws IOException
     {
-        cipher.init(isEncrypting, new AEADParameters(key, macSize * 8, nonce, null));
+        /*
+         * NOTE: Not every mode (e.g. CCM) checks for nonce re-use itself, so we check it here for all of them.
+         */
+        if (isEncrypting && !keyChanged && Arrays.areEqual(nonce, lastNonce))
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error, "cannot reuse nonce for AEAD encryption");
+        }
+
+        /*
+         * NOTE: A null key re-uses the current one, which (e.g. for GCM) saves setting up the key again for every
+         * record.
+         */
+        cipher.init(isEncrypting, new AEADParameters(keyChanged ? key : null, macSize * 8, nonce, null));
+        keyChanged = false;
+        lastNonce = isEncrypting ? Arrays.clone(nonce) : null;
     }
 
     public int getOutputSize(int inputLength)
@@ -48,17 +67,27 @@ public int doFinal(byte[] additionalData, byte[] input, int inputOffset, int inp
             cipher.processAADBytes(additionalData, 0, additionalData.length);
         }
 
-        int len = cipher.processBytes(input, inputOffset, inputLength, output, outputOffset);
-
         try
         {
+            if (cipher instanceof CCMBlockCipher)
+            {
+                /*
+                 * CCM buffers all its input until doFinal, so pass the whole record directly instead (which also
+                 * works in place).
+                 */
+                CCMBlockCipher ccm = (CCMBlockCipher)cipher;
+                int len = ccm.processPacket(input, inputOffset, inputLength, output, outputOffset);
+                ccm.reset();
+                return len;
+            }
+
+            int len = cipher.processBytes(input, inputOffset, inputLength, output, outputOffset);
             len += cipher.doFinal(output, outputOffset + len);
+            return len;
         }
         catch (InvalidCipherTextException e)
         {
             throw new TlsFatalAlert(AlertDescription.bad_record_mac, e);
         }
-
-        return len;
     }
 }
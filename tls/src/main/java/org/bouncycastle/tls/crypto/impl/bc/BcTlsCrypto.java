@@ -44,6 +44,7 @@
 import org.bouncycastle.tls.TlsUtils;
 import org.bouncycastle.tls.crypto.CryptoHashAlgorithm;
 import org.bouncycastle.tls.crypto.CryptoSignatureAlgorithm;
+import org.bouncycastle.tls.crypto.TlsAEAD;
 import org.bouncycastle.tls.crypto.TlsCertificate;
 import org.bouncycastle.tls.crypto.TlsCipher;
 import org.bouncycastle.tls.crypto.TlsCryptoParameters;
@@ -120,6 +121,20 @@ public TlsCertificate createCertificate(short type, byte[] encoding)
         }
     }
 
+    public TlsAEAD createAEAD(int encryptionAlgorithm, boolean isEncrypting) throws IOException
+    {
+        switch (encryptionAlgorithm)
+        {
+        case EncryptionAlgorithm.AES_128_GCM:
+        case EncryptionAlgorithm.AES_256_GCM:
+            return new BcTlsAEADCipherImpl(createAEADBlockCipher_AES_GCM(), isEncrypting);
+        case EncryptionAlgorithm.CHACHA20_POLY1305:
+            return new BcChaCha20Poly1305(isEncrypting);
+        default:
+            throw new TlsFatalAlert(AlertDescription.internal_error);
+        }
+    }
+
     public TlsCipher createCipher(TlsCryptoParameters cryptoParams, int encryptionAlgorithm, int macAlgorithm)
         throws IOException
     {
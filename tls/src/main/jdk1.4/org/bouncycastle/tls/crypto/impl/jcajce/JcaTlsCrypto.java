@@ -36,6 +36,7 @@
 import org.bouncycastle.tls.crypto.CryptoSignatureAlgorithm;
 import org.bouncycastle.tls.crypto.SRP6Group;
 import org.bouncycastle.tls.crypto.Tls13Verifier;
+import org.bouncycastle.tls.crypto.TlsAEAD;
 import org.bouncycastle.tls.crypto.TlsCertificate;
 import org.bouncycastle.tls.crypto.TlsCipher;
 import org.bouncycastle.tls.crypto.TlsCryptoException;
@@ -166,6 +167,28 @@ public TlsCertificate createCertificate(short type, byte[] encoding)
         return new JcaTlsCertificate(this, encoding);
     }
 
+    public TlsAEAD createAEAD(int encryptionAlgorithm, boolean isEncrypting) throws IOException
+    {
+        try
+        {
+            switch (encryptionAlgorithm)
+            {
+            case EncryptionAlgorithm.AES_128_GCM:
+                return createAEADCipher("AES/GCM/NoPadding", "AES", 16, isEncrypting);
+            case EncryptionAlgorithm.AES_256_GCM:
+                return createAEADCipher("AES/GCM/NoPadding", "AES", 32, isEncrypting);
+            case EncryptionAlgorithm.CHACHA20_POLY1305:
+                return new JceChaCha20Poly1305(this, helper, isEncrypting);
+            default:
+                throw new TlsFatalAlert(AlertDescription.internal_error);
+            }
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new TlsCryptoException("cannot create AEAD cipher: " + e.getMessage(), e);
+        }
+    }
+
     public TlsCipher createCipher(TlsCryptoParameters cryptoParams, int encryptionAlgorithm, int macAlgorithm)
         throws IOException
     {
@@ -0,0 +1,244 @@
+package org.bouncycastle.jsse.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.SessionID;
+import org.bouncycastle.tls.SessionParameters;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Tests for the sharded session cache, selected with the "org.bouncycastle.jsse.sessionCache.sharded" property.
+ */
+public class ProvSSLSessionContextShardedTest
+    extends TestCase
+{
+    private static final String SHARDED_PROPERTY = "org.bouncycastle.jsse.sessionCache.sharded";
+
+    public void testSystemPropertySelectsSharded()
+        throws Exception
+    {
+        assertTrue(createSessionContext(true) instanceof ProvSSLSessionContextSharded);
+        assertEquals(ProvSSLSessionContext.class, createSessionContext(false).getClass());
+    }
+
+    public void testEvictionToCacheSize()
+        throws Exception
+    {
+        ProvSSLSessionContext context = createSessionContext(true);
+        context.setSessionCacheSize(10);
+
+        for (int i = 0; i < 100; ++i)
+        {
+            reportSession(context, i);
+        }
+
+        assertEquals(10, getIds(context).size());
+        assertEquals(90, context.getCacheEvictionCount());
+
+        context.setSessionCacheSize(5);
+
+        Set<SessionID> ids = getIds(context);
+        assertEquals(5, ids.size());
+        assertEquals(95, context.getCacheEvictionCount());
+
+        int found = 0;
+        for (int i = 0; i < 100; ++i)
+        {
+            ProvSSLSession session = context.getSessionImpl(peerHost(i), 443);
+            if (null != session)
+            {
+                assertTrue(ids.contains(new SessionID(session.getId())));
+                ++found;
+            }
+        }
+        assertEquals(5, found);
+    }
+
+    public void testPeerLookupAfterEviction()
+        throws Exception
+    {
+        ProvSSLSessionContext context = createSessionContext(true);
+        context.setSessionCacheSize(1);
+
+        ProvSSLSession first = reportSession(context, 0);
+
+        // Referencing the first session gives it a second chance, so the new session is the one evicted
+        assertSame(first, context.getSessionImpl(sessionID(0)));
+        reportSession(context, 1);
+
+        assertEquals(1, getIds(context).size());
+        assertNull(context.getSessionImpl(peerHost(1), 443));
+        assertNull(context.getSessionImpl(sessionID(1)));
+        assertSame(first, context.getSessionImpl(peerHost(0), 443));
+    }
+
+    public void testLazyExpiry()
+        throws Exception
+    {
+        ProvSSLSessionContext context = createSessionContext(true);
+        context.setSessionTimeout(1);
+
+        ProvSSLSession session = reportSession(context, 0);
+        assertSame(session, context.getSessionImpl(sessionID(0)));
+
+        Thread.sleep(1100);
+
+        // Still present until looked up
+        assertTrue(session.isValid());
+
+        assertNull(context.getSessionImpl(peerHost(0), 443));
+        assertFalse(session.isValid());
+        assertNull(context.getSessionImpl(sessionID(0)));
+        assertEquals(0, getIds(context).size());
+    }
+
+    public void testConcurrentAccess()
+        throws Exception
+    {
+        final ProvSSLSessionContext context = createSessionContext(true);
+        context.setSessionCacheSize(64);
+
+        final int threadCount = 8, opsPerThread = 2000;
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; ++t)
+        {
+            final int base = t * opsPerThread;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i < opsPerThread; ++i)
+                        {
+                            int n = base + i;
+                            ProvSSLSession session = reportSession(context, n);
+
+                            ProvSSLSession byID = context.getSessionImpl(sessionID(n));
+                            assertTrue(null == byID || byID == session);
+
+                            ProvSSLSession byPeer = context.getSessionImpl(peerHost(n), 443);
+                            assertTrue(null == byPeer || byPeer == session);
+
+                            if (i % 3 == 0)
+                            {
+                                session.invalidate();
+                                assertNull(context.getSessionImpl(sessionID(n)));
+                                assertNull(context.getSessionImpl(peerHost(n), 443));
+                            }
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t < threadCount; ++t)
+        {
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; ++t)
+        {
+            threads[t].join();
+        }
+
+        if (!failures.isEmpty())
+        {
+            Throwable e = failures.get(0);
+            if (e instanceof Error)
+            {
+                throw (Error)e;
+            }
+            throw new RuntimeException(e);
+        }
+
+        Set<SessionID> ids = getIds(context);
+        assertTrue(ids.size() <= 64);
+        assertTrue(context.getCacheHitCount() > 0);
+
+        // Every session reachable by peer must still be in the cache proper
+        for (int n = 0; n < threadCount * opsPerThread; ++n)
+        {
+            ProvSSLSession session = context.getSessionImpl(peerHost(n), 443);
+            if (null != session)
+            {
+                assertTrue(ids.contains(new SessionID(session.getId())));
+            }
+        }
+    }
+
+    private static ProvSSLSessionContext createSessionContext(boolean sharded)
+        throws Exception
+    {
+        String previous = System.getProperty(SHARDED_PROPERTY);
+        System.setProperty(SHARDED_PROPERTY, String.valueOf(sharded));
+        try
+        {
+            SSLContext sslContext = SSLContext.getInstance("TLS",
+                new BouncyCastleJsseProvider(new BouncyCastleProvider()));
+            sslContext.init(null, null, null);
+            return (ProvSSLSessionContext)sslContext.getClientSessionContext();
+        }
+        finally
+        {
+            if (null == previous)
+            {
+                System.clearProperty(SHARDED_PROPERTY);
+            }
+            else
+            {
+                System.setProperty(SHARDED_PROPERTY, previous);
+            }
+        }
+    }
+
+    private static Set<SessionID> getIds(ProvSSLSessionContext context)
+    {
+        Set<SessionID> ids = new HashSet<SessionID>();
+        for (byte[] id : Collections.list(context.getIds()))
+        {
+            ids.add(new SessionID(id));
+        }
+        return ids;
+    }
+
+    private static String peerHost(int n)
+    {
+        return "host" + n + ".example.com";
+    }
+
+    private static ProvSSLSession reportSession(ProvSSLSessionContext context, int n)
+    {
+        SessionParameters sessionParameters = new SessionParameters.Builder()
+            .setCipherSuite(CipherSuite.TLS_AES_128_GCM_SHA256)
+            .setMasterSecret(context.getCrypto().createSecret(new byte[32]))
+            .setNegotiatedVersion(ProtocolVersion.TLSv13)
+            .build();
+
+        return context.reportSession(peerHost(n), 443, TlsUtils.importSession(sessionID(n), sessionParameters),
+            new JsseSessionParameters(null, null), true);
+    }
+
+    private static byte[] sessionID(int n)
+    {
+        byte[] id = new byte[32];
+        Pack.intToBigEndian(n, id, 0);
+        return id;
+    }
+}
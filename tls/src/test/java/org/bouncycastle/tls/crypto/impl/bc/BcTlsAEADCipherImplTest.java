@@ -0,0 +1,231 @@
+package org.bouncycastle.tls.crypto.impl.bc;
+
+import java.io.IOException;
+
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the BC AEAD record cipher, including the CCM packet path and re-initialisation with the current key.
+ */
+public class BcTlsAEADCipherImplTest
+    extends TestCase
+{
+    // NIST SP 800-38C, Appendix C, Examples 2 and 3
+    private static final byte[] K = Hex.decode("404142434445464748494a4b4c4d4e4f");
+
+    private static final byte[] N2 = Hex.decode("1011121314151617");
+    private static final byte[] A2 = Hex.decode("000102030405060708090a0b0c0d0e0f");
+    private static final byte[] P2 = Hex.decode("202122232425262728292a2b2c2d2e2f");
+    private static final byte[] C2 = Hex.decode("d2a1f0e051ea5f62081a7792073d593d1fc64fbfaccd");
+
+    private static final byte[] N3 = Hex.decode("101112131415161718191a1b");
+    private static final byte[] A3 = Hex.decode("000102030405060708090a0b0c0d0e0f10111213");
+    private static final byte[] P3 = Hex.decode("202122232425262728292a2b2c2d2e2f3031323334353637");
+    private static final byte[] C3 = Hex.decode("e3b201a9f5b71a7a9b1ceaeccd97e70b6176aad9a4428aa5484392fbc1b09951");
+
+    private final BcTlsCrypto crypto = new BcTlsCrypto();
+
+    public void testCCMPacket()
+        throws IOException
+    {
+        BcTlsAEADCipherImpl encrypt = createCCM(true);
+        BcTlsAEADCipherImpl decrypt = createCCM(false);
+
+        encrypt.setKey(K, 0, K.length);
+        decrypt.setKey(K, 0, K.length);
+
+        // Separate input and output
+        encrypt.init(N2, 6);
+        assertEquals(C2.length, encrypt.getOutputSize(P2.length));
+        byte[] output = new byte[1 + C2.length];
+        assertEquals(C2.length, encrypt.doFinal(A2, P2, 0, P2.length, output, 1));
+        assertTrue(Arrays.areEqual(C2, Arrays.copyOfRange(output, 1, output.length)));
+
+        decrypt.init(N2, 6);
+        assertEquals(P2.length, decrypt.getOutputSize(C2.length));
+        output = new byte[1 + P2.length];
+        assertEquals(P2.length, decrypt.doFinal(A2, C2, 0, C2.length, output, 1));
+        assertTrue(Arrays.areEqual(P2, Arrays.copyOfRange(output, 1, output.length)));
+
+        // In place, as for records
+        byte[] buf = new byte[2 + C3.length];
+        System.arraycopy(P3, 0, buf, 2, P3.length);
+        encrypt.init(N3, 8);
+        assertEquals(C3.length, encrypt.doFinal(A3, buf, 2, P3.length, buf, 2));
+        assertTrue(Arrays.areEqual(C3, Arrays.copyOfRange(buf, 2, buf.length)));
+
+        decrypt.init(N3, 8);
+        assertEquals(P3.length, decrypt.doFinal(A3, buf, 2, C3.length, buf, 2));
+        assertTrue(Arrays.areEqual(P3, Arrays.copyOfRange(buf, 2, 2 + P3.length)));
+    }
+
+    public void testCCMBadMac()
+        throws IOException
+    {
+        BcTlsAEADCipherImpl decrypt = createCCM(false);
+        decrypt.setKey(K, 0, K.length);
+
+        byte[] buf = Arrays.clone(C3);
+        buf[buf.length - 1] ^= 1;
+
+        decrypt.init(N3, 8);
+        try
+        {
+            decrypt.doFinal(A3, buf, 0, buf.length, buf, 0);
+            fail("bad MAC accepted");
+        }
+        catch (TlsFatalAlert e)
+        {
+            assertEquals(AlertDescription.bad_record_mac, e.getAlertDescription());
+        }
+
+        // The associated data from the failed record must not leak into the next one
+        buf = Arrays.clone(C2);
+        decrypt.init(N2, 6);
+        assertEquals(P2.length, decrypt.doFinal(A2, buf, 0, buf.length, buf, 0));
+        assertTrue(Arrays.areEqual(P2, Arrays.copyOf(buf, P2.length)));
+    }
+
+    public void testCCMReinitWithCurrentKey()
+        throws IOException
+    {
+        implTestReinitWithCurrentKey(createCCM(true), createCCM(true), createCCM(false));
+    }
+
+    public void testGCMReinitWithCurrentKey()
+        throws IOException
+    {
+        implTestReinitWithCurrentKey(createGCM(true), createGCM(true), createGCM(false));
+    }
+
+    public void testCCMNonceReuse()
+        throws IOException
+    {
+        implTestNonceReuse(createCCM(true), createCCM(false));
+    }
+
+    public void testGCMNonceReuse()
+        throws IOException
+    {
+        implTestNonceReuse(createGCM(true), createGCM(false));
+    }
+
+    private void implTestReinitWithCurrentKey(BcTlsAEADCipherImpl reinit, BcTlsAEADCipherImpl fresh,
+        BcTlsAEADCipherImpl decrypt) throws IOException
+    {
+        byte[] key1 = Hex.decode("000102030405060708090a0b0c0d0e0f");
+        byte[] key2 = Hex.decode("f0e0d0c0b0a090807060504030201000");
+        byte[] aad = Hex.decode("1703030020");
+        byte[] plaintext = Hex.decode("000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f");
+
+        reinit.setKey(key1, 0, key1.length);
+        decrypt.setKey(key1, 0, key1.length);
+
+        byte[][] records = new byte[4][];
+        for (int seqNo = 0; seqNo < records.length; ++seqNo)
+        {
+            // Only the first record passes the key to the underlying cipher
+            reinit.init(nonce(seqNo), 16);
+            records[seqNo] = encrypt(reinit, aad, plaintext);
+
+            fresh.setKey(key1, 0, key1.length);
+            fresh.init(nonce(seqNo), 16);
+            assertTrue(Arrays.areEqual(encrypt(fresh, aad, plaintext), records[seqNo]));
+
+            decrypt.init(nonce(seqNo), 16);
+            assertTrue(Arrays.areEqual(plaintext, decrypt(decrypt, aad, records[seqNo])));
+        }
+
+        // A new key is used from the next init onwards, after which the new key is re-used in turn
+        reinit.setKey(key2, 0, key2.length);
+        fresh.setKey(key2, 0, key2.length);
+        for (int seqNo = 0; seqNo < 2; ++seqNo)
+        {
+            reinit.init(nonce(seqNo), 16);
+            byte[] record = encrypt(reinit, aad, plaintext);
+            assertFalse(Arrays.areEqual(records[seqNo], record));
+
+            fresh.setKey(key2, 0, key2.length);
+            fresh.init(nonce(seqNo), 16);
+            assertTrue(Arrays.areEqual(encrypt(fresh, aad, plaintext), record));
+        }
+    }
+
+    private void implTestNonceReuse(BcTlsAEADCipherImpl encrypt, BcTlsAEADCipherImpl decrypt)
+        throws IOException
+    {
+        byte[] aad = Hex.decode("1703030020");
+        byte[] plaintext = Hex.decode("000102030405060708090a0b0c0d0e0f");
+
+        encrypt.setKey(K, 0, K.length);
+        decrypt.setKey(K, 0, K.length);
+
+        encrypt.init(nonce(0), 16);
+        byte[] record = encrypt(encrypt, aad, plaintext);
+
+        try
+        {
+            encrypt.init(nonce(0), 16);
+            fail("nonce re-used for encryption with the same key");
+        }
+        catch (TlsFatalAlert e)
+        {
+            assertEquals(AlertDescription.internal_error, e.getAlertDescription());
+        }
+
+        encrypt.init(nonce(1), 16);
+        encrypt(encrypt, aad, plaintext);
+
+        // After a key change, the same nonce is a new (key, nonce) pair
+        byte[] otherKey = Hex.decode("f0e0d0c0b0a090807060504030201000");
+        encrypt.setKey(otherKey, 0, otherKey.length);
+        encrypt.init(nonce(1), 16);
+        encrypt(encrypt, aad, plaintext);
+
+        // Decryption is unaffected, e.g. trying the same record again
+        for (int i = 0; i < 2; ++i)
+        {
+            decrypt.init(nonce(0), 16);
+            assertTrue(Arrays.areEqual(plaintext, decrypt(decrypt, aad, record)));
+        }
+    }
+
+    private BcTlsAEADCipherImpl createCCM(boolean isEncrypting)
+    {
+        return new BcTlsAEADCipherImpl(crypto.createAEADBlockCipher_AES_CCM(), isEncrypting);
+    }
+
+    private BcTlsAEADCipherImpl createGCM(boolean isEncrypting)
+    {
+        return new BcTlsAEADCipherImpl(crypto.createAEADBlockCipher_AES_GCM(), isEncrypting);
+    }
+
+    private static byte[] decrypt(BcTlsAEADCipherImpl cipher, byte[] aad, byte[] record)
+        throws IOException
+    {
+        byte[] buf = Arrays.clone(record);
+        int len = cipher.doFinal(aad, buf, 0, buf.length, buf, 0);
+        return Arrays.copyOf(buf, len);
+    }
+
+    private static byte[] encrypt(BcTlsAEADCipherImpl cipher, byte[] aad, byte[] plaintext)
+        throws IOException
+    {
+        byte[] buf = new byte[cipher.getOutputSize(plaintext.length)];
+        System.arraycopy(plaintext, 0, buf, 0, plaintext.length);
+        assertEquals(buf.length, cipher.doFinal(aad, buf, 0, plaintext.length, buf, 0));
+        return buf;
+    }
+
+    private static byte[] nonce(int seqNo)
+    {
+        byte[] nonce = Hex.decode("a0a1a2a3a4a5a6a7a8a9aaab");
+        nonce[nonce.length - 1] ^= (byte)seqNo;
+        return nonce;
+    }
+}
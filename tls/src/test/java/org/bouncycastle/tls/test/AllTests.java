@@ -31,6 +31,9 @@ public static Test suite()
         suite.addTestSuite(OCSPTest.class);
         suite.addTestSuite(PRFTest.class);
         suite.addTestSuite(Tls13PSKProtocolTest.class);
+        suite.addTestSuite(Tls13SessionTicketTest.class);
+        suite.addTestSuite(org.bouncycastle.tls.crypto.impl.bc.BcTlsAEADCipherImplTest.class);
+        suite.addTestSuite(TlsBufferPoolTest.class);
         suite.addTestSuite(TlsProtocolNonBlockingTest.class);
         suite.addTestSuite(TlsProtocolTest.class);
         suite.addTestSuite(TlsPSKProtocolTest.class);
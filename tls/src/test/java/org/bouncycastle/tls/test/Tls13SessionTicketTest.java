@@ -0,0 +1,497 @@
+package org.bouncycastle.tls.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Hashtable;
+import java.util.Vector;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.bouncycastle.tls.BasicTlsPSKExternal;
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.DefaultTicketKeyManager;
+import org.bouncycastle.tls.PRFAlgorithm;
+import org.bouncycastle.tls.PskKeyExchangeMode;
+import org.bouncycastle.tls.SessionParameters;
+import org.bouncycastle.tls.TicketKey;
+import org.bouncycastle.tls.TicketKeyManager;
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsCredentials;
+import org.bouncycastle.tls.TlsExtensionsUtils;
+import org.bouncycastle.tls.TlsServer;
+import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+
+import junit.framework.TestCase;
+
+public class Tls13SessionTicketTest
+    extends TestCase
+{
+    private static final long PERIOD = 60, LIFETIME = 300;
+
+    public void testKeyRotation()
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(LIFETIME, PERIOD);
+
+        TicketKey key1 = keyManager.getEncryptionKey();
+        assertSame(key1, keyManager.getDecryptionKey(key1.getName()));
+
+        keyManager.time += PERIOD * 1000L - 1;
+        assertSame(key1, keyManager.getEncryptionKey());
+
+        keyManager.time += 1;
+        TicketKey key2 = keyManager.getEncryptionKey();
+        assertNotSame(key1, key2);
+        assertFalse(Arrays.areEqual(key1.getName(), key2.getName()));
+
+        // A retired key remains available for decryption until its tickets have all expired
+        assertSame(key1, keyManager.getDecryptionKey(key1.getName()));
+        assertSame(key2, keyManager.getDecryptionKey(key2.getName()));
+
+        keyManager.time = key1.getCreationTime() + (PERIOD + LIFETIME) * 1000L - 1;
+        assertSame(key1, keyManager.getDecryptionKey(key1.getName()));
+
+        keyManager.time += 1;
+        assertNull(keyManager.getDecryptionKey(key1.getName()));
+
+        assertNull(keyManager.getDecryptionKey(new byte[TicketKey.NAME_LENGTH]));
+    }
+
+    public void testTicketKeyManagerArguments()
+    {
+        SecureRandom random = new SecureRandom();
+
+        try
+        {
+            new DefaultTicketKeyManager(random, 7 * 24 * 60 * 60 + 1, PERIOD);
+            fail("excessive ticket lifetime accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new DefaultTicketKeyManager(random, LIFETIME, 0);
+            fail("zero rotation period accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new TicketKey(new byte[TicketKey.NAME_LENGTH - 1], new byte[TicketKey.KEY_LENGTH], 0L);
+            fail("short key name accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testTicketIssued() throws Exception
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(LIFETIME, PERIOD);
+
+        byte[] ticket = issueTicket(new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256));
+        byte[] keyName = Arrays.copyOfRange(ticket, 0, TicketKey.NAME_LENGTH);
+
+        assertTrue(keyManager.getEncryptionKey().hasName(keyName));
+    }
+
+    public void testTicketResumed() throws Exception
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(LIFETIME, PERIOD);
+        TicketServer first = new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256);
+        TicketServer second = new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256);
+
+        connectTwice(first, second);
+
+        assertTrue(first.credentialsRequested);
+        assertTrue(second.ticketPresented);
+        assertFalse(second.credentialsRequested);
+    }
+
+    public void testExpiredTicketRejected() throws Exception
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(1, PERIOD);
+
+        byte[] ticket = issueTicket(new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256));
+
+        // NOTE: Ticket ages are measured against the real clock, so let this one's lifetime run out
+        Thread.sleep(1100);
+
+        TicketServer server = new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256);
+        offerTicket(server, ticket);
+
+        assertTrue(keyManager.decryptionKeyRequests > 0);
+        assertFalse(server.ticketPresented);
+        assertTrue(server.credentialsRequested);
+    }
+
+    public void testTamperedTicketRejected() throws Exception
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(LIFETIME, PERIOD);
+
+        byte[] ticket = issueTicket(new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256));
+        ticket[ticket.length - 20] ^= 0x01;
+
+        TicketServer server = new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256);
+        offerTicket(server, ticket);
+
+        assertTrue(keyManager.decryptionKeyRequests > 0);
+        assertFalse(server.ticketPresented);
+        assertTrue(server.credentialsRequested);
+    }
+
+    public void testWrongKeyTicketRejected() throws Exception
+    {
+        TestTicketKeyManager keyManager1 = new TestTicketKeyManager(LIFETIME, PERIOD);
+        TestTicketKeyManager keyManager2 = new TestTicketKeyManager(LIFETIME, PERIOD);
+        TicketServer first = new TicketServer(keyManager1, CipherSuite.TLS_AES_128_GCM_SHA256);
+        TicketServer second = new TicketServer(keyManager2, CipherSuite.TLS_AES_128_GCM_SHA256);
+
+        connectTwice(first, second);
+
+        assertTrue(keyManager2.decryptionKeyRequests > 0);
+        assertFalse(second.ticketPresented);
+        assertTrue(second.credentialsRequested);
+    }
+
+    public void testCipherSuiteMismatchTicketRejected() throws Exception
+    {
+        TestTicketKeyManager keyManager = new TestTicketKeyManager(LIFETIME, PERIOD);
+        TicketServer first = new TicketServer(keyManager, CipherSuite.TLS_AES_128_GCM_SHA256);
+        TicketServer second = new TicketServer(keyManager, CipherSuite.TLS_AES_256_GCM_SHA384);
+
+        connectTwice(first, second);
+
+        // The ticket is valid, but its SHA-256 PRF can't be used with the SHA-384 cipher suite
+        assertTrue(second.ticketPresented);
+        assertTrue(second.credentialsRequested);
+    }
+
+    /*
+     * The BC client can't (yet) offer a ticket for resumption, so the resumption tests use the SunJSSE
+     * client, which will offer the ticket from the first connection when it connects to the same port again.
+     */
+    private static void connectTwice(TlsServer first, TlsServer second) throws Exception
+    {
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.3");
+        sslContext.init(null, new TrustManager[]{ new TrustAllManager() }, new SecureRandom());
+
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        try
+        {
+            connect(sslContext, serverSocket, first);
+            connect(sslContext, serverSocket, second);
+        }
+        finally
+        {
+            serverSocket.close();
+        }
+    }
+
+    private static void connect(SSLContext sslContext, ServerSocket serverSocket, TlsServer server)
+        throws Exception
+    {
+        ServerThread serverThread = new ServerThread(serverSocket, server);
+        serverThread.start();
+
+        SSLSocket socket = (SSLSocket)sslContext.getSocketFactory().createSocket(serverSocket.getInetAddress(),
+            serverSocket.getLocalPort());
+        try
+        {
+            socket.setEnabledProtocols(new String[]{ "TLSv1.3" });
+
+            // NOTE: The ticket is only processed by the client once it reads past the handshake
+            checkEcho(socket.getInputStream(), socket.getOutputStream());
+
+            socket.shutdownOutput();
+            Streams.drain(socket.getInputStream());
+        }
+        finally
+        {
+            socket.close();
+        }
+
+        serverThread.finish();
+    }
+
+    private static byte[] issueTicket(TlsServer server) throws Exception
+    {
+        PipedInputStream clientRead = TlsTestUtils.createPipedInputStream();
+        PipedInputStream serverRead = TlsTestUtils.createPipedInputStream();
+        PipedOutputStream clientWrite = new PipedOutputStream(serverRead);
+        PipedOutputStream serverWrite = new PipedOutputStream(clientRead);
+
+        // NOTE: Don't let the client close its end of the pipe before the server has sent its close_notify
+        TicketClientProtocol clientProtocol = new TicketClientProtocol(new NetworkInputStream(clientRead),
+            clientWrite);
+        TlsServerProtocol serverProtocol = new TlsServerProtocol(serverRead, serverWrite);
+
+        ServerThread serverThread = new ServerThread(serverProtocol, server);
+        serverThread.start();
+
+        // NOTE: The client has to indicate support for psk_dhe_ke to be issued a ticket
+        MockTlsClient client = new MockTlsClient(null)
+        {
+            public Hashtable getClientExtensions() throws IOException
+            {
+                Hashtable clientExtensions = super.getClientExtensions();
+                TlsExtensionsUtils.addPSKKeyExchangeModesExtension(clientExtensions,
+                    new short[]{ PskKeyExchangeMode.psk_dhe_ke });
+                return clientExtensions;
+            }
+        };
+        clientProtocol.connect(client);
+
+        checkEcho(clientProtocol.getInputStream(), clientProtocol.getOutputStream());
+
+        clientProtocol.close();
+        serverThread.finish();
+
+        assertEquals(1, clientProtocol.tickets.size());
+        assertEquals(server.getTicketKeyManager().getTicketLifetime(), clientProtocol.ticketLifetime);
+
+        return (byte[])clientProtocol.tickets.elementAt(0);
+    }
+
+    /*
+     * Offer the ticket as a PSK identity; the binder will be wrong for a resumption PSK, but that only
+     * matters if the server accepts the ticket.
+     */
+    private static void offerTicket(TlsServer server, final byte[] ticket) throws Exception
+    {
+        PipedInputStream clientRead = TlsTestUtils.createPipedInputStream();
+        PipedInputStream serverRead = TlsTestUtils.createPipedInputStream();
+        PipedOutputStream clientWrite = new PipedOutputStream(serverRead);
+        PipedOutputStream serverWrite = new PipedOutputStream(clientRead);
+
+        // NOTE: Don't let the client close its end of the pipe before the server has sent its close_notify
+        TlsClientProtocol clientProtocol = new TlsClientProtocol(new NetworkInputStream(clientRead),
+            clientWrite);
+        TlsServerProtocol serverProtocol = new TlsServerProtocol(serverRead, serverWrite);
+
+        ServerThread serverThread = new ServerThread(serverProtocol, server);
+        serverThread.start();
+
+        final MockTlsClient client = new MockTlsClient(null)
+        {
+            public Vector getExternalPSKs()
+            {
+                byte[] key = new byte[32];
+                getCrypto().getSecureRandom().nextBytes(key);
+
+                return TlsUtils.vectorOfOne(new BasicTlsPSKExternal(ticket, getCrypto().createSecret(key),
+                    PRFAlgorithm.tls13_hkdf_sha256));
+            }
+        };
+        clientProtocol.connect(client);
+
+        checkEcho(clientProtocol.getInputStream(), clientProtocol.getOutputStream());
+
+        clientProtocol.close();
+        serverThread.finish();
+    }
+
+    private static void checkEcho(InputStream input, OutputStream output) throws IOException
+    {
+        byte[] data = new byte[100];
+        new SecureRandom().nextBytes(data);
+
+        output.write(data);
+        output.flush();
+
+        byte[] echo = new byte[data.length];
+        int count = Streams.readFully(input, echo);
+
+        assertEquals(count, data.length);
+        assertTrue(Arrays.areEqual(data, echo));
+    }
+
+    static class TestTicketKeyManager
+        extends DefaultTicketKeyManager
+    {
+        long time = 1000000L;
+        int decryptionKeyRequests = 0;
+
+        TestTicketKeyManager(long ticketLifetime, long rotationPeriod)
+        {
+            super(new SecureRandom(), ticketLifetime, rotationPeriod);
+        }
+
+        public synchronized TicketKey getDecryptionKey(byte[] name)
+        {
+            ++decryptionKeyRequests;
+            return super.getDecryptionKey(name);
+        }
+
+        protected long currentTimeMillis()
+        {
+            return time;
+        }
+    }
+
+    static class TicketServer
+        extends MockTlsServer
+    {
+        private final TicketKeyManager ticketKeyManager;
+        private final int cipherSuite;
+
+        boolean credentialsRequested = false;
+        boolean ticketPresented = false;
+
+        TicketServer(TicketKeyManager ticketKeyManager, int cipherSuite)
+        {
+            this.ticketKeyManager = ticketKeyManager;
+            this.cipherSuite = cipherSuite;
+        }
+
+        public boolean allowTicketResumption(SessionParameters sessionParameters, byte[] applicationData)
+            throws IOException
+        {
+            ticketPresented = true;
+            return super.allowTicketResumption(sessionParameters, applicationData);
+        }
+
+        public TlsCredentials getCredentials() throws IOException
+        {
+            credentialsRequested = true;
+            return super.getCredentials();
+        }
+
+        public TicketKeyManager getTicketKeyManager()
+        {
+            return ticketKeyManager;
+        }
+
+        protected int[] getSupportedCipherSuites()
+        {
+            return TlsUtils.getSupportedCipherSuites(getCrypto(), new int[]{ cipherSuite });
+        }
+    }
+
+    static class TicketClientProtocol
+        extends TlsClientProtocol
+    {
+        final Vector tickets = new Vector();
+        long ticketLifetime = -1;
+
+        TicketClientProtocol(InputStream input, OutputStream output)
+        {
+            super(input, output);
+        }
+
+        protected void receive13NewSessionTicket(ByteArrayInputStream buf) throws IOException
+        {
+            ticketLifetime = TlsUtils.readUint32(buf);
+            TlsUtils.readUint32(buf);
+            TlsUtils.readOpaque8(buf);
+            tickets.addElement(TlsUtils.readOpaque16(buf, 1));
+            TlsUtils.readOpaque16(buf);
+        }
+    }
+
+    static class TrustAllManager
+        implements X509TrustManager
+    {
+        public void checkClientTrusted(X509Certificate[] chain, String authType)
+        {
+        }
+
+        public void checkServerTrusted(X509Certificate[] chain, String authType)
+        {
+        }
+
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return new X509Certificate[0];
+        }
+    }
+
+    static class ServerThread
+        extends Thread
+    {
+        private final ServerSocket serverSocket;
+        private final TlsServerProtocol serverProtocol;
+        private final TlsServer server;
+
+        private Exception exception = null;
+
+        ServerThread(ServerSocket serverSocket, TlsServer server)
+        {
+            this.serverSocket = serverSocket;
+            this.serverProtocol = null;
+            this.server = server;
+        }
+
+        ServerThread(TlsServerProtocol serverProtocol, TlsServer server)
+        {
+            this.serverSocket = null;
+            this.serverProtocol = serverProtocol;
+            this.server = server;
+        }
+
+        public void run()
+        {
+            try
+            {
+                if (null == serverSocket)
+                {
+                    serve(serverProtocol);
+                }
+                else
+                {
+                    Socket socket = serverSocket.accept();
+                    try
+                    {
+                        serve(new TlsServerProtocol(socket.getInputStream(), socket.getOutputStream()));
+                    }
+                    finally
+                    {
+                        socket.close();
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                exception = e;
+            }
+        }
+
+        void finish() throws Exception
+        {
+            join();
+
+            if (null != exception)
+            {
+                throw exception;
+            }
+        }
+
+        private void serve(TlsServerProtocol protocol) throws IOException
+        {
+            protocol.accept(server);
+            Streams.pipeAll(protocol.getInputStream(), protocol.getOutputStream());
+            protocol.close();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.bouncycastle.tls.test;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsProtocol;
+import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.tls.crypto.DefaultTlsBufferPool;
+import org.bouncycastle.tls.crypto.TlsBufferPool;
+import org.bouncycastle.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class TlsBufferPoolTest
+    extends TestCase
+{
+    public void testDefaultPool()
+    {
+        DefaultTlsBufferPool pool = new DefaultTlsBufferPool(64, 2);
+
+        byte[] a = pool.acquire(10);
+        byte[] b = pool.acquire(64);
+        byte[] c = pool.acquire(65);
+
+        assertEquals(64, a.length);
+        assertEquals(64, b.length);
+        assertEquals(65, c.length);
+
+        Arrays.fill(a, (byte)0x5A);
+        Arrays.fill(b, (byte)0xA5);
+
+        pool.release(a);
+        pool.release(b);
+        pool.release(c);
+        pool.release(new byte[64]);
+        pool.release(null);
+
+        // Only the first two fitting buffers are kept, most recently released first
+        assertSame(b, pool.acquire(1));
+        assertSame(a, pool.acquire(1));
+        assertNotSame(c, pool.acquire(1));
+
+        // Pooled buffers don't carry data from their previous use
+        assertTrue(Arrays.areAllZeroes(a, 0, a.length));
+        assertTrue(Arrays.areAllZeroes(b, 0, b.length));
+
+        try
+        {
+            new DefaultTlsBufferPool(0, 1);
+            fail("zero buffer size accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testPooledAEAD() throws IOException
+    {
+        testPooled(null, false);
+        testPooled(null, true);
+    }
+
+    public void testPooledBlockCipher() throws IOException
+    {
+        int[] cipherSuites = new int[]{ CipherSuite.TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256 };
+
+        testPooled(cipherSuites, false);
+        testPooled(cipherSuites, true);
+    }
+
+    public void testQueueGrowth() throws IOException
+    {
+        final CountingBufferPool pool = new CountingBufferPool();
+
+        TlsClientProtocol clientProtocol = new TlsClientProtocol();
+        TlsServerProtocol serverProtocol = new TlsServerProtocol();
+
+        MockTlsClient client = new MockTlsClient(null)
+        {
+            public TlsBufferPool getBufferPool()
+            {
+                return pool;
+            }
+        };
+
+        clientProtocol.connect(client);
+        serverProtocol.accept(new MockTlsServer());
+
+        boolean hadDataFromServer = true;
+        boolean hadDataFromClient = true;
+        while (hadDataFromServer || hadDataFromClient)
+        {
+            hadDataFromServer = pumpData(serverProtocol, clientProtocol, false);
+            hadDataFromClient = pumpData(clientProtocol, serverProtocol, false);
+        }
+
+        // Let unread application data accumulate well beyond the pool's buffer size, one small record at a time
+        byte[] data = new byte[100];
+        int count = 4 * pool.getBufferSize() / data.length;
+        for (int i = 0; i < count; ++i)
+        {
+            serverProtocol.writeApplicationData(data, 0, data.length);
+            pumpData(serverProtocol, clientProtocol, false);
+        }
+
+        assertEquals(count * data.length, clientProtocol.getAvailableInputBytes());
+
+        // Past the pool's buffer size the queue must grow geometrically, not by each record
+        assertTrue(pool.acquiredOversize > 0);
+        assertTrue(pool.acquiredOversize < 10);
+    }
+
+    private static void testPooled(final int[] onlyCipherSuites, boolean fragment) throws IOException
+    {
+        final CountingBufferPool pool = new CountingBufferPool();
+
+        TlsClientProtocol clientProtocol = new TlsClientProtocol();
+        TlsServerProtocol serverProtocol = new TlsServerProtocol();
+
+        MockTlsClient client = new MockTlsClient(null)
+        {
+            protected ProtocolVersion[] getSupportedVersions()
+            {
+                return null == onlyCipherSuites ? super.getSupportedVersions() : ProtocolVersion.TLSv12.only();
+            }
+
+            protected int[] getSupportedCipherSuites()
+            {
+                return null == onlyCipherSuites ? super.getSupportedCipherSuites() : onlyCipherSuites;
+            }
+
+            public TlsBufferPool getBufferPool()
+            {
+                return pool;
+            }
+        };
+        MockTlsServer server = new MockTlsServer()
+        {
+            public TlsBufferPool getBufferPool()
+            {
+                return pool;
+            }
+        };
+
+        clientProtocol.connect(client);
+        serverProtocol.accept(server);
+
+        boolean hadDataFromServer = true;
+        boolean hadDataFromClient = true;
+        while (hadDataFromServer || hadDataFromClient)
+        {
+            hadDataFromServer = pumpData(serverProtocol, clientProtocol, fragment);
+            hadDataFromClient = pumpData(clientProtocol, serverProtocol, fragment);
+        }
+
+        assertTrue(pool.acquired > 0);
+
+        byte[] data = new byte[20000];
+        client.getCrypto().getSecureRandom().nextBytes(data);
+
+        for (int i = 0; i < 3; ++i)
+        {
+            writeAndRead(clientProtocol, serverProtocol, data, fragment);
+            writeAndRead(serverProtocol, clientProtocol, data, fragment);
+        }
+
+        // Once all data is consumed, every buffer taken from the pool should have been returned
+        assertTrue(pool.outstanding.isEmpty());
+        assertEquals(0, pool.acquiredDirty);
+
+        clientProtocol.close();
+        pumpData(clientProtocol, serverProtocol, fragment);
+        serverProtocol.closeInput();
+        assertTrue(serverProtocol.isClosed());
+        assertTrue(clientProtocol.isClosed());
+    }
+
+    private static void writeAndRead(TlsProtocol writer, TlsProtocol reader, byte[] data, boolean fragment)
+        throws IOException
+    {
+        int dataSize = data.length;
+        writer.writeApplicationData(data, 0, dataSize);
+        pumpData(writer, reader, fragment);
+
+        assertEquals(dataSize, reader.getAvailableInputBytes());
+        byte[] readData = new byte[dataSize];
+        reader.readInput(readData, 0, dataSize);
+        assertTrue(Arrays.areEqual(data, readData));
+    }
+
+    private static boolean pumpData(TlsProtocol from, TlsProtocol to, boolean fragment) throws IOException
+    {
+        int byteCount = from.getAvailableOutputBytes();
+        if (byteCount == 0)
+        {
+            return false;
+        }
+
+        if (fragment)
+        {
+            // Deliver the output in odd-sized pieces, so that records are split across calls
+            byte[] buffer = new byte[1001];
+            while (from.getAvailableOutputBytes() > 0)
+            {
+                int count = Math.min(buffer.length, from.getAvailableOutputBytes());
+                from.readOutput(buffer, 0, count);
+                to.offerInput(buffer, 0, count);
+            }
+        }
+        else
+        {
+            byte[] buffer = new byte[byteCount];
+            from.readOutput(buffer, 0, buffer.length);
+            to.offerInput(buffer);
+        }
+
+        return true;
+    }
+
+    static class CountingBufferPool
+        extends DefaultTlsBufferPool
+    {
+        final Map outstanding = new IdentityHashMap();
+        int acquired = 0;
+        int acquiredDirty = 0;
+        int acquiredOversize = 0;
+
+        public synchronized byte[] acquire(int minLength)
+        {
+            byte[] buf = super.acquire(minLength);
+            outstanding.put(buf, buf);
+            ++acquired;
+            if (minLength > getBufferSize())
+            {
+                ++acquiredOversize;
+            }
+            if (!Arrays.areAllZeroes(buf, 0, buf.length))
+            {
+                ++acquiredDirty;
+            }
+            return buf;
+        }
+
+        public synchronized void release(byte[] buf)
+        {
+            // NOTE: Records encoded before the handshake completes were never taken from the pool
+            outstanding.remove(buf);
+            super.release(buf);
+        }
+    }
+}